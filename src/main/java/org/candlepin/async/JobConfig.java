@@ -16,10 +16,13 @@ package org.candlepin.async;
 
 import org.candlepin.model.Owner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -70,6 +73,8 @@ public class JobConfig<T extends JobConfig> {
     private Owner owner;
     private Map<String, String> arguments;
     private Set<JobConstraint> constraints;
+    private boolean waitWhenBlocked;
+    private List<String> coalescingArguments;
     private int retries;
     private String logLevel;
     private boolean logExecutionDetails;
@@ -80,6 +85,7 @@ public class JobConfig<T extends JobConfig> {
     public JobConfig() {
         this.arguments = new HashMap<>();
         this.constraints = new HashSet<>();
+        this.coalescingArguments = new ArrayList<>();
 
         this.retries = 0;
         this.logExecutionDetails = true;
@@ -306,6 +312,76 @@ public class JobConfig<T extends JobConfig> {
         return Collections.unmodifiableSet(this.constraints);
     }
 
+    /**
+     * Sets whether or not this job should wait for the jobs blocking it to complete when it is
+     * blocked by one of its queuing constraints. Waiting jobs are persisted in the WAITING state,
+     * and are automatically queued once all of the jobs blocking them have reached a terminal
+     * state. If disabled, blocked jobs are aborted immediately.
+     *
+     * @param enabled
+     *  true to have this job wait when blocked; false to abort it
+     *
+     * @return
+     *  this JobConfig instance
+     */
+    public T waitWhenBlocked(boolean enabled) {
+        this.waitWhenBlocked = enabled;
+        return (T) this;
+    }
+
+    /**
+     * Fetches whether or not this job should wait for the jobs blocking it to complete when it is
+     * blocked by one of its queuing constraints.
+     *
+     * @return
+     *  true if this job should wait when blocked; false if it should be aborted
+     */
+    public boolean waitWhenBlocked() {
+        return this.waitWhenBlocked;
+    }
+
+    /**
+     * Sets the arguments by which this job coalesces with waiting jobs. When this job is queued,
+     * any older job with the same key waiting to be queued with the same values for all of these
+     * arguments is superseded by this job, and is canceled. If no arguments are provided, any
+     * existing coalescing arguments will be cleared.
+     *
+     * @param params
+     *  the argument, or arguments, to use for coalescing waiting jobs
+     *
+     * @throws IllegalArgumentException
+     *  if params contains a null or empty argument
+     *
+     * @return
+     *  this JobConfig instance
+     */
+    public T coalesceByArguments(String... params) {
+        this.coalescingArguments.clear();
+
+        if (params != null) {
+            for (String param : params) {
+                if (param == null || param.isEmpty()) {
+                    throw new IllegalArgumentException("params contains a null or empty parameter");
+                }
+            }
+
+            this.coalescingArguments.addAll(Arrays.asList(params));
+        }
+
+        return (T) this;
+    }
+
+    /**
+     * Fetches the arguments by which this job coalesces with waiting jobs. If this job does not
+     * coalesce with waiting jobs, this method returns an empty list.
+     *
+     * @return
+     *  a list of the arguments to use for coalescing waiting jobs
+     */
+    public List<String> getCoalescingArguments() {
+        return Collections.unmodifiableList(this.coalescingArguments);
+    }
+
     /**
      * Sets the number of times this job will be retried if it fails to complete normally. Values
      * lower than 1 indicate the job will not be retried at all on failure.
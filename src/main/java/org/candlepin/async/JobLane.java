@@ -0,0 +1,417 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+
+
+/**
+ * A JobLane represents a pool of job message consumers dedicated to a set of jobs, identified by
+ * their job keys. Lanes are processed independently of each other, so a burst of slow jobs in one
+ * lane cannot starve the jobs of another. Jobs which are not assigned to any configured lane are
+ * processed by the default lane.
+ * <p></p>
+ * Each lane also collects statistics about the job messages it processed on this node.
+ */
+public class JobLane {
+
+    /** The name of the lane processing all jobs not assigned to a configured lane */
+    public static final String DEFAULT_LANE = "default";
+
+    /** The message priority used for jobs when none is configured */
+    public static final int DEFAULT_PRIORITY = 4;
+
+    public static final int MIN_PRIORITY = 0;
+    public static final int MAX_PRIORITY = 9;
+
+    private static final String JOB_KEY_MESSAGE_PROPERTY = "job_key";
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[\\w.-]+$");
+
+    private final String name;
+    private final Set<String> jobKeys;
+    private final int threads;
+    private final int priority;
+    private final String messageFilter;
+
+    private final AtomicInteger running;
+    private final AtomicLong processed;
+    private final AtomicLong failed;
+    private final AtomicLong latencySamples;
+    private final AtomicLong totalQueueLatency;
+    private final AtomicLong maxQueueLatency;
+    private final AtomicLong totalRuntime;
+
+    /**
+     * Creates a new job lane.
+     *
+     * @param name
+     *  the name of the lane
+     *
+     * @param jobKeys
+     *  the keys of the jobs processed by the lane
+     *
+     * @param threads
+     *  the number of threads processing the jobs of the lane
+     *
+     * @param priority
+     *  the message priority of the jobs of the lane
+     *
+     * @param messageFilter
+     *  the message filter selecting the jobs of the lane, or null to select every job
+     */
+    JobLane(String name, Collection<String> jobKeys, int threads, int priority, String messageFilter) {
+        this.name = name;
+        this.jobKeys = Collections.unmodifiableSet(new LinkedHashSet<>(jobKeys));
+        this.threads = threads;
+        this.priority = priority;
+        this.messageFilter = messageFilter;
+
+        this.running = new AtomicInteger();
+        this.processed = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.latencySamples = new AtomicLong();
+        this.totalQueueLatency = new AtomicLong();
+        this.maxQueueLatency = new AtomicLong();
+        this.totalRuntime = new AtomicLong();
+    }
+
+    /**
+     * Builds the job lanes defined by the given configuration. The configured lanes are returned in
+     * the order they are configured, followed by the default lane. If no lanes are configured, the
+     * default lane is the only lane returned, and processes every job.
+     *
+     * @param config
+     *  the configuration from which to read the job lanes
+     *
+     * @throws ConfigurationException
+     *  if the lane configuration is invalid
+     *
+     * @return
+     *  a list containing the configured job lanes and the default lane
+     */
+    public static List<JobLane> fromConfig(Configuration config) throws ConfigurationException {
+        List<JobLane> lanes = new ArrayList<>();
+        Map<String, String> assigned = new HashMap<>();
+
+        for (String entry : config.getList(ConfigProperties.ASYNC_JOBS_LANES, List.of())) {
+            String name = entry.trim();
+
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            if (!NAME_PATTERN.matcher(name).matches() || DEFAULT_LANE.equals(name)) {
+                throw new ConfigurationException("Invalid job lane name: " + name);
+            }
+
+            if (lanes.stream().anyMatch(lane -> lane.getName().equals(name))) {
+                throw new ConfigurationException("Job lane defined more than once: " + name);
+            }
+
+            Set<String> jobKeys = new LinkedHashSet<>();
+            for (String jobKey : config.getList(ConfigProperties.laneConfig(name,
+                ConfigProperties.ASYNC_JOBS_LANE_JOBS), List.of())) {
+
+                jobKey = jobKey.trim();
+
+                if (jobKey.isEmpty()) {
+                    continue;
+                }
+
+                if (!NAME_PATTERN.matcher(jobKey).matches()) {
+                    throw new ConfigurationException(
+                        String.format("Invalid job key for job lane \"%s\": %s", name, jobKey));
+                }
+
+                String previous = assigned.put(jobKey, name);
+                if (previous != null && !previous.equals(name)) {
+                    throw new ConfigurationException(String.format(
+                        "Job \"%s\" assigned to multiple job lanes: %s, %s", jobKey, previous, name));
+                }
+
+                jobKeys.add(jobKey);
+            }
+
+            if (jobKeys.isEmpty()) {
+                throw new ConfigurationException("Job lane does not define any jobs: " + name);
+            }
+
+            int threads = config.getInt(
+                ConfigProperties.laneConfig(name, ConfigProperties.ASYNC_JOBS_LANE_THREADS), 1);
+
+            if (threads < 1) {
+                throw new ConfigurationException(
+                    String.format("Invalid thread count for job lane \"%s\": %d", name, threads));
+            }
+
+            // Impl note: lanes deliberately do not accept additional message filters. The default
+            // lane excludes every job assigned to another lane, so any job message filtered out by
+            // its lane would never be consumed.
+            String messageFilter = String.format("%s IN (%s)", JOB_KEY_MESSAGE_PROPERTY,
+                buildFilterList(jobKeys));
+
+            lanes.add(new JobLane(name, jobKeys, threads, readPriority(config, name), messageFilter));
+        }
+
+        // The default lane takes every job not assigned to another lane
+        String defaultFilter = !assigned.isEmpty() ?
+            String.format("%1$s IS NULL OR %1$s NOT IN (%2$s)", JOB_KEY_MESSAGE_PROPERTY,
+                buildFilterList(assigned.keySet())) :
+            null;
+
+        lanes.add(new JobLane(DEFAULT_LANE, Set.of(), config.getInt(ConfigProperties.ASYNC_JOBS_THREADS),
+            readPriority(config, DEFAULT_LANE), defaultFilter));
+
+        return lanes;
+    }
+
+    /**
+     * Reads the configured message priority of the given lane.
+     */
+    private static int readPriority(Configuration config, String name) throws ConfigurationException {
+        int priority = config.getInt(
+            ConfigProperties.laneConfig(name, ConfigProperties.ASYNC_JOBS_LANE_PRIORITY), DEFAULT_PRIORITY);
+
+        if (priority < MIN_PRIORITY || priority > MAX_PRIORITY) {
+            throw new ConfigurationException(
+                String.format("Invalid priority for job lane \"%s\": %d", name, priority));
+        }
+
+        return priority;
+    }
+
+    /**
+     * Builds a list of string literals for use in a message filter.
+     */
+    private static String buildFilterList(Collection<String> values) {
+        return values.stream()
+            .sorted()
+            .map(value -> "'" + value + "'")
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Combines the given message filters, such that a message must match all of them. Null or
+     * empty filters are ignored. If only one filter remains, it is returned unchanged.
+     *
+     * @param filters
+     *  the filters to combine
+     *
+     * @return
+     *  the combined message filter, or null if all of the filters are null or empty
+     */
+    public static String combineFilters(String... filters) {
+        List<String> parts = new ArrayList<>();
+
+        for (String filter : filters) {
+            if (filter != null && !filter.isBlank()) {
+                parts.add(filter);
+            }
+        }
+
+        if (parts.size() < 2) {
+            return parts.isEmpty() ? null : parts.get(0);
+        }
+
+        return parts.stream()
+            .map(part -> "(" + part + ")")
+            .collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * Fetches the name of this lane.
+     *
+     * @return
+     *  the name of this lane
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Fetches the keys of the jobs processed by this lane. For the default lane, this method
+     * returns an empty set, as it processes every job not assigned to another lane.
+     *
+     * @return
+     *  the keys of the jobs processed by this lane
+     */
+    public Set<String> getJobKeys() {
+        return this.jobKeys;
+    }
+
+    /**
+     * Checks whether or not this is the default lane.
+     *
+     * @return
+     *  true if this is the default lane; false otherwise
+     */
+    public boolean isDefault() {
+        return DEFAULT_LANE.equals(this.name);
+    }
+
+    /**
+     * Fetches the number of threads processing the jobs of this lane.
+     *
+     * @return
+     *  the number of threads of this lane
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Fetches the message priority of the jobs of this lane.
+     *
+     * @return
+     *  the message priority of the jobs of this lane
+     */
+    public int getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Fetches the message filter selecting the jobs of this lane. If this lane processes every
+     * job, this method returns null.
+     *
+     * @return
+     *  the message filter of this lane, or null if this lane processes every job
+     */
+    public String getMessageFilter() {
+        return this.messageFilter;
+    }
+
+    /**
+     * Records the start of the processing of a job message by this lane.
+     *
+     * @param queueLatency
+     *  the time, in milliseconds, the message spent waiting to be received, or a negative value
+     *  if unknown
+     */
+    public void messageReceived(long queueLatency) {
+        this.running.incrementAndGet();
+
+        if (queueLatency >= 0) {
+            this.latencySamples.incrementAndGet();
+            this.totalQueueLatency.addAndGet(queueLatency);
+            this.maxQueueLatency.accumulateAndGet(queueLatency, Math::max);
+        }
+    }
+
+    /**
+     * Records the end of the processing of a job message by this lane.
+     *
+     * @param runtime
+     *  the time, in milliseconds, spent processing the message
+     *
+     * @param success
+     *  whether or not the message was processed successfully
+     */
+    public void messageProcessed(long runtime, boolean success) {
+        this.running.decrementAndGet();
+        this.processed.incrementAndGet();
+        this.totalRuntime.addAndGet(runtime);
+
+        if (!success) {
+            this.failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Fetches the number of job messages currently being processed by this lane.
+     *
+     * @return
+     *  the number of running jobs
+     */
+    public int getRunningCount() {
+        return this.running.get();
+    }
+
+    /**
+     * Fetches the number of job messages processed by this lane.
+     *
+     * @return
+     *  the number of processed job messages
+     */
+    public long getProcessedCount() {
+        return this.processed.get();
+    }
+
+    /**
+     * Fetches the number of job messages this lane failed to process successfully.
+     *
+     * @return
+     *  the number of failed job messages
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * Fetches the average time, in milliseconds, job messages waited before being received by this
+     * lane.
+     *
+     * @return
+     *  the average queue latency, or 0 if no latency has been recorded
+     */
+    public long getAverageQueueLatency() {
+        long samples = this.latencySamples.get();
+        return samples > 0 ? this.totalQueueLatency.get() / samples : 0;
+    }
+
+    /**
+     * Fetches the longest time, in milliseconds, a job message waited before being received by
+     * this lane.
+     *
+     * @return
+     *  the maximum queue latency, or 0 if no latency has been recorded
+     */
+    public long getMaxQueueLatency() {
+        return this.maxQueueLatency.get();
+    }
+
+    /**
+     * Fetches the average time, in milliseconds, spent processing a job message in this lane.
+     *
+     * @return
+     *  the average runtime, or 0 if no message has been processed
+     */
+    public long getAverageRuntime() {
+        long processed = this.processed.get();
+        return processed > 0 ? this.totalRuntime.get() / processed : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobLane [name: %s, threads: %d, priority: %d, filter: %s]",
+            this.name, this.threads, this.priority, this.messageFilter);
+    }
+}
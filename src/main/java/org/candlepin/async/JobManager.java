@@ -63,9 +63,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -789,6 +791,17 @@ public class JobManager implements ModeChangeListener {
         return this.configuration.getBoolean(ConfigProperties.ASYNC_JOBS_SCHEDULER_ENABLED, true);
     }
 
+    /**
+     * Fetches the job lanes processing the job messages received by this node. The default lane,
+     * processing any job not assigned to another lane, is always the last lane returned.
+     *
+     * @return
+     *  a list containing the job lanes of this node
+     */
+    public List<JobLane> getJobLanes() {
+        return this.receiver.getLanes();
+    }
+
     /**
      * Ensures the jobs automatically scheduled according to the system configuration are in sync
      * with the current configuration.
@@ -1065,6 +1078,9 @@ public class JobManager implements ModeChangeListener {
         AsyncJobStatus status = this.buildJobStatus(config);
 
         try {
+            // Cancel any older waiting jobs this job supersedes before they can block it
+            this.supersedeWaitingJobs(config, status);
+
             // Check if the queueing is blocked by constraints
             Collection<JobConstraint> constraints = config.getConstraints();
             Set<String> blockingJobIds = new HashSet<>();
@@ -1079,6 +1095,17 @@ public class JobManager implements ModeChangeListener {
                 }
             }
 
+            if (!blockingJobIds.isEmpty() && config.waitWhenBlocked()) {
+                // Lock the blocking jobs so none of them can complete, and miss releasing this job,
+                // before this job has been committed. Any which completed in the meantime no
+                // longer block this job.
+                blockingJobIds = this.jobCurator.lockAndLoad(blockingJobIds)
+                    .stream()
+                    .filter(job -> !job.getState().isTerminal())
+                    .map(AsyncJobStatus::getId)
+                    .collect(Collectors.toSet());
+            }
+
             // Persist the job status so that the ID will be generated.
             status = this.jobCurator.create(status);
 
@@ -1087,9 +1114,16 @@ public class JobManager implements ModeChangeListener {
                 status = this.postJobStatusMessage(status);
                 log.info("Job queued: {}", status);
             }
-            else {
-                // TODO: Add support for the WAITING option. For now, always default to ABORTED
+            else if (config.waitWhenBlocked()) {
+                String jobIds = String.join(", ", blockingJobIds);
+
+                status.setBlockingJobIds(blockingJobIds);
+                status = this.updateJobStatus(status, JobState.WAITING,
+                    "Job waiting on the following existing jobs: " + jobIds);
 
+                log.info("Job waiting: {}; blocked by the following existing jobs: {}", status, jobIds);
+            }
+            else {
                 String jobIds = blockingJobIds.stream()
                     .collect(Collectors.joining(", "));
 
@@ -1151,6 +1185,136 @@ public class JobManager implements ModeChangeListener {
         return status;
     }
 
+    /**
+     * Cancels the waiting jobs superseded by the given job: older jobs with the same job key which
+     * are waiting to be queued with the same values for all of the job's coalescing arguments. If
+     * the job does not coalesce with waiting jobs, or is missing any of its coalescing arguments,
+     * this method does nothing.
+     *
+     * @param config
+     *  the config of the job being queued
+     *
+     * @param status
+     *  the status of the job being queued
+     */
+    private void supersedeWaitingJobs(JobConfig config, AsyncJobStatus status) {
+        List<String> params = config.getCoalescingArguments();
+        if (params.isEmpty()) {
+            return;
+        }
+
+        JobArguments jobArgs = status.getJobArguments();
+        Map<String, String> argMap = new HashMap<>();
+
+        for (String param : params) {
+            String value = jobArgs.getSerializedValue(param);
+            if (value == null) {
+                return;
+            }
+
+            argMap.put(param, value);
+        }
+
+        List<String> jobIds = this.jobCurator.fetchJobIdsByArguments(status.getJobKey(), argMap,
+            Collections.singleton(JobState.WAITING));
+
+        for (AsyncJobStatus superseded : this.jobCurator.lockAndLoad(jobIds)) {
+            // Another node may have released the job before we got the lock
+            if (superseded.getState() != JobState.WAITING) {
+                continue;
+            }
+
+            superseded.setBlockingJobIds(null);
+            this.updateJobStatus(superseded, JobState.CANCELED, "Job superseded by a newer job");
+
+            log.info("Waiting job superseded by a newer job: {}", superseded);
+        }
+    }
+
+    /**
+     * Queues the jobs waiting on the given job which are no longer blocked by any other active job.
+     * This method should be called whenever a job reaches a terminal state. Failures to release a
+     * waiting job are logged, but do not affect the given job; any job left waiting will be
+     * released by the next sweep of waiting jobs.
+     *
+     * @param blocker
+     *  the job which reached a terminal state
+     */
+    private void releaseWaitingJobs(AsyncJobStatus blocker) {
+        for (AsyncJobStatus waiting : this.jobCurator.getJobsWaitingOn(blocker.getId())) {
+            try {
+                this.releaseWaitingJob(waiting);
+            }
+            catch (Exception e) {
+                log.error("Unable to release job waiting on job {}: {}", blocker.getId(), waiting, e);
+            }
+        }
+    }
+
+    /**
+     * Queues all of the waiting jobs which are no longer blocked by any active job, in the order
+     * they were created. Jobs are normally released as soon as the last job blocking them
+     * completes, so this method only serves as a fallback for jobs which missed their release,
+     * such as when their blocking jobs were aborted in bulk.
+     *
+     * @return
+     *  the number of waiting jobs queued as a result of this operation
+     */
+    @Transactional
+    public int releaseWaitingJobs() {
+        List<AsyncJobStatus> waiting = new ArrayList<>(this.jobCurator.getJobsInState(JobState.WAITING));
+        waiting.sort(Comparator.comparing(AsyncJobStatus::getCreated,
+            Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        int released = 0;
+
+        for (AsyncJobStatus status : waiting) {
+            try {
+                if (this.releaseWaitingJob(status)) {
+                    ++released;
+                }
+            }
+            catch (Exception e) {
+                log.error("Unable to release waiting job: {}", status, e);
+            }
+        }
+
+        return released;
+    }
+
+    /**
+     * Queues the given waiting job if it is no longer blocked by any active job.
+     *
+     * @param status
+     *  the waiting job to release
+     *
+     * @return
+     *  true if the job was queued; false if it is still blocked or is no longer waiting
+     */
+    private boolean releaseWaitingJob(AsyncJobStatus status)
+        throws JobStateManagementException, JobMessageDispatchException {
+
+        // Lock and refresh the job, so only one node releases it
+        AsyncJobStatus locked = this.jobCurator.lockAndLoad(status.getId());
+        if (locked == null) {
+            return false;
+        }
+
+        this.jobCurator.refresh(locked);
+
+        if (locked.getState() != JobState.WAITING ||
+            !this.jobCurator.fetchActiveBlockingJobIds(locked.getId()).isEmpty()) {
+            return false;
+        }
+
+        locked.setBlockingJobIds(null);
+        locked.setJobResult(null);
+        this.postJobStatusMessage(locked);
+
+        log.info("Waiting job released and queued: {}", locked);
+        return true;
+    }
+
     /**
      * Creates and dispatches a job message for the given job status, then updates the state of
      * the job to QUEUED.
@@ -1577,7 +1741,7 @@ public class JobManager implements ModeChangeListener {
 
         try {
             this.setJobState(status, state);
-            return this.jobCurator.merge(status);
+            status = this.jobCurator.merge(status);
         }
         catch (Exception e) {
             String errmsg = String.format("Unable to update job state for job \"%s\": %s -> %s",
@@ -1586,6 +1750,12 @@ public class JobManager implements ModeChangeListener {
             log.error(errmsg, e);
             throw new JobStateManagementException(status, initState, state, errmsg, e, state.isTerminal());
         }
+
+        if (state.isTerminal() && !initState.isTerminal()) {
+            this.releaseWaitingJobs(status);
+        }
+
+        return status;
     }
 
     /**
@@ -1685,6 +1855,7 @@ public class JobManager implements ModeChangeListener {
 
             if (status.getState() != JobState.RUNNING) {
                 this.setJobState(status, JobState.CANCELED);
+                status.setBlockingJobIds(null);
             }
             else {
                 // Impl note: With the locking, we probably shouldn't cancel a job that's in a
@@ -1703,6 +1874,10 @@ public class JobManager implements ModeChangeListener {
             }
 
             status = this.jobCurator.merge(status);
+
+            if (status.getState().isTerminal()) {
+                this.releaseWaitingJobs(status);
+            }
         }
 
         return status;
@@ -1780,7 +1955,14 @@ public class JobManager implements ModeChangeListener {
 
         // Add any other sanity restrictions deemed necessary here
 
-        return this.jobCurator.updateJobState(queryArgs, JobState.ABORTED);
+        int aborted = this.jobCurator.updateJobState(queryArgs, JobState.ABORTED);
+
+        // The bulk update bypasses the usual release of waiting jobs
+        if (aborted > 0) {
+            this.releaseWaitingJobs();
+        }
+
+        return aborted;
     }
 
     /**
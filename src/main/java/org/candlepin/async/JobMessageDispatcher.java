@@ -50,6 +50,9 @@ public class JobMessageDispatcher {
 
     private static final String JOB_KEY_MESSAGE_PROPERTY = "job_key";
 
+    /** The message property containing the time, in milliseconds since the epoch, a job was queued */
+    static final String QUEUED_TIME_MESSAGE_PROPERTY = "queued_time";
+
     /**
      * The ThreadSessionStore is used to store session information per thread.
      */
@@ -201,6 +204,8 @@ public class JobMessageDispatcher {
     private final Map<ThreadReference, ThreadSessionStore> sessions;
 
     private String dispatchAddress;
+    private Map<String, Integer> jobPriorities;
+    private int defaultPriority;
 
     /**
      * Creates a new JobMessageDispatcher instance for sending job messages to the backing
@@ -247,6 +252,19 @@ public class JobMessageDispatcher {
         if (this.dispatchAddress == null || this.dispatchAddress.isEmpty()) {
             throw new ConfigurationException("Invalid job dispatch address: address cannot be null or empty");
         }
+
+        // Jobs are sent with the priority of the lane processing them
+        this.jobPriorities = new HashMap<>();
+
+        for (JobLane lane : JobLane.fromConfig(config)) {
+            if (lane.isDefault()) {
+                this.defaultPriority = lane.getPriority();
+            }
+
+            for (String jobKey : lane.getJobKeys()) {
+                this.jobPriorities.put(jobKey, lane.getPriority());
+            }
+        }
     }
 
     /**
@@ -321,6 +339,10 @@ public class JobMessageDispatcher {
                 .setDurable(true)
                 .setProperty(JOB_KEY_MESSAGE_PROPERTY, jobMessage.getJobKey());
 
+            message.setProperty(QUEUED_TIME_MESSAGE_PROPERTY, String.valueOf(System.currentTimeMillis()));
+            int priority = this.jobPriorities.getOrDefault(jobMessage.getJobKey(), this.defaultPriority);
+            message.setPriority(priority);
+
             String serializedJobMessage = this.objMapper.writeValueAsString(jobMessage);
             message.setBody(serializedJobMessage);
 
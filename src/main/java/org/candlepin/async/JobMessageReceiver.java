@@ -34,8 +34,13 @@ import com.google.inject.persist.UnitOfWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -59,10 +64,10 @@ public class JobMessageReceiver {
     private boolean initialized;
     private boolean suspended;
 
-    private MessageListener listener;
+    private List<JobLane> lanes;
     private String receiveAddress;
     private String receiveFilter;
-    private Set<CPMSession> sessions;
+    private Map<MessageListener, Set<CPMSession>> sessions;
     private UnitOfWork unitOfWork;
 
 
@@ -89,7 +94,7 @@ public class JobMessageReceiver {
 
         this.initialized = false;
         this.suspended = false;
-        this.sessions = new HashSet<>();
+        this.sessions = new LinkedHashMap<>();
 
         this.configure(this.config);
     }
@@ -110,15 +115,20 @@ public class JobMessageReceiver {
         }
 
         this.receiveFilter = config.getString(ConfigProperties.ASYNC_JOBS_RECEIVE_FILTER, null);
+        this.lanes = JobLane.fromConfig(config);
     }
 
     /**
-     * Creates and configures a new session and consumer
+     * Creates and configures a new session and consumer, receiving the messages of the given
+     * listener's job lane
+     *
+     * @param listener
+     *  the message listener to receive the messages of the new consumer
      *
      * @return
      *  The newly created CPM session
      */
-    private CPMSession createSession() throws CPMException {
+    private CPMSession createSession(MessageListener listener) throws CPMException {
         CPMSessionConfig sconfig = this.cpmSessionFactory.createSessionConfig()
             .setTransactional(true);
 
@@ -126,12 +136,14 @@ public class JobMessageReceiver {
 
         CPMSession session = this.cpmSessionFactory.createSession(sconfig);
 
+        String filter = JobLane.combineFilters(this.receiveFilter, listener.getLane().getMessageFilter());
+
         CPMConsumerConfig cconfig = session.createConsumerConfig()
             .setQueue(this.receiveAddress)
-            .setMessageFilter(this.receiveFilter);
+            .setMessageFilter(filter);
 
         session.createConsumer(cconfig)
-            .setMessageListener(this.listener);
+            .setMessageListener(listener);
 
         // Once the consumer is configured, we no longer need to propagate it, as it'll be managed
         // indirectly through the session, and passed into the message listener as needed
@@ -144,28 +156,32 @@ public class JobMessageReceiver {
      * will recreate it.
      */
     private void startSessions() throws CPMException {
-        Set<CPMSession> created = null;
+        for (Map.Entry<MessageListener, Set<CPMSession>> entry : this.sessions.entrySet()) {
+            MessageListener listener = entry.getKey();
+            Set<CPMSession> sessions = entry.getValue();
+            Set<CPMSession> created = null;
 
-        Iterator<CPMSession> iterator = this.sessions.iterator();
-        while (iterator.hasNext()) {
-            CPMSession session = iterator.next();
+            Iterator<CPMSession> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                CPMSession session = iterator.next();
 
-            if (session == null || session.isClosed()) {
-                if (created == null) {
-                    created = new HashSet<>();
-                }
+                if (session == null || session.isClosed()) {
+                    if (created == null) {
+                        created = new HashSet<>();
+                    }
 
-                iterator.remove();
-                session = this.createSession();
+                    iterator.remove();
+                    session = this.createSession(listener);
 
-                created.add(session);
-            }
+                    created.add(session);
+                }
 
-            session.start();
-        }
+                session.start();
+            }
 
-        if (created != null) {
-            this.sessions.addAll(created);
+            if (created != null) {
+                sessions.addAll(created);
+            }
         }
     }
 
@@ -173,8 +189,10 @@ public class JobMessageReceiver {
      * Close all known sessions.
      */
     private void closeSessions() throws CPMException {
-        for (CPMSession session : this.sessions) {
-            session.close();
+        for (Set<CPMSession> sessions : this.sessions.values()) {
+            for (CPMSession session : sessions) {
+                session.close();
+            }
         }
     }
 
@@ -201,17 +219,21 @@ public class JobMessageReceiver {
         }
 
         try {
-            this.listener = new MessageListener(manager, this.mapper, this.unitOfWork);
-            int listenerThreads = this.config.getInt(ConfigProperties.ASYNC_JOBS_THREADS);
-
-            log.info("Creating {} threads receiving job messages from address: \"{}\", with filter: \"{}\"",
-                listenerThreads, this.receiveAddress, this.receiveFilter);
+            for (JobLane lane : this.lanes) {
+                MessageListener listener = new MessageListener(manager, lane, this.mapper, this.unitOfWork);
+                Set<CPMSession> sessions = new HashSet<>();
+
+                log.info("Creating {} threads for job lane \"{}\" receiving job messages from address: " +
+                    "\"{}\", with filter: \"{}\"", lane.getThreads(), lane.getName(), this.receiveAddress,
+                    JobLane.combineFilters(this.receiveFilter, lane.getMessageFilter()));
+
+                for (int i = 0; i < lane.getThreads(); ++i) {
+                    // Each session+consumer gives us an implicit thread for async job processing, so
+                    // we don't need to do any additional thread creation/management ourselves.
+                    sessions.add(this.createSession(listener));
+                }
 
-            for (int i = 0; i < listenerThreads; ++i) {
-                // Each session+consumer gives us an implicit thread for async job processing, so
-                // we don't need to do any additional thread creation/management ourselves.
-                CPMSession session = this.createSession();
-                this.sessions.add(session);
+                this.sessions.put(listener, sessions);
             }
 
             this.initialized = true;
@@ -230,15 +252,25 @@ public class JobMessageReceiver {
      */
     public synchronized void shutdown() throws JobException {
         try {
-            for (CPMSession session : this.sessions) {
-                session.close();
-            }
+            this.closeSessions();
         }
         catch (CPMException e) {
             throw new JobException(e);
         }
     }
 
+    /**
+     * Fetches the job lanes processing the job messages received by this message receiver. The
+     * default lane, processing any job not assigned to another lane, is always the last lane
+     * returned.
+     *
+     * @return
+     *  an unmodifiable list containing the job lanes of this message receiver
+     */
+    public List<JobLane> getLanes() {
+        return Collections.unmodifiableList(this.lanes);
+    }
+
     /**
      * Checks if this message receiver has been initialized.
      *
@@ -309,6 +341,7 @@ public class JobMessageReceiver {
     private static class MessageListener implements CPMMessageListener {
 
         private final JobManager manager;
+        private final JobLane lane;
         private final ObjectMapper mapper;
         private final UnitOfWork unitOfWork;
 
@@ -318,18 +351,37 @@ public class JobMessageReceiver {
          *
          * @param manager
          *  The JobManager instance to process received job messages; cannot be null
+         *
+         * @param lane
+         *  The job lane to which the received job messages belong; cannot be null
          */
-        public MessageListener(JobManager manager, ObjectMapper mapper, UnitOfWork unitOfWork) {
+        public MessageListener(JobManager manager, JobLane lane, ObjectMapper mapper, UnitOfWork unitOfWork) {
             this.manager = Objects.requireNonNull(manager);
+            this.lane = Objects.requireNonNull(lane);
             this.mapper = Objects.requireNonNull(mapper);
             this.unitOfWork = Objects.requireNonNull(unitOfWork);
         }
 
+        /**
+         * Fetches the job lane to which the messages received by this listener belong
+         *
+         * @return
+         *  the job lane of this listener
+         */
+        public JobLane getLane() {
+            return this.lane;
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public void handleMessage(CPMSession session, CPMConsumer consumer, CPMMessage message) {
+            long received = System.currentTimeMillis();
+            boolean success = false;
+
+            this.lane.messageReceived(this.getQueueLatency(message, received));
+
             try {
                 if (log.isDebugEnabled()) {
                     log.debug("Received message: {}", this.serializeMessage(message));
@@ -351,6 +403,7 @@ public class JobMessageReceiver {
 
                 // We didn't fail! Commit the message
                 this.commit(session);
+                success = true;
             }
             catch (JobExecutionException e) {
                 // The job failed during execution; retry logic within JobManager will handle this
@@ -442,6 +495,24 @@ public class JobMessageReceiver {
             }
             finally {
                 this.unitOfWork.end();
+                this.lane.messageProcessed(System.currentTimeMillis() - received, success);
+            }
+        }
+
+        /**
+         * Calculates the time the given message spent waiting in the queue, using the queued time
+         * set by the job message dispatcher.
+         *
+         * @return
+         *  the time the message spent in the queue, in milliseconds, or -1 if it cannot be determined
+         */
+        private long getQueueLatency(CPMMessage message, long received) {
+            try {
+                String queued = message.getProperty(JobMessageDispatcher.QUEUED_TIME_MESSAGE_PROPERTY);
+                return queued != null ? Math.max(0, received - Long.parseLong(queued)) : -1;
+            }
+            catch (NumberFormatException e) {
+                return -1;
             }
         }
 
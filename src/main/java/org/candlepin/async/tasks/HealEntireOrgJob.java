@@ -98,6 +98,13 @@ public class HealEntireOrgJob implements AsyncJob {
             Date entitleDate = arguments.getAs(ENTITLE_DATE_KEY, Date.class);
             StringBuilder result = new StringBuilder();
 
+            // Impl note:
+            // Consumers are healed one at a time, rather than batch-evaluating the org's statuses
+            // with ComplianceRules.getStatuses first. Auto-attach evaluates compliance on the
+            // entitle date, which the batch evaluation does not support. Healing a guest also heals
+            // its host first, which changes the status of consumers later in the list. A status
+            // evaluated up front could not be used to skip consumers, because auto-attach still
+            // cleans up expired guest entitlements on consumers that are already compliant.
             Transactional<String> transaction = this.consumerCurator.transactional(this::healSingleConsumer)
                 .onCommit(status -> eventSink.sendEvents())
                 .onRollback(status -> eventSink.rollback());
@@ -46,6 +46,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
@@ -128,7 +129,8 @@ public class HypervisorUpdateJob implements AsyncJob {
 
             final HypervisorList hypervisors = parsedHypervisors(arguments);
             final HypervisorUpdateAction.Result updateResult = hypervisorUpdateAction.update(
-                owner, hypervisors.getHypervisors(), create, principal, jobReporterId);
+                owner, hypervisors.getHypervisors(), hypervisors.getHashes(), create, principal,
+                jobReporterId);
             final HypervisorUpdateResultDTO result = updateResult.getResult();
 
             log.info("Summary for report from {} by principal {}\n {}", jobReporterId, principal, result);
@@ -183,7 +185,9 @@ public class HypervisorUpdateJob implements AsyncJob {
         public HypervisorUpdateJobConfig() {
             this.setJobKey(JOB_KEY)
                 .setJobName(JOB_NAME)
-                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY));
+                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY))
+                .waitWhenBlocked(true)
+                .coalesceByArguments(OWNER_KEY, REPORTER_ID_KEY);
         }
 
         /**
@@ -271,12 +275,16 @@ public class HypervisorUpdateJob implements AsyncJob {
     }
 
     /**
-     * Class for holding the list of consumers in the stored json text
+     * Class for holding the list of consumers in the stored json text. Reporters may also provide
+     * an optional map of content hashes, keyed by hypervisor ID, which change whenever the name,
+     * facts or guest IDs of a host change. Known hosts reported with the same hash as their last
+     * report are not reconciled again.
      *
      * @author wpoteat
      */
     public static class HypervisorList {
         private List<ConsumerDTO> hypervisors;
+        private Map<String, String> hashes;
 
         public List<ConsumerDTO> getHypervisors() {
             return this.hypervisors;
@@ -285,6 +293,14 @@ public class HypervisorUpdateJob implements AsyncJob {
         public void setConsumers(List<ConsumerDTO> hypervisors) {
             this.hypervisors = hypervisors;
         }
+
+        public Map<String, String> getHashes() {
+            return this.hashes;
+        }
+
+        public void setHashes(Map<String, String> hashes) {
+            this.hashes = hashes;
+        }
     }
 
 }
@@ -39,7 +39,8 @@ import java.util.stream.Collectors;
 
 
 /**
- * The JobCleaner job deletes terminal jobs older than the max job age (default: 7 days)
+ * The JobCleaner job deletes terminal jobs older than the max job age (default: 7 days), and
+ * releases any waiting jobs which are no longer blocked
  */
 public class JobCleaner implements AsyncJob {
     private static Logger log = LoggerFactory.getLogger(JobCleaner.class);
@@ -96,6 +97,9 @@ public class JobCleaner implements AsyncJob {
                 aborted, runningCutoff));
         }
 
+        int released = this.jobManager.releaseWaitingJobs();
+        result.append(String.format("Released %d waiting jobs no longer blocked by other jobs\n", released));
+
         context.setJobResult(result.toString());
     }
 
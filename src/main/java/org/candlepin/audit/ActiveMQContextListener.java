@@ -40,6 +40,9 @@ public class ActiveMQContextListener {
     private ArtemisMessageSource messageSource;
 
     public void contextDestroyed(Injector injector) {
+        // Send any events still queued for asynchronous dispatch before closing the connections
+        injector.getInstance(EventDispatcher.class).shutdown();
+
         if (this.messageSource != null) {
             this.messageSource.shutDown();
         }
@@ -60,8 +60,18 @@ public class DefaultEventMessageReceiver extends EventMessageReceiver {
             }
 
             log.debug("Got event: {}", body);
-            Event event = mapper.readValue(body, Event.class);
-            listener.onEvent(event);
+
+            // Messages sent by the EventDispatcher carry several events. Should any of them fail,
+            // the whole message is redelivered, including the events already processed.
+            if (msg.containsProperty(EventDispatcher.EVENT_COUNT_KEY)) {
+                for (Event event : mapper.readValue(body, Event[].class)) {
+                    listener.onEvent(event);
+                }
+            }
+            else {
+                Event event = mapper.readValue(body, Event.class);
+                listener.onEvent(event);
+            }
 
             log.debug("Message listener {} processed message: {}: SUCCESS", listener, msg.getMessageID());
             // Finally commit the session so that the message is taken out of the queue.
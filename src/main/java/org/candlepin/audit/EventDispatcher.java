@@ -0,0 +1,345 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import org.candlepin.async.impl.ActiveMQSessionFactory;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Sends the events of committed requests and jobs to the message broker from a background
+ * thread, so the serialization of the events and the broker round trips are not performed on
+ * the thread which emitted them.
+ * <p></p>
+ * Events are packed into envelope messages of up to the configured batch size. Each envelope
+ * only contains a run of consecutive events of the same type and target, so the
+ * {@link EventSinkImpl#EVENT_TYPE_KEY} and {@link EventSinkImpl#EVENT_TARGET_KEY} properties
+ * remain accurate and the events are sent in the order they were emitted. The body of an
+ * envelope is a JSON array of the serialized events, and the number of events it carries is
+ * stored in the {@link #EVENT_COUNT_KEY} property, which receivers use to tell envelopes apart
+ * from messages carrying a single event.
+ * <p></p>
+ * The envelopes of a request or job are sent together, in order, by a single background thread.
+ * The number of requests and jobs waiting for their events to be sent is bounded. Once the limit
+ * is reached, the threads dispatching events block until there is room in the queue, slowing
+ * down the emitters until the broker catches up without sending events out of order.
+ */
+@Singleton
+public class EventDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(EventDispatcher.class);
+
+    public static final String EVENT_COUNT_KEY = "EVENT_COUNT";
+
+    private final ActiveMQSessionFactory sessionFactory;
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int queueSize;
+
+    private ThreadPoolExecutor executor;
+    private boolean shutdown;
+
+    private final AtomicLong dispatchedEvents;
+    private final AtomicLong sentMessages;
+    private final AtomicLong failedEvents;
+
+    @Inject
+    public EventDispatcher(Configuration config, ActiveMQSessionFactory sessionFactory,
+        ObjectMapper mapper) {
+
+        this.sessionFactory = Objects.requireNonNull(sessionFactory);
+        this.mapper = Objects.requireNonNull(mapper);
+        this.enabled = config.getBoolean(ConfigProperties.AUDIT_DISPATCH_ASYNC);
+        this.batchSize = Math.max(1, config.getInt(ConfigProperties.AUDIT_DISPATCH_BATCH_SIZE));
+        this.queueSize = Math.max(1, config.getInt(ConfigProperties.AUDIT_DISPATCH_QUEUE_SIZE));
+
+        this.dispatchedEvents = new AtomicLong();
+        this.sentMessages = new AtomicLong();
+        this.failedEvents = new AtomicLong();
+    }
+
+    /**
+     * Checks whether or not events should be handed to this dispatcher once their request or job
+     * completes, rather than being sent by the event sink itself.
+     *
+     * @return
+     *  true if asynchronous event dispatch is enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Sends the given events to the message broker, in the order given. This method must only be
+     * called once the request or job which emitted the events has completed successfully. The
+     * events are sent in the background, once the events of the previous requests and jobs have
+     * been sent. If the dispatch queue is full, this method blocks until there is room for the
+     * events. If the dispatcher has been shut down, the events are sent before this method
+     * returns.
+     *
+     * @param events
+     *  the events to send
+     */
+    public void dispatch(List<Event> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        this.dispatchedEvents.addAndGet(events.size());
+
+        List<List<Event>> envelopes = this.buildEnvelopes(events);
+        Runnable task = () -> envelopes.forEach(this::send);
+
+        ThreadPoolExecutor executor = this.getExecutor();
+        if (executor != null) {
+            executor.execute(task);
+        }
+        else {
+            task.run();
+        }
+    }
+
+    /**
+     * Splits the given events into the envelopes to send. Consecutive events of the same type and
+     * target are packed together, up to the batch size, while events of differing types or
+     * targets start a new envelope so the original order of the events is kept.
+     *
+     * @param events
+     *  the events to split into envelopes
+     *
+     * @return
+     *  the envelopes to send, in order
+     */
+    private List<List<Event>> buildEnvelopes(List<Event> events) {
+        List<List<Event>> envelopes = new ArrayList<>();
+        List<Event> envelope = null;
+
+        for (Event event : events) {
+            if (envelope == null || envelope.size() >= this.batchSize ||
+                !isSameDestination(envelope.get(0), event)) {
+
+                envelope = new ArrayList<>();
+                envelopes.add(envelope);
+            }
+
+            envelope.add(event);
+        }
+
+        return envelopes;
+    }
+
+    private static boolean isSameDestination(Event first, Event second) {
+        return first.getType() == second.getType() && first.getTarget() == second.getTarget();
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor() {
+        if (this.executor == null && !this.shutdown) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(this.queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "event-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }, EventDispatcher::waitForRoom);
+        }
+
+        return this.executor;
+    }
+
+    /**
+     * Handles the events rejected by the executor. Running them on the dispatching thread would
+     * send them ahead of the events already queued, so the dispatching thread instead waits for
+     * room in the queue. Once the executor has been shut down, nothing remains to be sent ahead
+     * of the events, and they are sent directly.
+     */
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor executor) {
+        if (!executor.isShutdown()) {
+            try {
+                executor.getQueue().put(task);
+                return;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting to queue events; sending them directly");
+            }
+        }
+
+        task.run();
+    }
+
+    /**
+     * Serializes the given events into a single envelope message and sends it in its own
+     * transacted session.
+     *
+     * @param events
+     *  the events to send; all of the events must share the same type and target
+     */
+    void send(List<Event> events) {
+        List<Event> serialized = new ArrayList<>(events.size());
+        StringWriter body = new StringWriter();
+
+        try (JsonGenerator generator = this.mapper.getFactory().createGenerator(body)) {
+            generator.writeStartArray();
+
+            for (Event event : events) {
+                try {
+                    generator.writeRawValue(this.mapper.writeValueAsString(event));
+                    serialized.add(event);
+                }
+                catch (Exception e) {
+                    log.error("Unable to serialize event: {}", event, e);
+                    this.failedEvents.incrementAndGet();
+                }
+            }
+
+            generator.writeEndArray();
+        }
+        catch (Exception e) {
+            log.error("Unable to build event envelope", e);
+            this.failedEvents.addAndGet(serialized.size());
+            return;
+        }
+
+        if (serialized.isEmpty()) {
+            return;
+        }
+
+        Event first = serialized.get(0);
+
+        try (ClientSession session = this.sessionFactory.getEgressSession(true)) {
+            ClientProducer producer = session.createProducer(MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS);
+
+            ClientMessage message = session.createMessage(ClientMessage.TEXT_TYPE, true);
+            message.getBodyBuffer().writeNullableSimpleString(SimpleString.toSimpleString(body.toString()));
+            message.putIntProperty(EVENT_COUNT_KEY, serialized.size());
+
+            if (first.getType() != null) {
+                message.putStringProperty(EventSinkImpl.EVENT_TYPE_KEY, first.getType().name());
+            }
+
+            if (first.getTarget() != null) {
+                message.putStringProperty(EventSinkImpl.EVENT_TARGET_KEY, first.getTarget().name());
+            }
+
+            producer.send(message);
+            session.commit();
+
+            this.sentMessages.incrementAndGet();
+            log.debug("Sent {} events in a single message", serialized.size());
+        }
+        catch (Exception e) {
+            // As with synchronous dispatch, event errors must not interfere with the application
+            log.error("Unable to send {} events", serialized.size(), e);
+            this.failedEvents.addAndGet(serialized.size());
+        }
+    }
+
+    /**
+     * Stops the background dispatch, waiting for the events already queued to be sent. Events
+     * dispatched after this method is called are sent by the dispatching thread.
+     */
+    public void shutdown() {
+        ThreadPoolExecutor executor;
+
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+            this.shutdown = true;
+        }
+
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for {} queued event messages to be sent",
+                    executor.getQueue().size());
+
+                executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Fetches the number of requests and jobs whose events are waiting to be sent.
+     *
+     * @return
+     *  the number of queued event batches
+     */
+    public int getQueuedBatchCount() {
+        ThreadPoolExecutor executor = this.executor;
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    /**
+     * Fetches the number of events handed to this dispatcher.
+     *
+     * @return
+     *  the number of dispatched events
+     */
+    public long getDispatchedEventCount() {
+        return this.dispatchedEvents.get();
+    }
+
+    /**
+     * Fetches the number of envelope messages successfully sent to the broker.
+     *
+     * @return
+     *  the number of sent messages
+     */
+    public long getSentMessageCount() {
+        return this.sentMessages.get();
+    }
+
+    /**
+     * Fetches the number of events which could not be serialized or sent.
+     *
+     * @return
+     *  the number of failed events
+     */
+    public long getFailedEventCount() {
+        return this.failedEvents.get();
+    }
+}
@@ -39,6 +39,7 @@ import org.apache.activemq.artemis.api.core.client.ClientSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -66,10 +67,13 @@ public class EventSinkImpl implements EventSink {
     private ActiveMQSessionFactory sessionFactory;
     private EventMessageSender messageSender;
 
+    private EventDispatcher dispatcher;
+    private List<Event> pendingEvents;
+
     @Inject
     public EventSinkImpl(EventFilter eventFilter, EventFactory eventFactory,
         ObjectMapper mapper, Configuration config, ActiveMQSessionFactory sessionFactory,
-        CandlepinModeManager modeManager) throws ActiveMQException {
+        CandlepinModeManager modeManager, EventDispatcher dispatcher) throws ActiveMQException {
 
         this.eventFactory = eventFactory;
         this.mapper = mapper;
@@ -77,6 +81,7 @@ public class EventSinkImpl implements EventSink {
         this.modeManager = modeManager;
         this.config = config;
         this.sessionFactory = sessionFactory;
+        this.dispatcher = dispatcher;
     }
 
     // FIXME This method really does not belong here. It should probably be moved
@@ -112,7 +117,9 @@ public class EventSinkImpl implements EventSink {
      * Events are filtered, meaning that some of them might not even get into ActiveMQ.
      * Details about the filtering are documented in EventFilter class
      *
-     * ActiveMQ transaction actually manages the queue of events to be sent.
+     * ActiveMQ transaction actually manages the queue of events to be sent, unless asynchronous
+     * dispatch is enabled, in which case the events are kept here until sendEvents() hands them
+     * to the EventDispatcher.
      */
     @Override
     public void queueEvent(Event event) {
@@ -127,6 +134,16 @@ public class EventSinkImpl implements EventSink {
 
         log.debug("Queuing event: {}", event);
 
+        if (this.dispatcher.isEnabled()) {
+            // Serialization is deferred to the dispatcher, once the request or job has completed
+            if (this.pendingEvents == null) {
+                this.pendingEvents = new ArrayList<>();
+            }
+
+            this.pendingEvents.add(event);
+            return;
+        }
+
         try {
             // Lazily initialize the message sender when the first
             // message gets queued.
@@ -152,7 +169,17 @@ public class EventSinkImpl implements EventSink {
             log.debug("No events to send.");
             return;
         }
-        messageSender.sendMessages();
+
+        if (this.pendingEvents != null) {
+            List<Event> events = this.pendingEvents;
+            this.pendingEvents = null;
+
+            this.dispatcher.dispatch(events);
+        }
+
+        if (this.messageSender != null) {
+            this.messageSender.sendMessages();
+        }
     }
 
     @Override
@@ -161,11 +188,16 @@ public class EventSinkImpl implements EventSink {
             log.debug("No events to roll back.");
             return;
         }
-        messageSender.cancelMessages();
+
+        this.pendingEvents = null;
+
+        if (this.messageSender != null) {
+            this.messageSender.cancelMessages();
+        }
     }
 
     private boolean hasQueuedMessages() {
-        return messageSender != null;
+        return messageSender != null || pendingEvents != null;
     }
 
     public void emitConsumerCreated(Consumer newConsumer) {
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import com.google.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Caches the signed "ENTITLEMENT DATA" payloads of simple content access certificates. In SCA mode
+ * the payload depends only on the organization's content view, the consumer's environments and the
+ * consumer's architectures, so consumers sharing those inputs can share a single signed payload
+ * rather than rebuilding and re-signing it individually.
+ * <p></p>
+ * The cache is bounded and evicts the least recently used payloads once the configured maximum is
+ * reached. Since the organization's last content update is part of the key, any change to the
+ * content view naturally results in a cache miss; stale entries are left to age out.
+ */
+@Singleton
+public class ContentAccessPayloadCache {
+    private static final Logger log = LoggerFactory.getLogger(ContentAccessPayloadCache.class);
+
+    private final int maxSize;
+    private final Map<String, String> payloads;
+
+    @Inject
+    public ContentAccessPayloadCache(Configuration config) {
+        this.maxSize = Math.max(0, config.getInt(ConfigProperties.SCA_PAYLOAD_CACHE_MAX));
+
+        // Access-ordered map so eviction picks the least recently used payload
+        this.payloads = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Builds the cache key for a payload generated for the given owner, environments, content view
+     * update time and consumer architectures. Environment IDs are used in the order provided, as
+     * environment priority affects the content paths included in the payload; architectures are
+     * sorted, as their order has no bearing on the generated payload.
+     *
+     * @param ownerId
+     *  the ID of the owner for which the payload is generated
+     *
+     * @param environmentIds
+     *  the IDs of the consumer's environments, in priority order
+     *
+     * @param lastContentUpdate
+     *  the owner's last content update date
+     *
+     * @param arches
+     *  the architectures used to filter the payload content
+     *
+     * @throws IllegalArgumentException
+     *  if ownerId or lastContentUpdate are null
+     *
+     * @return
+     *  the cache key for the given payload inputs
+     */
+    public static String buildKey(String ownerId, List<String> environmentIds, Date lastContentUpdate,
+        Collection<String> arches) {
+
+        if (ownerId == null) {
+            throw new IllegalArgumentException("ownerId is null");
+        }
+
+        if (lastContentUpdate == null) {
+            throw new IllegalArgumentException("lastContentUpdate is null");
+        }
+
+        List<String> sortedArches = new ArrayList<>();
+        if (arches != null) {
+            sortedArches.addAll(arches);
+            Collections.sort(sortedArches);
+        }
+
+        return new StringBuilder(ownerId)
+            .append(':')
+            .append(lastContentUpdate.getTime())
+            .append(':')
+            .append(environmentIds != null ? String.join(",", environmentIds) : "")
+            .append(':')
+            .append(String.join(",", sortedArches))
+            .toString();
+    }
+
+    /**
+     * Fetches the cached payload for the given key.
+     *
+     * @param key
+     *  the payload key, as built by {@link #buildKey}
+     *
+     * @return
+     *  the cached payload and signature, or null if no payload is cached for the key
+     */
+    public String get(String key) {
+        if (key == null || this.maxSize == 0) {
+            return null;
+        }
+
+        synchronized (this.payloads) {
+            String payload = this.payloads.get(key);
+            log.debug("SCA payload cache {} for key: {}", payload != null ? "hit" : "miss", key);
+
+            return payload;
+        }
+    }
+
+    /**
+     * Stores the payload for the given key, replacing any payload previously cached for it.
+     *
+     * @param key
+     *  the payload key, as built by {@link #buildKey}
+     *
+     * @param payload
+     *  the signed payload to cache
+     */
+    public void put(String key, String payload) {
+        if (this.maxSize == 0) {
+            return;
+        }
+
+        synchronized (this.payloads) {
+            this.payloads.put(Objects.requireNonNull(key), Objects.requireNonNull(payload));
+        }
+    }
+
+    /**
+     * Removes all cached payloads.
+     */
+    public void clear() {
+        synchronized (this.payloads) {
+            this.payloads.clear();
+        }
+    }
+
+    /**
+     * Fetches the number of payloads currently cached.
+     *
+     * @return
+     *  the number of cached payloads
+     */
+    public int size() {
+        synchronized (this.payloads) {
+            return this.payloads.size();
+        }
+    }
+}
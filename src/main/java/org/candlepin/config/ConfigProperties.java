@@ -120,6 +120,21 @@ public class ConfigProperties {
      */
     public static final String AUDIT_FILTER_DEFAULT_POLICY = "candlepin.audit.filter.policy";
 
+    /**
+     * Enables sending events from a background thread once their request or job completes, packing
+     * consecutive events of the same type and target into each message. See EventDispatcher
+     */
+    public static final String AUDIT_DISPATCH_ASYNC = "candlepin.audit.dispatch.async";
+    /**
+     * The maximum number of events packed into a single message when dispatching asynchronously
+     */
+    public static final String AUDIT_DISPATCH_BATCH_SIZE = "candlepin.audit.dispatch.batch_size";
+    /**
+     * The maximum number of requests and jobs whose events are waiting to be sent when dispatching
+     * asynchronously. Once reached, the threads emitting events wait for room in the queue.
+     */
+    public static final String AUDIT_DISPATCH_QUEUE_SIZE = "candlepin.audit.dispatch.queue_size";
+
     public static final String PRETTY_PRINT = "candlepin.pretty_print";
     public static final String ACTIVATION_DEBUG_PREFIX = "candlepin.subscription.activation.debug_prefix";
 
@@ -182,12 +197,59 @@ public class ConfigProperties {
 
     public static final String SYNC_WORK_DIR = "candlepin.sync.work_dir";
 
+    /**
+     * Whether manifests are exported by streaming each file straight into the signed archive,
+     * rather than by writing the export to a temporary directory tree which is then archived twice.
+     */
+    public static final String SYNC_EXPORT_STREAMING = "candlepin.sync.export.streaming";
+
+    /**
+     * The number of threads used to parse the products and entitlements of an imported manifest.
+     * Values of one or less parse the files on the importing thread.
+     */
+    public static final String SYNC_IMPORT_PARSER_THREADS = "candlepin.sync.import.parser_threads";
+
+    /**
+     * The backend storing imported and exported manifest files: "db" stores them as blobs in the
+     * database, while "filesystem" stores them as files in the manifest store directory.
+     */
+    public static final String SYNC_MANIFEST_STORE = "candlepin.sync.manifest_store";
+
+    /**
+     * The directory in which manifest files are stored when using the "filesystem" manifest store.
+     * When Candlepin runs on multiple nodes, this directory must be shared among all of them.
+     */
+    public static final String SYNC_MANIFEST_STORE_DIR = "candlepin.sync.manifest_store.dir";
+
     /**
      *  Controls which facts will be stored by Candlepin -- facts with keys that do not match this
      *  value will be discarded.
      */
     public static final String CONSUMER_FACTS_MATCHER = "candlepin.consumer.facts.match_regex";
 
+    /**
+     * Whether consumers store their facts in a single compressed column rather than in one fact
+     * table row per fact. Consumers using compact fact storage only keep the facts queried by
+     * Candlepin in the fact table, so while enabled, searching consumers on any other fact is
+     * rejected. Existing consumers are switched to compact storage when updated, or by the
+     * migration run when the "consumer.facts.compact" Liquibase property is set to true. This
+     * must remain enabled once any consumer uses compact fact storage.
+     */
+    public static final String CONSUMER_FACTS_COMPACT_STORAGE = "candlepin.consumer.facts.compact_storage";
+
+    /**
+     * The interval, in seconds, at which recorded consumer check-ins are written to the database.
+     * Values of zero or less, the default, write each check-in immediately, within the request
+     * triggering it. When positive, a consumer's last check-in time may lag behind its actual
+     * check-ins by up to this interval.
+     */
+    public static final String CONSUMER_CHECKIN_FLUSH_INTERVAL = "candlepin.consumer.checkin.flush_interval";
+
+    /**
+     * The number of pending consumer check-ins which triggers an early flush
+     */
+    public static final String CONSUMER_CHECKIN_MAX_PENDING = "candlepin.consumer.checkin.max_pending";
+
     public static final String SHARD_USERNAME = "candlepin.shard.username";
     public static final String SHARD_PASSWORD = "candlepin.shard.password";
     public static final String SHARD_WEBAPP = "candlepin.shard.webapp";
@@ -196,6 +258,20 @@ public class ConfigProperties {
     public static final String ENV_CONTENT_FILTERING = "candlepin.environment_content_filtering";
     public static final String USE_SYSTEM_UUID_FOR_MATCHING = "candlepin.use_system_uuid_for_matching";
 
+    /**
+     * The number of hypervisors reconciled in a single transaction during a hypervisor update. If a
+     * chunk fails, its hypervisors are reconciled individually instead. Values of one or less
+     * reconcile every hypervisor in its own transaction.
+     */
+    public static final String HYPERVISOR_UPDATE_BATCH_SIZE = "candlepin.hypervisor.update.batch_size";
+
+    /**
+     * Whether known hypervisors whose reported name, facts and guest IDs hash to the same value as
+     * their last report are left untouched during a hypervisor update, apart from their check-in.
+     */
+    public static final String HYPERVISOR_UPDATE_SKIP_UNCHANGED =
+        "candlepin.hypervisor.update.skip_unchanged";
+
     public static final String CONSUMER_SYSTEM_NAME_PATTERN = "candlepin.consumer_system_name_pattern";
     public static final String CONSUMER_PERSON_NAME_PATTERN = "candlepin.consumer_person_name_pattern";
 
@@ -204,6 +280,40 @@ public class ConfigProperties {
     public static final String PASSPHRASE_SECRET_FILE = "candlepin.passphrase.path";
 
     public static final String PRODUCT_CACHE_MAX = "candlepin.cache.product_cache_max";
+    public static final String SCA_PAYLOAD_CACHE_MAX = "candlepin.cache.sca_payload_cache_max";
+    public static final String CONTENT_PATH_CACHE_MAX = "candlepin.cache.content_path_cache_max";
+    public static final String COMPLIANCE_STATUS_CACHE_MAX = "candlepin.cache.compliance_status_cache_max";
+    // The length (in minutes) of the evaluation date buckets used to key cached compliance statuses
+    public static final String COMPLIANCE_STATUS_CACHE_BUCKET =
+        "candlepin.cache.compliance_status_cache_bucket";
+
+    // Javascript rules scope pooling. When enabled, rules invocations borrow execution scopes from a
+    // bounded pool rather than building a new scope for every rules instance.
+    public static final String RULES_POOL_ENABLED = "candlepin.rules.pool.enabled";
+    public static final String RULES_POOL_SIZE = "candlepin.rules.pool.size";
+    // How long (in milliseconds) to wait for a pooled scope before falling back to an unpooled one
+    public static final String RULES_POOL_MAX_WAIT = "candlepin.rules.pool.max_wait";
+
+    // The engine used to calculate consumer compliance: "js" for the javascript rules, or "java"
+    // for the native implementation of the compliance rules
+    public static final String COMPLIANCE_ENGINE = "candlepin.compliance.engine";
+
+    // The engine used to run the pre-entitlement checks on pools: "java" for the native batch
+    // implementation of the checks, or "js" for the javascript rules
+    public static final String ENTITLEMENT_ENGINE = "candlepin.entitlement.engine";
+
+    // The number of pools loaded and filtered at a time when paging through the pools available to a
+    // consumer or activation key. Setting this to zero filters every matching pool before paging.
+    public static final String POOL_LISTING_CHUNK_SIZE = "candlepin.pool_listing.chunk_size";
+    // Whether paged pool listings keep filtering past the requested page to report an exact total
+    // count. By default, filtering stops once the page is filled, and the total count is an estimate
+    // which assumes every pool not yet filtered is available.
+    public static final String POOL_LISTING_EXACT_COUNT = "candlepin.pool_listing.exact_count";
+
+    // The number of worker threads used to sign and encode entitlement certificates. Values below
+    // two generate every certificate on the requesting thread.
+    public static final String ENTITLEMENT_CERT_GENERATION_THREADS =
+        "candlepin.entitlement_cert.generation_threads";
 
     public static final String INTEGER_FACTS = "candlepin.integer_facts";
     private static final String INTEGER_FACT_LIST = "";
@@ -293,10 +403,44 @@ public class ConfigProperties {
     // How long (in seconds) to wait for job threads to finish during a graceful Tomcat shutdown
     public static final String ASYNC_JOBS_THREAD_SHUTDOWN_TIMEOUT = "candlepin.async.thread.shutdown.timeout";
 
+    /**
+     * A comma-separated list of job lanes. Each lane has its own consumers, and processes only the
+     * jobs assigned to it, so slow jobs in one lane cannot starve the jobs of another. Jobs not
+     * assigned to any lane are processed by the default lane, using the candlepin.async.threads
+     * threads. Each lane is configured using the candlepin.async.lanes.[lane].* properties below.
+     */
+    public static final String ASYNC_JOBS_LANES = "candlepin.async.lanes";
+    public static final String ASYNC_JOBS_LANE_PREFIX = "candlepin.async.lanes.";
+
+    /** A comma-separated list of the keys of the jobs processed by the lane */
+    public static final String ASYNC_JOBS_LANE_JOBS = "jobs";
+
+    /** The number of threads processing the jobs of the lane; defaults to 1 */
+    public static final String ASYNC_JOBS_LANE_THREADS = "threads";
+
+    /** The message priority of the jobs of the lane, from 0 (lowest) to 9; defaults to 4 */
+    public static final String ASYNC_JOBS_LANE_PRIORITY = "priority";
+
     // How many days to allow a product to be orphaned before removing it on the next refresh or
     // manifest import. Default: 30 days
     public static final String ORPHANED_ENTITY_GRACE_PERIOD = "candlepin.refresh.orphan_entity_grace_period";
 
+    // Whether or not pool refreshes only process the subscriptions, products and content which
+    // changed upstream since the last refresh of the org. Refreshes fall back to a full refresh
+    // when the org has not been refreshed incrementally before, or when entities were removed
+    // upstream. Default: false
+    public static final String REFRESH_INCREMENTAL = "candlepin.refresh.incremental";
+
+    // The number of threads used to compare and version the refreshed products and content. Values
+    // of one or less process the refreshed entities on the refreshing thread. Default: 1
+    public static final String REFRESH_PARALLELISM = "candlepin.refresh.parallelism";
+
+    // The maximum number of refreshed entities or subscriptions written per transaction. Refreshes
+    // commit the content, then the products, then the pools of the org in separate transactions of
+    // at most this many entities, rather than in a single transaction. Values of zero or less
+    // perform the refresh in a single transaction. Default: 0
+    public static final String REFRESH_CHUNK_SIZE = "candlepin.refresh.chunk_size";
+
     /**
      * Fetches a string representing the prefix for all per-job configuration for the specified job.
      * The job key or class name may be used, but the usage must be consistent.
@@ -334,6 +478,27 @@ public class ConfigProperties {
         return builder.toString();
     }
 
+    /**
+     * Fetches a configuration string for the given configuration for the specified job lane.
+     *
+     * @param lane
+     *  the name of the lane for which to build the configuration string
+     *
+     * @param cfgName
+     *  the name of the configuration
+     *
+     * @return
+     *  the configuration string for the given configuration for the specified lane
+     */
+    public static String laneConfig(String lane, String cfgName) {
+        StringBuilder builder = new StringBuilder(ASYNC_JOBS_LANE_PREFIX)
+            .append(lane)
+            .append('.')
+            .append(cfgName);
+
+        return builder.toString();
+    }
+
     public static final String ENTITLER_BULK_SIZE = "entitler.bulk.size";
 
     public static final Map<String, String> DEFAULT_PROPERTIES = new HashMap<String, String>() {
@@ -394,11 +559,21 @@ public class ConfigProperties {
 
             this.put(AUDIT_FILTER_DO_FILTER, "");
             this.put(AUDIT_FILTER_DEFAULT_POLICY, "DO_FILTER");
+            this.put(AUDIT_DISPATCH_ASYNC, "false");
+            this.put(AUDIT_DISPATCH_BATCH_SIZE, "100");
+            this.put(AUDIT_DISPATCH_QUEUE_SIZE, "1000");
 
             this.put(PRETTY_PRINT, "false");
 
             this.put(SYNC_WORK_DIR, "/var/cache/candlepin/sync");
+            this.put(SYNC_EXPORT_STREAMING, "true");
+            this.put(SYNC_IMPORT_PARSER_THREADS, "4");
+            this.put(SYNC_MANIFEST_STORE, "db");
+            this.put(SYNC_MANIFEST_STORE_DIR, "/var/lib/candlepin/manifests");
             this.put(CONSUMER_FACTS_MATCHER, ".*");
+            this.put(CONSUMER_FACTS_COMPACT_STORAGE, "false");
+            this.put(CONSUMER_CHECKIN_FLUSH_INTERVAL, "0");
+            this.put(CONSUMER_CHECKIN_MAX_PENDING, "10000");
             this.put(TRUSTED_AUTHENTICATION, "false");
             this.put(SSL_AUTHENTICATION, "true");
             this.put(OAUTH_AUTHENTICATION, "false");
@@ -433,6 +608,8 @@ public class ConfigProperties {
 
             this.put(ENV_CONTENT_FILTERING, "true");
             this.put(USE_SYSTEM_UUID_FOR_MATCHING, "true");
+            this.put(HYPERVISOR_UPDATE_BATCH_SIZE, "100");
+            this.put(HYPERVISOR_UPDATE_SKIP_UNCHANGED, "true");
 
             // what constitutes a valid consumer name
             this.put(CONSUMER_SYSTEM_NAME_PATTERN, "[\\#\\?\\'\\`\\!@{}()\\[\\]\\?&\\w-\\.]+");
@@ -451,6 +628,38 @@ public class ConfigProperties {
              */
             this.put(PRODUCT_CACHE_MAX, "100");
 
+            /**
+             *  Defines the maximum number of signed SCA content payloads to cache. Consumers in
+             *  the same organization sharing environments and architectures reuse a single cached
+             *  payload. Setting this to zero disables the cache.
+             */
+            this.put(SCA_PAYLOAD_CACHE_MAX, "100");
+
+            /**
+             *  Defines the maximum number of encoded v3 certificate content path dictionaries to
+             *  cache. Certificates with the same set of content paths share a cached dictionary.
+             *  Setting this to zero disables the cache.
+             */
+            this.put(CONTENT_PATH_CACHE_MAX, "500");
+
+            /**
+             *  Defines the maximum number of consumers for which to cache compliance statuses. A
+             *  cached status is reused for as long as the consumer's compliance inputs, the rules
+             *  version and the evaluation date bucket remain unchanged. Setting this to zero
+             *  disables the cache.
+             */
+            this.put(COMPLIANCE_STATUS_CACHE_MAX, "5000");
+            this.put(COMPLIANCE_STATUS_CACHE_BUCKET, "1440");
+
+            this.put(RULES_POOL_ENABLED, "false");
+            this.put(RULES_POOL_SIZE, "16");
+            this.put(RULES_POOL_MAX_WAIT, "1000");
+            this.put(COMPLIANCE_ENGINE, "js");
+            this.put(ENTITLEMENT_ENGINE, "java");
+            this.put(POOL_LISTING_CHUNK_SIZE, "250");
+            this.put(POOL_LISTING_EXACT_COUNT, "false");
+            this.put(ENTITLEMENT_CERT_GENERATION_THREADS, "4");
+
             /** As we do math on some facts and attributes, we need to constrain some values */
             this.put(INTEGER_FACTS, INTEGER_FACT_LIST);
             this.put(NON_NEG_INTEGER_FACTS, NON_NEG_INTEGER_FACT_LIST);
@@ -478,6 +687,7 @@ public class ConfigProperties {
             this.put(ASYNC_JOBS_DISPATCH_ADDRESS, "job");
             this.put(ASYNC_JOBS_RECEIVE_ADDRESS, "jobs");
             this.put(ASYNC_JOBS_RECEIVE_FILTER, "");
+            this.put(ASYNC_JOBS_LANES, "");
 
             this.put(jobConfig(ActiveEntitlementJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
                 ActiveEntitlementJob.DEFAULT_SCHEDULE);
@@ -502,6 +712,9 @@ public class ConfigProperties {
             this.put(ASYNC_JOBS_TRIGGERABLE_JOBS, String.join(", ", ASYNC_JOBS_TRIGGERABLE_JOBS_LIST));
 
             this.put(ORPHANED_ENTITY_GRACE_PERIOD, "30");
+            this.put(REFRESH_INCREMENTAL, "false");
+            this.put(REFRESH_PARALLELISM, "1");
+            this.put(REFRESH_CHUNK_SIZE, "0");
         }
     };
 }
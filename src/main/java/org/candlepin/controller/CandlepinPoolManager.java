@@ -91,7 +91,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -106,6 +108,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.inject.Provider;
@@ -120,6 +123,7 @@ public class CandlepinPoolManager implements PoolManager {
 
     private static final Logger log = LoggerFactory.getLogger(CandlepinPoolManager.class);
     private static final int MAX_ENTITLE_RETRIES = 3;
+    private static final String POOL_NOT_VALIDATED = "rulefailed.pool.not.validated";
 
     private final I18n i18n;
     private final PoolCurator poolCurator;
@@ -220,7 +224,10 @@ public class CandlepinPoolManager implements PoolManager {
         log.info("Refreshing pools for owner: {}", resolvedOwner);
 
         RefreshWorker refresher = this.refreshWorkerProvider.get()
-            .setOrphanedEntityGracePeriod(this.config.getInt(ConfigProperties.ORPHANED_ENTITY_GRACE_PERIOD));
+            .setOrphanedEntityGracePeriod(this.config.getInt(ConfigProperties.ORPHANED_ENTITY_GRACE_PERIOD))
+            .setIncremental(this.config.getBoolean(ConfigProperties.REFRESH_INCREMENTAL))
+            .setParallelism(this.config.getInt(ConfigProperties.REFRESH_PARALLELISM))
+            .setChunkSize(this.config.getInt(ConfigProperties.REFRESH_CHUNK_SIZE));
 
         log.debug("Fetching subscriptions from adapter...");
         refresher.addSubscriptions(subAdapter.getSubscriptions(resolvedOwner.getKey()));
@@ -282,34 +289,100 @@ public class CandlepinPoolManager implements PoolManager {
         Map<String, Product> updatedProducts = refreshResult.getEntities(Product.class, EntityState.UPDATED);
 
         // TODO: Move everything below this line to the refresher
-        this.poolCurator.transactional((args) -> {
-            boolean poolsModified = false;
+        List<SubscriptionInfo> refreshedSubs = new ArrayList<>();
+        Map<String, SubscriptionInfo> unchangedSubs = new HashMap<>();
+
+        for (Iterator<? extends SubscriptionInfo> si = subMap.values().iterator(); si.hasNext();) {
+            SubscriptionInfo sub = si.next();
+
+            if (now.after(sub.getEndDate())) {
+                log.info("Skipping expired subscription: {}", sub);
+
+                si.remove();
+                continue;
+            }
 
-            Map<String, List<Pool>> subscriptionPools = this.poolCurator
-                .mapPoolsBySubscriptionIds(subMap.keySet());
+            // Subscriptions which did not change upstream since the last refresh only need their
+            // pools refreshed if their master pool was removed or modified locally
+            if (!refresher.isSubscriptionChanged(sub.getId())) {
+                unchangedSubs.put(sub.getId(), sub);
+                continue;
+            }
+
+            refreshedSubs.add(sub);
+        }
 
-            log.debug("Refreshing {} pool(s)...", subMap.size());
-            for (Iterator<? extends SubscriptionInfo> si = subMap.values().iterator(); si.hasNext();) {
-                SubscriptionInfo sub = si.next();
+        if (!unchangedSubs.isEmpty()) {
+            Map<String, List<Pool>> unchangedSubPools = this.poolCurator
+                .mapPoolsBySubscriptionIds(unchangedSubs.keySet());
 
-                if (now.after(sub.getEndDate())) {
-                    log.info("Skipping expired subscription: {}", sub);
+            for (SubscriptionInfo sub : unchangedSubs.values()) {
+                List<Pool> subPools = unchangedSubPools.getOrDefault(sub.getId(), Collections.emptyList());
 
-                    si.remove();
+                if (this.hasMatchingMasterPool(sub, resolvedOwner, subPools)) {
+                    log.debug("Skipping unchanged subscription: {}", sub);
                     continue;
                 }
 
-                log.debug("Processing subscription: {}", sub);
-                Pool pool = this.convertToMasterPoolImpl(sub, resolvedOwner, existingProducts);
-                pool.setLocked(true);
+                log.info("Refreshing unchanged subscription with a missing or modified master pool: {}", sub);
+                refreshedSubs.add(sub);
+            }
+        }
+
+        // Chunked refreshes commit the pools of each chunk of subscriptions separately, reloading the
+        // products of each chunk as the refreshed products are no longer managed by the session
+        int chunkSize = refresher.getChunkSize();
+        boolean chunked = chunkSize > 0 && !this.poolCurator.inTransaction();
+        boolean subPoolsModified = false;
+
+        if (chunked) {
+            log.debug("Refreshing {} pool(s) in chunks of {}...", refreshedSubs.size(), chunkSize);
 
-                List<Pool> subPools = subscriptionPools.getOrDefault(sub.getId(), Collections.emptyList());
-                this.refreshPoolsForMasterPool(pool, false, lazy, updatedProducts, subPools);
-                poolsModified = true;
+            for (List<SubscriptionInfo> chunk : Iterables.partition(refreshedSubs, chunkSize)) {
+                try {
+                    subPoolsModified |= this.poolCurator.<Boolean>transactional((args) -> {
+                        Set<String> productIds = new HashSet<>();
+                        chunk.forEach(sub -> collectProductIds(sub.getProduct(), productIds));
+
+                        Map<String, Product> products = this.ownerProductCurator
+                            .getProductsByIds(resolvedOwner, productIds)
+                            .list()
+                            .stream()
+                            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+                        Map<String, Product> chunkUpdatedProducts = products.values()
+                            .stream()
+                            .filter(product -> updatedProducts.containsKey(product.getId()))
+                            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+                        return this.refreshSubscriptionPools(chunk, resolvedOwner, lazy, products,
+                            chunkUpdatedProducts);
+                    }).execute();
+                }
+                finally {
+                    this.poolCurator.clear();
+                }
             }
+        }
 
-            // Flush our newly created pools
-            this.poolCurator.flush();
+        boolean chunkedPoolsModified = subPoolsModified;
+
+        this.poolCurator.transactional((args) -> {
+            boolean poolsModified = chunkedPoolsModified;
+            Map<String, Product> changedProducts = updatedProducts;
+
+            if (chunked) {
+                changedProducts = this.ownerProductCurator
+                    .getProductsByIds(resolvedOwner, updatedProducts.keySet())
+                    .list()
+                    .stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            }
+            else {
+                log.debug("Refreshing {} pool(s)...", refreshedSubs.size());
+                poolsModified |= this.refreshSubscriptionPools(refreshedSubs, resolvedOwner, lazy,
+                    existingProducts, updatedProducts);
+            }
 
             // delete pools whose subscription disappeared:
             log.debug("Deleting pools for absent subscriptions...");
@@ -327,7 +400,7 @@ public class CandlepinPoolManager implements PoolManager {
             // TODO: break this call into smaller pieces. There may be lots of floating pools
             log.debug("Updating floating pools...");
             List<Pool> floatingPools = poolCurator.getOwnersFloatingPools(resolvedOwner);
-            updateFloatingPools(floatingPools, lazy, updatedProducts);
+            updateFloatingPools(floatingPools, lazy, changedProducts);
 
             // Check if we've put any pools into a state in which they're referencing a product which no
             // longer belongs to the organization
@@ -362,6 +435,9 @@ public class CandlepinPoolManager implements PoolManager {
                 this.ownerCurator.merge(resolvedOwner);
             }
 
+            // Record the state of the upstream data for the next refresh
+            refresher.saveFingerprints(resolvedOwner);
+
             log.info("Refresh pools for owner: {} completed in: {}ms", resolvedOwner.getKey(),
                 System.currentTimeMillis() - now.getTime());
 
@@ -370,6 +446,149 @@ public class CandlepinPoolManager implements PoolManager {
         .execute();
     }
 
+    /**
+     * Refreshes the pools of the given subscriptions, converting each subscription to a master
+     * pool and updating the pools derived from it.
+     *
+     * @param subs
+     *  the subscriptions for which to refresh pools
+     *
+     * @param owner
+     *  the owner of the subscriptions
+     *
+     * @param lazy
+     *  whether or not to regenerate the certificates of affected entitlements lazily
+     *
+     * @param products
+     *  a map containing the products referenced by the subscriptions, mapped by product ID
+     *
+     * @param updatedProducts
+     *  a map containing the products updated by the refresh, mapped by product ID
+     *
+     * @return
+     *  true if any subscriptions were refreshed; false otherwise
+     */
+    private boolean refreshSubscriptionPools(Collection<? extends SubscriptionInfo> subs, Owner owner,
+        boolean lazy, Map<String, Product> products, Map<String, Product> updatedProducts) {
+
+        Set<String> subIds = subs.stream()
+            .map(SubscriptionInfo::getId)
+            .collect(Collectors.toSet());
+
+        Map<String, List<Pool>> subscriptionPools = this.poolCurator.mapPoolsBySubscriptionIds(subIds);
+
+        for (SubscriptionInfo sub : subs) {
+            log.debug("Processing subscription: {}", sub);
+            Pool pool = this.convertToMasterPoolImpl(sub, owner, products);
+            pool.setLocked(true);
+
+            List<Pool> subPools = subscriptionPools.getOrDefault(sub.getId(), Collections.emptyList());
+            this.refreshPoolsForMasterPool(pool, false, lazy, updatedProducts, subPools);
+        }
+
+        // Flush our newly created pools
+        this.poolCurator.flush();
+
+        return !subs.isEmpty();
+    }
+
+    /**
+     * Checks whether the given pools include the master pool of the specified subscription, and
+     * whether that pool still reflects the subscription. Master pools are only updated by refreshes,
+     * so a missing or differing master pool has been deleted or modified locally since the
+     * subscription was last refreshed.
+     *
+     * @param sub
+     *  the subscription for which to check the master pool
+     *
+     * @param owner
+     *  the owner of the subscription
+     *
+     * @param pools
+     *  the existing pools of the subscription
+     *
+     * @return
+     *  true if the master pool of the subscription exists and matches the subscription; false
+     *  otherwise
+     */
+    private boolean hasMatchingMasterPool(SubscriptionInfo sub, Owner owner, Collection<Pool> pools) {
+        Pool master = pools.stream()
+            .filter(pool -> owner.getId().equals(pool.getOwnerId()))
+            .filter(pool -> "master".equals(pool.getSubscriptionSubKey()))
+            .findAny()
+            .orElse(null);
+
+        if (master == null || master.getProduct() == null || sub.getProduct() == null) {
+            return false;
+        }
+
+        long quantity = this.poolRules.calculateQuantity(
+            sub.getQuantity() != null ? sub.getQuantity() : 1, master.getProduct(), sub.getUpstreamPoolId());
+
+        return master.getProduct().getId().equals(sub.getProduct().getId()) &&
+            Objects.equals(master.getQuantity(), quantity) &&
+            isSameInstant(master.getStartDate(), sub.getStartDate()) &&
+            isSameInstant(master.getEndDate(), sub.getEndDate()) &&
+            Objects.equals(master.getContractNumber(), sub.getContractNumber()) &&
+            Objects.equals(master.getAccountNumber(), sub.getAccountNumber()) &&
+            Objects.equals(master.getOrderNumber(), sub.getOrderNumber()) &&
+            Objects.equals(master.getUpstreamPoolId(), sub.getUpstreamPoolId()) &&
+            Objects.equals(master.getUpstreamEntitlementId(), sub.getUpstreamEntitlementId()) &&
+            Objects.equals(master.getUpstreamConsumerId(), sub.getUpstreamConsumerId());
+    }
+
+    /**
+     * Compares two dates by their instant, as dates loaded from the database are timestamps which
+     * are never equal to plain dates.
+     */
+    private static boolean isSameInstant(Date date1, Date date2) {
+        return date1 == null ? date2 == null : date2 != null && date1.getTime() == date2.getTime();
+    }
+
+    /**
+     * Fetches the validation result of the given pool from a batch of validation results. A pool
+     * missing from the results is treated as having failed validation, rather than being silently
+     * accepted or failing with a null result.
+     *
+     * @param results
+     *  the batch validation results, mapped by pool ID
+     *
+     * @param pool
+     *  the pool for which to fetch the validation result
+     *
+     * @return
+     *  the validation result of the pool
+     */
+    private static ValidationResult getValidationResult(Map<String, ValidationResult> results, Pool pool) {
+        ValidationResult result = results.get(pool.getId());
+
+        if (result == null) {
+            log.warn("No validation result returned for pool: {}", pool.getId());
+
+            result = new ValidationResult();
+            result.addError(POOL_NOT_VALIDATED);
+        }
+
+        return result;
+    }
+
+    /**
+     * Collects the IDs of the given product and of every product it references, directly or
+     * indirectly.
+     */
+    private static void collectProductIds(ProductInfo product, Set<String> productIds) {
+        if (product == null || product.getId() == null || !productIds.add(product.getId())) {
+            return;
+        }
+
+        collectProductIds(product.getDerivedProduct(), productIds);
+
+        if (product.getProvidedProducts() != null) {
+            product.getProvidedProducts()
+                .forEach(provided -> collectProductIds(provided, productIds));
+        }
+    }
+
     private Owner resolveOwner(Owner owner) {
         if (owner == null || (owner.getKey() == null && owner.getId() == null)) {
             throw new IllegalArgumentException(
@@ -1286,6 +1505,7 @@ public class CandlepinPoolManager implements PoolManager {
             log.debug("Removing pool host is already entitled to: {}", ent.getPool());
             allOwnerPools.remove(ent.getPool());
         }
+        List<PoolQuantity> candidates = new ArrayList<>();
         List<Pool> filteredPools = new LinkedList<>();
 
         ComplianceStatus guestCompliance = complianceRules.getStatus(guest, entitleDate, false);
@@ -1369,21 +1589,31 @@ public class CandlepinPoolManager implements PoolManager {
             }
 
             if (providesProduct || matchesAddOns || matchesRole) {
-                ValidationResult result = enforcer.preEntitlement(host, pool, 1, CallerType.BEST_POOLS);
-
-                if (result.hasErrors() || result.hasWarnings()) {
-                    // Just keep the last one around, if we need it
-                    failedResults.put(pool.getId(), result);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Pool filtered from candidates due to failed rule(s): {}", pool);
-                        log.debug("  warnings: {}", Util.collectionToString(result.getWarnings()));
-                        log.debug("  errors: {}", Util.collectionToString(result.getErrors()));
-                    }
-                }
-                else {
-                    filteredPools.add(pool);
+                candidates.add(new PoolQuantity(pool, 1));
+            }
+        }
+
+        // Validate all of the candidates in a single pass of the rules
+        Map<String, ValidationResult> results = candidates.isEmpty() ?
+            Collections.emptyMap() :
+            enforcer.preEntitlement(host, candidates, CallerType.BEST_POOLS);
+
+        for (PoolQuantity candidate : candidates) {
+            Pool pool = candidate.getPool();
+            ValidationResult result = getValidationResult(results, pool);
+
+            if (result.hasErrors() || result.hasWarnings()) {
+                // Just keep the last one around, if we need it
+                failedResults.put(pool.getId(), result);
+                if (log.isDebugEnabled()) {
+                    log.debug("Pool filtered from candidates due to failed rule(s): {}", pool);
+                    log.debug("  warnings: {}", Util.collectionToString(result.getWarnings()));
+                    log.debug("  errors: {}", Util.collectionToString(result.getErrors()));
                 }
             }
+            else {
+                filteredPools.add(pool);
+            }
         }
 
         // Only throw refused exception if we actually hit the rules:
@@ -1540,13 +1770,6 @@ public class CandlepinPoolManager implements PoolManager {
             activePoolDate = new Date();
         }
 
-        PoolFilterBuilder poolFilter = new PoolFilterBuilder();
-        poolFilter.addIdFilters(fromPools);
-        List<Pool> allOwnerPools = this.listAvailableEntitlementPools(
-            consumer, null, ownerId, null, null, activePoolDate, false,
-            poolFilter, null, false, false, null).getPageData();
-        List<Pool> filteredPools = new LinkedList<>();
-
         // We have to check compliance status here so we can replace an empty
         // array of product IDs with the array the consumer actually needs. (i.e. during
         // a healing request)
@@ -1562,6 +1785,21 @@ public class CandlepinPoolManager implements PoolManager {
 
         log.debug("Attempting for products on date: {}: {}", entitleDate, productIds);
 
+        // Only fetch the pools which could possibly be selected below; the checks against the
+        // pools are still performed in full, as the database matching of addons and roles is loose.
+        PoolFilterBuilder poolFilter = new PoolFilterBuilder();
+        poolFilter.addIdFilters(fromPools);
+        poolFilter.setCandidateFilter(productIds, compliance.getPartialStacks().keySet(),
+            consumer.getAddOns(), consumer.getRole());
+
+        List<Pool> allOwnerPools = this.listAvailableEntitlementPools(
+            consumer, null, ownerId, null, null, activePoolDate, false,
+            poolFilter, null, false, false, null).getPageData();
+        List<PoolQuantity> candidates = new ArrayList<>();
+        List<Pool> filteredPools = new LinkedList<>();
+
+        log.debug("Found {} candidate pools for autobind", allOwnerPools.size());
+
         // Bulk fetch our provided product IDs so we're not hitting the DB several times
         // for this lookup.
         Map<String, Set<String>> providedProductIds = this.poolCurator
@@ -1609,15 +1847,25 @@ public class CandlepinPoolManager implements PoolManager {
             }
 
             if (providesProduct || matchesAddOns || matchesRole) {
-                ValidationResult result = enforcer.preEntitlement(consumer, pool, 1, CallerType.BEST_POOLS);
+                candidates.add(new PoolQuantity(pool, 1));
+            }
+        }
 
-                if (result.hasErrors() || result.hasWarnings()) {
-                    failedResults.put(pool.getId(), result);
-                    log.debug("Pool filtered from candidates due to rules failure: {}", pool.getId());
-                }
-                else {
-                    filteredPools.add(pool);
-                }
+        // Validate all of the candidates in a single pass of the rules
+        Map<String, ValidationResult> results = candidates.isEmpty() ?
+            Collections.emptyMap() :
+            enforcer.preEntitlement(consumer, candidates, CallerType.BEST_POOLS);
+
+        for (PoolQuantity candidate : candidates) {
+            Pool pool = candidate.getPool();
+            ValidationResult result = getValidationResult(results, pool);
+
+            if (result.hasErrors() || result.hasWarnings()) {
+                failedResults.put(pool.getId(), result);
+                log.debug("Pool filtered from candidates due to rules failure: {}", pool.getId());
+            }
+            else {
+                filteredPools.add(pool);
             }
         }
 
@@ -2012,15 +2260,15 @@ public class CandlepinPoolManager implements PoolManager {
 
     private void recomputeStatusForConsumers(Set<Consumer> consumers) {
         log.info("Recomputing status for {} consumers.", consumers.size());
-        int i = 1;
-        for (Consumer consumer : consumers) {
-            if (i++ % 1000 == 0) {
-                consumerCurator.flush();
+        for (List<Consumer> block : Iterables.partition(consumers, 1000)) {
+            complianceRules.getStatuses(block);
+
+            for (Consumer consumer : block) {
+                systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(), null, true);
             }
-            complianceRules.getStatus(consumer);
-            systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(), null, true);
+
+            consumerCurator.flush();
         }
-        consumerCurator.flush();
         log.info("All statuses recomputed.");
     }
 
@@ -2389,8 +2637,9 @@ public class CandlepinPoolManager implements PoolManager {
 
                 // Recalculate status for affected consumers
                 for (List<Consumer> subList : Iterables.partition(consumerStackedEnts.keySet(), 1000)) {
+                    this.complianceRules.getStatuses(subList);
+
                     for (Consumer consumer : subList) {
-                        this.complianceRules.getStatus(consumer);
                         this.systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(),
                             null, true);
 
@@ -2506,6 +2755,13 @@ public class CandlepinPoolManager implements PoolManager {
             filters.addAttributeFilter(Pool.Attributes.DEVELOPMENT_POOL, "!true");
         }
 
+        int chunkSize = this.config.getInt(ConfigProperties.POOL_LISTING_CHUNK_SIZE);
+        if (postFilter && pageRequest != null && pageRequest.isPaging() && chunkSize > 0) {
+            return this.listAvailableEntitlementPoolsIncrementally(consumer, key, ownerId, productId,
+                subscriptionId, activeOn, includeWarnings, filters, pageRequest, addFuture, onlyFuture,
+                after, chunkSize);
+        }
+
         Page<List<Pool>> page = this.poolCurator.listAvailableEntitlementPools(consumer,
             ownerId, productId, subscriptionId, activeOn, filters, pageRequest, postFilter,
             addFuture, onlyFuture, after);
@@ -2521,15 +2777,8 @@ public class CandlepinPoolManager implements PoolManager {
         // Note that something could change between the time we list a pool as
         // available, and the consumer requests the actual entitlement, and the
         // request still could fail.
-        List<Pool> resultingPools = page.getPageData();
-
-        if (consumer != null) {
-            resultingPools = enforcer.filterPools(consumer, resultingPools, includeWarnings);
-        }
-
-        if (key != null) {
-            resultingPools = this.filterPoolsForActKey(key, resultingPools, includeWarnings);
-        }
+        List<Pool> resultingPools = this.filterAvailablePools(consumer, key, page.getPageData(),
+            includeWarnings);
 
         // Set maxRecords once we are done filtering
         page.setMaxRecords(resultingPools.size());
@@ -2542,6 +2791,118 @@ public class CandlepinPoolManager implements PoolManager {
         return page;
     }
 
+    /**
+     * Fills the requested page of the pools available to a consumer or activation key by loading
+     * and filtering the matching pools in chunks, in the order of the page request, stopping as soon
+     * as the page is filled. Unless exact counts are enabled, the total count of a page which did not
+     * need every pool to be filtered is an estimate which assumes every unfiltered pool is available.
+     * Loaded pools which are not on the page are evicted from the session once filtered.
+     */
+    private Page<List<Pool>> listAvailableEntitlementPoolsIncrementally(Consumer consumer,
+        ActivationKey key, String ownerId, String productId, String subscriptionId, Date activeOn,
+        boolean includeWarnings, PoolFilterBuilder filters, PageRequest pageRequest, boolean addFuture,
+        boolean onlyFuture, Date after, int chunkSize) {
+
+        this.poolCurator.rejectKeysetPaging(pageRequest);
+
+        List<String> poolIds = this.poolCurator.listAvailableEntitlementPoolIds(consumer, ownerId,
+            (productId != null ? Arrays.asList(productId) : null), subscriptionId, activeOn, filters,
+            pageRequest, addFuture, onlyFuture, after);
+
+        boolean exactCount = this.config.getBoolean(ConfigProperties.POOL_LISTING_EXACT_COUNT);
+        int offset = (pageRequest.getPage() - 1) * pageRequest.getPerPage();
+        int limit = offset + pageRequest.getPerPage();
+
+        List<Pool> pageData = new ArrayList<>();
+        int available = 0;
+        int filtered = 0;
+
+        for (List<String> chunk : Iterables.partition(poolIds, chunkSize)) {
+            if (available >= limit && !exactCount) {
+                break;
+            }
+
+            // Pools already held by the session may be in use elsewhere in this request, and must not
+            // be evicted along with the rest of the chunk
+            Set<Serializable> managedIds = this.poolCurator.getManagedIds();
+            List<Pool> candidates = this.getPoolsInOrder(chunk);
+
+            List<Pool> pools = this.filterAvailablePools(consumer, key, candidates, includeWarnings);
+            Set<String> retainedIds = new HashSet<>();
+
+            for (Pool pool : pools) {
+                if (available >= offset && available < limit) {
+                    pageData.add(pool);
+                    retainedIds.add(pool.getId());
+                }
+
+                ++available;
+            }
+
+            filtered += chunk.size();
+
+            // Evict the pools which did not make the page, so the session does not grow with every
+            // chunk filtered
+            List<Pool> evictable = new ArrayList<>();
+            for (Pool pool : candidates) {
+                if (!retainedIds.contains(pool.getId()) && !managedIds.contains(pool.getId())) {
+                    evictable.add(pool);
+                }
+            }
+
+            this.poolCurator.evictAll(evictable);
+        }
+
+        log.debug("Filtered {} of {} candidate pools to fill page {} of available pools", filtered,
+            poolIds.size(), pageRequest.getPage());
+
+        Page<List<Pool>> page = new Page<>();
+        page.setPageData(pageData);
+        page.setPageRequest(pageRequest);
+        page.setMaxRecords(available + (poolIds.size() - filtered));
+
+        return page;
+    }
+
+    /**
+     * Fetches the pools with the given IDs, in the order of the IDs.
+     */
+    private List<Pool> getPoolsInOrder(List<String> poolIds) {
+        Map<String, Pool> poolMap = new HashMap<>();
+        for (Pool pool : this.poolCurator.listAllByIds(poolIds)) {
+            poolMap.put(pool.getId(), pool);
+        }
+
+        List<Pool> pools = new ArrayList<>(poolIds.size());
+        for (String poolId : poolIds) {
+            Pool pool = poolMap.get(poolId);
+
+            // The pool may have been deleted since its ID was listed
+            if (pool != null) {
+                pools.add(pool);
+            }
+        }
+
+        return pools;
+    }
+
+    /**
+     * Removes the pools the given consumer or activation key cannot attach from the list of pools.
+     */
+    private List<Pool> filterAvailablePools(Consumer consumer, ActivationKey key, List<Pool> pools,
+        boolean includeWarnings) {
+
+        if (consumer != null) {
+            pools = enforcer.filterPools(consumer, pools, includeWarnings);
+        }
+
+        if (key != null) {
+            pools = this.filterPoolsForActKey(key, pools, includeWarnings);
+        }
+
+        return pools;
+    }
+
     @Override
     public CandlepinQuery<Pool> getPoolsBySubscriptionId(String subscriptionId) {
         return this.poolCurator.getPoolsBySubscriptionId(subscriptionId);
@@ -2604,9 +2965,12 @@ public class CandlepinPoolManager implements PoolManager {
 
     private List<Pool> filterPoolsForActKey(ActivationKey key,
         List<Pool> pools, boolean includeWarnings) {
+        Map<String, ValidationResult> results =
+            activationKeyRules.runPoolValidationForActivationKey(key, pools, null);
+
         List<Pool> filteredPools = new LinkedList<>();
         for (Pool p : pools) {
-            ValidationResult result = activationKeyRules.runPoolValidationForActivationKey(key, p, null);
+            ValidationResult result = getValidationResult(results, p);
             if (result.isSuccessful() && (!result.hasWarnings() || includeWarnings)) {
                 filteredPools.add(p);
             }
@@ -0,0 +1,287 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Records consumer check-ins, optionally holding them in memory and writing them to the database
+ * in periodic batches rather than updating each consumer's check-in time within the request which
+ * triggered it.
+ * <p></p>
+ * Batching is only enabled when a positive flush interval is configured. Until the recorder has
+ * been started, or if the flush interval is not positive (the default), check-ins are written
+ * immediately.
+ * <p></p>
+ * While batching, check-ins of the same consumer between two flushes are coalesced, keeping only
+ * the latest one. Pending check-ins are flushed on a fixed interval, as soon as the configured
+ * maximum number of pending check-ins is reached, and when the recorder is shut down.
+ */
+@Singleton
+public class ConsumerCheckInRecorder {
+    private static final Logger log = LoggerFactory.getLogger(ConsumerCheckInRecorder.class);
+
+    private final ConsumerCurator consumerCurator;
+    private final UnitOfWork unitOfWork;
+    private final long flushInterval;
+    private final int maxPending;
+
+    private final Map<String, Date> pending;
+    private final AtomicBoolean flushRequested;
+    private volatile ScheduledExecutorService executor;
+
+    private final AtomicLong flushCount;
+    private final AtomicLong flushedCheckIns;
+    private final AtomicLong lastFlushDuration;
+    private final AtomicLong maxFlushDuration;
+
+    @Inject
+    public ConsumerCheckInRecorder(Configuration config, ConsumerCurator consumerCurator,
+        UnitOfWork unitOfWork) {
+
+        this.consumerCurator = Objects.requireNonNull(consumerCurator);
+        this.unitOfWork = Objects.requireNonNull(unitOfWork);
+        this.flushInterval = config.getLong(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL);
+        this.maxPending = Math.max(1, config.getInt(ConfigProperties.CONSUMER_CHECKIN_MAX_PENDING));
+
+        this.pending = new ConcurrentHashMap<>();
+        this.flushRequested = new AtomicBoolean();
+
+        this.flushCount = new AtomicLong();
+        this.flushedCheckIns = new AtomicLong();
+        this.lastFlushDuration = new AtomicLong();
+        this.maxFlushDuration = new AtomicLong();
+    }
+
+    /**
+     * Starts flushing pending check-ins periodically. If the flush interval is not positive, this
+     * method does nothing and check-ins continue to be written immediately.
+     */
+    public synchronized void start() {
+        if (this.executor != null || this.flushInterval <= 0) {
+            return;
+        }
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "consumer-checkin-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.scheduleWithFixedDelay(this::flushPending, this.flushInterval, this.flushInterval,
+            TimeUnit.SECONDS);
+
+        this.executor = executor;
+        log.info("Consumer check-ins will be flushed every {} seconds", this.flushInterval);
+    }
+
+    /**
+     * Stops the periodic flush, and flushes any remaining check-ins before returning.
+     */
+    public synchronized void shutdown() {
+        if (this.executor == null) {
+            return;
+        }
+
+        ScheduledExecutorService executor = this.executor;
+        this.executor = null;
+
+        // Run the final flush on the recorder thread, which is not bound to a unit of work
+        executor.execute(this::flushPending);
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for the final flush of {} consumer check-ins",
+                    this.pending.size());
+
+                executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Records a check-in of the given consumer at the current time.
+     *
+     * @param consumer
+     *  the consumer checking in
+     */
+    public void record(Consumer consumer) {
+        this.record(consumer, new Date());
+    }
+
+    /**
+     * Records a check-in of the given consumer at the given time.
+     *
+     * @param consumer
+     *  the consumer checking in
+     *
+     * @param checkIn
+     *  the time of the check-in
+     */
+    public void record(Consumer consumer, Date checkIn) {
+        if (consumer == null || consumer.getId() == null) {
+            return;
+        }
+
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            this.consumerCurator.updateLastCheckin(consumer, checkIn);
+            return;
+        }
+
+        this.pending.merge(consumer.getId(), checkIn,
+            (current, next) -> next.after(current) ? next : current);
+
+        if (this.pending.size() >= this.maxPending && this.flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flushPending);
+            }
+            catch (RuntimeException e) {
+                // The recorder is shutting down; the final flush will write the check-in
+                this.flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes all pending check-ins to the database. Check-ins which could not be written are
+     * returned to the pending check-ins, to be retried by the next flush. This method must be
+     * called from a thread which is not bound to a unit of work.
+     */
+    void flushPending() {
+        this.flushRequested.set(false);
+
+        Map<String, Date> batch = new HashMap<>();
+        for (String consumerId : this.pending.keySet()) {
+            Date checkIn = this.pending.remove(consumerId);
+
+            if (checkIn != null) {
+                batch.put(consumerId, checkIn);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+
+        try {
+            this.unitOfWork.begin();
+            this.consumerCurator.updateLastCheckins(batch);
+        }
+        catch (Exception e) {
+            log.error("Unable to flush {} consumer check-ins; retrying on the next flush", batch.size(), e);
+
+            batch.forEach((consumerId, checkIn) -> this.pending.merge(consumerId, checkIn,
+                (current, requeued) -> requeued.after(current) ? requeued : current));
+
+            return;
+        }
+        finally {
+            this.unitOfWork.end();
+        }
+
+        long duration = System.currentTimeMillis() - start;
+
+        this.flushCount.incrementAndGet();
+        this.flushedCheckIns.addAndGet(batch.size());
+        this.lastFlushDuration.set(duration);
+        this.maxFlushDuration.accumulateAndGet(duration, Math::max);
+
+        log.debug("Flushed {} consumer check-ins in {}ms; {} check-ins pending", batch.size(), duration,
+            this.pending.size());
+    }
+
+    /**
+     * Fetches the number of check-ins waiting to be flushed.
+     *
+     * @return
+     *  the number of pending check-ins
+     */
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Fetches the number of successful flushes performed by this recorder.
+     *
+     * @return
+     *  the number of flushes
+     */
+    public long getFlushCount() {
+        return this.flushCount.get();
+    }
+
+    /**
+     * Fetches the number of check-ins written by successful flushes.
+     *
+     * @return
+     *  the number of flushed check-ins
+     */
+    public long getFlushedCheckInCount() {
+        return this.flushedCheckIns.get();
+    }
+
+    /**
+     * Fetches the duration of the last successful flush.
+     *
+     * @return
+     *  the duration of the last flush, in milliseconds
+     */
+    public long getLastFlushDuration() {
+        return this.lastFlushDuration.get();
+    }
+
+    /**
+     * Fetches the duration of the longest successful flush.
+     *
+     * @return
+     *  the duration of the longest flush, in milliseconds
+     */
+    public long getMaxFlushDuration() {
+        return this.maxFlushDuration.get();
+    }
+}
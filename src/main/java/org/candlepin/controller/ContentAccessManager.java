@@ -15,6 +15,7 @@
 package org.candlepin.controller;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ContentAccessPayloadCache;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.util.ContentPrefix;
@@ -68,6 +69,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.naming.ldap.Rdn;
 
@@ -201,6 +203,7 @@ public class ContentAccessManager {
     private final EnvironmentCurator environmentCurator;
     private final ContentAccessCertificateCurator contentAccessCertCurator;
     private final EventSink eventSink;
+    private final ContentAccessPayloadCache payloadCache;
     private final boolean standalone;
 
     @Inject
@@ -216,7 +219,8 @@ public class ContentAccessManager {
         ConsumerTypeCurator consumerTypeCurator,
         EnvironmentCurator environmentCurator,
         ContentAccessCertificateCurator contentAccessCertCurator,
-        EventSink eventSink) {
+        EventSink eventSink,
+        ContentAccessPayloadCache payloadCache) {
 
         this.config = Objects.requireNonNull(config);
         this.pki = Objects.requireNonNull(pki);
@@ -230,6 +234,7 @@ public class ContentAccessManager {
         this.environmentCurator = Objects.requireNonNull(environmentCurator);
         this.contentAccessCertCurator = Objects.requireNonNull(contentAccessCertCurator);
         this.eventSink = Objects.requireNonNull(eventSink);
+        this.payloadCache = Objects.requireNonNull(payloadCache);
         this.standalone = this.config.getBoolean(ConfigProperties.STANDALONE, true);
     }
 
@@ -286,7 +291,7 @@ public class ContentAccessManager {
         existing.setConsumer(consumer);
 
         existing.setCert(createX509Cert(consumer, owner, serial, keyPair, oneYearValidity));
-        existing.setContent(this.createPayloadAndSignature(owner, consumer));
+        existing.setContent(this.getPayloadAndSignature(owner, consumer));
         ContentAccessCertificate savedCert = this.contentAccessCertificateCurator.create(existing);
         consumer.setContentAccessCert(savedCert);
         this.consumerCurator.merge(consumer);
@@ -312,7 +317,18 @@ public class ContentAccessManager {
         Date contentUpdate = owner.getLastContentUpdate();
         boolean shouldUpdateContent = !contentUpdate.before(existing.getUpdated());
         if (shouldUpdateContent || isX509CertExpired) {
-            existing.setContent(this.createPayloadAndSignature(owner, consumer));
+            // The payload is shared by all consumers with the same payload key, so this will only
+            // rebuild and re-sign it if no other consumer has done so for the current key.
+            String content = this.getPayloadAndSignature(owner, consumer);
+            if (!content.equals(existing.getContent())) {
+                existing.setContent(content);
+            }
+            else {
+                // The payload is current as of the last content update; touch the certificate so
+                // it is not checked again on every fetch until the content changes
+                existing.setUpdated(now);
+            }
+
             this.contentAccessCertificateCurator.saveOrUpdate(existing);
         }
 
@@ -410,11 +426,44 @@ public class ContentAccessManager {
         return dContent;
     }
 
-    private String createPayloadAndSignature(Owner owner, Consumer consumer)
+    /**
+     * Fetches the signed SCA payload for the given consumer, generating and caching it if a
+     * payload has not yet been generated for the consumer's payload key. The payload key consists
+     * of the owner, the owner's last content update, the consumer's environments and the
+     * consumer's architectures; consumers sharing all of these receive the same payload.
+     *
+     * @param owner
+     *  the owner of the consumer
+     *
+     * @param consumer
+     *  the consumer for which to fetch the payload
+     *
+     * @return
+     *  the PEM-encoded payload and signature
+     */
+    private String getPayloadAndSignature(Owner owner, Consumer consumer) throws IOException {
+        List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
+        List<String> environmentIds = environments.stream()
+            .map(Environment::getId)
+            .collect(Collectors.toList());
+
+        String key = ContentAccessPayloadCache.buildKey(owner.getId(), environmentIds,
+            owner.getLastContentUpdate(), this.v3extensionUtil.getConsumerArches(consumer));
+
+        String payload = this.payloadCache.get(key);
+        if (payload == null) {
+            payload = this.createPayloadAndSignature(owner, consumer, environments);
+            this.payloadCache.put(key, payload);
+        }
+
+        return payload;
+    }
+
+    private String createPayloadAndSignature(Owner owner, Consumer consumer, List<Environment> environments)
         throws IOException {
 
         log.info("Generating SCA payload for consumer \"{}\"...", consumer.getUuid());
-        byte[] payloadBytes = createContentAccessDataPayload(owner, consumer);
+        byte[] payloadBytes = createContentAccessDataPayload(owner, consumer, environments);
 
         String payload = "-----BEGIN ENTITLEMENT DATA-----\n";
         payload += Util.toBase64(payloadBytes);
@@ -482,7 +531,9 @@ public class ContentAccessManager {
         return v3extensionUtil.getByteExtensions(products);
     }
 
-    private byte[] createContentAccessDataPayload(Owner owner, Consumer consumer) throws IOException {
+    private byte[] createContentAccessDataPayload(Owner owner, Consumer consumer,
+        List<Environment> environments) throws IOException {
+
         Product container = new Product()
             .setId("content_access")
             .setName(" Content Access");
@@ -506,7 +557,6 @@ public class ContentAccessManager {
         Set<String> entitledProductIds = new HashSet<>();
         entitledProductIds.add("content-access");
 
-        List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
         ContentPrefix contentPrefix = ScaContentPrefix.from(owner, this.standalone, environments);
         PromotedContent promotedContent = new PromotedContent(contentPrefix).withAll(environments);
 
@@ -516,7 +566,9 @@ public class ContentAccessManager {
         List<org.candlepin.model.dto.Product> productModels = new ArrayList<>();
         productModels.add(productModel);
 
-        return v3extensionUtil.createEntitlementDataPayload(productModels, consumer, emptyPool, null);
+        // The consumer is deliberately omitted from the payload so it can be shared by all consumers
+        // with the same payload key. The consumer is still identified by the certificate's subject.
+        return v3extensionUtil.createEntitlementDataPayload(productModels, (String) null, emptyPool, null);
     }
 
     /**
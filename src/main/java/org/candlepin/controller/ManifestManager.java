@@ -54,10 +54,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletResponse;
@@ -281,20 +280,13 @@ public class ManifestManager {
                     exportedConsumer.getUuid()));
         }
 
-        BufferedOutputStream output = null;
-        InputStream input = null;
         try {
             response.setContentType("application/zip");
             response.setHeader("Content-Disposition", "attachment; filename=" + manifest.getName());
 
-            // NOTE: Input and output streams are expected to be closed by their creators.
-            input = manifest.getInputStream();
-            output = new BufferedOutputStream(response.getOutputStream());
-            int data = input.read();
-            while (data != -1) {
-                output.write(data);
-                data = input.read();
-            }
+            // NOTE: Output streams are expected to be closed by their creators.
+            OutputStream output = response.getOutputStream();
+            manifest.writeTo(output);
             output.flush();
         }
         catch (Exception e) {
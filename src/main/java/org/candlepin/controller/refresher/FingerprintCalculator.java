@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller.refresher;
+
+import org.candlepin.service.model.BrandingInfo;
+import org.candlepin.service.model.CdnInfo;
+import org.candlepin.service.model.CertificateInfo;
+import org.candlepin.service.model.ContentInfo;
+import org.candlepin.service.model.ProductContentInfo;
+import org.candlepin.service.model.ProductInfo;
+import org.candlepin.service.model.SubscriptionInfo;
+import org.candlepin.util.LongHashCodeBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+
+
+/**
+ * The FingerprintCalculator calculates fingerprints of upstream subscriptions, products and
+ * content. Fingerprints are built in the same fashion as entity versions, but from the upstream
+ * representation of the entities, and include the fingerprints of any children entities. As such,
+ * a change to a content changes the fingerprints of every product and subscription referencing
+ * it, directly or indirectly.
+ * <p></p>
+ * Fingerprints are cached by entity ID for the lifetime of the calculator, which should not
+ * outlive a single refresh operation.
+ */
+public class FingerprintCalculator {
+
+    private final Map<String, Long> productFingerprints;
+    private final Map<String, Long> contentFingerprints;
+
+    /**
+     * Creates a new FingerprintCalculator with empty caches
+     */
+    public FingerprintCalculator() {
+        this.productFingerprints = new HashMap<>();
+        this.contentFingerprints = new HashMap<>();
+    }
+
+    /**
+     * Appends the hashes of the given collection elements to the builder, in a stable order. Null
+     * collections are distinguished from empty collections, as upstream entities use null to
+     * indicate no change.
+     */
+    private static <T> void appendCollection(LongHashCodeBuilder builder, String name,
+        Collection<? extends T> collection, Function<T, Long> hashFunction) {
+
+        builder.append(name);
+
+        if (collection == null) {
+            builder.append((Object) null);
+            return;
+        }
+
+        builder.append(collection.size());
+        collection.stream()
+            .filter(Objects::nonNull)
+            .map(hashFunction)
+            .sorted()
+            .forEach(builder::append);
+    }
+
+    /**
+     * Calculates the fingerprint of the given upstream subscription.
+     *
+     * @param subscription
+     *  the subscription for which to calculate a fingerprint
+     *
+     * @throws IllegalArgumentException
+     *  if subscription is null
+     *
+     * @return
+     *  the fingerprint of the subscription
+     */
+    public long getFingerprint(SubscriptionInfo subscription) {
+        if (subscription == null) {
+            throw new IllegalArgumentException("subscription is null");
+        }
+
+        // initialValue and multiplier chosen from the same list of primes as the entity versions,
+        // but distinct from the pairs they use
+        LongHashCodeBuilder builder = new LongHashCodeBuilder(601, 607)
+            .append(subscription.getId())
+            .append(subscription.getQuantity())
+            .append(subscription.getStartDate())
+            .append(subscription.getEndDate())
+            .append(subscription.getLastModified())
+            .append(subscription.getContractNumber())
+            .append(subscription.getAccountNumber())
+            .append(subscription.getOrderNumber())
+            .append(subscription.getUpstreamPoolId())
+            .append(subscription.getUpstreamEntitlementId())
+            .append(subscription.getUpstreamConsumerId());
+
+        ProductInfo product = subscription.getProduct();
+        builder.append(product != null ? this.getFingerprint(product) : null);
+
+        CdnInfo cdn = subscription.getCdn();
+        if (cdn != null) {
+            builder.append(cdn.getName())
+                .append(cdn.getLabel())
+                .append(cdn.getUrl())
+                .append(this.getCertificateHash(cdn.getCertificate()));
+        }
+        else {
+            builder.append((Object) null);
+        }
+
+        builder.append(this.getCertificateHash(subscription.getCertificate()));
+
+        return builder.toHashCode();
+    }
+
+    /**
+     * Calculates the fingerprint of the given upstream product.
+     *
+     * @param product
+     *  the product for which to calculate a fingerprint
+     *
+     * @throws IllegalArgumentException
+     *  if product is null
+     *
+     * @return
+     *  the fingerprint of the product
+     */
+    public long getFingerprint(ProductInfo product) {
+        if (product == null) {
+            throw new IllegalArgumentException("product is null");
+        }
+
+        Long cached = this.productFingerprints.get(product.getId());
+        if (cached != null) {
+            return cached;
+        }
+
+        LongHashCodeBuilder builder = new LongHashCodeBuilder(613, 617)
+            .append(product.getId())
+            .append(product.getName())
+            .append(product.getMultiplier())
+            .append(product.getAttributes());
+
+        ProductInfo derived = product.getDerivedProduct();
+        builder.append(derived != null ? this.getFingerprint(derived) : null);
+
+        appendCollection(builder, "provided_products", product.getProvidedProducts(),
+            this::getFingerprint);
+
+        appendCollection(builder, "dependent_product_ids", product.getDependentProductIds(),
+            id -> (long) id.hashCode());
+
+        appendCollection(builder, "product_content", product.getProductContent(),
+            this::getProductContentHash);
+
+        appendCollection(builder, "branding", product.getBranding(), this::getBrandingHash);
+
+        long fingerprint = builder.toHashCode();
+        this.productFingerprints.put(product.getId(), fingerprint);
+
+        return fingerprint;
+    }
+
+    /**
+     * Calculates the fingerprint of the given upstream content.
+     *
+     * @param content
+     *  the content for which to calculate a fingerprint
+     *
+     * @throws IllegalArgumentException
+     *  if content is null
+     *
+     * @return
+     *  the fingerprint of the content
+     */
+    public long getFingerprint(ContentInfo content) {
+        if (content == null) {
+            throw new IllegalArgumentException("content is null");
+        }
+
+        Long cached = this.contentFingerprints.get(content.getId());
+        if (cached != null) {
+            return cached;
+        }
+
+        LongHashCodeBuilder builder = new LongHashCodeBuilder(619, 631)
+            .append(content.getId())
+            .append(content.getType())
+            .append(content.getLabel())
+            .append(content.getName())
+            .append(content.getVendor())
+            .append(content.getContentUrl())
+            .append(content.getRequiredTags())
+            .append(content.getReleaseVersion())
+            .append(content.getGpgUrl())
+            .append(content.getMetadataExpiration())
+            .append(content.getArches());
+
+        appendCollection(builder, "required_product_ids", content.getRequiredProductIds(),
+            id -> (long) id.hashCode());
+
+        long fingerprint = builder.toHashCode();
+        this.contentFingerprints.put(content.getId(), fingerprint);
+
+        return fingerprint;
+    }
+
+    private long getProductContentHash(ProductContentInfo productContent) {
+        ContentInfo content = productContent.getContent();
+
+        return new LongHashCodeBuilder()
+            .append(content != null ? this.getFingerprint(content) : null)
+            .append(productContent.isEnabled())
+            .toHashCode();
+    }
+
+    private long getBrandingHash(BrandingInfo branding) {
+        return new LongHashCodeBuilder()
+            .append(branding.getName())
+            .append(branding.getType())
+            .append(branding.getProductId())
+            .toHashCode();
+    }
+
+    private Long getCertificateHash(CertificateInfo certificate) {
+        if (certificate == null) {
+            return null;
+        }
+
+        return new LongHashCodeBuilder()
+            .append(certificate.getKey())
+            .append(certificate.getCertificate())
+            .append(certificate.getSerial() != null ? certificate.getSerial().getSerial() : null)
+            .toHashCode();
+    }
+
+}
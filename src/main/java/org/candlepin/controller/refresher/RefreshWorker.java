@@ -22,6 +22,7 @@ import org.candlepin.controller.refresher.builders.NodeFactory;
 import org.candlepin.controller.refresher.builders.PoolNodeBuilder;
 import org.candlepin.controller.refresher.builders.ProductNodeBuilder;
 import org.candlepin.controller.refresher.mappers.ContentMapper;
+import org.candlepin.controller.refresher.mappers.EntityMapper;
 import org.candlepin.controller.refresher.mappers.NodeMapper;
 import org.candlepin.controller.refresher.mappers.PoolMapper;
 import org.candlepin.controller.refresher.mappers.ProductMapper;
@@ -40,6 +41,8 @@ import org.candlepin.model.Pool.PoolType;
 import org.candlepin.model.PoolCurator;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductCurator;
+import org.candlepin.model.RefreshFingerprint.EntityType;
+import org.candlepin.model.RefreshFingerprintCurator;
 import org.candlepin.service.model.ContentInfo;
 import org.candlepin.service.model.ProductContentInfo;
 import org.candlepin.service.model.ProductInfo;
@@ -53,10 +56,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityTransaction;
@@ -85,12 +92,19 @@ public class RefreshWorker {
     private final OwnerContentCurator ownerContentCurator;
     private final OwnerProductCurator ownerProductCurator;
     private final ProductCurator productCurator;
+    private final RefreshFingerprintCurator fingerprintCurator;
 
     private PoolMapper poolMapper;
     private ProductMapper productMapper;
     private ContentMapper contentMapper;
 
     private int orphanedEntityGracePeriod;
+    private int parallelism;
+    private int chunkSize;
+    private boolean incremental;
+
+    private Map<EntityType, Map<String, Long>> fingerprints;
+    private Set<String> changedSubscriptionIds;
 
 
     /**
@@ -99,19 +113,23 @@ public class RefreshWorker {
     @Inject
     public RefreshWorker(PoolCurator poolCurator, ProductCurator productCurator,
         OwnerProductCurator ownerProductCurator, ContentCurator contentCurator,
-        OwnerContentCurator ownerContentCurator) {
+        OwnerContentCurator ownerContentCurator, RefreshFingerprintCurator fingerprintCurator) {
 
         this.poolCurator = Objects.requireNonNull(poolCurator);
         this.productCurator = Objects.requireNonNull(productCurator);
         this.ownerProductCurator = Objects.requireNonNull(ownerProductCurator);
         this.contentCurator = Objects.requireNonNull(contentCurator);
         this.ownerContentCurator = Objects.requireNonNull(ownerContentCurator);
+        this.fingerprintCurator = Objects.requireNonNull(fingerprintCurator);
 
         this.poolMapper = new PoolMapper();
         this.productMapper = new ProductMapper();
         this.contentMapper = new ContentMapper();
 
         this.orphanedEntityGracePeriod = ORPHANED_ENTITY_DEFAULT_GRACE_PERIOD;
+        this.parallelism = 1;
+        this.chunkSize = 0;
+        this.incremental = false;
     }
 
     /**
@@ -121,6 +139,9 @@ public class RefreshWorker {
         this.poolMapper.clear();
         this.productMapper.clear();
         this.contentMapper.clear();
+
+        this.fingerprints = null;
+        this.changedSubscriptionIds = null;
     }
 
     /**
@@ -152,6 +173,100 @@ public class RefreshWorker {
         return this;
     }
 
+    /**
+     * Sets the number of threads to use for comparing and versioning the refreshed entities. See
+     * the documentation associated with the setParallelism method of the NodeProcessor class for
+     * details on how the refreshed entities are processed in parallel.
+     *
+     * @param parallelism
+     *  the number of threads to use for processing the refreshed entities, or a value of one or
+     *  less to process them on the refreshing thread
+     *
+     * @return
+     *  a reference to this refresh worker
+     */
+    public RefreshWorker setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Fetches the number of threads used for comparing and versioning the refreshed entities.
+     *
+     * @return
+     *  the number of threads used for processing the refreshed entities
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Sets the maximum number of refreshed entities to write per transaction. If the chunk size is
+     * greater than zero, and no transaction is active when the refresh is executed, the changes to
+     * the refreshed content, then products, are committed in separate transactions of at most this
+     * many entities, and the session is cleared after each of them. Otherwise, the refresh is
+     * performed in a single transaction.
+     * <p></p>
+     * Chunked refreshes may leave the org partially refreshed if they fail. As entities committed
+     * by earlier chunks are then found unchanged, performing the refresh again resumes it where it
+     * stopped; products still referencing the previous versions of committed children are updated
+     * to reference the current versions.
+     *
+     * @param chunkSize
+     *  the maximum number of refreshed entities to write per transaction, or a value of zero or
+     *  less to perform the refresh in a single transaction
+     *
+     * @return
+     *  a reference to this refresh worker
+     */
+    public RefreshWorker setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Fetches the maximum number of refreshed entities written per transaction.
+     *
+     * @return
+     *  the maximum number of refreshed entities written per transaction, or a value of zero or
+     *  less if refreshes are performed in a single transaction
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Sets whether or not this refresher performs incremental refreshes. Incremental refreshes
+     * compare the fingerprints of the upstream entities against those recorded by the previous
+     * refresh of the org, and only process the entities which changed, along with the entities
+     * depending on them. If the org has no recorded fingerprints, or entities have been removed
+     * upstream, a full refresh is performed instead.
+     * <p></p>
+     * The fingerprints of the refreshed entities are only recorded once the
+     * <tt>saveFingerprints</tt> method is called, which should be done after any further
+     * processing of the refresh result is complete, in the same transaction.
+     *
+     * @param incremental
+     *  whether or not to perform incremental refreshes
+     *
+     * @return
+     *  a reference to this refresh worker
+     */
+    public RefreshWorker setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Checks whether or not this refresher performs incremental refreshes.
+     *
+     * @return
+     *  true if this refresher performs incremental refreshes; false otherwise
+     */
+    public boolean isIncremental() {
+        return this.incremental;
+    }
+
     /**
      * Adds the specified subscriptions to this refresher, and any children entities each
      * subscription contains. If a given subscription has already been added, but differs from the
@@ -377,6 +492,21 @@ public class RefreshWorker {
         return this.contentMapper.getImportedEntities();
     }
 
+    /**
+     * Checks whether or not the subscription with the given ID was processed by the last refresh
+     * performed by this refresher. Full refreshes process every subscription, while incremental
+     * refreshes only process the subscriptions which changed upstream since the previous refresh.
+     *
+     * @param subscriptionId
+     *  the ID of the subscription to check
+     *
+     * @return
+     *  true if the subscription was processed by the last refresh; false otherwise
+     */
+    public boolean isSubscriptionChanged(String subscriptionId) {
+        return this.changedSubscriptionIds == null || this.changedSubscriptionIds.contains(subscriptionId);
+    }
+
     /**
      * Maps the given collection of existing pools, and their refresh-critical children entities.
      *
@@ -484,6 +614,413 @@ public class RefreshWorker {
         this.ownerContentCurator.rebuildOwnerContentMapping(owner, entityIdMap);
     }
 
+    /**
+     * Clears the existing entities mapped by a previous run of this refresher
+     */
+    private void clearExistingEntities() {
+        this.poolMapper.clearExistingEntities();
+        this.productMapper.clearExistingEntities();
+        this.contentMapper.clearExistingEntities();
+    }
+
+    /**
+     * Calculates the fingerprints of the upstream entities currently added to this refresher.
+     *
+     * @return
+     *  a map containing the fingerprints of the upstream entities, mapped by entity type and ID
+     */
+    private Map<EntityType, Map<String, Long>> calculateFingerprints() {
+        FingerprintCalculator calculator = new FingerprintCalculator();
+        Map<EntityType, Map<String, Long>> fingerprints = new EnumMap<>(EntityType.class);
+
+        Map<String, Long> subscriptions = new HashMap<>();
+        this.poolMapper.getImportedEntities()
+            .forEach((id, entity) -> subscriptions.put(id, calculator.getFingerprint(entity)));
+
+        Map<String, Long> products = new HashMap<>();
+        this.productMapper.getImportedEntities()
+            .forEach((id, entity) -> products.put(id, calculator.getFingerprint(entity)));
+
+        Map<String, Long> content = new HashMap<>();
+        this.contentMapper.getImportedEntities()
+            .forEach((id, entity) -> content.put(id, calculator.getFingerprint(entity)));
+
+        fingerprints.put(EntityType.SUBSCRIPTION, subscriptions);
+        fingerprints.put(EntityType.PRODUCT, products);
+        fingerprints.put(EntityType.CONTENT, content);
+
+        return fingerprints;
+    }
+
+    /**
+     * Fetches the IDs of the entities for which the current fingerprint differs from the recorded
+     * fingerprint, or which do not have a recorded fingerprint.
+     */
+    private static Set<String> getChangedEntityIds(Map<String, Long> current, Map<String, Long> recorded) {
+        return current.entrySet()
+            .stream()
+            .filter(entry -> !entry.getValue().equals(recorded.get(entry.getKey())))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Collects the IDs of the given upstream product and of every product and content it
+     * references, directly or indirectly.
+     */
+    private void collectReferencedEntityIds(ProductInfo product, Set<String> productIds,
+        Set<String> contentIds) {
+
+        if (product == null || !productIds.add(product.getId())) {
+            return;
+        }
+
+        // Use the version of the product the node builders will use
+        ProductInfo mapped = this.productMapper.getImportedEntity(product.getId());
+        if (mapped != null) {
+            product = mapped;
+        }
+
+        this.collectReferencedEntityIds(product.getDerivedProduct(), productIds, contentIds);
+
+        if (product.getProvidedProducts() != null) {
+            for (ProductInfo provided : product.getProvidedProducts()) {
+                this.collectReferencedEntityIds(provided, productIds, contentIds);
+            }
+        }
+
+        if (product.getProductContent() != null) {
+            product.getProductContent().stream()
+                .filter(Objects::nonNull)
+                .map(ProductContentInfo::getContent)
+                .filter(Objects::nonNull)
+                .forEach(content -> contentIds.add(content.getId()));
+        }
+    }
+
+    /**
+     * Checks that every existing entity mapped by the given mapper is still present upstream.
+     */
+    private static boolean containsOnlyImportedEntities(EntityMapper<?, ?> mapper) {
+        return mapper.getImportedEntities().keySet()
+            .containsAll(mapper.getExistingEntities().keySet());
+    }
+
+    /**
+     * Performs a full refresh of the given org, processing every upstream entity and every entity
+     * currently present in the org. Writes performed outside of the node processor, such as the
+     * rebuilding of dirty org mappings, are performed by the given writer.
+     *
+     * @return
+     *  the result of the refresh operation
+     */
+    private RefreshResult executeFull(Owner owner, NodeFactory nodeFactory, NodeProcessor nodeProcessor,
+        Consumer<Runnable> writer) {
+
+        this.clearExistingEntities();
+        this.changedSubscriptionIds = null;
+
+        // Add in our existing entities
+        List<Pool> pools = this.poolCurator
+            .listByOwnerAndTypes(owner.getId(), PoolType.NORMAL, PoolType.DEVELOPMENT);
+        this.mapExistingPools(pools);
+
+        // Add in the org-mapped entities to ensure we catch everything for this org, as well
+        // verifying there aren't any dangling references to out-of-org entities
+        Collection<Product> ownerProducts = this.ownerProductCurator.getProductsByOwner(owner);
+        this.mapExistingProducts(ownerProducts);
+
+        Collection<Content> ownerContent = this.ownerContentCurator.getContentByOwner(owner);
+        this.mapExistingContent(ownerContent);
+
+        // Have our node factory build the node trees
+        nodeFactory.buildNodes(owner);
+
+        // Process our nodes, starting at the roots, letting the processors build up any persistence
+        // state necessary to finalize everything
+        RefreshResult result = nodeProcessor.processNodes();
+
+        // If we had any dirty mappings, rebuild the org's mappings to ensure no leftover shenanigans
+        if (this.productMapper.isDirty() ||
+            !this.productMapper.containsOnlyExistingEntities(ownerProducts)) {
+
+            log.warn("Found one or more dirty product mappings for org {}; remapping products", owner);
+            writer.accept(() -> this.rebuildOwnerProductMapping(owner, result));
+        }
+
+        if (this.contentMapper.isDirty() ||
+            !this.contentMapper.containsOnlyExistingEntities(ownerContent)) {
+
+            log.warn("Found one or more dirty content mappings for org {}; remapping content", owner);
+            writer.accept(() -> this.rebuildOwnerContentMapping(owner, result));
+        }
+
+        return result;
+    }
+
+    /**
+     * Performs an incremental refresh of the given org, processing only the upstream entities
+     * which changed since the previous refresh, along with the entities they reference. If an
+     * incremental refresh cannot be performed, this method returns null, in which case a full
+     * refresh must be performed instead.
+     * <p></p>
+     * Incremental refreshes never remove entities from the org. If any entity was removed
+     * upstream, the refresh falls back to a full refresh so orphaned entities can be handled with
+     * the complete view of the org.
+     *
+     * @return
+     *  the result of the refresh operation, or null if a full refresh is required
+     */
+    private RefreshResult executeIncremental(Owner owner, NodeFactory nodeFactory,
+        NodeProcessor nodeProcessor) {
+
+        this.clearExistingEntities();
+
+        Map<String, Long> subscriptionFingerprints = this.fingerprints.get(EntityType.SUBSCRIPTION);
+        Map<String, Long> productFingerprints = this.fingerprints.get(EntityType.PRODUCT);
+        Map<String, Long> contentFingerprints = this.fingerprints.get(EntityType.CONTENT);
+
+        Map<String, Long> recordedSubscriptions = this.fingerprintCurator
+            .getFingerprints(owner.getId(), EntityType.SUBSCRIPTION);
+        Map<String, Long> recordedProducts = this.fingerprintCurator
+            .getFingerprints(owner.getId(), EntityType.PRODUCT);
+        Map<String, Long> recordedContent = this.fingerprintCurator
+            .getFingerprints(owner.getId(), EntityType.CONTENT);
+
+        if (recordedSubscriptions.isEmpty() && recordedProducts.isEmpty() && recordedContent.isEmpty()) {
+            log.info("No refresh fingerprints recorded for org {}; performing a full refresh", owner);
+            return null;
+        }
+
+        if (!productFingerprints.keySet().containsAll(recordedProducts.keySet()) ||
+            !contentFingerprints.keySet().containsAll(recordedContent.keySet())) {
+
+            log.info("One or more products or content were removed upstream for org {}; " +
+                "performing a full refresh", owner);
+            return null;
+        }
+
+        Set<String> changedSubscriptions = getChangedEntityIds(subscriptionFingerprints,
+            recordedSubscriptions);
+        Set<String> changedProducts = getChangedEntityIds(productFingerprints, recordedProducts);
+        Set<String> changedContent = getChangedEntityIds(contentFingerprints, recordedContent);
+
+        // Fingerprints include those of the children entities, so any entity depending on a changed
+        // entity has changed as well. We still need the existing versions of every entity the
+        // changed entities reference to build their subtrees.
+        Set<String> productIds = new HashSet<>();
+        Set<String> contentIds = new HashSet<>(changedContent);
+
+        for (String subscriptionId : changedSubscriptions) {
+            SubscriptionInfo subscription = this.poolMapper.getImportedEntity(subscriptionId);
+            this.collectReferencedEntityIds(subscription.getProduct(), productIds, contentIds);
+        }
+
+        for (String productId : changedProducts) {
+            this.collectReferencedEntityIds(this.productMapper.getImportedEntity(productId), productIds,
+                contentIds);
+        }
+
+        List<Pool> pools = this.poolCurator.mapPoolsBySubscriptionIds(changedSubscriptions)
+            .values()
+            .stream()
+            .flatMap(Collection::stream)
+            .filter(pool -> owner.getId().equals(pool.getOwnerId()))
+            .filter(pool -> pool.getType() == PoolType.NORMAL || pool.getType() == PoolType.DEVELOPMENT)
+            .collect(Collectors.toList());
+        this.mapExistingPools(pools);
+
+        if (!productIds.isEmpty()) {
+            this.mapExistingProducts(this.ownerProductCurator.getProductsByIds(owner, productIds).list());
+        }
+
+        if (!contentIds.isEmpty()) {
+            this.mapExistingContent(this.ownerContentCurator.getContentByIds(owner, contentIds).values());
+        }
+
+        if (this.productMapper.isDirty() || this.contentMapper.isDirty() ||
+            !containsOnlyImportedEntities(this.productMapper) ||
+            !containsOnlyImportedEntities(this.contentMapper)) {
+
+            log.info("Changed entities for org {} reference dirty or removed entities; " +
+                "performing a full refresh", owner);
+            return null;
+        }
+
+        log.info("Performing incremental refresh for org {}: {} subscription(s), {} product(s) and {} " +
+            "content changed upstream", owner, changedSubscriptions.size(), changedProducts.size(),
+            changedContent.size());
+
+        nodeFactory.buildNodes(owner, Pool.class, changedSubscriptions);
+        nodeFactory.buildNodes(owner, Product.class, changedProducts);
+        nodeFactory.buildNodes(owner, Content.class, changedContent);
+
+        RefreshResult result = nodeProcessor.processNodes();
+        this.changedSubscriptionIds = changedSubscriptions;
+
+        return result;
+    }
+
+    /**
+     * Records the fingerprints of the upstream entities processed by the last refresh performed
+     * by this refresher, to be used by the next incremental refresh of the org. If this refresher
+     * does not perform incremental refreshes, any fingerprints previously recorded for the org are
+     * removed instead, as they would no longer reflect the state of the org.
+     * <p></p>
+     * This method should be called once the refresh result has been fully processed, in the same
+     * transaction, so the fingerprints are only recorded if the refresh completes.
+     *
+     * @param owner
+     *  the org for which the refresh was performed
+     *
+     * @throws IllegalArgumentException
+     *  if owner is null or lacks an ID
+     *
+     * @throws IllegalStateException
+     *  if this refresher is incremental and has not yet performed a refresh
+     */
+    public void saveFingerprints(Owner owner) {
+        if (owner == null || owner.getId() == null) {
+            throw new IllegalArgumentException("owner is null, or lacks an ID");
+        }
+
+        if (!this.incremental) {
+            this.fingerprintCurator.deleteFingerprints(owner.getId());
+            return;
+        }
+
+        if (this.fingerprints == null) {
+            throw new IllegalStateException("no refresh has been performed by this refresher");
+        }
+
+        for (Map.Entry<EntityType, Map<String, Long>> entry : this.fingerprints.entrySet()) {
+            this.fingerprintCurator.updateFingerprints(owner.getId(), entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Obtains system locks on products and content so we don't need to worry about orphan cleanup
+     * deleting stuff out from under us
+     */
+    private void obtainSystemLocks() {
+        this.ownerContentCurator.getSystemLock(ContentManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_READ);
+        this.ownerProductCurator.getSystemLock(ProductManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_READ);
+    }
+
+    /**
+     * Performs the refresh of the given org, using the provided executor to perform the writes. If
+     * the refresh is chunked, the changes are applied in chunks of the configured chunk size.
+     *
+     * @param owner
+     *  the org to refresh
+     *
+     * @param writer
+     *  the executor to use for performing each chunk of writes
+     *
+     * @param chunked
+     *  whether or not to apply the changes in chunks
+     *
+     * @return
+     *  the result of the refresh operation
+     */
+    private RefreshResult executeImpl(Owner owner, Consumer<Runnable> writer, boolean chunked) {
+        NodeMapper nodeMapper = new NodeMapper();
+
+        NodeFactory nodeFactory = new NodeFactory()
+            .setNodeMapper(nodeMapper)
+            .addMapper(this.poolMapper)
+            .addMapper(this.productMapper)
+            .addMapper(this.contentMapper)
+            .addBuilder(new PoolNodeBuilder())
+            .addBuilder(new ProductNodeBuilder())
+            .addBuilder(new ContentNodeBuilder());
+
+        NodeProcessor nodeProcessor = new NodeProcessor()
+            .setNodeMapper(nodeMapper)
+            .setParallelism(this.parallelism)
+            .setChunkSize(chunked ? this.chunkSize : 0)
+            .setChunkExecutor(writer)
+            .addVisitor(new PoolNodeVisitor(this.poolCurator))
+            .addVisitor(new ProductNodeVisitor(this.productCurator, this.ownerProductCurator,
+                this.orphanedEntityGracePeriod))
+            .addVisitor(new ContentNodeVisitor(this.contentCurator, this.ownerContentCurator));
+
+        // Incremental refreshes fall back to full refreshes whenever they cannot be performed
+        RefreshResult result = null;
+
+        if (this.incremental) {
+            this.fingerprints = this.calculateFingerprints();
+            result = this.executeIncremental(owner, nodeFactory, nodeProcessor);
+        }
+
+        return result != null ? result : this.executeFull(owner, nodeFactory, nodeProcessor, writer);
+    }
+
+    /**
+     * Performs the given chunk of writes in its own transaction, and clears the session afterward
+     * so the entities loaded or written by the chunk do not accumulate over the refresh.
+     *
+     * @param chunk
+     *  the chunk of writes to perform
+     */
+    private void executeChunk(Runnable chunk) {
+        try {
+            this.poolCurator.<Void>transactional((args) -> {
+                this.obtainSystemLocks();
+                chunk.run();
+
+                return null;
+            }).execute();
+        }
+        finally {
+            this.poolCurator.clear();
+        }
+    }
+
+    /**
+     * Performs the refresh of the given org in chunks. The existing entities are fetched and
+     * compared against the upstream entities in a read transaction holding the system locks, which
+     * is committed before the first chunk of changes. Each chunk of changes is then committed in its
+     * own transaction, re-acquiring the locks.
+     *
+     * @return
+     *  the result of the refresh operation
+     */
+    private RefreshResult executeChunked(Owner owner) {
+        EntityTransaction transaction = this.poolCurator.getTransaction();
+
+        // Between the read phase and the chunks, only entities mapped to the org are referenced,
+        // which orphan cleanup will not remove out from under us
+        Consumer<Runnable> writer = (chunk) -> {
+            if (transaction.isActive()) {
+                transaction.commit();
+            }
+
+            this.executeChunk(chunk);
+        };
+
+        try {
+            transaction.begin();
+            this.obtainSystemLocks();
+
+            RefreshResult result = this.executeImpl(owner, writer, true);
+
+            if (transaction.isActive()) {
+                transaction.commit();
+            }
+
+            return result;
+        }
+        finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            // Don't leave the entities fetched while comparing the entities in the session
+            this.poolCurator.clear();
+        }
+    }
+
     /**
      * Performs the import operation on the currently compiled objects
      *
@@ -492,77 +1029,30 @@ public class RefreshWorker {
      */
     @SuppressWarnings("indentation")
     public RefreshResult execute(Owner owner) {
-        Transactional<RefreshResult> block = this.poolCurator.transactional((args) -> {
-            NodeMapper nodeMapper = new NodeMapper();
-
-            NodeFactory nodeFactory = new NodeFactory()
-                .setNodeMapper(nodeMapper)
-                .addMapper(this.poolMapper)
-                .addMapper(this.productMapper)
-                .addMapper(this.contentMapper)
-                .addBuilder(new PoolNodeBuilder())
-                .addBuilder(new ProductNodeBuilder())
-                .addBuilder(new ContentNodeBuilder());
-
-            NodeProcessor nodeProcessor = new NodeProcessor()
-                .setNodeMapper(nodeMapper)
-                .addVisitor(new PoolNodeVisitor(this.poolCurator))
-                .addVisitor(new ProductNodeVisitor(this.productCurator, this.ownerProductCurator,
-                    this.orphanedEntityGracePeriod))
-                .addVisitor(new ContentNodeVisitor(this.contentCurator, this.ownerContentCurator));
-
-            // Obtain system locks on products and content so we don't need to worry about
-            // orphan cleanup deleting stuff out from under us
-            this.ownerContentCurator.getSystemLock(ContentManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_READ);
-            this.ownerProductCurator.getSystemLock(ProductManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_READ);
-
-            // Clear existing entities in the event this isn't the first run of this refresher
-            this.poolMapper.clearExistingEntities();
-            this.productMapper.clearExistingEntities();
-            this.contentMapper.clearExistingEntities();
-
-            // Add in our existing entities
-            List<Pool> pools = this.poolCurator
-                .listByOwnerAndTypes(owner.getId(), PoolType.NORMAL, PoolType.DEVELOPMENT);
-            this.mapExistingPools(pools);
-
-            // Add in the org-mapped entities to ensure we catch everything for this org, as well
-            // verifying there aren't any dangling references to out-of-org entities
-            Collection<Product> ownerProducts = this.ownerProductCurator.getProductsByOwner(owner);
-            this.mapExistingProducts(ownerProducts);
-
-            Collection<Content> ownerContent = this.ownerContentCurator.getContentByOwner(owner);
-            this.mapExistingContent(ownerContent);
-
-            // Have our node factory build the node trees
-            nodeFactory.buildNodes(owner);
-
-            // Process our nodes, starting at the roots, letting the processors build up any persistence
-            // state necessary to finalize everything
-            RefreshResult result = nodeProcessor.processNodes();
-
-            // If we had any dirty mappings, rebuild the org's mappings to ensure no leftover shenanigans
-            if (this.productMapper.isDirty() ||
-                !this.productMapper.containsOnlyExistingEntities(ownerProducts)) {
-
-                log.warn("Found one or more dirty product mappings for org {}; remapping products", owner);
-                this.rebuildOwnerProductMapping(owner, result);
+        // Impl note: at the time of writing, nested transactions are not supported in Hibernate
+        EntityTransaction transaction = this.poolCurator.getTransaction();
+        boolean inTransaction = transaction != null && transaction.isActive();
+
+        if (this.chunkSize > 0) {
+            if (!inTransaction) {
+                // Chunks committed by a failed attempt are found unchanged by the retry, and their
+                // stale parents are updated, so retrying the entire refresh resumes it where it failed
+                return new EntityVersioningRetryWrapper()
+                    .retries(VERSIONING_CONSTRAINT_VIOLATION_RETRIES)
+                    .execute(() -> this.executeChunked(owner));
             }
 
-            if (this.contentMapper.isDirty() ||
-                !this.contentMapper.containsOnlyExistingEntities(ownerContent)) {
-
-                log.warn("Found one or more dirty content mappings for org {}; remapping content", owner);
-                this.rebuildOwnerContentMapping(owner, result);
-            }
+            log.warn("Chunked refresh requested for org {} while a transaction is active; performing " +
+                "the refresh in the active transaction", owner);
+        }
 
-            return result;
+        Transactional<RefreshResult> block = this.poolCurator.transactional((args) -> {
+            this.obtainSystemLocks();
+            return this.executeImpl(owner, Runnable::run, false);
         });
 
         // Attempt to retry if we're not already in a transaction
-        // Impl note: at the time of writing, nested transactions are not supported in Hibernate
-        EntityTransaction transaction = this.poolCurator.getTransaction();
-        if (transaction == null || !transaction.isActive()) {
+        if (!inTransaction) {
             // Retry this operation if we hit a constraint violation on the entity version constraint
             return new EntityVersioningRetryWrapper()
                 .retries(VERSIONING_CONSTRAINT_VIOLATION_RETRIES)
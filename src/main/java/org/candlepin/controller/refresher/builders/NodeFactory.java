@@ -21,6 +21,7 @@ import org.candlepin.model.AbstractHibernateObject;
 import org.candlepin.model.Owner;
 import org.candlepin.service.model.ServiceAdapterModel;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -189,4 +190,32 @@ public class NodeFactory {
         }
     }
 
+    /**
+     * Builds nodes for the entities of the given class with the specified IDs, and any children
+     * nodes they reference. If matching nodes are already present in the registered node mapper,
+     * new nodes will not be created for them.
+     *
+     * @param owner
+     *  the organization that will own the created nodes
+     *
+     * @param cls
+     *  the entity class of the nodes to create
+     *
+     * @param ids
+     *  a collection containing the entity IDs of the nodes to create
+     *
+     * @throws IllegalStateException
+     *  if the node mapper has not been set, or a mapper or builder has not been provided for the
+     *  given entity class, or the builder failed to create a node for the entity
+     */
+    public <E extends AbstractHibernateObject> void buildNodes(Owner owner, Class<E> cls,
+        Collection<String> ids) {
+
+        if (ids != null) {
+            for (String id : ids) {
+                this.buildNode(owner, cls, id);
+            }
+        }
+    }
+
 }
@@ -33,6 +33,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 
@@ -48,9 +49,11 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
     private Set<OwnerContent> ownerContentEntities;
     private Map<Owner, Map<String, String>> ownerContentUuidMap;
     private Map<Owner, Set<String>> deletedContentUuids;
-    private Map<Owner, Set<Long>> ownerEntityVersions;
     private Map<Owner, Map<String, List<Content>>> ownerVersionedEntityMap;
 
+    // Updated while processing nodes, which may be done in parallel
+    private Map<Owner, Set<Long>> ownerEntityVersions;
+
 
     /**
      * Creates a new ContentNodeVisitor that uses the provided curators for performing database
@@ -80,7 +83,7 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
         this.ownerContentEntities = new HashSet<>();
         this.ownerContentUuidMap = new HashMap<>();
         this.deletedContentUuids = new HashMap<>();
-        this.ownerEntityVersions = new HashMap<>();
+        this.ownerEntityVersions = new ConcurrentHashMap<>();
         this.ownerVersionedEntityMap = new HashMap<>();
     }
 
@@ -92,6 +95,19 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
         return Content.class;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepareNode(EntityNode<Content, ContentInfo> node) {
+        Content existingEntity = node.getExistingEntity();
+
+        // Iterate the lazily fetched collections to have them loaded by the session on this thread
+        if (existingEntity != null) {
+            existingEntity.getModifiedProductIds().forEach(pid -> {});
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -223,13 +239,18 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
         long entityVersion = entity.getEntityVersion();
 
         Map<String, List<Content>> entityMap = this.ownerVersionedEntityMap.computeIfAbsent(owner, key -> {
-            Set<Long> versions = this.ownerEntityVersions.remove(key);
+            Set<Long> versions = this.ownerEntityVersions.get(key);
 
-            return versions != null ?
+            return versions != null && !versions.isEmpty() ?
                 this.ownerContentCurator.getContentByVersions(versions) :
                 Collections.emptyMap();
         });
 
+        // This version is resolved by this call; drop it so it isn't looked up again should the
+        // candidates need to be refetched after the changes are flushed
+        this.ownerEntityVersions.getOrDefault(owner, Collections.emptySet())
+            .remove(entityVersion);
+
         for (Content candidate : entityMap.getOrDefault(entity.getId(), Collections.emptyList())) {
             if (entityVersion == candidate.getEntityVersion()) {
                 if (entity.equals(candidate)) {
@@ -261,12 +282,7 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
      * {@inheritDoc}
      */
     @Override
-    public void complete() {
-        // Remove owner-specific content references for deleted content
-        for (Map.Entry<Owner, Set<String>> entry : this.deletedContentUuids.entrySet()) {
-            this.ownerContentCurator.removeOwnerContentReferences(entry.getKey(), entry.getValue());
-        }
-
+    public void flushChanges() {
         // Save new owner-content entities
         this.ownerContentEntities.stream()
             .forEach(elem -> this.ownerContentCurator.create(elem, false));
@@ -277,9 +293,28 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
             this.ownerContentCurator.updateOwnerContentReferences(entry.getKey(), entry.getValue());
         }
 
-        // Clear our various caches
         this.ownerContentUuidMap.clear();
         this.ownerContentEntities.clear();
+
+        // The candidate entities may be detached once the changes are committed; the versions which
+        // have yet to be resolved will be refetched as necessary
+        this.ownerVersionedEntityMap.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete() {
+        // Remove owner-specific content references for deleted content
+        for (Map.Entry<Owner, Set<String>> entry : this.deletedContentUuids.entrySet()) {
+            this.ownerContentCurator.removeOwnerContentReferences(entry.getKey(), entry.getValue());
+        }
+
+        // Save new owner-content entities and update references
+        this.flushChanges();
+
+        // Clear our various caches
         this.deletedContentUuids.clear();
         this.ownerEntityVersions.clear();
         this.ownerVersionedEntityMap.clear();
@@ -354,7 +389,7 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
         }
 
         // Save entity version for later version resolution
-        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> new HashSet<>())
+        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> ConcurrentHashMap.newKeySet())
             .add(updatedEntity.getEntityVersion());
 
         return updatedEntity;
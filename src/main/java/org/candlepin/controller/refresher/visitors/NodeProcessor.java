@@ -20,15 +20,22 @@ import org.candlepin.controller.refresher.mappers.NodeMapper;
 import org.candlepin.controller.refresher.nodes.EntityNode;
 import org.candlepin.controller.refresher.nodes.EntityNode.NodeState;
 
+import com.google.common.collect.Lists;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 
 
@@ -42,18 +49,99 @@ import java.util.Set;
  * entity types of Product and Content, then the processor must have a visitor for both of these
  * types of nodes. If a node is requested to be processed without a matching visitor, an exception
  * will be thrown.
+ * <p></p>
+ * By default, nodes are processed on the calling thread. If the processor is configured with a
+ * parallelism greater than one, the processing step, which compares the existing and imported
+ * entities and computes the versions of the merged entities, is instead performed on a fork-join
+ * pool. Nodes are grouped into levels by their height in the node trees, such that a node's
+ * children are always in lower levels than the node itself. The nodes of a given level do not
+ * depend on each other, and are processed in parallel once all lower levels have been processed.
+ * The pruning and change application steps, which perform the database operations, are always
+ * performed on the calling thread, in the same order as sequential processing.
+ * <p></p>
+ * By default, the changes to all nodes are applied at once. If the processor is configured with a
+ * chunk size greater than zero, the changes are instead applied in chunks of at most that many
+ * changed nodes, ordered by their height in the node trees, such that the changes to a node's
+ * children are always applied in the same or an earlier chunk than the node itself. Each chunk,
+ * followed by the visitors' completion step, is performed by the configured chunk executor, which
+ * may perform each of them in its own transaction.
  */
 public class NodeProcessor {
     private static Logger log = LoggerFactory.getLogger(NodeProcessor.class);
 
     private NodeMapper mapper;
     private Map<Class, NodeVisitor<?, ?>> visitors;
+    private int parallelism;
+    private int chunkSize;
+    private Consumer<Runnable> chunkExecutor;
 
     /**
      * Creates a new NodeProcessor, without any mappers or visitors.
      */
     public NodeProcessor() {
         this.visitors = new HashMap<>();
+        this.parallelism = 1;
+        this.chunkSize = 0;
+        this.chunkExecutor = Runnable::run;
+    }
+
+    /**
+     * Sets the number of threads to use for processing nodes. If the parallelism is greater than
+     * one, nodes will be processed in parallel on a fork-join pool with the given number of
+     * threads; otherwise, nodes are processed sequentially on the calling thread.
+     * <p></p>
+     * When processing nodes in parallel, the visitors' <tt>processNode</tt> methods must be safe to
+     * call concurrently for distinct nodes.
+     *
+     * @param parallelism
+     *  the number of threads to use for processing nodes
+     *
+     * @return
+     *  a reference to this node processor
+     */
+    public NodeProcessor setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of changed nodes for which to apply changes in a single chunk. If the
+     * chunk size is greater than zero, the changes are applied in chunks, each of which is
+     * performed by the chunk executor and followed by a call to the visitors' <tt>flushChanges</tt>
+     * method; otherwise, the changes to all nodes are applied at once.
+     *
+     * @param chunkSize
+     *  the maximum number of changed nodes per chunk, or a value of zero or less to apply all
+     *  changes at once
+     *
+     * @return
+     *  a reference to this node processor
+     */
+    public NodeProcessor setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets the executor used to perform each chunk of changes, and the completion step, when
+     * applying changes in chunks. By default, chunks are performed directly on the calling thread.
+     *
+     * @param chunkExecutor
+     *  the executor to use for performing each chunk of changes
+     *
+     * @throws IllegalArgumentException
+     *  if the provided chunk executor is null
+     *
+     * @return
+     *  a reference to this node processor
+     */
+    public NodeProcessor setChunkExecutor(Consumer<Runnable> chunkExecutor) {
+        if (chunkExecutor == null) {
+            throw new IllegalArgumentException("chunkExecutor is null");
+        }
+
+        this.chunkExecutor = chunkExecutor;
+        return this;
     }
 
     /**
@@ -143,9 +231,14 @@ public class NodeProcessor {
         Set<EntityNode<?, ?>> visited = new HashSet<>();
 
         // Process our root nodes
-        visited.clear();
-        this.mapper.getRootNodeStream()
-            .forEach(elem -> this.processNodeImpl(visited, elem));
+        if (this.parallelism > 1) {
+            this.processNodesInParallel();
+        }
+        else {
+            visited.clear();
+            this.mapper.getRootNodeStream()
+                .forEach(elem -> this.processNodeImpl(visited, elem));
+        }
 
         // Prune our unused nodes
         // Impl note: it's probably not strictly necessary to reverse the ordering of processing here,
@@ -155,14 +248,23 @@ public class NodeProcessor {
         this.mapper.getLeafNodeStream()
             .forEach(elem -> this.pruneNodeImpl(visited, elem));
 
-        // Apply changes
-        visited.clear();
-        this.mapper.getRootNodeStream()
-            .forEach(elem -> this.applyChangesImpl(visited, elem));
+        if (this.chunkSize > 0) {
+            // Apply changes in chunks, then complete any pending operations in a chunk of their own
+            this.applyChangesInChunks();
+
+            this.chunkExecutor.accept(() -> this.visitors.values()
+                .forEach(NodeVisitor::complete));
+        }
+        else {
+            // Apply changes
+            visited.clear();
+            this.mapper.getRootNodeStream()
+                .forEach(elem -> this.applyChangesImpl(visited, elem));
 
-        // Have our visitors complete any pending operations
-        for (NodeVisitor<?, ?> visitor : this.visitors.values()) {
-            visitor.complete();
+            // Have our visitors complete any pending operations
+            for (NodeVisitor<?, ?> visitor : this.visitors.values()) {
+                visitor.complete();
+            }
         }
 
         // Compile and return the results
@@ -187,6 +289,113 @@ public class NodeProcessor {
         }
     }
 
+    /**
+     * Processes the nodes mapped by the backing node mapper on a fork-join pool, one level of
+     * nodes at a time, starting with the leaf nodes.
+     */
+    private void processNodesInParallel() {
+        List<List<EntityNode<?, ?>>> levels = this.getNodeLevels();
+
+        // Any state the visitors cannot load from the pool threads must be loaded beforehand
+        for (List<EntityNode<?, ?>> level : levels) {
+            level.forEach(elem -> this.getVisitor(elem).prepareNode(elem));
+        }
+
+        log.debug("Processing {} node(s) in {} level(s) with a parallelism of {}",
+            levels.stream().mapToInt(List::size).sum(), levels.size(), this.parallelism);
+
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+
+        try {
+            for (List<EntityNode<?, ?>> level : levels) {
+                // Joining each level ensures the children nodes are fully processed, and their state
+                // visible, before their parents are processed
+                pool.submit(() -> level.parallelStream()
+                    .forEach(elem -> {
+                        log.trace("Processing node: {}", elem);
+                        this.getVisitor(elem).processNode(elem);
+                    }))
+                    .join();
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Applies the changes to the changed nodes mapped by the backing node mapper in chunks of at
+     * most the configured chunk size, starting with the leaf nodes. Once the changes of a chunk
+     * have been applied, the visitors flush them so they can be committed by the chunk executor.
+     */
+    private void applyChangesInChunks() {
+        List<EntityNode<?, ?>> changed = this.getNodeLevels()
+            .stream()
+            .flatMap(List::stream)
+            .filter(EntityNode::changed)
+            .collect(Collectors.toList());
+
+        List<List<EntityNode<?, ?>>> chunks = Lists.partition(changed, this.chunkSize);
+        log.debug("Applying changes to {} node(s) in {} chunk(s)", changed.size(), chunks.size());
+
+        for (List<EntityNode<?, ?>> chunk : chunks) {
+            this.chunkExecutor.accept(() -> {
+                for (EntityNode<?, ?> node : chunk) {
+                    log.trace("Applying changes to node: {}", node);
+                    this.getVisitor(node).applyChanges(node);
+                }
+
+                this.visitors.values()
+                    .forEach(NodeVisitor::flushChanges);
+            });
+        }
+    }
+
+    /**
+     * Groups the nodes mapped by the backing node mapper into levels by their height in the node
+     * trees, such that the children of a node are always in lower levels than the node itself.
+     *
+     * @return
+     *  a list containing the nodes of each level, starting with the leaf nodes
+     */
+    private List<List<EntityNode<?, ?>>> getNodeLevels() {
+        Map<EntityNode<?, ?>, Integer> heights = new HashMap<>();
+        this.mapper.getRootNodeStream()
+            .filter(Objects::nonNull)
+            .forEach(elem -> this.calculateNodeHeight(heights, elem));
+
+        List<List<EntityNode<?, ?>>> levels = new ArrayList<>();
+        for (Map.Entry<EntityNode<?, ?>, Integer> entry : heights.entrySet()) {
+            while (levels.size() <= entry.getValue()) {
+                levels.add(new ArrayList<>());
+            }
+
+            levels.get(entry.getValue()).add(entry.getKey());
+        }
+
+        return levels;
+    }
+
+    /**
+     * Calculates the height of the given node, where leaf nodes have a height of zero, and every
+     * other node is one level higher than its highest child.
+     */
+    private int calculateNodeHeight(Map<EntityNode<?, ?>, Integer> heights, EntityNode<?, ?> node) {
+        Integer height = heights.get(node);
+
+        if (height == null) {
+            height = node.getChildrenNodes()
+                .filter(Objects::nonNull)
+                .mapToInt(elem -> this.calculateNodeHeight(heights, elem) + 1)
+                .max()
+                .orElse(0);
+
+            heights.put(node, height);
+        }
+
+        return height;
+    }
+
     /**
      * Internal implementation that avoids repeating unnecessary input and state validation
      */
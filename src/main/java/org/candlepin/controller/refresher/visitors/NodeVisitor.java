@@ -42,6 +42,17 @@ public interface NodeVisitor<E extends AbstractHibernateObject, I extends Servic
      */
     Class<E> getEntityClass();
 
+    /**
+     * Prepares the specified node for processing on a thread other than the calling thread. This
+     * method is called on the calling thread before the node is processed in parallel, and should
+     * load any state the <tt>processNode</tt> method requires which cannot be safely loaded from
+     * another thread, such as lazily fetched collections of the node's existing entity.
+     *
+     * @param node
+     *  the EntityNode instance to prepare
+     */
+    void prepareNode(EntityNode<E, I> node);
+
     /**
      * Processes (visits) a the specified node. The node processor and mapper provided can be used
      * for performing processing and lookup of children nodes.
@@ -69,6 +80,16 @@ public interface NodeVisitor<E extends AbstractHibernateObject, I extends Servic
      */
     void applyChanges(EntityNode<E, I> node);
 
+    /**
+     * Persists the changes applied by previous calls to the <tt>applyChanges</tt> method, such that
+     * they can be committed before further changes are applied. Unlike the <tt>complete</tt>
+     * method, this method does not perform any pending deletions, and retains any state required
+     * for applying changes to the remaining nodes. However, any entities fetched by the visitor
+     * prior to this call should not be used afterward, as they may no longer be managed by the
+     * current session.
+     */
+    void flushChanges();
+
     /**
      * Completes any processing operations that may be pending from one or more previous calls to
      * the <tt>processNode</tt> method. Repeated, sequential calls to this method should have no
@@ -42,6 +42,14 @@ public class PoolNodeVisitor implements NodeVisitor<Pool, SubscriptionInfo> {
         return Pool.class;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepareNode(EntityNode<Pool, SubscriptionInfo> node) {
+        // Intentionally left empty; see below for details
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -74,6 +82,14 @@ public class PoolNodeVisitor implements NodeVisitor<Pool, SubscriptionInfo> {
         // Intentionally left empty; see above for details
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushChanges() {
+        // Intentionally left empty; see above for details
+    }
+
     /**
      * {@inheritDoc}
      */
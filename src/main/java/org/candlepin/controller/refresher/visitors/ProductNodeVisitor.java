@@ -23,6 +23,7 @@ import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerProduct;
 import org.candlepin.model.OwnerProductCurator;
 import org.candlepin.model.Product;
+import org.candlepin.model.ProductContent;
 import org.candlepin.model.ProductCurator;
 import org.candlepin.service.model.BrandingInfo;
 import org.candlepin.service.model.ContentInfo;
@@ -41,6 +42,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 
 
@@ -54,7 +57,8 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
     private final OwnerProductCurator ownerProductCurator;
     private final int orphanProductGracePeriod;
 
-    // Various cross-stage cache collections
+    // Various cross-stage cache collections; those updated while processing nodes must be safe for
+    // concurrent use, as nodes may be processed in parallel
     private Set<OwnerProduct> ownerProductEntities;
     private Map<Owner, Map<String, String>> ownerProductUuidMap;
     private Map<Owner, Set<String>> deletedProductUuids;
@@ -102,11 +106,11 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         this.ownerProductEntities = new HashSet<>();
         this.ownerProductUuidMap = new HashMap<>();
         this.deletedProductUuids = new HashMap<>();
-        this.ownerEntityVersions = new HashMap<>();
+        this.ownerEntityVersions = new ConcurrentHashMap<>();
         this.ownerVersionedEntityMap = new HashMap<>();
 
         this.ownerOrphanedDateMap = new HashMap<>();
-        this.ownerOrphanEntityIdPrecache = new HashMap<>();
+        this.ownerOrphanEntityIdPrecache = new ConcurrentHashMap<>();
         this.ownerOrphanedEntities = new HashMap<>();
         this.ownerUnorphanedEntities = new HashMap<>();
     }
@@ -119,6 +123,28 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         return Product.class;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepareNode(EntityNode<Product, ProductInfo> node) {
+        Product existingEntity = node.getExistingEntity();
+
+        // Iterate the lazily fetched collections to have them loaded by the session on this thread.
+        // Children products and content are prepared by their own nodes.
+        if (existingEntity != null) {
+            existingEntity.getAttributes().forEach((key, value) -> {});
+            existingEntity.getBranding().forEach(branding -> {});
+            existingEntity.getDependentProductIds().forEach(pid -> {});
+            existingEntity.getProductContent().forEach(pc -> pc.getContent().getId());
+            existingEntity.getProvidedProducts().forEach(Product::getId);
+
+            if (existingEntity.getDerivedProduct() != null) {
+                existingEntity.getDerivedProduct().getId();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -143,14 +169,15 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
 
         if (existingEntity != null) {
             // Cache the ID of any existing entities for later bulk fetching orphan dates
-            this.ownerOrphanEntityIdPrecache.computeIfAbsent(node.getOwner(), key -> new HashSet<>())
+            this.ownerOrphanEntityIdPrecache
+                .computeIfAbsent(node.getOwner(), key -> ConcurrentHashMap.newKeySet())
                 .add(node.getEntityId());
 
             if (importedEntity != null) {
                 nodeChanged = ProductManager.isChangedBy(existingEntity, importedEntity);
             }
 
-            if (nodeChanged || childrenUpdated) {
+            if (nodeChanged || childrenUpdated || this.hasStaleChildReferences(node)) {
                 Product mergedEntity = this.createEntity(node);
                 node.setMergedEntity(mergedEntity);
 
@@ -166,6 +193,38 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         }
     }
 
+    /**
+     * Checks if the existing entity of the given node references a version of a child product or
+     * content other than the version currently mapped to the org. This occurs when the changes to
+     * the children were committed without the changes to this entity, such as when a chunked
+     * refresh fails partway through.
+     *
+     * @param node
+     *  the entity node to check
+     *
+     * @return
+     *  true if the existing entity references stale children; false otherwise
+     */
+    private boolean hasStaleChildReferences(EntityNode<Product, ProductInfo> node) {
+        Product existingEntity = node.getExistingEntity();
+
+        boolean staleProducts = Stream.concat(Stream.ofNullable(existingEntity.getDerivedProduct()),
+            existingEntity.getProvidedProducts().stream())
+            .anyMatch(product -> {
+                EntityNode<Product, ProductInfo> child = node.getChildNode(Product.class, product.getId());
+                return child != null && child.getExistingEntity() != null &&
+                    !child.getExistingEntity().getUuid().equals(product.getUuid());
+            });
+
+        return staleProducts || existingEntity.getProductContent().stream()
+            .map(ProductContent::getContent)
+            .anyMatch(content -> {
+                EntityNode<Content, ContentInfo> child = node.getChildNode(Content.class, content.getId());
+                return child != null && child.getExistingEntity() != null &&
+                    !child.getExistingEntity().getUuid().equals(content.getUuid());
+            });
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -331,13 +390,18 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         long entityVersion = entity.getEntityVersion();
 
         Map<String, List<Product>> entityMap = this.ownerVersionedEntityMap.computeIfAbsent(owner, key -> {
-            Set<Long> versions = this.ownerEntityVersions.remove(key);
+            Set<Long> versions = this.ownerEntityVersions.get(key);
 
-            return versions != null ?
+            return versions != null && !versions.isEmpty() ?
                 this.ownerProductCurator.getProductsByVersions(versions) :
                 Collections.emptyMap();
         });
 
+        // This version is resolved by this call; drop it so it isn't looked up again should the
+        // candidates need to be refetched after the changes are flushed
+        this.ownerEntityVersions.getOrDefault(owner, Collections.emptySet())
+            .remove(entityVersion);
+
         for (Product candidate : entityMap.getOrDefault(entity.getId(), Collections.emptyList())) {
             if (entityVersion == candidate.getEntityVersion()) {
                 if (entity.equals(candidate)) {
@@ -371,6 +435,29 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         return this.productCurator.create(entity, false);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushChanges() {
+        // Save new owner-product entities
+        this.ownerProductEntities.stream()
+            .forEach(elem -> this.ownerProductCurator.create(elem, false));
+        this.ownerProductCurator.flush();
+
+        // Update owner product references
+        for (Map.Entry<Owner, Map<String, String>> entry : this.ownerProductUuidMap.entrySet()) {
+            this.ownerProductCurator.updateOwnerProductReferences(entry.getKey(), entry.getValue());
+        }
+
+        this.ownerProductUuidMap.clear();
+        this.ownerProductEntities.clear();
+
+        // The candidate entities may be detached once the changes are committed; the versions which
+        // have yet to be resolved will be refetched as necessary
+        this.ownerVersionedEntityMap.clear();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -392,19 +479,10 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
                 Instant.now());
         }
 
-        // Save new owner-product entities
-        this.ownerProductEntities.stream()
-            .forEach(elem -> this.ownerProductCurator.create(elem, false));
-        this.ownerProductCurator.flush();
-
-        // Update owner product references
-        for (Map.Entry<Owner, Map<String, String>> entry : this.ownerProductUuidMap.entrySet()) {
-            this.ownerProductCurator.updateOwnerProductReferences(entry.getKey(), entry.getValue());
-        }
+        // Save new owner-product entities and update references
+        this.flushChanges();
 
         // Clear our various caches
-        this.ownerProductUuidMap.clear();
-        this.ownerProductEntities.clear();
         this.deletedProductUuids.clear();
         this.ownerEntityVersions.clear();
         this.ownerVersionedEntityMap.clear();
@@ -584,7 +662,7 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         this.resolveChildren(updatedEntity, node);
 
         // Save entity version for later version resolution
-        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> new HashSet<>())
+        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> ConcurrentHashMap.newKeySet())
             .add(updatedEntity.getEntityVersion());
 
         return updatedEntity;
@@ -24,6 +24,7 @@ import org.candlepin.config.ConfigurationException;
 import org.candlepin.config.DatabaseConfigFactory;
 import org.candlepin.config.EncryptedConfiguration;
 import org.candlepin.config.MapConfiguration;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.logging.LoggerContextListener;
 import org.candlepin.logging.LoggingConfigurator;
 import org.candlepin.messaging.CPMContextListener;
@@ -112,6 +113,7 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
 
     private ActiveMQContextListener activeMQContextListener;
     private JobManager jobManager;
+    private ConsumerCheckInRecorder checkInRecorder;
     private LoggerContextListener loggerListener;
 
     // a bit of application-initialization code. Not sure if this is the
@@ -210,6 +212,10 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
             });
         }
 
+        // Start writing consumer check-ins in batches
+        this.checkInRecorder = injector.getInstance(ConsumerCheckInRecorder.class);
+        this.checkInRecorder.start();
+
         // Setup the job manager
         this.jobManager = injector.getInstance(JobManager.class);
         this.jobManager.initialize();
@@ -248,6 +254,9 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
         // Tear down the job system
         this.jobManager.shutdown();
 
+        // Write any pending consumer check-ins while the persistence service is still available
+        this.checkInRecorder.shutdown();
+
         injector.getInstance(PersistService.class).stop();
         // deregister jdbc driver to avoid warning in tomcat shutdown log
         Enumeration<Driver> drivers = DriverManager.getDrivers();
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.liquibase;
+
+import org.candlepin.model.ConsumerFactsCodec;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * The ConsumerFactsCompactionTask moves the facts of existing consumers to compact fact storage:
+ * all of the facts of each consumer are encoded into its facts_data column, and only its indexed
+ * facts are kept in the cp_consumer_facts table. Consumers are migrated and committed in blocks,
+ * so an interrupted migration can be resumed.
+ */
+public class ConsumerFactsCompactionTask extends LiquibaseCustomTask {
+
+    /** The number of consumers migrated per transaction */
+    public static final int BATCH_SIZE = 1000;
+
+    public ConsumerFactsCompactionTask(Database database, CustomTaskLogger logger) {
+        super(database, logger);
+    }
+
+    /**
+     * Builds a parameter list for an IN clause of the given size.
+     */
+    private String buildParameterList(int size) {
+        return String.join(", ", Collections.nCopies(size, "?"));
+    }
+
+    /**
+     * Fetches the next block of consumers which do not use compact fact storage yet.
+     */
+    private List<String> fetchConsumerIds() throws DatabaseException, SQLException {
+        List<String> ids = new ArrayList<>(BATCH_SIZE);
+
+        PreparedStatement statement = this.prepareStatement(
+            "SELECT id FROM cp_consumer WHERE facts_data IS NULL");
+        statement.setMaxRows(BATCH_SIZE);
+
+        try (ResultSet results = statement.executeQuery()) {
+            while (results.next()) {
+                ids.add(results.getString(1));
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Fetches the facts of the given consumers, keyed by consumer ID.
+     */
+    private Map<String, Map<String, String>> fetchFacts(List<String> ids)
+        throws DatabaseException, SQLException {
+
+        Map<String, Map<String, String>> facts = new HashMap<>();
+        for (String id : ids) {
+            facts.put(id, new HashMap<>());
+        }
+
+        String sql = "SELECT cp_consumer_id, mapkey, element FROM cp_consumer_facts " +
+            "WHERE cp_consumer_id IN (" + this.buildParameterList(ids.size()) + ")";
+
+        try (ResultSet results = this.executeQuery(sql, ids.toArray())) {
+            while (results.next()) {
+                facts.get(results.getString(1)).put(results.getString(2), results.getString(3));
+            }
+        }
+
+        return facts;
+    }
+
+    /**
+     * Executes the consumer facts compaction task.
+     *
+     * @throws DatabaseException
+     *  if an error occurs while performing a database operation
+     *
+     * @throws SQLException
+     *  if an error occurs while executing an SQL statement
+     */
+    @Override
+    public void execute() throws DatabaseException, SQLException {
+        // Store the connection's auto commit setting, so we may temporarily clobber it.
+        boolean autocommit = this.connection.getAutoCommit();
+        this.connection.setAutoCommit(false);
+
+        try {
+            List<Object> indexed = new ArrayList<>(ConsumerFactsCodec.INDEXED_FACTS);
+            int total = 0;
+
+            for (List<String> ids = this.fetchConsumerIds(); !ids.isEmpty(); ids = this.fetchConsumerIds()) {
+                Map<String, Map<String, String>> facts = this.fetchFacts(ids);
+
+                for (Map.Entry<String, Map<String, String>> entry : facts.entrySet()) {
+                    this.executeUpdate("UPDATE cp_consumer SET facts_data = ? WHERE id = ?",
+                        ConsumerFactsCodec.encode(entry.getValue()), entry.getKey());
+                }
+
+                List<Object> params = new ArrayList<>(ids);
+                params.addAll(indexed);
+
+                int deleted = this.executeUpdate("DELETE FROM cp_consumer_facts " +
+                    "WHERE cp_consumer_id IN (" + this.buildParameterList(ids.size()) + ") " +
+                    "AND mapkey NOT IN (" + this.buildParameterList(indexed.size()) + ")",
+                    params.toArray());
+
+                this.connection.commit();
+
+                total += ids.size();
+                this.logger.info(String.format("Migrated %d consumers to compact fact storage; " +
+                    "%d fact rows removed", ids.size(), deleted));
+            }
+
+            this.logger.info(String.format("%d total consumers migrated to compact fact storage", total));
+        }
+        finally {
+            this.connection.setAutoCommit(autocommit);
+        }
+    }
+}
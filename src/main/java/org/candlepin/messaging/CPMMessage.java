@@ -69,6 +69,29 @@ public interface CPMMessage {
     boolean isDurable();
 
 
+    /**
+     * Sets the priority of this message, from 0 (lowest) to 9 (highest). Messages with a higher
+     * priority are delivered before messages with a lower priority, where possible.
+     *
+     * @param priority
+     *  the priority to set for this message
+     *
+     * @throws IllegalArgumentException
+     *  if the priority is not in the range of 0 to 9
+     *
+     * @return
+     *  a reference to this message
+     */
+    CPMMessage setPriority(int priority);
+
+    /**
+     * Fetches the priority of this message.
+     *
+     * @return
+     *  the priority of this message
+     */
+    int getPriority();
+
     // Message details
     /**
      * Fetches the address this message was received from
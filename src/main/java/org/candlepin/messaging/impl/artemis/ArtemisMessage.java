@@ -108,6 +108,27 @@ public class ArtemisMessage implements CPMMessage {
         return this.message.isDurable();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CPMMessage setPriority(int priority) {
+        if (priority < 0 || priority > 9) {
+            throw new IllegalArgumentException("priority is not in the range of 0 to 9: " + priority);
+        }
+
+        this.message.setPriority((byte) priority);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPriority() {
+        return this.message.getPriority();
+    }
+
     // CPMMessage setExpiration(long duration);
 
     // boolean hasExpired();
@@ -18,9 +18,11 @@ import org.candlepin.auth.Principal;
 import org.candlepin.auth.permissions.Permission;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.DatabaseConfigFactory;
+import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.exceptions.ConcurrentModificationException;
 import org.candlepin.guice.PrincipalProvider;
 import org.candlepin.paging.Page;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 
 import com.google.common.collect.Iterables;
@@ -41,6 +43,7 @@ import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projection;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.EntityKey;
 import org.hibernate.internal.CriteriaImpl;
 import org.hibernate.internal.SessionImpl;
 import org.hibernate.metadata.ClassMetadata;
@@ -54,9 +57,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -70,6 +75,7 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
@@ -273,6 +279,8 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     public Page<List<E>> listAll(PageRequest pageRequest, boolean postFilter) {
         Page<List<E>> resultsPage;
         if (postFilter) {
+            this.rejectKeysetPaging(pageRequest);
+
             // Create a copy of the page request with just the order and sort by values.
             // Since we are filtering after the results are returned, we don't want
             // to send the page or page size values in.
@@ -300,12 +308,15 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         Page<List<E>> page = new Page<>();
 
         if (pageRequest != null) {
-            Criteria count = createSecureCriteria();
-            page.setMaxRecords(findRowCount(count));
+            if (pageRequest.isCountRequested()) {
+                Criteria count = createSecureCriteria();
+                page.setMaxRecords(findRowCount(count));
+            }
 
             Criteria c = createSecureCriteria();
             page.setPageData(loadPageData(c, pageRequest));
             page.setPageRequest(pageRequest);
+            page.setNextCursor(buildNextCursor(page.getPageData(), pageRequest));
         }
         else {
             List<E> pageData = this.listAll().list();
@@ -318,9 +329,29 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
 
     @SuppressWarnings("unchecked")
     private List<E> loadPageData(Criteria c, PageRequest pageRequest) {
+        if (pageRequest.isKeyset()) {
+            this.validateKeysetPageRequest(pageRequest);
+        }
+
         c.addOrder(createPagingOrder(pageRequest));
 
-        if (pageRequest.isPaging()) {
+        if (pageRequest.isKeyset()) {
+            String idName = this.getPrimaryKeyName();
+            String sortBy = this.getPagingSortField(pageRequest);
+
+            if (!sortBy.equals(idName)) {
+                c.addOrder(pageRequest.getOrder() == PageRequest.Order.ASCENDING ?
+                    Order.asc(idName) :
+                    Order.desc(idName));
+            }
+
+            if (pageRequest.getCursor() != null) {
+                c.add(this.createKeysetRestriction(pageRequest));
+            }
+
+            c.setMaxResults(pageRequest.getPerPage());
+        }
+        else if (pageRequest.isPaging()) {
             c.setFirstResult((pageRequest.getPage() - 1) * pageRequest.getPerPage());
             c.setMaxResults(pageRequest.getPerPage());
         }
@@ -329,6 +360,8 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     }
 
     private List<E> loadPageData(CriteriaQuery<E> criteria, PageRequest pageRequest) {
+        this.rejectKeysetPaging(pageRequest);
+
         TypedQuery<E> query = this.entityManager.get().createQuery(criteria);
         if (pageRequest.isPaging()) {
             query.setFirstResult((pageRequest.getPage() - 1) * pageRequest.getPerPage());
@@ -338,8 +371,249 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         return query.getResultList();
     }
 
-    private Order createPagingOrder(PageRequest p) {
-        String sortBy = (p.getSortBy() == null) ? AbstractHibernateObject.DEFAULT_SORT_FIELD : p.getSortBy();
+    /**
+     * Builds the restriction selecting the elements sorted after the cursor of the given keyset
+     * page request, by sort field first and by ID second.
+     *
+     * @param p
+     *  the keyset page request for which to build a restriction
+     *
+     * @return
+     *  the keyset restriction of the page request
+     */
+    private Criterion createKeysetRestriction(PageRequest p) {
+        String idName = this.getPrimaryKeyName();
+        String sortBy = this.getPagingSortField(p);
+        boolean ascending = p.getOrder() == PageRequest.Order.ASCENDING;
+        PageCursor cursor = p.getCursor();
+
+        Criterion afterId = ascending ?
+            Restrictions.gt(idName, cursor.getId()) :
+            Restrictions.lt(idName, cursor.getId());
+
+        if (sortBy.equals(idName)) {
+            return afterId;
+        }
+
+        Criterion afterSort = ascending ?
+            Restrictions.gt(sortBy, cursor.getSortValue()) :
+            Restrictions.lt(sortBy, cursor.getSortValue());
+
+        // Null sort values cannot be positioned relative to the cursor, and are excluded explicitly
+        // rather than left to how the database compares them
+        return Restrictions.and(Restrictions.isNotNull(sortBy), Restrictions.or(afterSort,
+            Restrictions.and(Restrictions.eq(sortBy, cursor.getSortValue()), afterId)));
+    }
+
+    /**
+     * Verifies that the given keyset page request can be applied to this curator's entity. Keyset
+     * paging requires a string ID, and a sort field of a type supported by page cursors that is
+     * never null: elements with a null sort value cannot be positioned by a cursor, and would be
+     * skipped or repeated depending on how the database sorts nulls. The creation and update dates
+     * are accepted as they are always set when an entity is persisted. If the request has a cursor,
+     * its sort value must be of the type of the sort field.
+     *
+     * @param pageRequest
+     *  the keyset page request to verify
+     *
+     * @throws BadRequestException
+     *  if the sort field cannot be used for keyset paging, or the cursor does not match it
+     */
+    private void validateKeysetPageRequest(PageRequest pageRequest) {
+        I18n i18n = this.i18nProvider.get();
+        ClassMetadata metadata = this.currentSession().getSessionFactory()
+            .getClassMetadata(this.entityType);
+
+        String sortBy = this.getPagingSortField(pageRequest);
+        Class<?> sortType = null;
+
+        if (!String.class.equals(metadata.getIdentifierType().getReturnedClass())) {
+            this.rejectKeysetPaging(pageRequest);
+        }
+
+        if (sortBy.equals(metadata.getIdentifierPropertyName())) {
+            sortType = String.class;
+        }
+        else {
+            int index = Arrays.asList(metadata.getPropertyNames()).indexOf(sortBy);
+            boolean timestamp = AbstractHibernateObject.class.isAssignableFrom(this.entityType) &&
+                ("created".equals(sortBy) || "updated".equals(sortBy));
+
+            if (index >= 0 && (timestamp || !metadata.getPropertyNullability()[index])) {
+                sortType = metadata.getPropertyTypes()[index].getReturnedClass();
+            }
+        }
+
+        if (sortType == null || !PageCursor.isSupportedType(sortType)) {
+            throw new BadRequestException(i18n.tr(
+                "the field \"{0}\" cannot be used to sort results with cursor paging", sortBy));
+        }
+
+        PageCursor cursor = pageRequest.getCursor();
+        if (cursor != null && !cursor.hasSortValueOfType(sortType)) {
+            throw new BadRequestException(i18n.tr(
+                "the cursor parameter is not a valid page cursor for the field \"{0}\"", sortBy));
+        }
+    }
+
+    /**
+     * Rejects the given page request if it selects its page by keyset. Listings which page their
+     * results by offset, or filter them after they are fetched, cannot resume from a cursor, nor
+     * provide the cursor of the next page, so keyset requests would silently receive a truncated
+     * listing.
+     *
+     * @param pageRequest
+     *  the page request to verify; may be null
+     *
+     * @throws BadRequestException
+     *  if the page request selects its page by keyset
+     */
+    public void rejectKeysetPaging(PageRequest pageRequest) {
+        if (pageRequest != null && pageRequest.isKeyset()) {
+            throw new BadRequestException(this.i18nProvider.get()
+                .tr("cursor paging is not supported for this listing"));
+        }
+    }
+
+    private String getPagingSortField(PageRequest p) {
+        return (p.getSortBy() == null) ? AbstractHibernateObject.DEFAULT_SORT_FIELD : p.getSortBy();
+    }
+
+    /**
+     * Applies the keyset paging of the given page request to the provided query arguments: results
+     * are limited to a page, ordered by the requested sort field and then by ID, and start after
+     * the request's cursor, if any.
+     *
+     * @param queryArguments
+     *  the query arguments to which to apply the page request
+     *
+     * @param pageRequest
+     *  the keyset page request to apply
+     *
+     * @throws BadRequestException
+     *  if the sort field of the page request cannot be used for keyset paging, or its cursor does
+     *  not match the sort field
+     */
+    public void applyKeysetPaging(QueryArguments<?> queryArguments, PageRequest pageRequest) {
+        this.validateKeysetPageRequest(pageRequest);
+
+        String idName = this.getPrimaryKeyName();
+        String sortBy = this.getPagingSortField(pageRequest);
+        boolean reverse = pageRequest.getOrder() != PageRequest.Order.ASCENDING;
+
+        queryArguments.addOrder(sortBy, reverse);
+        if (!sortBy.equals(idName)) {
+            queryArguments.addOrder(idName, reverse);
+        }
+
+        queryArguments.setAfter(pageRequest.getCursor())
+            .setLimit(pageRequest.getPerPage());
+    }
+
+    /**
+     * Builds the cursor at which the keyset page following the given results starts. If the page
+     * request is not a keyset request, or the results do not fill a complete page, there is no
+     * next page and this method returns null.
+     *
+     * @param results
+     *  the results of the current page
+     *
+     * @param pageRequest
+     *  the page request which fetched the results
+     *
+     * @return
+     *  the cursor of the next page, or null if there is no next page
+     */
+    public PageCursor buildNextCursor(List<E> results, PageRequest pageRequest) {
+        if (pageRequest == null || !pageRequest.isKeyset() || results == null ||
+            results.isEmpty() || results.size() < pageRequest.getPerPage()) {
+            return null;
+        }
+
+        E last = results.get(results.size() - 1);
+        String sortBy = this.getPagingSortField(pageRequest);
+
+        Object sortValue = sortBy.equals(this.getPrimaryKeyName()) ?
+            last.getId() :
+            this.currentSession().getSessionFactory().getClassMetadata(this.entityType)
+                .getPropertyValue(last, sortBy);
+
+        // The sort field is verified before fetching the page, so this should only happen if a null
+        // value was stored in spite of the mapping; fail rather than silently end the listing here
+        if (sortValue == null) {
+            throw new IllegalStateException(String.format("%s %s has a null value for sort field \"%s\"",
+                this.entityType.getSimpleName(), last.getId(), sortBy));
+        }
+
+        return PageCursor.of(sortValue, String.valueOf(last.getId()));
+    }
+
+    /**
+     * Builds the predicate selecting the results sorted after the keyset position of the provided
+     * query arguments, using the first result ordering and the entity ID as a tie breaker. If the
+     * query arguments do not define a keyset position, this method returns null.
+     *
+     * @param criteriaBuilder
+     *  the CriteriaBuilder instance to use to create the predicate
+     *
+     * @param root
+     *  the root of the query
+     *
+     * @param queryArguments
+     *  a QueryArguments instance containing the keyset position and ordering information
+     *
+     * @throws InvalidOrderKeyException
+     *  if the first ordering references an attribute name (key) that does not exist
+     *
+     * @return
+     *  the keyset predicate, or null if the query arguments do not define a keyset position
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Predicate buildJPAKeysetPredicate(CriteriaBuilder criteriaBuilder, Root<?> root,
+        QueryArguments<?> queryArguments) {
+
+        PageCursor after = queryArguments != null ? queryArguments.getAfter() : null;
+        if (after == null) {
+            return null;
+        }
+
+        String idName = this.getPrimaryKeyName();
+        Collection<QueryArguments.Order> order = queryArguments.getOrder();
+        QueryArguments.Order first = order != null && !order.isEmpty() ?
+            order.iterator().next() :
+            new QueryArguments.Order(idName, false);
+
+        Path<Comparable> idPath = root.get(idName);
+        Predicate afterId = first.reverse() ?
+            criteriaBuilder.lessThan(idPath, (Comparable) after.getId()) :
+            criteriaBuilder.greaterThan(idPath, (Comparable) after.getId());
+
+        if (first.column().equals(idName)) {
+            return afterId;
+        }
+
+        Path<Comparable> sortPath;
+        try {
+            sortPath = root.get(first.column());
+        }
+        catch (IllegalArgumentException e) {
+            String errmsg = String.format("Invalid attribute key: %s", first.column());
+            throw new InvalidOrderKeyException(errmsg, e);
+        }
+
+        Comparable value = (Comparable) after.getSortValue();
+        Predicate afterSort = first.reverse() ?
+            criteriaBuilder.lessThan(sortPath, value) :
+            criteriaBuilder.greaterThan(sortPath, value);
+
+        // Null sort values cannot be positioned relative to the cursor, and are excluded explicitly
+        // rather than left to how the database compares them
+        return criteriaBuilder.and(criteriaBuilder.isNotNull(sortPath), criteriaBuilder.or(afterSort,
+            criteriaBuilder.and(criteriaBuilder.equal(sortPath, value), afterId)));
+    }
+
+    protected Order createPagingOrder(PageRequest p) {
+        String sortBy = this.getPagingSortField(p);
         PageRequest.Order order = (p.getOrder() == null) ? PageRequest.DEFAULT_ORDER : p.getOrder();
 
         switch (order) {
@@ -414,6 +688,8 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     public Page<List<E>> listByCriteria(Criteria query, PageRequest pageRequest, boolean postFilter) {
         Page<List<E>> resultsPage;
         if (postFilter) {
+            this.rejectKeysetPaging(pageRequest);
+
             // Create a copy of the page request with just the order and sort by values.
             // Since we are filtering after the results are returned, we don't want
             // to send the page or page size values in.
@@ -665,14 +941,17 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
             ResultTransformer origRt = cImpl.getResultTransformer();
 
             // Get total number of records by setting a rowCount projection
-            page.setMaxRecords(findRowCount(c));
+            if (pageRequest.isCountRequested()) {
+                page.setMaxRecords(findRowCount(c));
 
-            // Restore original Projection and ResultTransformer
-            c.setProjection(origProjection);
-            c.setResultTransformer(origRt);
+                // Restore original Projection and ResultTransformer
+                c.setProjection(origProjection);
+                c.setResultTransformer(origRt);
+            }
 
             page.setPageData(loadPageData(c, pageRequest));
             page.setPageRequest(pageRequest);
+            page.setNextCursor(buildNextCursor(page.getPageData(), pageRequest));
         }
         else {
             List<E> pageData = listByCriteria(c);
@@ -1055,7 +1334,29 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         }
     }
 
+    /**
+     * Fetches the IDs of the entities of this curator's type currently held in the level-one cache.
+     *
+     * @return
+     *  a set containing the IDs of the managed entities of this curator's type
+     */
+    public Set<Serializable> getManagedIds() {
+        Set<Serializable> ids = new HashSet<>();
+
+        for (Object key : this.currentSession().getStatistics().getEntityKeys()) {
+            EntityKey entityKey = (EntityKey) key;
+
+            if (this.entityType.getName().equals(entityKey.getEntityName())) {
+                ids.add(entityKey.getIdentifier());
+            }
+        }
+
+        return ids;
+    }
+
     public List<E> takeSubList(PageRequest pageRequest, List<E> results) {
+        this.rejectKeysetPaging(pageRequest);
+
         int fromIndex = (pageRequest.getPage() - 1) * pageRequest.getPerPage();
         if (fromIndex >= results.size()) {
             return new ArrayList<>();
@@ -23,10 +23,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hibernate.annotations.GenericGenerator;
 import org.slf4j.event.Level;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
@@ -162,6 +165,11 @@ public class AsyncJobStatus extends AbstractHibernateObject {
     @Column(name = "value")
     private Map<String, String> arguments;
 
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "cp_async_job_blockers", joinColumns = @JoinColumn(name = "job_id"))
+    @Column(name = "blocking_job_id")
+    private Set<String> blockingJobIds;
+
     @Column(name = "job_result")
     private String result;
 
@@ -179,6 +187,7 @@ public class AsyncJobStatus extends AbstractHibernateObject {
         this.logExecutionDetails = true;
 
         this.arguments = new HashMap<>();
+        this.blockingJobIds = new HashSet<>();
     }
 
     /**
@@ -738,6 +747,43 @@ public class AsyncJobStatus extends AbstractHibernateObject {
         return this;
     }
 
+    /**
+     * Fetches the IDs of the jobs which blocked this job from being queued. The blocking jobs are
+     * only tracked while this job is in the WAITING state; once released, this method returns an
+     * empty set.
+     *
+     * @return
+     *  a set containing the IDs of the jobs blocking this job
+     */
+    public Set<String> getBlockingJobIds() {
+        return this.blockingJobIds != null ? Collections.unmodifiableSet(this.blockingJobIds) : Set.of();
+    }
+
+    /**
+     * Sets the IDs of the jobs which blocked this job from being queued. If the provided
+     * collection is null or empty, any existing blocking jobs will be cleared.
+     *
+     * @param blockingJobIds
+     *  a collection containing the IDs of the jobs blocking this job
+     *
+     * @return
+     *  this job status instance
+     */
+    public AsyncJobStatus setBlockingJobIds(Collection<String> blockingJobIds) {
+        if (this.blockingJobIds != null) {
+            this.blockingJobIds.clear();
+        }
+        else {
+            this.blockingJobIds = new HashSet<>();
+        }
+
+        if (blockingJobIds != null) {
+            this.blockingJobIds.addAll(blockingJobIds);
+        }
+
+        return this;
+    }
+
     /**
      * Fetches the result from the job's most recent execution. If the job has not yet been run,
      * or the job does not produce any output, this method returns null.
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -294,6 +295,12 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
         criteriaQuery.select(job);
 
         List<Predicate> predicates = this.buildJobQueryPredicates(criteriaBuilder, job, queryArgs);
+
+        Predicate keysetPredicate = this.buildJPAKeysetPredicate(criteriaBuilder, job, queryArgs);
+        if (keysetPredicate != null) {
+            predicates.add(keysetPredicate);
+        }
+
         if (predicates.size() > 0) {
             Predicate[] predicateArray = new Predicate[predicates.size()];
             criteriaQuery.where(predicates.toArray(predicateArray));
@@ -522,10 +529,45 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
      *  arguments
      */
     public List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments) {
+        Collection<JobState> states = Arrays.stream(JobState.values())
+            .filter(s -> !s.isTerminal())
+            .collect(Collectors.toSet());
+
+        return this.fetchJobIdsByArguments(jobKey, arguments, states);
+    }
+
+    /**
+     * Fetches a collection of job IDs for jobs in the given states matching the given job key and
+     * having all of the provided job arguments with the specified values.
+     *
+     * @param jobKey
+     *  the job key to restrict
+     *
+     * @param arguments
+     *  a map containing the arguments to use for filtering jobs; cannot contain more than
+     *  10 entries
+     *
+     * @param states
+     *  a collection of states to use for filtering jobs
+     *
+     * @throws IllegalArgumentException
+     *  if jobKey is null or empty, the arguments map is too large, or states is null or empty
+     *
+     * @return
+     *  A collection of IDs of jobs in the given states matching the given job key and using the
+     *  specified arguments
+     */
+    public List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments,
+        Collection<JobState> states) {
+
         if (jobKey == null || jobKey.isEmpty()) {
             throw new IllegalArgumentException("jobKey is null or empty");
         }
 
+        if (states == null || states.isEmpty()) {
+            throw new IllegalArgumentException("states is null or empty");
+        }
+
         EntityManager entityManager = this.getEntityManager();
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
         CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
@@ -536,11 +578,7 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
         // Add the job key restriction
         predicates.add(criteriaBuilder.equal(job.get(AsyncJobStatus_.jobKey), jobKey));
 
-        // Add the non-terminal state restriction
-        Collection<JobState> states = Arrays.stream(JobState.values())
-            .filter(s -> !s.isTerminal())
-            .collect(Collectors.toSet());
-
+        // Add the state restriction
         predicates.add(job.get(AsyncJobStatus_.state).in(states));
 
         // Add the argument restrictions if necessary
@@ -572,4 +610,92 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
             .getResultList();
     }
 
+    /**
+     * Fetches the jobs in the WAITING state which were blocked by the specified job, ordered by
+     * their creation date. If no jobs are waiting on the given job, this method returns an empty
+     * list.
+     *
+     * @param jobId
+     *  the ID of the blocking job
+     *
+     * @return
+     *  a list of the jobs waiting on the specified job
+     */
+    public List<AsyncJobStatus> getJobsWaitingOn(String jobId) {
+        if (jobId == null || jobId.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String jpql = "SELECT aj FROM AsyncJobStatus aj JOIN aj.blockingJobIds blocker " +
+            "WHERE aj.state = :state AND blocker = :job_id " +
+            "ORDER BY aj.created ASC";
+
+        return this.getEntityManager()
+            .createQuery(jpql, AsyncJobStatus.class)
+            .setParameter("state", JobState.WAITING)
+            .setParameter("job_id", jobId)
+            .getResultList();
+    }
+
+    /**
+     * Fetches the IDs of the jobs blocking the specified job which are still in a non-terminal
+     * state. If the job is no longer blocked by any active job, this method returns an empty list.
+     *
+     * @param jobId
+     *  the ID of the blocked job
+     *
+     * @return
+     *  a list of the IDs of the active jobs blocking the specified job
+     */
+    public List<String> fetchActiveBlockingJobIds(String jobId) {
+        if (jobId == null || jobId.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Collection<JobState> states = Arrays.stream(JobState.values())
+            .filter(s -> !s.isTerminal())
+            .collect(Collectors.toSet());
+
+        String jpql = "SELECT blocker.id FROM AsyncJobStatus aj JOIN aj.blockingJobIds bid, " +
+            "AsyncJobStatus blocker " +
+            "WHERE aj.id = :job_id AND blocker.id = bid AND blocker.state IN (:states)";
+
+        return this.getEntityManager()
+            .createQuery(jpql, String.class)
+            .setParameter("job_id", jobId)
+            .setParameter("states", states)
+            .getResultList();
+    }
+
+    /**
+     * Counts the jobs in the given states, grouped by job key. Job keys without any job in the
+     * given states are not included in the returned map.
+     *
+     * @param states
+     *  a collection of states to use for filtering jobs
+     *
+     * @return
+     *  a map containing the number of jobs in the given states for each job key
+     */
+    public Map<String, Long> getJobCountsByKey(Collection<JobState> states) {
+        Map<String, Long> counts = new HashMap<>();
+
+        if (states != null && !states.isEmpty()) {
+            String jpql = "SELECT aj.jobKey, COUNT(aj) FROM AsyncJobStatus aj " +
+                "WHERE aj.state IN (:states) " +
+                "GROUP BY aj.jobKey";
+
+            List<Object[]> rows = this.getEntityManager()
+                .createQuery(jpql, Object[].class)
+                .setParameter("states", states)
+                .getResultList();
+
+            for (Object[] row : rows) {
+                counts.put((String) row[0], (Long) row[1]);
+            }
+        }
+
+        return counts;
+    }
+
 }
@@ -248,6 +248,14 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
     @Cascade({org.hibernate.annotations.CascadeType.ALL})
     private Map<String, String> facts;
 
+    // When set, the consumer uses compact fact storage: this holds all of the consumer's facts,
+    // and the facts collection above only holds its indexed facts. See ConsumerFactsCodec.
+    @Column(name = "facts_data")
+    private byte[] factsData;
+
+    @Transient
+    private Map<String, String> compactFacts;
+
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "keypair_id")
     private KeyPairData keyPairData;
@@ -551,7 +559,91 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
      * @return all facts about this consumer.
      */
     public Map<String, String> getFacts() {
-        return this.facts != null ? Collections.unmodifiableMap(this.facts) : Map.of();
+        return Collections.unmodifiableMap(this.getFactMap());
+    }
+
+    /**
+     * Fetches the mutable map of this consumer's facts: the decoded facts if this consumer uses
+     * compact fact storage, or its fact collection otherwise.
+     *
+     * @return
+     *  the mutable map of this consumer's facts
+     */
+    private Map<String, String> getFactMap() {
+        if (this.factsData != null) {
+            if (this.compactFacts == null) {
+                this.compactFacts = ConsumerFactsCodec.decode(this.factsData);
+            }
+
+            return this.compactFacts;
+        }
+
+        if (this.facts == null) {
+            this.facts = new HashMap<>();
+        }
+
+        return this.facts;
+    }
+
+    /**
+     * Writes back the facts of a consumer using compact fact storage after they have been changed,
+     * updating its indexed facts in the fact collection. Does nothing if this consumer does not
+     * use compact fact storage.
+     */
+    private void storeCompactFacts() {
+        if (this.factsData == null) {
+            return;
+        }
+
+        this.factsData = ConsumerFactsCodec.encode(this.compactFacts);
+
+        if (this.facts == null) {
+            this.facts = new HashMap<>();
+        }
+
+        // Only touch the indexed facts which actually changed, to avoid rewriting their rows
+        for (String fact : ConsumerFactsCodec.INDEXED_FACTS) {
+            String value = this.compactFacts.get(fact);
+
+            if (value == null) {
+                this.facts.remove(fact);
+            }
+            else if (!value.equals(this.facts.get(fact))) {
+                this.facts.put(fact, value);
+            }
+        }
+
+        this.facts.keySet().retainAll(ConsumerFactsCodec.INDEXED_FACTS);
+    }
+
+    /**
+     * Checks whether or not this consumer uses compact fact storage, in which case all of its
+     * facts are stored in a single serialized column, and only its indexed facts are stored in the
+     * fact table.
+     *
+     * @return
+     *  true if this consumer uses compact fact storage; false otherwise
+     */
+    public boolean hasCompactFacts() {
+        return this.factsData != null;
+    }
+
+    /**
+     * Switches this consumer to compact fact storage. Does nothing if this consumer already uses
+     * compact fact storage.
+     *
+     * @return
+     *  a reference to this consumer instance
+     */
+    public Consumer compactFacts() {
+        if (this.factsData == null) {
+            this.compactFacts = new HashMap<>(this.getFactMap());
+            this.factsData = ConsumerFactsCodec.encode(this.compactFacts);
+
+            this.storeCompactFacts();
+        }
+
+        return this;
     }
 
     /**
@@ -580,15 +672,14 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
             this.updateRHCloudProfileModified();
         }
 
-        if (this.facts == null) {
-            this.facts = new HashMap<>();
-        }
-        this.facts.clear();
+        Map<String, String> factMap = this.getFactMap();
+        factMap.clear();
 
         if (facts != null) {
-            this.facts.putAll(facts);
+            factMap.putAll(facts);
         }
 
+        this.storeCompactFacts();
         return this;
     }
 
@@ -654,15 +745,12 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
             throw new IllegalArgumentException("name is null or empty");
         }
 
-        if (this.facts == null) {
-            this.facts = new HashMap<>();
-        }
-
         if (this.checkForCloudProfileFacts(Collections.singletonMap(name, value))) {
             this.updateRHCloudProfileModified();
         }
 
-        this.facts.put(name, value);
+        this.getFactMap().put(name, value);
+        this.storeCompactFacts();
         return this;
     }
 
@@ -684,8 +772,11 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
             throw new IllegalArgumentException("name is null or empty");
         }
 
-        if (this.facts != null && this.facts.containsKey(name)) {
-            this.facts.remove(name);
+        Map<String, String> factMap = this.getFactMap();
+
+        if (factMap.containsKey(name)) {
+            factMap.remove(name);
+            this.storeCompactFacts();
 
             if (this.checkForCloudProfileFacts(Collections.singletonMap(name, null))) {
                 this.updateRHCloudProfileModified();
@@ -15,6 +15,7 @@
 package org.candlepin.model;
 
 import org.candlepin.auth.Principal;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.exceptions.NotFoundException;
 import org.candlepin.guice.PrincipalProvider;
@@ -198,9 +199,23 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     public Consumer create(Consumer entity, boolean flush) {
         entity.ensureUUID();
         this.validateFacts(entity);
+        this.applyFactStorage(entity);
         return super.create(entity, flush);
     }
 
+    /**
+     * Switches the given consumer to compact fact storage, if enabled. Consumers are never switched
+     * back to the fact table, as that would require rewriting all of their facts.
+     *
+     * @param consumer
+     *  the consumer for which to apply the configured fact storage
+     */
+    private void applyFactStorage(Consumer consumer) {
+        if (this.config != null && this.config.getBoolean(ConfigProperties.CONSUMER_FACTS_COMPACT_STORAGE)) {
+            consumer.compactFacts();
+        }
+    }
+
     @Override
     @Transactional
     public void delete(Consumer entity) {
@@ -589,6 +604,7 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             // This set of updates is strange. We're ignoring the "null-as-no-change" semantics we use
             // everywhere else, and just blindly copying everything over.
             existingConsumer.setFacts(updatedConsumer.getFacts());
+            this.applyFactStorage(existingConsumer);
             existingConsumer.setName(updatedConsumer.getName());
             existingConsumer.setOwner(updatedConsumer.getOwner());
 
@@ -628,6 +644,41 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             .executeUpdate();
     }
 
+    /**
+     * Updates the last check-in time of a batch of consumers. Consumers sharing the same check-in
+     * time are updated together, in blocks of IDs.
+     *
+     * @param checkIns
+     *  a map of check-in times, keyed by consumer ID
+     *
+     * @return
+     *  the number of consumers updated
+     */
+    @Transactional
+    public int updateLastCheckins(Map<String, Date> checkIns) {
+        if (checkIns == null || checkIns.isEmpty()) {
+            return 0;
+        }
+
+        Map<Date, List<String>> consumerIdsByCheckIn = new HashMap<>();
+        checkIns.forEach((consumerId, checkIn) ->
+            consumerIdsByCheckIn.computeIfAbsent(checkIn, key -> new ArrayList<>()).add(consumerId));
+
+        String hql = "UPDATE Consumer c SET c.lastCheckin = :date, c.updated = :date WHERE c.id IN (:cids)";
+        int count = 0;
+
+        for (Map.Entry<Date, List<String>> entry : consumerIdsByCheckIn.entrySet()) {
+            for (List<String> block : Iterables.partition(entry.getValue(), this.getInBlockSize())) {
+                count += this.currentSession().createQuery(hql)
+                    .setTimestamp("date", entry.getKey())
+                    .setParameterList("cids", block)
+                    .executeUpdate();
+            }
+        }
+
+        return count;
+    }
+
     @Transactional
     public void heartbeatUpdate(final String reporterId, final Date checkIn, final String ownerKey)
         throws PersistenceException {
@@ -1304,6 +1355,11 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             predicates.add(securityPredicate);
         }
 
+        Predicate keysetPredicate = this.buildJPAKeysetPredicate(criteriaBuilder, root, queryArgs);
+        if (keysetPredicate != null) {
+            predicates.add(keysetPredicate);
+        }
+
         if (!predicates.isEmpty()) {
             criteriaQuery.where(predicates.toArray(new Predicate[predicates.size()]));
         }
@@ -1470,6 +1526,8 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
                     throw new IllegalArgumentException("query arguments contains too many facts");
                 }
 
+                this.validateFactSearch(facts.keySet());
+
                 // Impl note:
                 // This behavior is kind of strange -- we use an implicit conjunction to combine
                 // facts of different keys, even though none of the other criteria function that way.
@@ -1486,6 +1544,40 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         return predicates;
     }
 
+    /**
+     * Verifies consumers can be searched by the given facts. Consumers using compact fact storage
+     * only keep their indexed facts in the fact table, so while compact fact storage is enabled,
+     * searches on any other fact, or on wildcard fact names, are rejected rather than silently
+     * skipping those consumers.
+     *
+     * @param facts
+     *  the names of the facts by which to search consumers
+     *
+     * @throws BadRequestException
+     *  if compact fact storage is enabled and any of the facts is not an indexed fact
+     */
+    private void validateFactSearch(Collection<String> facts) {
+        if (this.config == null || !this.config.getBoolean(ConfigProperties.CONSUMER_FACTS_COMPACT_STORAGE)) {
+            return;
+        }
+
+        List<String> unsupported = facts.stream()
+            .filter(fact -> fact != null && !fact.isEmpty())
+            .filter(fact -> !ConsumerFactsCodec.INDEXED_FACTS.contains(fact))
+            .sorted()
+            .collect(Collectors.toList());
+
+        if (!unsupported.isEmpty()) {
+            String indexed = ConsumerFactsCodec.INDEXED_FACTS.stream()
+                .sorted()
+                .collect(Collectors.joining(", "));
+
+            throw new BadRequestException(this.i18nProvider.get().tr(
+                "Consumers cannot be searched by the following facts while compact fact storage is " +
+                "enabled: {0}. Searchable facts: {1}", String.join(", ", unsupported), indexed));
+        }
+    }
+
     /**
      * Builds a predicate for finding consumers with a fact containing one or more of the specified
      * values.
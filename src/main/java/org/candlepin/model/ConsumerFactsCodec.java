@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+
+/**
+ * Encodes consumer facts for compact storage, as a single gzip-compressed JSON object stored in
+ * the consumer's facts_data column.
+ * <p></p>
+ * Consumers using compact fact storage only keep the indexed facts in the fact table, since those
+ * are the facts queried by Candlepin itself. Since facts stored in the compact form cannot be
+ * queried, consumer searches on any other fact are rejected while compact fact storage is
+ * enabled.
+ */
+public final class ConsumerFactsCodec {
+
+    /** The facts kept in the fact table for consumers using compact fact storage */
+    public static final Set<String> INDEXED_FACTS = Set.of(
+        Consumer.Facts.VIRT_UUID,
+        Consumer.Facts.VIRT_IS_GUEST,
+        Consumer.Facts.DMI_SYSTEM_UUID,
+        Consumer.Facts.CPU_SOCKETS,
+        Consumer.Facts.UNAME_MACHINE);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<HashMap<String, String>> FACTS_TYPE = new TypeReference<>() {};
+
+    private ConsumerFactsCodec() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Encodes the given facts for compact storage.
+     *
+     * @param facts
+     *  the facts to encode; may be null
+     *
+     * @throws IllegalStateException
+     *  if the facts cannot be encoded
+     *
+     * @return
+     *  the encoded facts
+     */
+    public static byte[] encode(Map<String, String> facts) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        try (OutputStream output = new GZIPOutputStream(buffer)) {
+            // Sorted, so identical facts always encode to identical data
+            MAPPER.writeValue(output, facts != null ? new TreeMap<>(facts) : Map.of());
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Unable to encode consumer facts", e);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Decodes facts encoded by {@link #encode(Map)}.
+     *
+     * @param data
+     *  the encoded facts
+     *
+     * @throws IllegalArgumentException
+     *  if the data is null or is not valid encoded facts
+     *
+     * @return
+     *  a new, mutable map containing the decoded facts
+     */
+    public static Map<String, String> decode(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("data is null");
+        }
+
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            Map<String, String> facts = MAPPER.readValue(input, FACTS_TYPE);
+            return facts != null ? facts : new HashMap<>();
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Unable to decode consumer facts", e);
+        }
+    }
+}
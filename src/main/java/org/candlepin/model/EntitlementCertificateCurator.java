@@ -17,11 +17,14 @@ package org.candlepin.model;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
+import org.hibernate.Session;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -67,6 +70,73 @@ public class EntitlementCertificateCurator extends AbstractHibernateCurator<Enti
             .list();
     }
 
+    /**
+     * Builds a query fetching the unexpired entitlement certificates of the given consumer,
+     * optionally limited to the certificates with the specified serials.
+     *
+     * @param consumer
+     *  the consumer for which to fetch entitlement certificates
+     *
+     * @param serials
+     *  the serials of the certificates to fetch; if null or empty, all of the consumer's
+     *  certificates are fetched
+     *
+     * @return
+     *  a query fetching the consumer's entitlement certificates
+     */
+    public CandlepinQuery<EntitlementCertificate> findForConsumer(Consumer consumer,
+        Collection<Long> serials) {
+
+        DetachedCriteria criteria = DetachedCriteria.forClass(EntitlementCertificate.class)
+            .createAlias("entitlement", "ent")
+            .createAlias("ent.pool", "p")
+            .add(Restrictions.eq("ent.consumer", consumer))
+            // Never show a consumer expired certificates
+            .add(Restrictions.ge("p.endDate", new Date()));
+
+        if (serials != null && !serials.isEmpty()) {
+            criteria.add(CPRestrictions.in("serial.id", serials));
+        }
+
+        return this.cpQueryFactory.buildQuery(this.currentSession(), criteria);
+    }
+
+    /**
+     * Passes the unexpired entitlement certificates of the given consumer to the specified
+     * processor one at a time, scrolling through the query results. Each certificate and its
+     * serial are evicted from the session once processed, so the number of certificates does not
+     * affect the memory used by this method.
+     *
+     * @param consumer
+     *  the consumer for which to process entitlement certificates
+     *
+     * @param serials
+     *  the serials of the certificates to process; if null or empty, all of the consumer's
+     *  certificates are processed
+     *
+     * @param processor
+     *  the processor to receive the certificates
+     *
+     * @return
+     *  the number of certificates processed
+     */
+    @Transactional
+    public int forEachForConsumer(Consumer consumer, Collection<Long> serials,
+        ResultProcessor<EntitlementCertificate> processor) {
+
+        Session session = this.currentSession();
+
+        return this.findForConsumer(consumer, serials).forEach(0, true, cert -> {
+            boolean cont = processor.process(cert);
+
+            if (cert.getSerial() != null) {
+                session.evict(cert.getSerial());
+            }
+
+            return cont;
+        });
+    }
+
     @Transactional
     public void delete(EntitlementCertificate cert) {
         // make sure to delete it! else get ready to face
@@ -526,6 +526,24 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
         return this.entityManager.get().createQuery(query).getSingleResult().intValue();
     }
 
+    /**
+     * Fetches the entitlements of the specified consumer. Unlike {@link #listByConsumer(Consumer)},
+     * the entitlements are not loaded up front, allowing large numbers of entitlements to be
+     * iterated without holding them all in memory.
+     *
+     * @param consumer
+     *  The consumer for which to fetch entitlements
+     *
+     * @return
+     *  A CandlepinQuery to iterate over the entitlements of the specified consumer
+     */
+    public CandlepinQuery<Entitlement> findByConsumer(Consumer consumer) {
+        DetachedCriteria criteria = DetachedCriteria.forClass(Entitlement.class)
+            .add(Restrictions.eq("consumer", consumer));
+
+        return this.cpQueryFactory.buildQuery(this.currentSession(), criteria);
+    }
+
     public CandlepinQuery<Entitlement> listByOwner(Owner owner) {
         DetachedCriteria criteria = DetachedCriteria.forClass(Entitlement.class)
             .add(Restrictions.eq("owner", owner));
@@ -1340,6 +1358,49 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
         return entConsumerIdMap;
     }
 
+    /**
+     * Bulk-loads the entitlements of the given consumers, along with their pools and pool
+     * products, using one query per block of consumers. The entitlement collections of consumers
+     * managed by the current session are initialized by the query, so later accesses to them no
+     * longer require a separate lookup for each consumer.
+     *
+     * @param consumers
+     *  a collection of consumers for which to load entitlements
+     *
+     * @return
+     *  a mapping of consumer ID to the entitlements of the consumer
+     */
+    public Map<String, Set<Entitlement>> loadEntitlementsForConsumers(Collection<Consumer> consumers) {
+        Map<String, Set<Entitlement>> consumerEntitlementMap = new HashMap<>();
+
+        if (consumers != null) {
+            Set<String> consumerIds = new HashSet<>();
+            for (Consumer consumer : consumers) {
+                if (consumer != null && consumer.getId() != null) {
+                    consumerIds.add(consumer.getId());
+                }
+            }
+
+            String jpql = "SELECT DISTINCT consumer FROM Consumer consumer " +
+                "LEFT JOIN FETCH consumer.entitlements ent " +
+                "LEFT JOIN FETCH ent.pool pool " +
+                "LEFT JOIN FETCH pool.product " +
+                "WHERE consumer.id IN (:consumer_ids)";
+
+            for (List<String> block : this.partition(consumerIds)) {
+                List<Consumer> loaded = this.getEntityManager()
+                    .createQuery(jpql, Consumer.class)
+                    .setParameter("consumer_ids", block)
+                    .getResultList();
+
+                loaded.forEach(consumer -> consumerEntitlementMap.put(consumer.getId(),
+                    consumer.getEntitlements()));
+            }
+        }
+
+        return consumerEntitlementMap;
+    }
+
     /**
      * Returns a mapping of entitlement ID to content IDs attached to the base product and provided
      * products for the pool of the entitlement. Entitlements which do not have any content will not
@@ -52,6 +52,9 @@ public class HypervisorId extends AbstractHibernateObject {
     /** Name of the table backing this object in the database */
     public static final String DB_TABLE = "cp_consumer_hypervisor";
 
+    /** The maximum length of a report hash */
+    public static final int REPORT_HASH_MAX_LENGTH = 64;
+
     @Id
     @GeneratedValue(generator = "system-uuid")
     @GenericGenerator(name = "system-uuid", strategy = "uuid")
@@ -68,6 +71,10 @@ public class HypervisorId extends AbstractHibernateObject {
     @Size(max = 255)
     private String reporterId;
 
+    @Column(name = "report_hash")
+    @Size(max = REPORT_HASH_MAX_LENGTH)
+    private String reportHash;
+
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(nullable = false, unique = true)
     @NotNull
@@ -139,6 +146,24 @@ public class HypervisorId extends AbstractHibernateObject {
         return this;
     }
 
+    /**
+     * @return the hash of the last hypervisor report reconciled into this hypervisor's consumer
+     */
+    public String getReportHash() {
+        return reportHash;
+    }
+
+    /**
+     * @param reportHash the report hash to set, or null to force the next report to be reconciled
+     *
+     * @return
+     *  a reference to this HypervisorId
+     */
+    public HypervisorId setReportHash(String reportHash) {
+        this.reportHash = reportHash;
+        return this;
+    }
+
     /**
      * @return the consumer
      */
@@ -359,12 +359,80 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
      * @return List of entitlement pools.
      */
     @Transactional
-    @SuppressWarnings({"unchecked", "checkstyle:indentation", "checkstyle:methodlength"})
-    // TODO: Remove the methodlength suppression once this method is cleaned up
     public Page<List<Pool>> listAvailableEntitlementPools(Consumer consumer, String ownerId,
         Collection<String> productIds, String subscriptionId, Date activeOn, PoolFilterBuilder filters,
         PageRequest pageRequest, boolean postFilter, boolean addFuture, boolean onlyFuture, Date after) {
 
+        List<String> poolIds = this.findAvailableEntitlementPoolIds(consumer, ownerId, productIds,
+            subscriptionId, activeOn, filters, addFuture, onlyFuture, after);
+
+        // Impl note:
+        // Hibernate has an issue with properly hydrating objects within collections of the pool
+        // when only a subset of the collection matches the criteria. To work around this, we pull
+        // the ID list from the main filtering query, then pull the pools again using the ID list.
+        // This also makes it easier to eventually start using a cursor, since the distinct entity
+        // functionality doesn't work with cursors.
+
+        if (!poolIds.isEmpty()) {
+            Criteria criteria = this.currentSession()
+                .createCriteria(Pool.class)
+                .createAlias("product", "Product");
+            criteria.add(CPRestrictions.in("id", poolIds));
+
+            return this.listByCriteria(criteria, pageRequest, postFilter);
+        }
+
+        return emptyPage();
+    }
+
+    /**
+     * Lists the IDs of the entitlement pools matching the given criteria, without loading the pools
+     * themselves. The IDs are ordered by the sort field and order of the page request, with ties
+     * broken by pool ID, so the pools can be loaded and filtered incrementally in a stable order.
+     * The page and page size of the request are ignored.
+     *
+     * @param consumer Consumer being entitled.
+     * @param ownerId Owner whose subscriptions should be inspected.
+     * @param productIds only entitlements which provide these products are included.
+     * @param activeOn Indicates to return only pools valid on this date.
+     *        Set to null for no date filtering.
+     * @param filters filter builder with set filters to apply to the criteria.
+     * @param pageRequest used to specify the order of the IDs; may be null.
+     * @return ordered list of entitlement pool IDs.
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<String> listAvailableEntitlementPoolIds(Consumer consumer, String ownerId,
+        Collection<String> productIds, String subscriptionId, Date activeOn, PoolFilterBuilder filters,
+        PageRequest pageRequest, boolean addFuture, boolean onlyFuture, Date after) {
+
+        List<String> poolIds = this.findAvailableEntitlementPoolIds(consumer, ownerId, productIds,
+            subscriptionId, activeOn, filters, addFuture, onlyFuture, after);
+
+        if (poolIds.isEmpty()) {
+            return poolIds;
+        }
+
+        Criteria criteria = this.currentSession()
+            .createCriteria(Pool.class)
+            .createAlias("product", "Product")
+            .add(CPRestrictions.in("id", poolIds))
+            .setProjection(Projections.id());
+
+        if (pageRequest != null) {
+            criteria.addOrder(this.createPagingOrder(pageRequest));
+        }
+
+        return criteria.addOrder(Order.asc("id"))
+            .list();
+    }
+
+    @SuppressWarnings({"unchecked", "checkstyle:indentation", "checkstyle:methodlength"})
+    // TODO: Remove the methodlength suppression once this method is cleaned up
+    private List<String> findAvailableEntitlementPoolIds(Consumer consumer, String ownerId,
+        Collection<String> productIds, String subscriptionId, Date activeOn, PoolFilterBuilder filters,
+        boolean addFuture, boolean onlyFuture, Date after) {
+
         if (log.isDebugEnabled()) {
             log.debug("Listing available pools for:");
             log.debug("    consumer: {}", consumer);
@@ -392,7 +460,7 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
                 log.warn("Attempting to filter entitlement pools by owner and a consumer belonging to a " +
                     "different owner: {}, {}", ownerId, consumer);
 
-                return emptyPage();
+                return Collections.emptyList();
             }
 
             // We'll set the owner restriction later
@@ -576,27 +644,57 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
                     }
                 }
             }
-        }
 
-        // Impl note:
-        // Hibernate has an issue with properly hydrating objects within collections of the pool
-        // when only a subset of the collection matches the criteria. To work around this, we pull
-        // the ID list from the main filtering query, then pull the pools again using the ID list.
-        // This also makes it easier to eventually start using a cursor, since the distinct entity
-        // functionality doesn't work with cursors.
+            // Autobind candidate filters
+            if (filters.hasCandidateFilter()) {
+                Disjunction candidateDisjunction = Restrictions.disjunction();
+                boolean hasCandidateCriteria = false;
+
+                values = filters.getCandidateProductIds();
+                if (!values.isEmpty()) {
+                    if (!joinedProvided) {
+                        criteria.createAlias("Product.providedProducts", "Provided",
+                            JoinType.LEFT_OUTER_JOIN);
+                        joinedProvided = true;
+                    }
 
-        List<String> poolIds = criteria.list();
+                    candidateDisjunction.add(CPRestrictions.in("Product.id", values))
+                        .add(CPRestrictions.in("Provided.id", values));
+                    hasCandidateCriteria = true;
+                }
 
-        if (poolIds != null && !poolIds.isEmpty()) {
-            criteria = this.currentSession()
-                .createCriteria(Pool.class)
-                .createAlias("product", "Product");
-            criteria.add(CPRestrictions.in("id", poolIds));
+                values = filters.getCandidateStackIds();
+                if (!values.isEmpty()) {
+                    candidateDisjunction.add(this.addProductAttributeValueSubquery(
+                        Product.Attributes.STACKING_ID, values, false));
+                    hasCandidateCriteria = true;
+                }
 
-            return this.listByCriteria(criteria, pageRequest, postFilter);
+                values = filters.getCandidateAddons();
+                if (!values.isEmpty()) {
+                    candidateDisjunction.add(this.addProductAttributeValueSubquery(
+                        Product.Attributes.ADDONS, values, true));
+                    hasCandidateCriteria = true;
+                }
+
+                if (filters.getCandidateRole() != null) {
+                    candidateDisjunction.add(this.addProductAttributeValueSubquery(
+                        Product.Attributes.ROLES, Arrays.asList(filters.getCandidateRole()), true));
+                    hasCandidateCriteria = true;
+                }
+
+                // An empty disjunction would match every pool, but no pool can be a candidate
+                // if there is nothing to match it against
+                if (!hasCandidateCriteria) {
+                    return Collections.emptyList();
+                }
+
+                criteria.add(candidateDisjunction);
+            }
         }
 
-        return emptyPage();
+        List<String> poolIds = criteria.list();
+        return poolIds != null ? poolIds : Collections.emptyList();
     }
 
     private Page<List<Pool>> emptyPage() {
@@ -709,6 +807,53 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return Subqueries.exists(prodAttrSubquery);
     }
 
+    /**
+     * Builds a criterion matching pools whose product defines the given attribute with any of the
+     * specified values. Unlike the attribute filters, this does not consider pool attributes, and
+     * matches the product attributes as they are read by the autobind candidate checks.
+     *
+     * @param key
+     *  the name of the product attribute to match
+     *
+     * @param values
+     *  the attribute values to match; cannot be null or empty
+     *
+     * @param listValue
+     *  whether the attribute holds a comma-separated list; if so, the values are matched as
+     *  case-insensitive substrings of the list, which may also match products not listing them
+     *
+     * @return
+     *  a criterion matching pools with the given product attribute values
+     */
+    private Criterion addProductAttributeValueSubquery(String key, Collection<String> values,
+        boolean listValue) {
+
+        DetachedCriteria prodAttrSubquery = DetachedCriteria.forClass(Product.class, "ProdI")
+            .createAlias("ProdI.attributes", "attrib")
+            .setProjection(Projections.id())
+            .add(Property.forName("Product.uuid").eqProperty("ProdI.uuid"))
+            .add(Restrictions.eq("attrib.indices", key));
+
+        if (listValue) {
+            Disjunction prodAttrValueDisjunction = Restrictions.disjunction();
+
+            for (String attrValue : values) {
+                // Escape backslashes so the value is matched literally; any wildcards in the value
+                // only widen the match, which the callers verify regardless
+                String sanitized = this.sanitizeMatchesFilter(attrValue.replace("\\", "\\\\"));
+                prodAttrValueDisjunction.add(
+                    CPRestrictions.ilike("attrib.elements", "%" + sanitized + "%", '!'));
+            }
+
+            prodAttrSubquery.add(prodAttrValueDisjunction);
+        }
+        else {
+            prodAttrSubquery.add(CPRestrictions.in("attrib.elements", values));
+        }
+
+        return Subqueries.exists(prodAttrSubquery);
+    }
+
     private String sanitizeMatchesFilter(String matches) {
         StringBuilder output = new StringBuilder();
         boolean escaped = false;
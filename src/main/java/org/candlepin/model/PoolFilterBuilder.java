@@ -38,6 +38,12 @@ public class PoolFilterBuilder extends FilterBuilder {
     private Set<String> productIds = new HashSet<>();
     private String subscriptionIdFilter;
 
+    private boolean candidateFilter;
+    private Set<String> candidateProductIds = new HashSet<>();
+    private Set<String> candidateStackIds = new HashSet<>();
+    private Set<String> candidateAddons = new HashSet<>();
+    private String candidateRole;
+
     public PoolFilterBuilder() {
         super();
     }
@@ -98,6 +104,80 @@ public class PoolFilterBuilder extends FilterBuilder {
         return Collections.unmodifiableList(this.matchFilters);
     }
 
+    /**
+     * Add a filter to search only for pools which could be relevant to an autobind request. A
+     * pool is a candidate if it matches any of the given criteria: its product or any of its
+     * provided products is one of the given product IDs, its product completes one of the given
+     * partial stacks, or its product lists one of the given addons or the given role.
+     * <p></p>
+     * Addon and role matching is done by substring in the database, so the filter may include
+     * some pools which do not actually list the addon or role; callers are expected to verify the
+     * matches themselves. If none of the criteria are provided, no pools will match.
+     *
+     * @param productIds
+     *  the IDs of the products the pools may provide
+     *
+     * @param stackIds
+     *  the stacking IDs of the partial stacks the pools may complete
+     *
+     * @param addons
+     *  the addons the pools' products may list
+     *
+     * @param role
+     *  the role the pools' products may list
+     */
+    public void setCandidateFilter(Collection<String> productIds, Collection<String> stackIds,
+        Collection<String> addons, String role) {
+
+        this.candidateFilter = true;
+        this.candidateProductIds.clear();
+        this.candidateStackIds.clear();
+        this.candidateAddons.clear();
+
+        addNonEmpty(this.candidateProductIds, productIds);
+        addNonEmpty(this.candidateStackIds, stackIds);
+
+        if (addons != null) {
+            for (String addon : addons) {
+                if (addon != null && !addon.trim().isEmpty()) {
+                    this.candidateAddons.add(addon.trim());
+                }
+            }
+        }
+
+        this.candidateRole = role != null && !role.trim().isEmpty() ? role.trim() : null;
+    }
+
+    private static void addNonEmpty(Set<String> target, Collection<String> values) {
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.isEmpty()) {
+                    target.add(value);
+                }
+            }
+        }
+    }
+
+    public boolean hasCandidateFilter() {
+        return this.candidateFilter;
+    }
+
+    public Collection<String> getCandidateProductIds() {
+        return Collections.unmodifiableSet(this.candidateProductIds);
+    }
+
+    public Collection<String> getCandidateStackIds() {
+        return Collections.unmodifiableSet(this.candidateStackIds);
+    }
+
+    public Collection<String> getCandidateAddons() {
+        return Collections.unmodifiableSet(this.candidateAddons);
+    }
+
+    public String getCandidateRole() {
+        return this.candidateRole;
+    }
+
     @Override
     protected Criterion buildCriteriaForKey(String key, List<String> values) {
         throw new UnsupportedOperationException("This should not be used at present");
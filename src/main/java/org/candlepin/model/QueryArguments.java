@@ -14,6 +14,8 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.paging.PageCursor;
+
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -115,6 +117,7 @@ public class QueryArguments<T extends QueryArguments> {
     protected Integer offset;
     protected Integer limit;
     protected Collection<Order> order;
+    protected PageCursor after;
 
 
     /**
@@ -221,6 +224,34 @@ public class QueryArguments<T extends QueryArguments> {
         return this.order;
     }
 
+    /**
+     * Sets or clears the keyset position after which to begin fetching results. When set, only the
+     * results sorted after the cursor by the first result ordering, then by ID, are fetched, and
+     * the offset is ignored. If null, any previously set position will be cleared.
+     *
+     * @param after
+     *  the cursor after which to begin fetching results, or null to clear the position
+     *
+     * @return
+     *  a reference to this QueryArguments
+     */
+    public T setAfter(PageCursor after) {
+        this.after = after;
+        return (T) this;
+    }
+
+    /**
+     * Gets the keyset position after which to begin fetching results. If a position has not yet
+     * been defined, this method returns null.
+     *
+     * @return
+     *  the cursor after which to begin fetching results, or null if the position has not been
+     *  defined
+     */
+    public PageCursor getAfter() {
+        return this.after;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -237,6 +268,7 @@ public class QueryArguments<T extends QueryArguments> {
                 .append(this.getOffset(), that.getOffset())
                 .append(this.getLimit(), that.getLimit())
                 .append(this.getOrder(), that.getOrder())
+                .append(this.getAfter(), that.getAfter())
                 .isEquals();
         }
 
@@ -252,6 +284,7 @@ public class QueryArguments<T extends QueryArguments> {
             .append(this.getOffset())
             .append(this.getLimit())
             .append(this.getOrder())
+            .append(this.getAfter())
             .toHashCode();
     }
 
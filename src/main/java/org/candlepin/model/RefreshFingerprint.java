@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+
+
+/**
+ * A RefreshFingerprint records the fingerprint of an upstream entity, as received during the
+ * last refresh of an organization. Fingerprints are compared against those of the entities
+ * received on the next refresh to determine which entities changed upstream.
+ */
+@Entity
+@Table(name = RefreshFingerprint.DB_TABLE)
+public class RefreshFingerprint implements Persisted, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Name of the table backing this object in the database */
+    public static final String DB_TABLE = "cp_refresh_fingerprints";
+
+    /**
+     * The type of the upstream entity for which a fingerprint is recorded
+     */
+    public enum EntityType {
+        SUBSCRIPTION,
+        PRODUCT,
+        CONTENT
+    }
+
+    @Id
+    @GeneratedValue(generator = "system-uuid")
+    @GenericGenerator(name = "system-uuid", strategy = "uuid")
+    @Column(length = 32)
+    @NotNull
+    private String id;
+
+    @Column(name = "owner_id", nullable = false)
+    @Size(max = 32)
+    @NotNull
+    private String ownerId;
+
+    @Column(name = "entity_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    @Size(max = 255)
+    @NotNull
+    private String entityId;
+
+    @Column(nullable = false)
+    private long fingerprint;
+
+    public RefreshFingerprint() {
+        // Intentionally left empty
+    }
+
+    public RefreshFingerprint(String ownerId, EntityType entityType, String entityId, long fingerprint) {
+        this.setOwnerId(ownerId);
+        this.setEntityType(entityType);
+        this.setEntityId(entityId);
+        this.setFingerprint(fingerprint);
+    }
+
+    @Override
+    public String getId() {
+        return this.id;
+    }
+
+    public String getOwnerId() {
+        return this.ownerId;
+    }
+
+    public RefreshFingerprint setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+        return this;
+    }
+
+    public EntityType getEntityType() {
+        return this.entityType;
+    }
+
+    public RefreshFingerprint setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+        return this;
+    }
+
+    public String getEntityId() {
+        return this.entityId;
+    }
+
+    public RefreshFingerprint setEntityId(String entityId) {
+        this.entityId = entityId;
+        return this;
+    }
+
+    public long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    public RefreshFingerprint setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RefreshFingerprint [owner: %s, type: %s, entity: %s, fingerprint: %d]",
+            this.ownerId, this.entityType, this.entityId, this.fingerprint);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import org.candlepin.model.RefreshFingerprint.EntityType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * The RefreshFingerprintCurator provides lookup and persistence functionality for the
+ * fingerprints of the upstream entities received during org refreshes.
+ */
+@Singleton
+public class RefreshFingerprintCurator extends AbstractHibernateCurator<RefreshFingerprint> {
+    private static Logger log = LoggerFactory.getLogger(RefreshFingerprintCurator.class);
+
+    public RefreshFingerprintCurator() {
+        super(RefreshFingerprint.class);
+    }
+
+    /**
+     * Fetches the fingerprints of the upstream entities of the given type recorded for the
+     * specified organization, mapped by entity ID. If no fingerprints have been recorded, this
+     * method returns an empty map.
+     *
+     * @param ownerId
+     *  the ID of the organization for which to fetch fingerprints
+     *
+     * @param type
+     *  the type of the entities for which to fetch fingerprints
+     *
+     * @return
+     *  a map containing the recorded fingerprints, mapped by entity ID
+     */
+    public Map<String, Long> getFingerprints(String ownerId, EntityType type) {
+        Map<String, Long> fingerprints = new HashMap<>();
+
+        if (ownerId == null || type == null) {
+            return fingerprints;
+        }
+
+        String jpql = "SELECT rf.entityId, rf.fingerprint FROM RefreshFingerprint rf " +
+            "WHERE rf.ownerId = :owner_id AND rf.entityType = :entity_type";
+
+        List<Object[]> rows = this.getEntityManager()
+            .createQuery(jpql, Object[].class)
+            .setParameter("owner_id", ownerId)
+            .setParameter("entity_type", type)
+            .getResultList();
+
+        for (Object[] row : rows) {
+            fingerprints.put((String) row[0], (Long) row[1]);
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Replaces the recorded fingerprints of the entities of the given type for the specified
+     * organization. Only the fingerprints which differ from those already recorded are written;
+     * fingerprints of entities absent from the provided map are removed.
+     *
+     * @param ownerId
+     *  the ID of the organization for which to record fingerprints
+     *
+     * @param type
+     *  the type of the entities for which to record fingerprints
+     *
+     * @param fingerprints
+     *  a map containing the fingerprints to record, mapped by entity ID
+     *
+     * @throws IllegalArgumentException
+     *  if ownerId or type are null
+     *
+     * @return
+     *  the number of fingerprints added, updated or removed
+     */
+    public int updateFingerprints(String ownerId, EntityType type, Map<String, Long> fingerprints) {
+        if (ownerId == null) {
+            throw new IllegalArgumentException("ownerId is null");
+        }
+
+        if (type == null) {
+            throw new IllegalArgumentException("type is null");
+        }
+
+        Map<String, Long> existing = this.getFingerprints(ownerId, type);
+
+        Set<String> stale = new HashSet<>(existing.keySet());
+        List<RefreshFingerprint> created = new ArrayList<>();
+
+        if (fingerprints != null) {
+            for (Map.Entry<String, Long> entry : fingerprints.entrySet()) {
+                if (entry.getValue().equals(existing.get(entry.getKey()))) {
+                    stale.remove(entry.getKey());
+                }
+                else {
+                    created.add(new RefreshFingerprint(ownerId, type, entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+
+        String jpql = "DELETE FROM RefreshFingerprint rf " +
+            "WHERE rf.ownerId = :owner_id AND rf.entityType = :entity_type AND rf.entityId IN (:entity_ids)";
+
+        for (List<String> block : this.partition(stale)) {
+            this.getEntityManager()
+                .createQuery(jpql)
+                .setParameter("owner_id", ownerId)
+                .setParameter("entity_type", type)
+                .setParameter("entity_ids", block)
+                .executeUpdate();
+        }
+
+        this.saveAll(created, true, true);
+
+        Set<String> changedIds = new HashSet<>(stale);
+        created.forEach(fingerprint -> changedIds.add(fingerprint.getEntityId()));
+
+        int changed = changedIds.size();
+        log.debug("Updated {} {} fingerprint(s) for owner: {}", changed, type, ownerId);
+
+        return changed;
+    }
+
+    /**
+     * Removes all of the recorded fingerprints for the specified organization.
+     *
+     * @param ownerId
+     *  the ID of the organization for which to remove the fingerprints
+     *
+     * @return
+     *  the number of fingerprints removed
+     */
+    public int deleteFingerprints(String ownerId) {
+        if (ownerId == null) {
+            return 0;
+        }
+
+        return this.getEntityManager()
+            .createQuery("DELETE FROM RefreshFingerprint rf WHERE rf.ownerId = :owner_id")
+            .setParameter("owner_id", ownerId)
+            .executeUpdate();
+    }
+
+}
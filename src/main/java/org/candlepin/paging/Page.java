@@ -25,6 +25,7 @@ public class Page<T> {
     private T pageData;
     private Integer maxRecords;
     private PageRequest pageRequest;
+    private PageCursor nextCursor;
 
     public T getPageData() {
         return pageData;
@@ -50,4 +51,19 @@ public class Page<T> {
         this.pageRequest = pageRequest;
     }
 
+    /**
+     * Fetches the cursor at which the next keyset page starts. If null, this is the last page, or
+     * the page was not requested by keyset.
+     *
+     * @return
+     *  the cursor of the next page, or null
+     */
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(PageCursor nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
 }
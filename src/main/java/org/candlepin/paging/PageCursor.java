@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+
+
+/**
+ * Represents a position in a keyset-paged result: the value of the sort field and the ID of the
+ * last element of a page. The next page starts with the elements sorted after that position,
+ * which the database can locate through an index instead of skipping over all of the preceding
+ * rows.
+ * <p></p>
+ * Cursors are passed to clients as opaque tokens, built by {@link #encode()} and read back by
+ * {@link #decode(String)}. Only string, numeric, boolean and date sort values are supported.
+ */
+public final class PageCursor {
+
+    private static final char TYPE_STRING = 's';
+    private static final char TYPE_INTEGER = 'i';
+    private static final char TYPE_LONG = 'l';
+    private static final char TYPE_BOOLEAN = 'b';
+    private static final char TYPE_DATE = 'd';
+
+    private final Object sortValue;
+    private final String id;
+
+    private PageCursor(Object sortValue, String id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Creates a cursor positioned at the element with the given sort value and ID.
+     *
+     * @param sortValue
+     *  the value of the sort field of the last element of a page
+     *
+     * @param id
+     *  the ID of the last element of a page
+     *
+     * @throws IllegalArgumentException
+     *  if either value is null, or if the sort value is of an unsupported type
+     *
+     * @return
+     *  a new cursor
+     */
+    public static PageCursor of(Object sortValue, String id) {
+        if (sortValue == null) {
+            throw new IllegalArgumentException("sortValue is null");
+        }
+
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("id is null or empty");
+        }
+
+        if (!isSupportedType(sortValue.getClass())) {
+            throw new IllegalArgumentException("Unsupported sort value type: " + sortValue.getClass());
+        }
+
+        // Normalize subclasses such as java.sql.Timestamp, so decoded cursors compare equal
+        Object value = sortValue instanceof Date ? new Date(((Date) sortValue).getTime()) : sortValue;
+        return new PageCursor(value, id);
+    }
+
+    /**
+     * Checks if values of the given type can be used as the sort value of a cursor. Primitive
+     * types are supported along with their wrappers.
+     *
+     * @param type
+     *  the type to check
+     *
+     * @return
+     *  true if values of the given type can be used as sort values; false otherwise
+     */
+    public static boolean isSupportedType(Class<?> type) {
+        Class<?> normalized = normalizeType(type);
+
+        return normalized == String.class || normalized == Integer.class || normalized == Long.class ||
+            normalized == Boolean.class || normalized == Date.class;
+    }
+
+    /**
+     * Normalizes the given type to the type of the cursor sort values representing its values:
+     * primitive types are converted to their wrappers, and Date subclasses to Date.
+     */
+    private static Class<?> normalizeType(Class<?> type) {
+        if (type == null) {
+            return null;
+        }
+
+        if (Date.class.isAssignableFrom(type)) {
+            return Date.class;
+        }
+
+        if (type == int.class) {
+            return Integer.class;
+        }
+
+        if (type == long.class) {
+            return Long.class;
+        }
+
+        return type == boolean.class ? Boolean.class : type;
+    }
+
+    /**
+     * Reads a cursor from a token built by {@link #encode()}.
+     *
+     * @param token
+     *  the token to read
+     *
+     * @throws IllegalArgumentException
+     *  if the token is null or is not a valid cursor token
+     *
+     * @return
+     *  the cursor represented by the token
+     */
+    public static PageCursor decode(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("token is null");
+        }
+
+        // The payload is laid out as <type>:<ID length>:<ID><sort value>
+        String payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = payload.indexOf(':', 2);
+
+        if (payload.length() < 4 || payload.charAt(1) != ':' || separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor token: " + token);
+        }
+
+        try {
+            int idEnd = separator + 1 + Integer.parseInt(payload.substring(2, separator));
+            if (idEnd <= separator + 1 || idEnd > payload.length()) {
+                throw new IllegalArgumentException("Malformed cursor token: " + token);
+            }
+
+            String id = payload.substring(separator + 1, idEnd);
+            String value = payload.substring(idEnd);
+
+            switch (payload.charAt(0)) {
+                case TYPE_STRING:
+                    return PageCursor.of(value, id);
+
+                case TYPE_INTEGER:
+                    return PageCursor.of(Integer.valueOf(value), id);
+
+                case TYPE_LONG:
+                    return PageCursor.of(Long.valueOf(value), id);
+
+                case TYPE_BOOLEAN:
+                    return PageCursor.of(Boolean.valueOf(value), id);
+
+                case TYPE_DATE:
+                    return PageCursor.of(new Date(Long.parseLong(value)), id);
+
+                default:
+                    throw new IllegalArgumentException("Malformed cursor token: " + token);
+            }
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor token: " + token, e);
+        }
+    }
+
+    /**
+     * Builds the opaque token representing this cursor.
+     *
+     * @return
+     *  the token representing this cursor
+     */
+    public String encode() {
+        char type;
+        String value;
+
+        if (this.sortValue instanceof Date) {
+            type = TYPE_DATE;
+            value = String.valueOf(((Date) this.sortValue).getTime());
+        }
+        else {
+            type = this.sortValue instanceof Integer ? TYPE_INTEGER :
+                this.sortValue instanceof Long ? TYPE_LONG :
+                this.sortValue instanceof Boolean ? TYPE_BOOLEAN :
+                TYPE_STRING;
+
+            value = this.sortValue.toString();
+        }
+
+        String payload = type + ":" + this.id.length() + ":" + this.id + value;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Fetches the value of the sort field of the element at this cursor.
+     *
+     * @return
+     *  the sort value of this cursor
+     */
+    public Object getSortValue() {
+        return this.sortValue;
+    }
+
+    /**
+     * Checks if the sort value of this cursor represents a value of the given type, such as the
+     * type of the field being sorted on.
+     *
+     * @param type
+     *  the type to check
+     *
+     * @return
+     *  true if the sort value of this cursor represents a value of the given type; false otherwise
+     */
+    public boolean hasSortValueOfType(Class<?> type) {
+        return normalizeType(type) == normalizeType(this.sortValue.getClass());
+    }
+
+    /**
+     * Fetches the ID of the element at this cursor.
+     *
+     * @return
+     *  the ID of this cursor
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+
+        if (!(obj instanceof PageCursor)) {
+            return false;
+        }
+
+        PageCursor that = (PageCursor) obj;
+        return this.sortValue.equals(that.sortValue) && this.id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.sortValue, this.id);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageCursor [sortValue: %s, id: %s]", this.sortValue, this.id);
+    }
+}
@@ -16,6 +16,12 @@ package org.candlepin.paging;
 
 /**
  * Represents a request to page data coming back from Candlepin.
+ * <p></p>
+ * Pages are selected either by number, or, when a cursor is provided, by keyset: the page then
+ * starts right after the element at the cursor, which avoids scanning all of the preceding rows
+ * on deep pages. A keyset request without a cursor fetches the first page. The total number of
+ * records is only counted for keyset requests which explicitly ask for it. Listings which cannot
+ * resume from a cursor reject keyset requests.
  */
 public class PageRequest {
     /**
@@ -30,6 +36,8 @@ public class PageRequest {
     public static final String SORT_BY_PARAM = "sort_by";
     public static final String PAGE_PARAM = "page";
     public static final String PER_PAGE_PARAM = "per_page";
+    public static final String CURSOR_PARAM = "cursor";
+    public static final String COUNT_PARAM = "count";
 
     public static final Integer DEFAULT_PAGE = 1;
     public static final Integer DEFAULT_PER_PAGE = 10;
@@ -39,6 +47,9 @@ public class PageRequest {
     private Integer perPage;
     private String sortBy;
     private Order order;
+    private boolean keyset;
+    private PageCursor cursor;
+    private Boolean countRequested;
 
     public Integer getPage() {
         return page;
@@ -75,4 +86,49 @@ public class PageRequest {
     public boolean isPaging() {
         return perPage != null && page != null;
     }
+
+    /**
+     * Checks whether or not this request selects its page by keyset rather than by page number.
+     *
+     * @return
+     *  true if this is a keyset page request; false otherwise
+     */
+    public boolean isKeyset() {
+        return keyset;
+    }
+
+    public void setKeyset(boolean keyset) {
+        this.keyset = keyset;
+    }
+
+    /**
+     * Fetches the position after which a keyset page starts. If null, a keyset request fetches the
+     * first page.
+     *
+     * @return
+     *  the cursor at which the requested page starts, or null
+     */
+    public PageCursor getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(PageCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Checks whether or not the total number of records should be counted for this request. Records
+     * are always counted for requests by page number, which need the count to link to the last
+     * page, but only on demand for keyset requests.
+     *
+     * @return
+     *  true if the total number of records should be counted; false otherwise
+     */
+    public boolean isCountRequested() {
+        return !keyset || Boolean.TRUE.equals(countRequested);
+    }
+
+    public void setCountRequested(Boolean countRequested) {
+        this.countRequested = countRequested;
+    }
 }
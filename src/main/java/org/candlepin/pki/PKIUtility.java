@@ -25,6 +25,7 @@ import java.security.KeyException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.Signature;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Date;
@@ -54,6 +55,22 @@ public interface PKIUtility {
 
     byte[] getSHA256WithRSAHash(InputStream input);
 
+    /**
+     * Creates a SHA256withRSA signature initialized for signing with the CA key. Unlike
+     * {@link #getSHA256WithRSAHash(InputStream)}, the returned signature can be updated
+     * incrementally while the signed data is being produced.
+     *
+     * @throws GeneralSecurityException
+     *  if the signature cannot be initialized with the CA key
+     *
+     * @throws IOException
+     *  if the CA key cannot be read
+     *
+     * @return
+     *  a new signature, initialized for signing
+     */
+    Signature getSHA256WithRSASignature() throws GeneralSecurityException, IOException;
+
     boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException;
 
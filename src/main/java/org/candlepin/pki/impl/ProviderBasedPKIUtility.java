@@ -89,8 +89,7 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
     @Override
     public byte[] getSHA256WithRSAHash(InputStream input) {
         try {
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(reader.getCaKey());
+            Signature signature = this.getSHA256WithRSASignature();
 
             updateSignature(input, signature);
             return signature.sign();
@@ -100,6 +99,14 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
         }
     }
 
+    @Override
+    public Signature getSHA256WithRSASignature() throws GeneralSecurityException, IOException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(reader.getCaKey());
+
+        return signature;
+    }
+
     @Override
     public boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException {
@@ -28,6 +28,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 
 /**
  * ActivationKeyRules
@@ -89,6 +95,46 @@ public class ActivationKeyRules {
      *  In case the validation was successful, it will be empty.
      */
     public ValidationResult runPoolValidationForActivationKey(ActivationKey key, Pool pool, Long quantity) {
+        return this.validatePool(pool, quantity, this.getKeyPoolIds(key));
+    }
+
+    /**
+     * Checks that each of the specified pools can be attached to the specified activation key. This
+     * is equivalent to validating each pool individually, but only inspects the activation key's
+     * existing pools once for the whole batch.
+     *
+     * @param key The activation key to attach the pools to
+     *
+     * @param pools The pools to be attached to the activation key
+     *
+     * @param quantity The quantity of each pool the key will consume
+     *
+     * @return a mapping of pool IDs to the result objects of the validation of each pool
+     */
+    public Map<String, ValidationResult> runPoolValidationForActivationKey(ActivationKey key,
+        Collection<Pool> pools, Long quantity) {
+
+        Set<String> keyPoolIds = this.getKeyPoolIds(key);
+        Map<String, ValidationResult> results = new HashMap<>();
+
+        for (Pool pool : pools) {
+            results.put(pool.getId(), this.validatePool(pool, quantity, keyPoolIds));
+        }
+
+        return results;
+    }
+
+    private Set<String> getKeyPoolIds(ActivationKey key) {
+        Set<String> poolIds = new HashSet<>();
+
+        for (ActivationKeyPool akPool : key.getPools()) {
+            poolIds.add(akPool.getPool().getId());
+        }
+
+        return poolIds;
+    }
+
+    private ValidationResult validatePool(Pool pool, Long quantity, Set<String> keyPoolIds) {
         ValidationResult result = new ValidationResult();
         if (quantity != null && quantity < 1) {
             result.addError(ErrorKeys.INVALID_QUANTITY);
@@ -101,11 +147,8 @@ public class ActivationKeyRules {
             }
 
             // Don't allow non-multi-ent pools to be attached to an activation key more than once
-            for (ActivationKeyPool akPool : key.getPools()) {
-                if (pool.getId().equals(akPool.getPool().getId())) {
-                    result.addError(ErrorKeys.ALREADY_EXISTS);
-                    break;
-                }
+            if (keyPoolIds.contains(pool.getId())) {
+                result.addError(ErrorKeys.ALREADY_EXISTS);
             }
         }
 
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import java.util.regex.Pattern;
+
+
+
+/**
+ * Utility methods reproducing the javascript type coercion the rules rely on, for the native
+ * implementations of portions of the rules. Facts and attributes are strings which the rules
+ * freely compare against numbers; these methods convert them the way the rules engine would, so
+ * the native implementations agree with the rules on malformed input as well as well-formed input.
+ */
+public final class JsCoercion {
+
+    private static final Pattern JS_NUMBER = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    private JsCoercion() {
+        // Intentionally left empty
+    }
+
+    /**
+     * Converts a value to a number as the javascript parseInt function does: leading whitespace
+     * is skipped and any trailing non-digits are ignored.
+     *
+     * @param value
+     *  the value to convert; may be a string, a double or null
+     *
+     * @return
+     *  the parsed integer value, or NaN if the value cannot be parsed
+     */
+    public static double parseInt(Object value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return Double.isNaN(number) || Double.isInfinite(number) ? Double.NaN : (double) (long) number;
+        }
+
+        String str = value.toString().stripLeading();
+        int index = 0;
+        boolean negative = false;
+
+        if (index < str.length() && (str.charAt(index) == '-' || str.charAt(index) == '+')) {
+            negative = str.charAt(index) == '-';
+            ++index;
+        }
+
+        int start = index;
+        double result = 0;
+        while (index < str.length() && str.charAt(index) >= '0' && str.charAt(index) <= '9') {
+            result = result * 10 + (str.charAt(index) - '0');
+            ++index;
+        }
+
+        if (index == start) {
+            return Double.NaN;
+        }
+
+        return negative ? -result : result;
+    }
+
+    /**
+     * Converts a value to a number as javascript does when comparing strings to numbers.
+     *
+     * @param value
+     *  the value to convert; may be a string, a double or null
+     *
+     * @return
+     *  the numeric value, or NaN if the value is not numeric
+     */
+    public static double toNumber(Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+
+        String str = value.toString().strip();
+        if (str.isEmpty()) {
+            return 0;
+        }
+
+        return JS_NUMBER.matcher(str).matches() ? Double.parseDouble(str) : Double.NaN;
+    }
+
+    /**
+     * Rounds a number as the javascript Math.round function does, rounding halves up.
+     *
+     * @param value
+     *  the value to round
+     *
+     * @return
+     *  the rounded value, or NaN if the value is NaN
+     */
+    public static double round(double value) {
+        return Double.isNaN(value) ? value : Math.floor(value + 0.5);
+    }
+
+    /**
+     * Checks if a string value is truthy in javascript; that is, neither null nor empty.
+     *
+     * @param value
+     *  the value to check
+     *
+     * @return
+     *  true if the value is neither null nor empty; false otherwise
+     */
+    public static boolean isTruthy(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * Checks if a number is truthy in javascript; that is, neither zero nor NaN.
+     *
+     * @param value
+     *  the value to check
+     *
+     * @return
+     *  true if the value is neither zero nor NaN; false otherwise
+     */
+    public static boolean isTruthy(double value) {
+        return value != 0 && !Double.isNaN(value);
+    }
+}
@@ -44,4 +44,16 @@ public abstract class JsContext {
      * @param scope the {@link Scriptable} to inject the arguments into.
      */
     public abstract void applyTo(Scriptable scope);
+
+    /**
+     * Remove this context's arguments from the specified {@link Scriptable}, reverting a previous
+     * call to {@link #applyTo(Scriptable)}.
+     *
+     * @param scope the {@link Scriptable} to remove the arguments from.
+     */
+    public void removeFrom(Scriptable scope) {
+        for (String key : this.contextArgs.keySet()) {
+            scope.delete(key);
+        }
+    }
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.util.TimingStatistics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+
+/**
+ * Collects timing statistics for the javascript rules: the time spent waiting on the rules scope
+ * pool, and the time spent invoking rules functions in each rules namespace.
+ */
+public class JsRulesStatistics {
+
+    private final TimingStatistics poolWait;
+    private final ConcurrentMap<String, TimingStatistics> invocations;
+
+    public JsRulesStatistics() {
+        this.poolWait = new TimingStatistics();
+        this.invocations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records the time a caller spent waiting to borrow a scope from the rules scope pool.
+     *
+     * @param nanos
+     *  the time spent waiting, in nanoseconds
+     */
+    public void recordPoolWait(long nanos) {
+        this.poolWait.record(nanos);
+    }
+
+    /**
+     * Records the time spent invoking a function in the given rules namespace.
+     *
+     * @param namespace
+     *  the rules namespace containing the invoked function
+     *
+     * @param nanos
+     *  the time spent in the invocation, in nanoseconds
+     */
+    public void recordInvocation(String namespace, long nanos) {
+        String key = namespace != null ? namespace : "global";
+
+        this.invocations.computeIfAbsent(key, ns -> new TimingStatistics())
+            .record(nanos);
+    }
+
+    /**
+     * Fetches the statistics for time spent waiting on the rules scope pool.
+     *
+     * @return
+     *  the pool wait time statistics
+     */
+    public TimingStatistics getPoolWaitStatistics() {
+        return this.poolWait;
+    }
+
+    /**
+     * Fetches the invocation latency statistics for each rules namespace which has been invoked.
+     *
+     * @return
+     *  an unmodifiable, sorted map of rules namespaces to their invocation statistics
+     */
+    public Map<String, TimingStatistics> getInvocationStatistics() {
+        return Collections.unmodifiableMap(new TreeMap<>(this.invocations));
+    }
+}
@@ -24,10 +24,17 @@ import org.mozilla.javascript.Wrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * JsRunner - Responsible for running the javascript rules methods in all
  * namespaces.
  * Used by the various "Rules" classes.
+ * <p></p>
+ * A runner either owns a single scope for its lifetime, or, when created with a scope pool,
+ * borrows a pooled scope for each invocation and returns it once the invocation completes.
  */
 public class JsRunner {
 
@@ -36,11 +43,23 @@ public class JsRunner {
     private Object rulesNameSpace;
     private String namespace;
     private Scriptable scope;
+    private JsScopePool scopePool;
+    private JsRulesStatistics statistics;
 
     private boolean initialized = false;
 
     public JsRunner(Scriptable scope) {
+        this(scope, null);
+    }
+
+    public JsRunner(Scriptable scope, JsRulesStatistics statistics) {
         this.scope = scope;
+        this.statistics = statistics;
+    }
+
+    public JsRunner(JsScopePool scopePool, JsRulesStatistics statistics) {
+        this.scopePool = scopePool;
+        this.statistics = statistics;
     }
 
     /**
@@ -55,22 +74,22 @@ public class JsRunner {
         this.namespace = namespace;
 
         if (!initialized) {
-
-            Context context = Context.enter();
-            try {
-                Object func = ScriptableObject.getProperty(scope, namespace);
-                this.rulesNameSpace = unwrapReturnValue(((Function) func)
-                    .call(context, scope, scope, Context.emptyArgs));
-
-                this.initialized = true;
-            }
-            catch (RhinoException ex) {
-                this.initialized = false;
-                throw new RuleParseException(ex);
+            if (this.scopePool != null) {
+                // Initialize the namespace in a pooled scope now, so any rules errors are still
+                // reported at initialization time.
+                JsScopePool.PooledScope pooled = this.scopePool.borrow();
+                try {
+                    this.getPooledNamespace(pooled);
+                }
+                finally {
+                    this.scopePool.release(pooled);
+                }
             }
-            finally {
-                Context.exit();
+            else {
+                this.rulesNameSpace = initNamespace(this.scope, namespace);
             }
+
+            this.initialized = true;
         }
     }
 
@@ -79,6 +98,31 @@ public class JsRunner {
         init(namespace);
     }
 
+    private Object initNamespace(Scriptable scope, String namespace) {
+        Context context = Context.enter();
+        try {
+            Object func = ScriptableObject.getProperty(scope, namespace);
+            return unwrapReturnValue(((Function) func)
+                .call(context, scope, scope, Context.emptyArgs));
+        }
+        catch (RhinoException ex) {
+            throw new RuleParseException(ex);
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    private Object getPooledNamespace(JsScopePool.PooledScope pooled) {
+        Object namespaceObject = pooled.getNamespace(this.namespace);
+        if (namespaceObject == null) {
+            namespaceObject = initNamespace(pooled.getScope(), this.namespace);
+            pooled.putNamespace(this.namespace, namespaceObject);
+        }
+
+        return namespaceObject;
+    }
+
     Object unwrapReturnValue(Object result) {
         if (result instanceof Wrapper) {
             result = ((Wrapper) result).unwrap();
@@ -87,14 +131,57 @@ public class JsRunner {
         return result instanceof Undefined ? null : result;
     }
 
-    @SuppressWarnings("unchecked")
     public <T> T invokeMethod(String method)
         throws NoSuchMethodException, RhinoException {
-        Scriptable localScope = Context.toObject(this.rulesNameSpace, scope);
+        return this.invokeMethod(method, null);
+    }
+
+    public <T> T invokeMethod(String method, JsContext context)
+        throws NoSuchMethodException, RhinoException {
+
+        if (this.scopePool == null) {
+            if (context != null) {
+                context.applyTo(this.scope);
+            }
+
+            return this.invokeInScope(this.scope, this.rulesNameSpace, method);
+        }
+
+        JsScopePool.PooledScope pooled = this.scopePool.borrow();
+        try {
+            Scriptable pooledScope = pooled.getScope();
+            Object namespaceObject = this.getPooledNamespace(pooled);
+
+            if (context != null) {
+                context.applyTo(pooledScope);
+            }
+
+            try {
+                return this.invokeInScope(pooledScope, namespaceObject, method);
+            }
+            finally {
+                // Pooled scopes are shared between callers, so don't leak this call's arguments
+                if (context != null) {
+                    context.removeFrom(pooledScope);
+                }
+            }
+        }
+        finally {
+            this.scopePool.release(pooled);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T invokeInScope(Scriptable scope, Object namespaceObject, String method)
+        throws NoSuchMethodException, RhinoException {
+
+        Scriptable localScope = Context.toObject(namespaceObject, scope);
         Object func = ScriptableObject.getProperty(localScope, method);
         if (!(func instanceof Function)) {
             throw new NoSuchMethodException("no such javascript method: " + method);
         }
+
+        long start = System.nanoTime();
         Context context = Context.enter();
         try {
             return (T) unwrapReturnValue(((Function) func).call(context, scope,
@@ -102,22 +189,23 @@ public class JsRunner {
         }
         finally {
             Context.exit();
+
+            if (this.statistics != null) {
+                this.statistics.recordInvocation(this.namespace, System.nanoTime() - start);
+            }
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public <T> T invokeMethod(String method, JsContext context)
-        throws NoSuchMethodException, RhinoException {
-        context.applyTo(scope);
-        return (T) invokeMethod(method);
+    public <T> T invokeRule(String ruleName) {
+        return this.invokeRule(ruleName, null);
     }
 
-    public <T> T invokeRule(String ruleName) {
+    public <T> T invokeRule(String ruleName, JsContext context) {
         log.debug("Running rule: {} in namespace: {}", ruleName, namespace);
 
         T returner = null;
         try {
-            returner = this.invokeMethod(ruleName);
+            returner = this.invokeMethod(ruleName, context);
         }
         catch (NoSuchMethodException ex) {
             log.info("No rule found: {} in namespace: {}", ruleName, namespace);
@@ -128,11 +216,6 @@ public class JsRunner {
         return returner;
     }
 
-    public <T> T invokeRule(String ruleName, JsContext context) {
-        context.applyTo(scope);
-        return invokeRule(ruleName);
-    }
-
     public <T extends Object> T runJsFunction(Class<T> clazz, String function,
         JsContext context) {
         T returner = null;
@@ -147,4 +230,63 @@ public class JsRunner {
         }
         return returner;
     }
+
+    /**
+     * Runs the given javascript function once for each of the provided contexts. Unlike repeated
+     * calls to {@link #runJsFunction(Class, String, JsContext)}, the entire batch is evaluated in
+     * a single rules scope, so a pooled runner borrows and releases a scope only once per batch.
+     *
+     * @param clazz
+     *  the expected class of the function results
+     *
+     * @param function
+     *  the name of the javascript function to run
+     *
+     * @param contexts
+     *  the contexts to provide to each invocation of the function
+     *
+     * @return
+     *  a list containing the result of each invocation, in the order of the provided contexts
+     */
+    public <T extends Object> List<T> runJsFunctions(Class<T> clazz, String function,
+        List<? extends JsContext> contexts) {
+
+        if (contexts == null || contexts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        JsScopePool.PooledScope pooled = this.scopePool != null ? this.scopePool.borrow() : null;
+        try {
+            Scriptable batchScope = pooled != null ? pooled.getScope() : this.scope;
+            Object namespaceObject = pooled != null ? this.getPooledNamespace(pooled) : this.rulesNameSpace;
+
+            List<T> results = new ArrayList<>(contexts.size());
+            for (JsContext context : contexts) {
+                context.applyTo(batchScope);
+
+                try {
+                    results.add(this.invokeInScope(batchScope, namespaceObject, function));
+                }
+                finally {
+                    if (pooled != null) {
+                        context.removeFrom(batchScope);
+                    }
+                }
+            }
+
+            return results;
+        }
+        catch (NoSuchMethodException e) {
+            log.warn("No javascript method found: {}", function);
+            return new ArrayList<>(Collections.nCopies(contexts.size(), null));
+        }
+        catch (RhinoException e) {
+            throw new RuleExecutionException(e);
+        }
+        finally {
+            if (pooled != null) {
+                this.scopePool.release(pooled);
+            }
+        }
+    }
 }
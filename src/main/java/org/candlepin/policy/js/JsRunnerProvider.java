@@ -14,6 +14,8 @@
  */
 package org.candlepin.policy.js;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.model.Rules;
 import org.candlepin.model.Rules.RulesSourceEnum;
 import org.candlepin.model.RulesCurator;
@@ -37,12 +39,17 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * Reads/compiles our javascript rules and the standard js objects only
  * once across the JVM lifetime (and whenever the rules require a recompile), and creates
  * lightweight execution scopes per thread/request.
+ * <p></p>
+ * When rules scope pooling is enabled, the runners provided share a bounded pool of execution
+ * scopes instead, borrowing a scope for the duration of each rules invocation.
  */
 public class JsRunnerProvider implements Provider<JsRunner> {
     private static Logger log = LoggerFactory.getLogger(JsRunnerProvider.class);
 
     private RulesCurator rulesCurator;
     private Provider<JsRunnerRequestCache> cacheProvider;
+    private final JsRulesStatistics statistics;
+    private final JsScopePool scopePool;
     private Script script;
     private Scriptable scope;
     /**
@@ -82,9 +89,48 @@ public class JsRunnerProvider implements Provider<JsRunner> {
     }
 
     @Inject
+    public JsRunnerProvider(Configuration config, RulesCurator rulesCurator,
+        Provider<JsRunnerRequestCache> cacheProvider) {
+
+        this(rulesCurator, cacheProvider,
+            config.getBoolean(ConfigProperties.RULES_POOL_ENABLED) ?
+                config.getInt(ConfigProperties.RULES_POOL_SIZE) : 0,
+            config.getLong(ConfigProperties.RULES_POOL_MAX_WAIT));
+    }
+
     public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider) {
+        this(rulesCurator, cacheProvider, 0, 0);
+    }
+
+    /**
+     * Creates a new provider, optionally pooling the execution scopes used by the runners it
+     * provides.
+     *
+     * @param rulesCurator
+     *  the curator to use for fetching the rules
+     *
+     * @param cacheProvider
+     *  the provider of the request-scoped rules update cache
+     *
+     * @param poolSize
+     *  the maximum number of pooled execution scopes, or zero to disable scope pooling
+     *
+     * @param poolMaxWait
+     *  the maximum time to wait for a pooled scope, in milliseconds
+     */
+    JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        int poolSize, long poolMaxWait) {
+
         this.rulesCurator = rulesCurator;
         this.cacheProvider = cacheProvider;
+        this.statistics = new JsRulesStatistics();
+        this.scopePool = poolSize > 0 ?
+            new JsScopePool(poolSize, poolMaxWait, this::createScope, this.statistics) :
+            null;
+
+        if (this.scopePool != null) {
+            log.info("Rules scope pooling enabled; pool size: {}", poolSize);
+        }
 
         log.debug("Compiling rules for initial load");
         this.rulesCurator.updateDbRules();
@@ -125,6 +171,10 @@ public class JsRunnerProvider implements Provider<JsRunner> {
                 script.exec(context, scope);
                 ((ScriptableObject) scope).sealObject();
                 this.currentRulesUpdated = newUpdated;
+
+                if (this.scopePool != null) {
+                    this.scopePool.invalidate(newUpdated);
+                }
             }
             finally {
                 Context.exit();
@@ -155,6 +205,15 @@ public class JsRunnerProvider implements Provider<JsRunner> {
         if (!updated.equals(this.currentRulesUpdated)) {
             compileRules();
         }
+
+        if (this.scopePool != null) {
+            return new JsRunner(this.scopePool, this.statistics);
+        }
+
+        return new JsRunner(this.createScope(), this.statistics);
+    }
+
+    private Scriptable createScope() {
         Scriptable rulesScope;
         scriptLock.readLock().lock();
         try {
@@ -168,7 +227,28 @@ public class JsRunnerProvider implements Provider<JsRunner> {
             scriptLock.readLock().unlock();
         }
 
-        return new JsRunner(rulesScope);
+        return rulesScope;
+    }
+
+    /**
+     * Fetches the timing statistics collected for the rules executed by the runners created by
+     * this provider.
+     *
+     * @return
+     *  the rules timing statistics
+     */
+    public JsRulesStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Fetches the rules scope pool shared by the runners created by this provider.
+     *
+     * @return
+     *  the rules scope pool, or null if rules scope pooling is disabled
+     */
+    public JsScopePool getScopePool() {
+        return this.scopePool;
     }
 
     public String getRulesVersion() {
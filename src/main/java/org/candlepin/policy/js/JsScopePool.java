@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.mozilla.javascript.Scriptable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+
+
+/**
+ * A bounded pool of javascript execution scopes derived from the compiled rules. Pooled scopes
+ * retain the rules namespaces initialized in them, so repeated rules invocations avoid both the
+ * scope construction and the namespace initialization.
+ * <p></p>
+ * Each scope is tagged with the rules generation it was created from. Whenever the rules are
+ * recompiled, the pool is invalidated and scopes from older generations are discarded as they are
+ * encountered. If no scope becomes available within the configured wait time, an unpooled scope
+ * is created for the caller instead, so rules evaluation never fails due to pool exhaustion.
+ */
+public class JsScopePool {
+    private static final Logger log = LoggerFactory.getLogger(JsScopePool.class);
+
+    /**
+     * A javascript execution scope on loan from a JsScopePool. Instances are only ever used by one
+     * thread at a time.
+     */
+    public static class PooledScope {
+        private final Scriptable scope;
+        private final Object generation;
+        private final boolean pooled;
+        private final Map<String, Object> namespaces;
+
+        private PooledScope(Scriptable scope, Object generation, boolean pooled) {
+            this.scope = Objects.requireNonNull(scope);
+            this.generation = generation;
+            this.pooled = pooled;
+            this.namespaces = new HashMap<>();
+        }
+
+        public Scriptable getScope() {
+            return this.scope;
+        }
+
+        /**
+         * Fetches the rules namespace object previously initialized in this scope.
+         *
+         * @param namespace
+         *  the name of the rules namespace
+         *
+         * @return
+         *  the namespace object, or null if the namespace has not yet been initialized in this scope
+         */
+        public Object getNamespace(String namespace) {
+            return this.namespaces.get(namespace);
+        }
+
+        /**
+         * Stores an initialized rules namespace object for reuse by later borrowers of this scope.
+         *
+         * @param namespace
+         *  the name of the rules namespace
+         *
+         * @param namespaceObject
+         *  the initialized namespace object
+         */
+        public void putNamespace(String namespace, Object namespaceObject) {
+            this.namespaces.put(namespace, namespaceObject);
+        }
+
+        public boolean isPooled() {
+            return this.pooled;
+        }
+    }
+
+    private final int maxSize;
+    private final long maxWait;
+    private final Supplier<Scriptable> scopeFactory;
+    private final JsRulesStatistics statistics;
+    private final BlockingQueue<PooledScope> idle;
+    private final AtomicInteger allocated;
+
+    private volatile Object generation;
+
+    /**
+     * Creates a new scope pool.
+     *
+     * @param maxSize
+     *  the maximum number of pooled scopes; must be positive
+     *
+     * @param maxWait
+     *  the maximum time to wait for a pooled scope, in milliseconds, before falling back to an
+     *  unpooled scope
+     *
+     * @param scopeFactory
+     *  the supplier used to create new scopes from the current compiled rules
+     *
+     * @param statistics
+     *  the statistics instance to receive pool wait times
+     */
+    public JsScopePool(int maxSize, long maxWait, Supplier<Scriptable> scopeFactory,
+        JsRulesStatistics statistics) {
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize is less than one: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.maxWait = Math.max(0, maxWait);
+        this.scopeFactory = Objects.requireNonNull(scopeFactory);
+        this.statistics = Objects.requireNonNull(statistics);
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+        this.allocated = new AtomicInteger(0);
+    }
+
+    /**
+     * Invalidates all scopes created from a previous rules generation. Idle scopes are discarded
+     * immediately; scopes currently on loan are discarded when they are released.
+     *
+     * @param generation
+     *  an object identifying the current rules generation
+     */
+    public void invalidate(Object generation) {
+        this.generation = generation;
+
+        PooledScope scope;
+        while ((scope = this.idle.poll()) != null) {
+            this.discard(scope);
+        }
+    }
+
+    /**
+     * Borrows a scope from this pool, creating one if the pool has not yet reached its maximum
+     * size. If the pool is exhausted, this method waits up to the configured wait time for a scope
+     * to be released before returning an unpooled scope. Borrowed scopes must be returned with
+     * {@link #release(PooledScope)}.
+     *
+     * @return
+     *  a scope for the exclusive use of the caller
+     */
+    public PooledScope borrow() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.maxWait);
+
+        try {
+            while (true) {
+                PooledScope scope = this.idle.poll();
+
+                if (scope == null) {
+                    if (this.tryAllocate()) {
+                        return this.createScope(true);
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    scope = this.idle.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (scope == null) {
+                        break;
+                    }
+                }
+
+                if (scope.generation == this.generation) {
+                    return scope;
+                }
+
+                this.discard(scope);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            this.statistics.recordPoolWait(System.nanoTime() - start);
+        }
+
+        log.warn("Timed out waiting for a pooled rules scope; using an unpooled scope");
+        return this.createScope(false);
+    }
+
+    /**
+     * Returns a borrowed scope to this pool. Unpooled scopes and scopes from previous rules
+     * generations are discarded.
+     *
+     * @param scope
+     *  the scope to release
+     */
+    public void release(PooledScope scope) {
+        if (scope == null || !scope.isPooled()) {
+            return;
+        }
+
+        if (scope.generation != this.generation || !this.idle.offer(scope)) {
+            this.discard(scope);
+        }
+    }
+
+    /**
+     * Fetches the number of pooled scopes currently allocated, including those on loan.
+     *
+     * @return
+     *  the number of allocated pooled scopes
+     */
+    public int getAllocated() {
+        return this.allocated.get();
+    }
+
+    /**
+     * Fetches the number of pooled scopes currently idle.
+     *
+     * @return
+     *  the number of idle pooled scopes
+     */
+    public int getIdle() {
+        return this.idle.size();
+    }
+
+    private boolean tryAllocate() {
+        int count;
+        while ((count = this.allocated.get()) < this.maxSize) {
+            if (this.allocated.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private PooledScope createScope(boolean pooled) {
+        // Read the generation before creating the scope, so a concurrent recompile can only make
+        // the scope appear older than it is, never newer.
+        Object current = this.generation;
+
+        try {
+            return new PooledScope(this.scopeFactory.get(), current, pooled);
+        }
+        catch (RuntimeException e) {
+            if (pooled) {
+                this.allocated.decrementAndGet();
+            }
+
+            throw e;
+        }
+    }
+
+    private void discard(PooledScope scope) {
+        if (scope.isPooled()) {
+            this.allocated.decrementAndGet();
+        }
+    }
+}
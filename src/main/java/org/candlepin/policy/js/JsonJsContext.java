@@ -40,6 +40,12 @@ public class JsonJsContext extends JsContext {
         nonSerializableContext.applyTo(scope);
     }
 
+    @Override
+    public void removeFrom(Scriptable scope) {
+        scope.delete("json_context");
+        nonSerializableContext.removeFrom(scope);
+    }
+
     public void put(String contextKey, Object contextVal, boolean serializable) {
         if (!serializable) {
             nonSerializableContext.put(contextKey, contextVal);
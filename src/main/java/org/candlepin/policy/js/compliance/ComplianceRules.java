@@ -15,6 +15,8 @@
 package org.candlepin.policy.js.compliance;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.rules.v1.ComplianceReasonDTO;
 import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
@@ -37,11 +39,13 @@ import org.candlepin.policy.js.RuleExecutionException;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.compliance.hash.ComplianceStatusHasher;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -72,12 +76,57 @@ public class ComplianceRules {
     private ConsumerTypeCurator consumerTypeCurator;
     private RulesObjectMapper mapper;
     private ModelTranslator translator;
+    private NativeComplianceEngine nativeEngine;
+    private ComplianceStatusCache statusCache;
 
-    @Inject
     public ComplianceRules(JsRunner jsRules, EntitlementCurator entCurator,
         StatusReasonMessageGenerator generator, EventSink eventSink, ConsumerCurator consumerCurator,
         ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper, ModelTranslator translator) {
 
+        this(jsRules, entCurator, generator, eventSink, consumerCurator, consumerTypeCurator, mapper,
+            translator, null);
+    }
+
+    /**
+     * Creates a new ComplianceRules instance using the compliance engine selected by the
+     * configuration.
+     */
+    @Inject
+    public ComplianceRules(JsRunner jsRules, EntitlementCurator entCurator,
+        StatusReasonMessageGenerator generator, EventSink eventSink, ConsumerCurator consumerCurator,
+        ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper, ModelTranslator translator,
+        Configuration config, NativeComplianceEngine nativeEngine, ComplianceStatusCache statusCache) {
+
+        this(jsRules, entCurator, generator, eventSink, consumerCurator, consumerTypeCurator, mapper,
+            translator, useNativeEngine(config) ? nativeEngine : null, statusCache);
+    }
+
+    /**
+     * Creates a new ComplianceRules instance. If a native compliance engine is provided, it is
+     * used in place of the javascript rules to calculate compliance.
+     */
+    public ComplianceRules(JsRunner jsRules, EntitlementCurator entCurator,
+        StatusReasonMessageGenerator generator, EventSink eventSink, ConsumerCurator consumerCurator,
+        ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper, ModelTranslator translator,
+        NativeComplianceEngine nativeEngine) {
+
+        this(jsRules, entCurator, generator, eventSink, consumerCurator, consumerTypeCurator, mapper,
+            translator, nativeEngine, null);
+    }
+
+    /**
+     * Creates a new ComplianceRules instance. If a native compliance engine is provided, it is
+     * used in place of the javascript rules to calculate compliance. If a status cache is
+     * provided, current compliance statuses are cached and reused for consumers whose compliance
+     * inputs have not changed.
+     */
+    public ComplianceRules(JsRunner jsRules, EntitlementCurator entCurator,
+        StatusReasonMessageGenerator generator, EventSink eventSink, ConsumerCurator consumerCurator,
+        ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper, ModelTranslator translator,
+        NativeComplianceEngine nativeEngine, ComplianceStatusCache statusCache) {
+
+        this.nativeEngine = nativeEngine;
+        this.statusCache = statusCache != null && statusCache.isEnabled() ? statusCache : null;
         this.jsRules = jsRules;
         this.entCurator = entCurator;
         this.generator = generator;
@@ -90,6 +139,21 @@ public class ComplianceRules {
         jsRules.init("compliance_name_space");
     }
 
+    private static boolean useNativeEngine(Configuration config) {
+        String engine = config.getString(ConfigProperties.COMPLIANCE_ENGINE, "js");
+
+        if ("java".equalsIgnoreCase(engine)) {
+            log.info("Using the native compliance engine");
+            return true;
+        }
+
+        if (!"js".equalsIgnoreCase(engine)) {
+            log.warn("Unknown compliance engine \"{}\"; using the javascript rules", engine);
+        }
+
+        return false;
+    }
+
     /**
      * Check compliance status for a consumer on a specific date.
      * This should NOT calculate compliantUntil.
@@ -159,6 +223,11 @@ public class ComplianceRules {
         boolean calculateCompliantUntil, boolean updateConsumer, boolean calculateProductComplianceDateRanges,
         boolean currentCompliance) {
 
+        // Only statuses calculated for the current date from the consumer's own entitlements are
+        // cached
+        boolean cacheable = this.statusCache != null && date == null &&
+            (newEntitlements == null || newEntitlements.isEmpty());
+
         if (date == null) {
             date = new Date();
         }
@@ -167,6 +236,15 @@ public class ComplianceRules {
             updateEntsOnStart(consumer);
         }
 
+        ComplianceStatus unevaluated = this.getUnevaluatedStatus(consumer);
+        if (unevaluated != null) {
+            if (unevaluated.isDisabled()) {
+                applyStatus(consumer, unevaluated, updateConsumer);
+            }
+
+            return unevaluated;
+        }
+
         Stream<EntitlementDTO> entStream = Stream.concat(
             newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
             consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
@@ -176,12 +254,209 @@ public class ComplianceRules {
             consumer.getGuestIds().stream()
                 .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
 
+        try {
+            String cacheKey = cacheable ? this.statusCache.buildKey(consumer, date, calculateCompliantUntil,
+                calculateProductComplianceDateRanges) : null;
+
+            ComplianceStatusDTO statusDTO = cacheKey != null ?
+                this.statusCache.get(consumer, cacheKey, date) :
+                null;
+
+            if (statusDTO == null) {
+                ConsumerDTO consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
+
+                if (this.nativeEngine != null) {
+                    statusDTO = this.nativeEngine.getStatus(consumerDTO,
+                        entStream.collect(Collectors.toList()), guestIdStream.collect(Collectors.toList()),
+                        date, calculateCompliantUntil, calculateProductComplianceDateRanges);
+                }
+                else {
+                    JsonJsContext args = this.buildStatusContext(consumerDTO, entStream, guestIdStream,
+                        date, calculateCompliantUntil, calculateProductComplianceDateRanges);
+
+                    // Convert the JSON returned into a ComplianceStatus object:
+                    String json = jsRules.runJsFunction(String.class, "get_status", args);
+                    statusDTO = mapper.toObject(json, ComplianceStatusDTO.class);
+                }
+
+                if (cacheKey != null) {
+                    this.statusCache.put(consumer, cacheKey, date, statusDTO);
+                }
+            }
+
+            ComplianceStatus status = this.buildStatus(consumer, newEntitlements, statusDTO, date);
+
+            if (currentCompliance) {
+                applyStatus(consumer, status, updateConsumer);
+            }
+
+            return status;
+        }
+        catch (RuleExecutionException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new RuleExecutionException(e);
+        }
+    }
+
+    /**
+     * Checks the current compliance status of several consumers at once. This is equivalent to
+     * calling {@link #getStatus(Consumer)} for each consumer, but the entitlements of the
+     * consumers are bulk-loaded, the statuses of each block of consumers are calculated in a
+     * single rules context, and any resulting status and hash changes are written with a single
+     * flush.
+     *
+     * @param consumers
+     *  the consumers for which to check compliance
+     *
+     * @return
+     *  a mapping of consumer to its current compliance status
+     */
+    public Map<Consumer, ComplianceStatus> getStatuses(Collection<Consumer> consumers) {
+        Map<Consumer, ComplianceStatus> statuses = new HashMap<>();
+
+        if (consumers == null || consumers.isEmpty()) {
+            return statuses;
+        }
+
+        Set<Consumer> changed = new HashSet<>();
+        Date date = new Date();
+
+        for (List<Consumer> block : Iterables.partition(consumers, this.entCurator.getInBlockSize())) {
+            this.entCurator.loadEntitlementsForConsumers(block);
+
+            List<Consumer> evaluated = new ArrayList<>(block.size());
+            List<String> cacheKeys = new ArrayList<>(block.size());
+
+            for (Consumer consumer : block) {
+                this.updateEntsOnStart(consumer);
+
+                ComplianceStatus unevaluated = this.getUnevaluatedStatus(consumer);
+                if (unevaluated != null) {
+                    if (unevaluated.isDisabled() && this.applyStatus(consumer, unevaluated)) {
+                        changed.add(consumer);
+                    }
+
+                    statuses.put(consumer, unevaluated);
+                    continue;
+                }
+
+                String cacheKey = this.statusCache != null ?
+                    this.statusCache.buildKey(consumer, date, false, false) :
+                    null;
+
+                ComplianceStatusDTO cached = cacheKey != null ?
+                    this.statusCache.get(consumer, cacheKey, date) :
+                    null;
+
+                if (cached != null) {
+                    this.applyBatchStatus(consumer, cached, date, statuses, changed);
+                }
+                else {
+                    evaluated.add(consumer);
+                    cacheKeys.add(cacheKey);
+                }
+            }
+
+            List<ComplianceStatusDTO> statusDTOs = this.evaluateStatuses(evaluated, date);
+            for (int i = 0; i < evaluated.size(); ++i) {
+                Consumer consumer = evaluated.get(i);
+                ComplianceStatusDTO statusDTO = statusDTOs.get(i);
 
+                if (cacheKeys.get(i) != null) {
+                    this.statusCache.put(consumer, cacheKeys.get(i), date, statusDTO);
+                }
+
+                this.applyBatchStatus(consumer, statusDTO, date, statuses, changed);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            log.debug("Updating compliance status of {} consumers", changed.size());
+            this.consumerCurator.updateAll(changed, false, false);
+            this.consumerCurator.flush();
+        }
+
+        return statuses;
+    }
+
+    private void applyBatchStatus(Consumer consumer, ComplianceStatusDTO statusDTO, Date date,
+        Map<Consumer, ComplianceStatus> statuses, Set<Consumer> changed) {
+
+        try {
+            ComplianceStatus status = this.buildStatus(consumer, null, statusDTO, date);
+
+            if (this.applyStatus(consumer, status)) {
+                changed.add(consumer);
+            }
+
+            statuses.put(consumer, status);
+        }
+        catch (RuleExecutionException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new RuleExecutionException(e);
+        }
+    }
+
+    /**
+     * Calculates the compliance status DTOs of the given consumers on the specified date, running
+     * the javascript rules in a single rules context for all consumers.
+     */
+    private List<ComplianceStatusDTO> evaluateStatuses(List<Consumer> consumers, Date date) {
+        List<ComplianceStatusDTO> statusDTOs = new ArrayList<>(consumers.size());
+        List<JsonJsContext> contexts = new ArrayList<>(consumers.size());
+
+        try {
+            for (Consumer consumer : consumers) {
+                ConsumerDTO consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
+
+                Stream<EntitlementDTO> entStream = consumer.getEntitlements().stream()
+                    .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
+
+                Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
+                    consumer.getGuestIds().stream()
+                        .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
+
+                if (this.nativeEngine != null) {
+                    statusDTOs.add(this.nativeEngine.getStatus(consumerDTO,
+                        entStream.collect(Collectors.toList()), guestIdStream.collect(Collectors.toList()),
+                        date, false, false));
+                }
+                else {
+                    contexts.add(this.buildStatusContext(consumerDTO, entStream, guestIdStream, date,
+                        false, false));
+                }
+            }
+
+            if (!contexts.isEmpty()) {
+                for (String json : this.jsRules.runJsFunctions(String.class, "get_status", contexts)) {
+                    statusDTOs.add(this.mapper.toObject(json, ComplianceStatusDTO.class));
+                }
+            }
+
+            return statusDTOs;
+        }
+        catch (RuleExecutionException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new RuleExecutionException(e);
+        }
+    }
+
+    /**
+     * Fetches the status of a consumer for which compliance is not calculated by the rules, or
+     * null if the consumer's compliance must be evaluated. Disabled statuses must still be applied
+     * to the consumer by the caller.
+     */
+    private ComplianceStatus getUnevaluatedStatus(Consumer consumer) {
         // Status can only be 'disabled' when in golden ticket mode
         if (consumer.getOwner() != null && consumer.getOwner().isUsingSimpleContentAccess()) {
             ComplianceStatus cs = new ComplianceStatus(new Date());
             cs.setDisabled(true);
-            applyStatus(consumer, cs, updateConsumer);
             return cs;
         }
 
@@ -192,8 +467,15 @@ public class ComplianceRules {
             return new ComplianceStatus(new Date());
         }
 
+        return null;
+    }
+
+    private JsonJsContext buildStatusContext(ConsumerDTO consumerDTO, Stream<EntitlementDTO> entStream,
+        Stream<GuestIdDTO> guestIdStream, Date date, boolean calculateCompliantUntil,
+        boolean calculateProductComplianceDateRanges) {
+
         JsonJsContext args = new JsonJsContext(mapper);
-        args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
+        args.put("consumer", consumerDTO);
         args.put("entitlements", entStream);
         args.put("ondate", date);
         args.put("calculateCompliantUntil", calculateCompliantUntil);
@@ -201,30 +483,30 @@ public class ComplianceRules {
         args.put("log", log, false);
         args.put("guestIds", guestIdStream);
 
-        // Convert the JSON returned into a ComplianceStatus object:
-        String json = jsRules.runJsFunction(String.class, "get_status", args);
-        try {
-            ComplianceStatusDTO statusDTO = mapper.toObject(json, ComplianceStatusDTO.class);
-            ComplianceStatus status = new ComplianceStatus();
-            Set<Entitlement> allEntitlements = Stream.concat(
-                newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
-                consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
-                .collect(Collectors.toSet());
-            populateEntity(status, statusDTO, allEntitlements);
-
-            for (ComplianceReason reason : status.getReasons()) {
-                generator.setMessage(consumer, reason, status.getDate());
-            }
+        return args;
+    }
 
-            if (currentCompliance) {
-                applyStatus(consumer, status, updateConsumer);
-            }
+    /**
+     * Builds the status entity for the given consumer from a status DTO calculated by the rules.
+     * As the DTO may have been cached from an earlier evaluation, the status is always dated with
+     * the date of the current evaluation.
+     */
+    private ComplianceStatus buildStatus(Consumer consumer, Collection<Entitlement> newEntitlements,
+        ComplianceStatusDTO statusDTO, Date date) {
 
-            return status;
-        }
-        catch (Exception e) {
-            throw new RuleExecutionException(e);
+        ComplianceStatus status = new ComplianceStatus();
+        Set<Entitlement> allEntitlements = Stream.concat(
+            newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
+            consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
+            .collect(Collectors.toSet());
+        populateEntity(status, statusDTO, allEntitlements);
+        status.setDate(date);
+
+        for (ComplianceReason reason : status.getReasons()) {
+            generator.setMessage(consumer, reason, status.getDate());
         }
+
+        return status;
     }
 
     public void updateEntsOnStart(Consumer c) {
@@ -237,6 +519,20 @@ public class ComplianceRules {
     }
 
     public void applyStatus(Consumer c, ComplianceStatus status, boolean updateConsumer) {
+        if (this.applyStatus(c, status) && updateConsumer) {
+            // Merge might work better here, but we use update in other places for this
+            consumerCurator.update(c, false);
+        }
+    }
+
+    /**
+     * Applies the given status to the consumer without persisting the consumer.
+     *
+     * @return
+     *  true if the compliance status hash or entitlement status of the consumer changed; false
+     *  otherwise
+     */
+    private boolean applyStatus(Consumer c, ComplianceStatus status) {
         String newHash = getComplianceStatusHash(status, c);
         boolean complianceChanged = !newHash.equals(c.getComplianceStatusHash());
         if (complianceChanged) {
@@ -250,10 +546,7 @@ public class ComplianceRules {
             c.setEntitlementStatus(status.getStatus());
         }
 
-        if (updateConsumer && (complianceChanged || entStatusChanged)) {
-            // Merge might work better here, but we use update in other places for this
-            consumerCurator.update(c, false);
-        }
+        return complianceChanged || entStatusChanged;
     }
 
     @SuppressWarnings("checkstyle:indentation")
@@ -266,6 +559,11 @@ public class ComplianceRules {
             consumer.getGuestIds().stream()
                 .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
 
+        if (this.nativeEngine != null) {
+            return this.nativeEngine.isStackCompliant(this.translator.translate(consumer, ConsumerDTO.class),
+                stackId, entStream.collect(Collectors.toList()), guestIdStream.collect(Collectors.toList()));
+        }
+
         JsonJsContext args = new JsonJsContext(mapper);
         args.put("stack_id", stackId);
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
@@ -287,6 +585,13 @@ public class ComplianceRules {
             consumer.getGuestIds().stream()
                 .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
 
+        if (this.nativeEngine != null) {
+            return this.nativeEngine.isEntitlementCompliant(
+                this.translator.translate(consumer, ConsumerDTO.class),
+                this.translator.translate(ent, EntitlementDTO.class),
+                entStream.collect(Collectors.toList()), guestIdStream.collect(Collectors.toList()));
+        }
+
         JsonJsContext args = new JsonJsContext(mapper);
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("entitlement", this.translator.translate(ent, EntitlementDTO.class));
@@ -354,7 +659,10 @@ public class ComplianceRules {
                         ComplianceReason reason = new ComplianceReason();
                         reason.setKey(reasonDTO.getKey());
                         reason.setMessage(reasonDTO.getMessage());
-                        reason.setAttributes(reasonDTO.getAttributes());
+                        // Copy the attributes, as the DTO may be shared through the status cache
+                        reason.setAttributes(reasonDTO.getAttributes() != null ?
+                            new HashMap<>(reasonDTO.getAttributes()) :
+                            null);
                         reasons.add(reason);
                     }
                 }
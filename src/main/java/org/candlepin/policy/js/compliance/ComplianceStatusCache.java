@@ -0,0 +1,315 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.Entitlement;
+import org.candlepin.policy.js.JsRunnerProvider;
+import org.candlepin.policy.js.compliance.hash.ComplianceInputHasher;
+
+import com.google.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Caches the compliance statuses calculated by the rules, so consumers repeatedly checking in
+ * with unchanged data do not need to be evaluated again.
+ * <p></p>
+ * Statuses are keyed by a hash of the consumer's compliance inputs (see
+ * {@link ComplianceInputHasher}), the rules version, the evaluation date bucket and the requested
+ * calculations. At most one status is cached per consumer; any change to the consumer's facts,
+ * installed products or entitlements changes the key, which invalidates the cached status on the
+ * consumer's next lookup. Since the rules only consider the entitlements valid on the evaluation
+ * date, a cached status also expires as soon as any of the consumer's entitlements starts or ends,
+ * even within the same date bucket.
+ * <p></p>
+ * The cache is bounded and evicts the least recently used consumers' statuses once the configured
+ * maximum is reached.
+ */
+@Singleton
+public class ComplianceStatusCache {
+    private static final Logger log = LoggerFactory.getLogger(ComplianceStatusCache.class);
+
+    /** The number of lookups between each report of the cache hit rate */
+    private static final int STATISTICS_LOG_INTERVAL = 10000;
+
+    /**
+     * A status cached for a single consumer
+     */
+    private static class CachedStatus {
+        private final String key;
+        private final long expiration;
+        private final ComplianceStatusDTO status;
+
+        private CachedStatus(String key, long expiration, ComplianceStatusDTO status) {
+            this.key = key;
+            this.expiration = expiration;
+            this.status = status;
+        }
+    }
+
+    private final JsRunnerProvider jsProvider;
+    private final int maxSize;
+    private final long bucketLength;
+    private final Map<String, CachedStatus> statuses;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    @Inject
+    public ComplianceStatusCache(Configuration config, JsRunnerProvider jsProvider) {
+        this.jsProvider = Objects.requireNonNull(jsProvider);
+        this.maxSize = Math.max(0, config.getInt(ConfigProperties.COMPLIANCE_STATUS_CACHE_MAX));
+        this.bucketLength = TimeUnit.MINUTES.toMillis(
+            Math.max(1, config.getLong(ConfigProperties.COMPLIANCE_STATUS_CACHE_BUCKET)));
+
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+
+        // Access-ordered map so eviction picks the least recently used consumer
+        this.statuses = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatus> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Checks whether or not this cache stores any statuses.
+     *
+     * @return
+     *  true if the cache is enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.maxSize > 0;
+    }
+
+    /**
+     * Builds the cache key for the status of the given consumer, evaluated on the specified date.
+     *
+     * @param consumer
+     *  the consumer for which to build a key
+     *
+     * @param date
+     *  the date on which the consumer's compliance is evaluated
+     *
+     * @param calculateCompliantUntil
+     *  whether or not the status includes the compliant until date
+     *
+     * @param calculateProductComplianceDateRanges
+     *  whether or not the status includes the product compliance date ranges
+     *
+     * @throws IllegalArgumentException
+     *  if consumer or date are null
+     *
+     * @return
+     *  the cache key for the consumer's status
+     */
+    public String buildKey(Consumer consumer, Date date, boolean calculateCompliantUntil,
+        boolean calculateProductComplianceDateRanges) {
+
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer is null");
+        }
+
+        if (date == null) {
+            throw new IllegalArgumentException("date is null");
+        }
+
+        return new StringBuilder(new ComplianceInputHasher(consumer).hash())
+            .append(':')
+            .append(this.jsProvider.getRulesVersion())
+            .append(':')
+            .append(date.getTime() / this.bucketLength)
+            .append(':')
+            .append(calculateCompliantUntil ? 1 : 0)
+            .append(calculateProductComplianceDateRanges ? 1 : 0)
+            .toString();
+    }
+
+    /**
+     * Fetches the cached status of the given consumer. If the consumer's cached status was stored
+     * with a different key, or has expired, it is removed from the cache.
+     *
+     * @param consumer
+     *  the consumer for which to fetch the cached status
+     *
+     * @param key
+     *  the status key, as built by {@link #buildKey}
+     *
+     * @param date
+     *  the date on which the consumer's compliance is evaluated
+     *
+     * @return
+     *  the cached status, or null if no valid status is cached for the consumer
+     */
+    public ComplianceStatusDTO get(Consumer consumer, String key, Date date) {
+        if (!this.isEnabled() || consumer == null || consumer.getUuid() == null || key == null) {
+            return null;
+        }
+
+        CachedStatus cached;
+        synchronized (this.statuses) {
+            cached = this.statuses.get(consumer.getUuid());
+
+            if (cached != null && (!key.equals(cached.key) || date.getTime() >= cached.expiration)) {
+                this.statuses.remove(consumer.getUuid());
+                cached = null;
+            }
+        }
+
+        (cached != null ? this.hits : this.misses).incrementAndGet();
+
+        log.debug("Compliance status cache {} for consumer: {}", cached != null ? "hit" : "miss",
+            consumer.getUuid());
+
+        if ((this.getHits() + this.getMisses()) % STATISTICS_LOG_INTERVAL == 0) {
+            log.info("Compliance status cache: {} hits, {} misses, {} cached; hit rate: {}",
+                this.getHits(), this.getMisses(), this.size(), String.format("%.3f", this.getHitRate()));
+        }
+
+        return cached != null ? cached.status : null;
+    }
+
+    /**
+     * Stores the status of the given consumer, replacing any status previously cached for it. The
+     * status remains valid until the end of the date bucket or until any of the consumer's
+     * entitlements starts or ends, whichever comes first.
+     *
+     * @param consumer
+     *  the consumer for which to cache the status
+     *
+     * @param key
+     *  the status key, as built by {@link #buildKey}
+     *
+     * @param date
+     *  the date on which the consumer's compliance was evaluated
+     *
+     * @param status
+     *  the status to cache
+     */
+    public void put(Consumer consumer, String key, Date date, ComplianceStatusDTO status) {
+        if (!this.isEnabled() || consumer == null || consumer.getUuid() == null) {
+            return;
+        }
+
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(status);
+
+        long evaluated = date.getTime();
+        long expiration = (evaluated / this.bucketLength + 1) * this.bucketLength;
+
+        for (Entitlement entitlement : consumer.getEntitlements()) {
+            Date start = entitlement.getStartDate();
+            Date end = entitlement.getEndDate();
+
+            if (start != null && start.getTime() > evaluated) {
+                expiration = Math.min(expiration, start.getTime());
+            }
+
+            if (end != null && end.getTime() >= evaluated) {
+                expiration = Math.min(expiration, end.getTime() + 1);
+            }
+        }
+
+        synchronized (this.statuses) {
+            this.statuses.put(consumer.getUuid(), new CachedStatus(key, expiration, status));
+        }
+    }
+
+    /**
+     * Removes the cached status of the consumer with the given UUID.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer for which to remove the cached status
+     */
+    public void invalidate(String consumerUuid) {
+        synchronized (this.statuses) {
+            this.statuses.remove(consumerUuid);
+        }
+    }
+
+    /**
+     * Removes all cached statuses.
+     */
+    public void clear() {
+        synchronized (this.statuses) {
+            this.statuses.clear();
+        }
+    }
+
+    /**
+     * Fetches the number of consumers with a cached status.
+     *
+     * @return
+     *  the number of cached statuses
+     */
+    public int size() {
+        synchronized (this.statuses) {
+            return this.statuses.size();
+        }
+    }
+
+    /**
+     * Fetches the number of lookups which found a valid cached status.
+     *
+     * @return
+     *  the number of cache hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Fetches the number of lookups which did not find a valid cached status.
+     *
+     * @return
+     *  the number of cache misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Fetches the ratio of cache hits to total lookups.
+     *
+     * @return
+     *  the cache hit rate, between 0.0 and 1.0
+     */
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + this.misses.get();
+
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+}
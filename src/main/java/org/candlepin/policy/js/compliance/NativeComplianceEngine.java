@@ -0,0 +1,1055 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.dto.api.server.v1.DateRange;
+import org.candlepin.dto.rules.v1.ComplianceReasonDTO;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
+import org.candlepin.dto.rules.v1.GuestIdDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.policy.js.JsCoercion;
+import org.candlepin.util.Util;
+
+import com.google.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+
+/**
+ * A native Java implementation of the compliance namespace of the javascript rules.
+ * <p></p>
+ * This engine operates on the same rules DTOs passed to the javascript rules, and produces the
+ * same ComplianceStatusDTO the rules would return for them, including stacking, the
+ * sockets/cores/ram/vcpu/arch/guest_limit coverage checks, partial stacks, compliant-until dates
+ * and product compliance date ranges. Where the rules rely on javascript type coercion (facts are
+ * strings which are compared against numbers, for instance), this implementation reproduces the
+ * coercion so both engines agree on malformed input as well as well-formed input.
+ * <p></p>
+ * Any change to the compliance portion of the rules must be mirrored here; the
+ * NativeComplianceEngineParityTest runs both implementations over generated fixtures to verify
+ * they remain equivalent.
+ */
+@Singleton
+public class NativeComplianceEngine {
+    private static final Logger log = LoggerFactory.getLogger(NativeComplianceEngine.class);
+
+    // Consumer fact names
+    private static final String SOCKET_FACT = "cpu.cpu_socket(s)";
+    private static final String RAM_FACT = "memory.memtotal";
+    private static final String CORES_FACT = "cpu.core(s)_per_socket";
+    private static final String ARCH_FACT = "uname.machine";
+    private static final String IS_VIRT_GUEST_FACT = "virt.is_guest";
+    private static final String STORAGE_BAND_USAGE = "band.storage.usage";
+
+    // Product attribute names
+    private static final String SOCKETS_ATTRIBUTE = "sockets";
+    private static final String CORES_ATTRIBUTE = "cores";
+    private static final String ARCH_ATTRIBUTE = "arch";
+    private static final String RAM_ATTRIBUTE = "ram";
+    private static final String INSTANCE_ATTRIBUTE = "instance_multiplier";
+    private static final String REQUIRES_HOST_ATTRIBUTE = "requires_host";
+    private static final String UNMAPPED_GUESTS_ONLY = "unmapped_guests_only";
+    private static final String GUEST_LIMIT_ATTRIBUTE = "guest_limit";
+    private static final String VCPU_ATTRIBUTE = "vcpu";
+    private static final String STACKING_ID_ATTRIBUTE = "stacking_id";
+    private static final String STORAGE_BAND_ATTRIBUTE = "storage_band";
+
+    private static final String SYSTEM_TYPE = "system";
+
+    private static final String TRACKER_TYPE_ENTITLEMENT = "ENTITLEMENT";
+    private static final String TRACKER_TYPE_STACK = "STACK";
+
+    private static final Map<String, String> ATTRIBUTES_TO_CONSUMER_FACTS = Map.of(
+        SOCKETS_ATTRIBUTE, SOCKET_FACT,
+        CORES_ATTRIBUTE, CORES_FACT,
+        ARCH_ATTRIBUTE, ARCH_FACT,
+        RAM_ATTRIBUTE, RAM_FACT,
+        VCPU_ATTRIBUTE, CORES_FACT,
+        STORAGE_BAND_ATTRIBUTE, STORAGE_BAND_USAGE);
+
+    private static final List<String> PHYSICAL_ATTRIBUTES = List.of(SOCKETS_ATTRIBUTE, CORES_ATTRIBUTE,
+        RAM_ATTRIBUTE, ARCH_ATTRIBUTE, GUEST_LIMIT_ATTRIBUTE, STORAGE_BAND_ATTRIBUTE);
+
+    private static final List<String> VIRT_ATTRIBUTES = List.of(VCPU_ATTRIBUTE, RAM_ATTRIBUTE,
+        ARCH_ATTRIBUTE, GUEST_LIMIT_ATTRIBUTE, STORAGE_BAND_ATTRIBUTE);
+
+    private static final Set<String> UNCHECKED_WHEN_HOST_RESTRICTED = Set.of(RAM_ATTRIBUTE, VCPU_ATTRIBUTE);
+
+    /**
+     * Calculates the compliance status of the given consumer on the specified date. This is the
+     * equivalent of the "get_status" function of the compliance rules.
+     *
+     * @param consumer
+     *  the consumer for which to calculate the compliance status
+     *
+     * @param entitlements
+     *  the entitlements to consider when calculating the compliance status
+     *
+     * @param guestIds
+     *  the consumer's guests, used to determine the guest count for guest limits; may be null
+     *
+     * @param onDate
+     *  the date on which to calculate the compliance status
+     *
+     * @param calculateCompliantUntil
+     *  whether or not to calculate the date until which a compliant consumer remains compliant
+     *
+     * @param calculateProductComplianceDateRanges
+     *  whether or not to calculate the compliance date ranges of each installed product
+     *
+     * @return
+     *  the compliance status of the consumer on the given date
+     */
+    public ComplianceStatusDTO getStatus(ConsumerDTO consumer, Collection<EntitlementDTO> entitlements,
+        Collection<GuestIdDTO> guestIds, Date onDate, boolean calculateCompliantUntil,
+        boolean calculateProductComplianceDateRanges) {
+
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer is null");
+        }
+
+        if (onDate == null) {
+            throw new IllegalArgumentException("onDate is null");
+        }
+
+        Evaluation evaluation = new Evaluation(consumer, guestIds);
+        List<EntitlementDTO> ents = entitlements != null ? new ArrayList<>(entitlements) : List.of();
+
+        StatusOnDate status = evaluation.getComplianceStatusOnDate(ents, onDate);
+        Date compliantUntil = null;
+        Map<String, DateRange> dateRanges = null;
+
+        if (status.isCompliant() && calculateCompliantUntil && !ents.isEmpty()) {
+            compliantUntil = evaluation.determineCompliantUntilDate(ents, onDate);
+        }
+
+        if (status.isPartiallyCompliant() && calculateProductComplianceDateRanges && !ents.isEmpty()) {
+            dateRanges = evaluation.getProductComplianceDateRanges(ents, onDate, status);
+        }
+
+        return status.toDTO()
+            .setCompliantUntil(compliantUntil)
+            .setProductComplianceDateRanges(dateRanges);
+    }
+
+    /**
+     * Checks whether the entitlements in the given stack fully cover the consumer. This is the
+     * equivalent of the "is_stack_compliant" function of the compliance rules.
+     *
+     * @param consumer
+     *  the consumer to check
+     *
+     * @param stackId
+     *  the ID of the stack to check
+     *
+     * @param entitlements
+     *  the entitlements to consider; entitlements which are not part of the stack are only used
+     *  for global attributes such as guest_limit
+     *
+     * @param guestIds
+     *  the consumer's guests; may be null
+     *
+     * @return
+     *  true if the stack covers the consumer; false otherwise
+     */
+    public boolean isStackCompliant(ConsumerDTO consumer, String stackId,
+        Collection<EntitlementDTO> entitlements, Collection<GuestIdDTO> guestIds) {
+
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer is null");
+        }
+
+        List<EntitlementDTO> ents = entitlements != null ? new ArrayList<>(entitlements) : List.of();
+        return new Evaluation(consumer, guestIds).getStackCoverage(stackId, ents).covered;
+    }
+
+    /**
+     * Checks whether the given entitlement, on its own, fully covers the consumer. This is the
+     * equivalent of the "is_ent_compliant" function of the compliance rules.
+     *
+     * @param consumer
+     *  the consumer to check
+     *
+     * @param entitlement
+     *  the entitlement to check
+     *
+     * @param entitlements
+     *  the consumer's entitlements, used for global attributes such as guest_limit
+     *
+     * @param guestIds
+     *  the consumer's guests; may be null
+     *
+     * @return
+     *  true if the entitlement covers the consumer; false otherwise
+     */
+    public boolean isEntitlementCompliant(ConsumerDTO consumer, EntitlementDTO entitlement,
+        Collection<EntitlementDTO> entitlements, Collection<GuestIdDTO> guestIds) {
+
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer is null");
+        }
+
+        if (entitlement == null) {
+            throw new IllegalArgumentException("entitlement is null");
+        }
+
+        List<EntitlementDTO> ents = entitlements != null ? new ArrayList<>(entitlements) : List.of();
+        return new Evaluation(consumer, guestIds).getEntitlementCoverage(entitlement, ents).covered;
+    }
+
+    /**
+     * The coverage provided by an entitlement or stack
+     */
+    private static class Coverage {
+        private final boolean covered;
+        private final List<ComplianceReasonDTO> reasons;
+
+        Coverage(boolean covered, List<ComplianceReasonDTO> reasons) {
+            this.covered = covered;
+            this.reasons = reasons;
+        }
+    }
+
+    /**
+     * The compliance status calculated for a single date; the equivalent of the status object
+     * built by Compliance.getComplianceStatusOnDate in the rules.
+     */
+    private static class StatusOnDate {
+        private final Date date;
+        private final Map<String, List<EntitlementDTO>> partialStacks = new LinkedHashMap<>();
+        private final Map<String, List<EntitlementDTO>> partiallyCompliantProducts = new LinkedHashMap<>();
+        private final Map<String, List<EntitlementDTO>> compliantProducts = new LinkedHashMap<>();
+        private final List<String> nonCompliantProducts = new ArrayList<>();
+        private final List<ComplianceReasonDTO> reasons = new ArrayList<>();
+
+        StatusOnDate(Date date) {
+            this.date = date;
+        }
+
+        void addPartialStack(String stackId, EntitlementDTO entitlement) {
+            // Javascript object keys are always strings, including those of null stack IDs
+            this.partialStacks.computeIfAbsent(String.valueOf(stackId), key -> new ArrayList<>())
+                .add(entitlement);
+        }
+
+        void addPartialProduct(String productId, EntitlementDTO entitlement) {
+            this.partiallyCompliantProducts.computeIfAbsent(productId, key -> new ArrayList<>())
+                .add(entitlement);
+        }
+
+        void addCompliantProduct(String productId, EntitlementDTO entitlement) {
+            this.compliantProducts.computeIfAbsent(productId, key -> new ArrayList<>()).add(entitlement);
+        }
+
+        boolean isCompliant() {
+            return this.nonCompliantProducts.isEmpty() && this.partiallyCompliantProducts.isEmpty();
+        }
+
+        boolean isPartiallyCompliant() {
+            return !this.compliantProducts.isEmpty() || !this.partiallyCompliantProducts.isEmpty();
+        }
+
+        ComplianceStatusDTO toDTO() {
+            return new ComplianceStatusDTO()
+                .setDate(this.date)
+                .setCompliantProducts(toSetMap(this.compliantProducts))
+                .setPartiallyCompliantProducts(toSetMap(this.partiallyCompliantProducts))
+                .setPartialStacks(toSetMap(this.partialStacks))
+                .setNonCompliantProducts(this.nonCompliantProducts)
+                .setReasons(this.reasons);
+        }
+
+        private static Map<String, Set<EntitlementDTO>> toSetMap(Map<String, List<EntitlementDTO>> source) {
+            Map<String, Set<EntitlementDTO>> output = new HashMap<>();
+            source.forEach((key, ents) -> output.put(key, new HashSet<>(ents)));
+
+            return output;
+        }
+    }
+
+    /**
+     * A view of a pool with the attribute lookup semantics of the pools built by createPool in the
+     * rules: attributes with a value of "0" are considered unset, and guests are given a vcpu
+     * attribute derived from the cores attribute when the pool does not define one.
+     */
+    private static class PoolView {
+        private final PoolDTO pool;
+        private final String derivedVcpu;
+
+        PoolView(PoolDTO pool, boolean guest) {
+            this.pool = pool;
+
+            // Guests use the cores attribute in place of a missing vcpu attribute
+            String vcpu = null;
+            if (guest && findAttributeIn(VCPU_ATTRIBUTE, pool.getAttributes()) == null &&
+                findAttributeIn(VCPU_ATTRIBUTE, pool.getProductAttributes()) == null) {
+
+                String cores = findAttributeIn(CORES_ATTRIBUTE, pool.getAttributes());
+                if (cores == null) {
+                    cores = findAttributeIn(CORES_ATTRIBUTE, pool.getProductAttributes());
+                }
+
+                if (cores != null) {
+                    double value = JsCoercion.parseInt(cores);
+                    vcpu = Double.isNaN(value) ? "NaN" : toJsString(value);
+                }
+            }
+
+            this.derivedVcpu = "0".equals(vcpu) ? null : vcpu;
+        }
+
+        private static String findAttributeIn(String name, Map<String, String> attributes) {
+            String value = attributes != null ? attributes.get(name) : null;
+            return "0".equals(value) ? null : value;
+        }
+
+        private String findPoolAttribute(String name) {
+            Map<String, String> attributes = this.pool.getAttributes();
+            if (this.derivedVcpu != null && VCPU_ATTRIBUTE.equals(name) &&
+                (attributes == null || !attributes.containsKey(VCPU_ATTRIBUTE))) {
+
+                return this.derivedVcpu;
+            }
+
+            return findAttributeIn(name, attributes);
+        }
+
+        String getAttribute(String name) {
+            String value = this.findPoolAttribute(name);
+            return value != null ? value : findAttributeIn(name, this.pool.getProductAttributes());
+        }
+
+        String getProductAttribute(String name) {
+            String value = findAttributeIn(name, this.pool.getProductAttributes());
+            return value != null ? value : this.findPoolAttribute(name);
+        }
+
+        boolean hasProductAttribute(String name) {
+            return this.getProductAttribute(name) != null;
+        }
+
+        boolean isStacked() {
+            Map<String, String> attributes = this.pool.getProductAttributes();
+            return attributes != null && attributes.containsKey(STACKING_ID_ATTRIBUTE);
+        }
+
+        boolean provides(String productId) {
+            if (productId == null) {
+                return false;
+            }
+
+            if (productId.equals(this.pool.getProductId())) {
+                return true;
+            }
+
+            Collection<PoolDTO.ProvidedProductDTO> provided = this.pool.getProvidedProducts();
+            if (provided != null) {
+                for (PoolDTO.ProvidedProductDTO product : provided) {
+                    if (product != null && productId.equals(product.getProductId())) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Tracks the values accumulated from the entitlements in a stack, or from a single
+     * entitlement; the equivalent of the compliance trackers built by createComplianceTracker in
+     * the rules. Numeric values are held as doubles to match javascript arithmetic, while the arch
+     * attribute accumulates a list of the architecture strings of each pool.
+     */
+    private static class ComplianceTracker {
+        private String id;
+        private final String type;
+        private final List<String> entitlementIds = new ArrayList<>();
+        private final Map<String, Object> accumulatedValues = new HashMap<>();
+        private final Evaluation evaluation;
+        private String hostRestricted;
+
+        ComplianceTracker(Evaluation evaluation, String id) {
+            this.evaluation = evaluation;
+            this.id = id;
+            this.type = id == null ? TRACKER_TYPE_ENTITLEMENT : TRACKER_TYPE_STACK;
+        }
+
+        boolean enforces(String attribute) {
+            // Guests are not subjected to sockets/RAM/cores/vcpu limitations when using a
+            // host-restricted sub-pool.
+            if (this.hostRestricted != null && this.evaluation.guest &&
+                UNCHECKED_WHEN_HOST_RESTRICTED.contains(attribute)) {
+
+                return false;
+            }
+
+            return this.accumulatedValues.containsKey(attribute);
+        }
+
+        Object getAccumulatedValue(String attribute) {
+            return this.accumulatedValues.get(attribute);
+        }
+
+        void setAccumulatedValue(String attribute, Object value) {
+            this.accumulatedValues.put(attribute, value);
+        }
+
+        void updateAccumulatedFromPool(PoolView pool, int quantity) {
+            String requiresHost = pool.getAttribute(REQUIRES_HOST_ATTRIBUTE);
+            if (requiresHost != null && !requiresHost.isEmpty()) {
+                this.hostRestricted = requiresHost;
+            }
+
+            for (String attribute : this.evaluation.complianceAttributes) {
+                String poolValue = pool.getProductAttribute(attribute);
+                if (poolValue != null) {
+                    Object stackValue = this.enforces(attribute) ? this.getAccumulatedValue(attribute) : null;
+                    this.setAccumulatedValue(attribute, accumulate(attribute, stackValue, poolValue, pool,
+                        quantity));
+                }
+            }
+        }
+
+        void updateAccumulatedFromEnt(EntitlementDTO entitlement) {
+            if (TRACKER_TYPE_ENTITLEMENT.equals(this.type) && this.entitlementIds.isEmpty()) {
+                this.id = entitlement.getId();
+            }
+
+            // Impl note: the rules attempt to skip entitlements which were already added to the
+            // tracker, but test for them using the "in" operator against an array, which checks
+            // array indexes rather than values. As such, no entitlement is ever skipped, and we
+            // do not skip them here either.
+            this.entitlementIds.add(entitlement.getId());
+
+            PoolView pool = this.evaluation.getPool(entitlement);
+
+            // If quantity is > 1 but the entitlement is not stacked, only calculate compliance
+            // for quantity 1
+            int quantity = entitlement.getQuantity() != null ? entitlement.getQuantity() : 0;
+            if (!pool.isStacked() && quantity > 1) {
+                quantity = 1;
+            }
+
+            this.updateAccumulatedFromPool(pool, quantity);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object accumulate(String attribute, Object stackValue, String poolValue, PoolView pool,
+            int quantity) {
+
+            switch (attribute) {
+                case ARCH_ATTRIBUTE:
+                    List<String> arches = stackValue instanceof List ? (List<String>) stackValue :
+                        new ArrayList<>();
+
+                    arches.add(poolValue);
+                    return arches;
+
+                case SOCKETS_ATTRIBUTE:
+                    double increment = JsCoercion.parseInt(pool.getProductAttribute(INSTANCE_ATTRIBUTE));
+                    if (Double.isNaN(increment) || increment == 0) {
+                        increment = 1;
+                    }
+
+                    // Use the lowest quantity evenly divisible by the instance multiplier
+                    double adjusted = quantity - (quantity % increment);
+                    return toInt32(stackValue) + (JsCoercion.parseInt(poolValue) * adjusted) / increment;
+
+                case GUEST_LIMIT_ATTRIBUTE:
+                    // Value doesn't matter, just need it to be enforced
+                    return -1.0;
+
+                default:
+                    return toInt32(stackValue) + JsCoercion.parseInt(poolValue) * quantity;
+            }
+        }
+    }
+
+    /**
+     * The state of a single compliance calculation for a given consumer.
+     */
+    private static class Evaluation {
+        private final ConsumerDTO consumer;
+        private final Map<String, String> facts;
+        private final boolean guest;
+        private final List<String> complianceAttributes;
+        private final int activeGuestCount;
+        private final Map<EntitlementDTO, PoolView> pools;
+
+        Evaluation(ConsumerDTO consumer, Collection<GuestIdDTO> guestIds) {
+            this.consumer = consumer;
+            this.facts = consumer.getFacts() != null ? consumer.getFacts() : Collections.emptyMap();
+            this.guest = "true".equalsIgnoreCase(this.facts.get(IS_VIRT_GUEST_FACT));
+            this.complianceAttributes = this.guest ? VIRT_ATTRIBUTES : PHYSICAL_ATTRIBUTES;
+            this.activeGuestCount = countActiveGuests(guestIds);
+            this.pools = new IdentityHashMap<>();
+        }
+
+        PoolView getPool(EntitlementDTO entitlement) {
+            return this.pools.computeIfAbsent(entitlement, ent -> new PoolView(ent.getPool(), this.guest));
+        }
+
+        /**
+         * Fetches the consumer's value for the given product attribute, as calculated by the
+         * FactValueCalculator in the rules. Returns either the raw fact string or a computed
+         * number, as the rules do.
+         */
+        Object getFact(String attribute) {
+            switch (attribute) {
+                case RAM_ATTRIBUTE:
+                    // The consumer's RAM is reported in kB, while the product's is in GB
+                    return JsCoercion.round(JsCoercion.parseInt(this.getRawFact(RAM_FACT)) / 1024 / 1024);
+
+                case CORES_ATTRIBUTE:
+                    // Facts report cores per socket, so multiply by the socket count
+                    return JsCoercion.toNumber(this.getRawFact(CORES_FACT)) *
+                        JsCoercion.toNumber(this.getFact(SOCKETS_ATTRIBUTE));
+
+                case VCPU_ATTRIBUTE:
+                    return this.getFact(CORES_ATTRIBUTE);
+
+                case GUEST_LIMIT_ATTRIBUTE:
+                    return (double) this.activeGuestCount;
+
+                default:
+                    return this.getRawFact(ATTRIBUTES_TO_CONSUMER_FACTS.get(attribute));
+            }
+        }
+
+        private Object getRawFact(String fact) {
+            String value = fact != null ? this.facts.get(fact) : null;
+            return value != null && !value.isEmpty() ? value : (Object) 1.0;
+        }
+
+        private int countActiveGuests(Collection<GuestIdDTO> guestIds) {
+            int count = 0;
+
+            if (guestIds != null) {
+                for (GuestIdDTO guestId : guestIds) {
+                    Map<String, String> attributes = guestId != null ? guestId.getAttributes() : null;
+
+                    // Only libvirt guests report whether or not they are active
+                    if (attributes != null && "libvirt".equals(attributes.get("virtWhoType")) &&
+                        "1".equals(attributes.get("active"))) {
+
+                        ++count;
+                    }
+                }
+            }
+
+            return count;
+        }
+
+        private Object getGlobalGuestLimit(List<EntitlementDTO> entitlements) {
+            Double total = null;
+
+            for (EntitlementDTO entitlement : entitlements) {
+                PoolView pool = this.getPool(entitlement);
+
+                if (pool.hasProductAttribute(GUEST_LIMIT_ATTRIBUTE)) {
+                    if (total == null) {
+                        total = 0.0;
+                    }
+
+                    // A guest limit of -1 is unlimited
+                    double value = JsCoercion.parseInt(pool.getProductAttribute(GUEST_LIMIT_ATTRIBUTE));
+                    if (value == -1) {
+                        return value;
+                    }
+
+                    if (value > total) {
+                        total = value;
+                    }
+                }
+            }
+
+            return total;
+        }
+
+        private boolean architectureMatches(String productArches, String consumerArch, String consumerType) {
+            // Non-system consumers without an architecture fact can pass this rule regardless of
+            // what arch the product requires.
+            boolean hasArch = consumerArch != null && !consumerArch.isEmpty();
+            if (!hasArch && !SYSTEM_TYPE.equals(consumerType)) {
+                return true;
+            }
+
+            if (productArches != null) {
+                Set<String> supported = new HashSet<>();
+                for (String arch : productArches.toUpperCase().split(",", -1)) {
+                    supported.add(arch);
+                }
+
+                // If X86 is supported, add all variants
+                if (supported.contains("X86")) {
+                    supported.add("I386");
+                    supported.add("I586");
+                    supported.add("I686");
+                }
+
+                return supported.contains("ALL") ||
+                    (hasArch && supported.contains(consumerArch.toUpperCase()));
+            }
+
+            return true;
+        }
+
+        private ComplianceReasonDTO checkCondition(ComplianceTracker tracker, String attribute) {
+            if (ARCH_ATTRIBUTE.equals(attribute)) {
+                @SuppressWarnings("unchecked")
+                List<String> supported = (List<String>) tracker.getAccumulatedValue(attribute);
+
+                String consumerArch = this.facts.get(ARCH_FACT);
+                String consumerType = this.consumer.getType() != null ?
+                    this.consumer.getType().getLabel() :
+                    null;
+
+                for (String arches : supported) {
+                    if (!this.architectureMatches(arches, consumerArch, consumerType)) {
+                        return buildReason(attribute, tracker, consumerArch, arches);
+                    }
+                }
+
+                return null;
+            }
+
+            // All other attributes are integer comparisons of the consumer's calculated fact
+            // value against the accumulated value
+            Object has = this.getFact(attribute);
+            Object covers = tracker.getAccumulatedValue(attribute);
+
+            boolean covered = JsCoercion.parseInt(covers) >= JsCoercion.toNumber(has);
+            if (GUEST_LIMIT_ATTRIBUTE.equals(attribute)) {
+                // Guest limits of -1 are unlimited
+                covered = covered || (covers instanceof Double && (Double) covers == -1);
+            }
+
+            return covered ? null : buildReason(attribute, tracker, has, covers);
+        }
+
+        private ComplianceReasonDTO buildReason(String attribute, ComplianceTracker tracker, Object has,
+            Object covered) {
+
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("has", toJsString(has));
+            attributes.put("covered", toJsString(covered));
+            attributes.put(TRACKER_TYPE_STACK.equals(tracker.type) ? "stack_id" : "entitlement_id",
+                tracker.id);
+
+            String key = attribute.toUpperCase();
+            return new ComplianceReasonDTO()
+                .setKey(key)
+                .setMessage(key)
+                .setAttributes(attributes);
+        }
+
+        /**
+         * Determines the coverage provided by the given tracker; the equivalent of the
+         * CoverageCalculator.getStackCoverage function of the rules.
+         */
+        Coverage getTrackerCoverage(ComplianceTracker tracker, List<EntitlementDTO> entitlements) {
+            // Global attributes are accumulated across all of the consumer's entitlements
+            if (tracker.enforces(GUEST_LIMIT_ATTRIBUTE)) {
+                tracker.setAccumulatedValue(GUEST_LIMIT_ATTRIBUTE, this.getGlobalGuestLimit(entitlements));
+            }
+
+            List<ComplianceReasonDTO> reasons = new ArrayList<>();
+            for (String attribute : this.complianceAttributes) {
+                // If the value doesn't exist we do not enforce it
+                if (tracker.enforces(attribute)) {
+                    ComplianceReasonDTO reason = this.checkCondition(tracker, attribute);
+                    if (reason != null) {
+                        reasons.add(reason);
+                    }
+                }
+            }
+
+            return new Coverage(reasons.isEmpty(), reasons);
+        }
+
+        Coverage getStackCoverage(String stackId, List<EntitlementDTO> entitlements) {
+            log.debug("Checking stack compliance for: {}", stackId);
+            ComplianceTracker tracker = new ComplianceTracker(this, stackId);
+
+            for (EntitlementDTO entitlement : entitlements) {
+                PoolView pool = this.getPool(entitlement);
+
+                String currentStackId = pool.getProductAttribute(STACKING_ID_ATTRIBUTE);
+
+                if (pool.isStacked() && equalsNullable(currentStackId, stackId)) {
+                    tracker.updateAccumulatedFromEnt(entitlement);
+                }
+            }
+
+            return this.getTrackerCoverage(tracker, entitlements);
+        }
+
+        Coverage getEntitlementCoverage(EntitlementDTO entitlement, List<EntitlementDTO> entitlements) {
+            ComplianceTracker tracker = new ComplianceTracker(this, null);
+            tracker.updateAccumulatedFromEnt(entitlement);
+
+            return this.getTrackerCoverage(tracker, entitlements);
+        }
+
+        private List<String> getInstalledProductIds() {
+            Collection<String> installed = this.consumer.getInstalledProducts();
+            return installed != null ? new ArrayList<>(installed) : List.of();
+        }
+
+        private List<String> findRelevantProductIds(EntitlementDTO entitlement) {
+            PoolView pool = this.getPool(entitlement);
+            List<String> relevant = new ArrayList<>();
+
+            for (String productId : this.getInstalledProductIds()) {
+                if (pool.provides(productId)) {
+                    relevant.add(productId);
+                }
+            }
+
+            return relevant;
+        }
+
+        StatusOnDate getComplianceStatusOnDate(List<EntitlementDTO> entitlements, Date onDate) {
+            StatusOnDate status = new StatusOnDate(onDate);
+
+            // Track the stack IDs we've already checked to save some time
+            Set<String> compliantStackIds = new HashSet<>();
+            Set<String> nonCompliantStackIds = new HashSet<>();
+
+            List<EntitlementDTO> entitlementsOnDate = new ArrayList<>();
+            for (EntitlementDTO entitlement : entitlements) {
+                if (getTime(entitlement.getStartDate()) <= onDate.getTime() &&
+                    getTime(entitlement.getEndDate()) >= onDate.getTime()) {
+
+                    entitlementsOnDate.add(entitlement);
+                }
+            }
+
+            for (EntitlementDTO entitlement : entitlementsOnDate) {
+                PoolView pool = this.getPool(entitlement);
+                List<String> relevantProductIds = this.findRelevantProductIds(entitlement);
+
+                boolean partiallyStacked = false;
+                boolean stacked = pool.isStacked();
+
+                // If the pool is stacked, check that the stack requirements are met
+                if (stacked) {
+                    String stackId = pool.getProductAttribute(STACKING_ID_ATTRIBUTE);
+
+                    if (nonCompliantStackIds.contains(stackId)) {
+                        partiallyStacked = true;
+                        status.addPartialStack(stackId, entitlement);
+                    }
+                    else if (!compliantStackIds.contains(stackId)) {
+                        Coverage coverage = this.getStackCoverage(stackId, entitlementsOnDate);
+
+                        if (!coverage.covered) {
+                            partiallyStacked = true;
+                            status.addPartialStack(stackId, entitlement);
+                            nonCompliantStackIds.add(stackId);
+                            status.reasons.addAll(coverage.reasons);
+                        }
+                        else {
+                            compliantStackIds.add(stackId);
+                        }
+                    }
+                }
+
+                // If we have no installed products and the entitlement is partially covered, we
+                // want the system to be partial.
+                if (relevantProductIds.isEmpty() && !stacked) {
+                    Coverage coverage = this.getEntitlementCoverage(entitlement, entitlementsOnDate);
+                    if (!coverage.covered) {
+                        status.reasons.addAll(coverage.reasons);
+                    }
+                }
+
+                // If the consumer has an entitlement from a pool marked unmapped_guests_only it can
+                // only hope to be yellow
+                if ("true".equalsIgnoreCase(pool.getAttribute(UNMAPPED_GUESTS_ONLY))) {
+                    status.reasons.add(buildUnmappedEntitlementReason(entitlement.getId()));
+                }
+
+                for (String productId : relevantProductIds) {
+                    if (partiallyStacked) {
+                        status.addPartialProduct(productId, entitlement);
+                        continue;
+                    }
+
+                    Coverage coverage = this.getEntitlementCoverage(entitlement, entitlementsOnDate);
+                    if (!coverage.covered && !stacked) {
+                        status.addPartialProduct(productId, entitlement);
+                        status.reasons.addAll(coverage.reasons);
+                    }
+                    else {
+                        status.addCompliantProduct(productId, entitlement);
+                    }
+                }
+            }
+
+            // Products which are provided by a regular entitlement are not considered partially
+            // compliant, even if they are also provided by a partial stack. The stack itself is
+            // left in the partial stacks, as it should still be repaired.
+            status.partiallyCompliantProducts.keySet().removeAll(status.compliantProducts.keySet());
+
+            // Any installed products we didn't find an entitlement for are not compliant
+            for (String productId : this.getInstalledProductIds()) {
+                if (!status.compliantProducts.containsKey(productId) &&
+                    !status.partiallyCompliantProducts.containsKey(productId)) {
+
+                    status.nonCompliantProducts.add(productId);
+                    status.reasons.add(buildInstalledProductReason(productId));
+                }
+            }
+
+            return status;
+        }
+
+        Date determineCompliantUntilDate(List<EntitlementDTO> entitlements, Date startDate) {
+            List<String> installed = this.getInstalledProductIds();
+            if (installed.isEmpty()) {
+                return null;
+            }
+
+            List<EntitlementDTO> providing = new ArrayList<>();
+            for (EntitlementDTO entitlement : entitlements) {
+                PoolView pool = this.getPool(entitlement);
+
+                if (installed.stream().anyMatch(pool::provides)) {
+                    providing.add(entitlement);
+                }
+            }
+
+            long last = startDate.getTime();
+            for (long end : getSortedEntitlementDates(providing, false, true)) {
+                // Ignore past dates and duplicates
+                if (end <= last) {
+                    continue;
+                }
+
+                // Check if we are still compliant a second after the end date. The rules shift
+                // the last checked date along with it, so we do the same.
+                long check = end + 1000;
+                last = check;
+
+                if (!this.getComplianceStatusOnDate(entitlements, new Date(check)).isCompliant()) {
+                    return new Date(check);
+                }
+            }
+
+            return null;
+        }
+
+        @SuppressWarnings("checkstyle:methodlength")
+        Map<String, DateRange> getProductComplianceDateRanges(List<EntitlementDTO> entitlements,
+            Date onDate, StatusOnDate current) {
+
+            Map<String, DateRange> output = new HashMap<>();
+
+            List<String> installed = this.getInstalledProductIds();
+            if (installed.isEmpty()) {
+                return output;
+            }
+
+            long[] dates = getSortedEntitlementDates(entitlements, true, true);
+            int nextDate = -1;
+
+            // Find our next date in the future
+            for (int i = dates.length - 1; i >= 0; --i) {
+                if (dates[i] <= onDate.getTime()) {
+                    nextDate = i + 1;
+                    break;
+                }
+            }
+
+            // Only products which are at least partially compliant get a date range
+            Map<String, Long> startDates = new LinkedHashMap<>();
+            Map<String, Long> endDates = new HashMap<>();
+            for (String productId : installed) {
+                if (!current.nonCompliantProducts.contains(productId)) {
+                    startDates.put(productId, null);
+                }
+            }
+
+            List<String> productIds = new ArrayList<>(startDates.keySet());
+            if (productIds.isEmpty()) {
+                return output;
+            }
+
+            // Find start dates
+            int complete = 0;
+            long lastValidDate = onDate.getTime();
+
+            for (int i = nextDate - 1; i >= 0; --i) {
+                // Shift the date by a millisecond to (potentially) move outside of the range of
+                // the entitlement the date came from, so we don't bridge coverage gaps.
+                StatusOnDate status = this.getComplianceStatusOnDate(entitlements, new Date(dates[i] + 1));
+
+                for (String productId : productIds) {
+                    if (startDates.get(productId) == null &&
+                        (status.nonCompliantProducts.contains(productId) ||
+                        (current.compliantProducts.containsKey(productId) &&
+                        !status.compliantProducts.containsKey(productId)) ||
+                        (current.partiallyCompliantProducts.containsKey(productId) &&
+                        !status.partiallyCompliantProducts.containsKey(productId)))) {
+
+                        startDates.put(productId, lastValidDate);
+                        ++complete;
+                    }
+                }
+
+                if (complete >= productIds.size()) {
+                    break;
+                }
+
+                lastValidDate = dates[i];
+            }
+
+            // Find end dates
+            complete = 0;
+            for (int i = Math.max(nextDate, 0); i < dates.length; ++i) {
+                StatusOnDate status = this.getComplianceStatusOnDate(entitlements, new Date(dates[i] + 1));
+
+                for (String productId : productIds) {
+                    if (endDates.get(productId) == null &&
+                        (status.nonCompliantProducts.contains(productId) ||
+                        (current.compliantProducts.containsKey(productId) &&
+                        !status.compliantProducts.containsKey(productId)) ||
+                        (current.partiallyCompliantProducts.containsKey(productId) &&
+                        !status.partiallyCompliantProducts.containsKey(productId) &&
+                        !status.compliantProducts.containsKey(productId)))) {
+
+                        endDates.put(productId, dates[i]);
+                        ++complete;
+                    }
+                }
+
+                if (complete >= productIds.size()) {
+                    break;
+                }
+            }
+
+            // Products which remained valid to the ends of our date ranges use the extremes
+            for (String productId : productIds) {
+                Long start = startDates.get(productId);
+                Long end = endDates.get(productId);
+
+                DateRange range = new DateRange();
+                range.setStartDate(Util.toDateTime(new Date(start != null ? start : dates[0])));
+                range.setEndDate(Util.toDateTime(new Date(end != null ? end : dates[dates.length - 1])));
+
+                output.put(productId, range);
+            }
+
+            return output;
+        }
+    }
+
+    private static ComplianceReasonDTO buildInstalledProductReason(String productId) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("product_id", productId);
+
+        return new ComplianceReasonDTO()
+            .setKey("NOTCOVERED")
+            .setMessage("NOTCOVERED")
+            .setAttributes(attributes);
+    }
+
+    private static ComplianceReasonDTO buildUnmappedEntitlementReason(String entitlementId) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("entitlement_id", entitlementId);
+
+        return new ComplianceReasonDTO()
+            .setKey("UNMAPPEDGUEST")
+            .setMessage("UNMAPPEDGUEST")
+            .setAttributes(attributes);
+    }
+
+    private static long[] getSortedEntitlementDates(List<EntitlementDTO> entitlements, boolean useStartDates,
+        boolean useEndDates) {
+
+        // Impl note: duplicate dates are intentionally retained, as they are by the rules
+        return entitlements.stream()
+            .flatMap(ent -> {
+                List<Date> dates = new ArrayList<>(2);
+                if (useStartDates) {
+                    dates.add(ent.getStartDate());
+                }
+
+                if (useEndDates) {
+                    dates.add(ent.getEndDate());
+                }
+
+                return dates.stream();
+            })
+            .mapToLong(NativeComplianceEngine::getTime)
+            .sorted()
+            .toArray();
+    }
+
+    private static long getTime(Date date) {
+        // The rules treat null dates as the epoch
+        return date != null ? date.getTime() : 0;
+    }
+
+    private static boolean equalsNullable(String str1, String str2) {
+        return str1 == null ? str2 == null : str1.equals(str2);
+    }
+
+    /**
+     * Converts a value to a 32-bit integer as the javascript "value | 0" idiom does.
+     */
+    private static double toInt32(Object value) {
+        double number = value instanceof Double ? (Double) value : Double.NaN;
+        return Double.isNaN(number) || Double.isInfinite(number) ? 0 : (int) (long) number;
+    }
+
+    /**
+     * Converts a value to the string it would be given after a round trip through JSON from the
+     * javascript rules. Numbers which cannot be represented in JSON become null.
+     */
+    private static String toJsString(Object value) {
+        if (value instanceof Double) {
+            double number = (Double) value;
+
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                return null;
+            }
+
+            return number == Math.rint(number) && Math.abs(number) < 1e21 ?
+                String.valueOf((long) number) :
+                String.valueOf(number);
+        }
+
+        return value != null ? value.toString() : null;
+    }
+}
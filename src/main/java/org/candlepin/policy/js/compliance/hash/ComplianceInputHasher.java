@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance.hash;
+
+import org.candlepin.model.Consumer;
+
+/**
+ * Creates a hash of the consumer data used as input to the compliance rules: the consumer's
+ * compliance facts, installed products and entitlements (as hashed by
+ * {@link ComplianceStatusHasher}), along with the entitlement dates and pool products, the
+ * consumer type and the guest IDs, which the rules also consider when calculating status.
+ *
+ * Two consumers with the same input hash will receive the same compliance status when evaluated
+ * with the same rules on the same date.
+ */
+public class ComplianceInputHasher extends Hasher {
+
+    public ComplianceInputHasher(Consumer consumer) {
+        putObject(consumer, HashableStringGenerators.CONSUMER);
+        putCollection(consumer.getEntitlements(), HashableStringGenerators.ENTITLEMENT_INPUT);
+        putObject(consumer.getTypeId(), HashableStringGenerators.STRING);
+        putCollection(consumer.getGuestIds(), HashableStringGenerators.GUEST_ID);
+    }
+
+}
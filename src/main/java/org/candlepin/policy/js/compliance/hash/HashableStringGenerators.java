@@ -18,7 +18,9 @@ package org.candlepin.policy.js.compliance.hash;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerInstalledProduct;
 import org.candlepin.model.Entitlement;
+import org.candlepin.model.GuestId;
 import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
 import org.candlepin.policy.js.compliance.ComplianceReason;
 
 import java.util.Collection;
@@ -45,6 +47,9 @@ public class HashableStringGenerators {
     public static final ConsumerGenerator CONSUMER = new ConsumerGenerator();
     public static final ConsumerInstalledProductGenerator INSTALLED_PRODUCT =
         new ConsumerInstalledProductGenerator();
+    public static final GuestIdGenerator GUEST_ID = new GuestIdGenerator();
+    public static final EntitlementInputGenerator ENTITLEMENT_INPUT = new EntitlementInputGenerator();
+    public static final ProductGenerator PRODUCT = new ProductGenerator();
 
 
     private HashableStringGenerators() {
@@ -240,4 +245,71 @@ public class HashableStringGenerators {
 
     }
 
+    /**
+     * Generates a string from the {@link Entitlement} data considered by the compliance rules,
+     * intended for use in a hash of the rules input. In addition to the data hashed by
+     * {@link EntitlementGenerator}, this includes the entitlement dates and the pool's products.
+     */
+    private static class EntitlementInputGenerator implements HashableStringGenerator<Entitlement> {
+
+        @Override
+        public String generate(Entitlement target) {
+            if (target == null) {
+                return null;
+            }
+
+            Date start = target.getStartDate();
+            Date end = target.getEndDate();
+
+            String generated = ENTITLEMENT.generate(target);
+            generated += start != null ? start.getTime() : null;
+            generated += end != null ? end.getTime() : null;
+
+            Pool pool = target.getPool();
+            if (pool != null) {
+                generated += generateFromObject(pool.getProduct(), PRODUCT);
+                generated += generateFromObject(pool.getDerivedProduct(), PRODUCT);
+            }
+
+            return generated;
+        }
+
+    }
+
+    /**
+     * Generates a string from a {@link Product} intended for use in a hash.
+     */
+    private static class ProductGenerator implements HashableStringGenerator<Product> {
+
+        @Override
+        public String generate(Product target) {
+            if (target == null) {
+                return null;
+            }
+
+            Date updated = target.getUpdated();
+            return target.getUuid() + (updated != null ? updated.getTime() : null);
+        }
+
+    }
+
+    /**
+     * Generates a string from a {@link GuestId} intended for use in a hash.
+     */
+    private static class GuestIdGenerator implements HashableStringGenerator<GuestId> {
+
+        @Override
+        public String generate(GuestId target) {
+            if (target == null) {
+                return null;
+            }
+
+            String generated = target.getGuestId();
+            generated += generateFromCollection(
+                target.getAttributes() != null ? target.getAttributes().entrySet() : null, STRING_ENTRY);
+            return generated;
+        }
+
+    }
+
 }
@@ -88,6 +88,7 @@ public class EntitlementRules implements Enforcer {
     private EventSink eventSink;
     private EventFactory eventFactory;
     private ModelTranslator translator;
+    private NativePreEntitlementValidator nativeValidator;
 
     private static final String POST_PREFIX = "post_";
     private static final long UNLIMITED_QUANTITY = -1L;
@@ -109,10 +110,26 @@ public class EntitlementRules implements Enforcer {
         this.eventSink = eventSink;
         this.eventFactory = eventFactory;
         this.translator = translator;
+        this.nativeValidator = createNativeValidator(config);
 
         jsRules.init("entitlement_name_space");
     }
 
+    private static NativePreEntitlementValidator createNativeValidator(Configuration config) {
+        String engine = config.getString(ConfigProperties.ENTITLEMENT_ENGINE, "java");
+
+        if ("js".equalsIgnoreCase(engine)) {
+            log.info("Using the javascript rules for pre-entitlement checks");
+            return null;
+        }
+
+        if (engine != null && !"java".equalsIgnoreCase(engine)) {
+            log.warn("Unknown entitlement engine \"{}\"; using the native pre-entitlement checks", engine);
+        }
+
+        return new NativePreEntitlementValidator();
+    }
+
     @Override
     public ValidationResult preEntitlement(Consumer consumer, Pool entitlementPool, Integer quantity) {
         return preEntitlement(consumer, entitlementPool, quantity, CallerType.UNKNOWN);
@@ -141,13 +158,31 @@ public class EntitlementRules implements Enforcer {
     }
 
     @Override
-    @SuppressWarnings("checkstyle:indentation")
     public Map<String, ValidationResult> preEntitlement(Consumer consumer, Consumer host,
         Collection<PoolQuantity> entitlementPoolQuantities, CallerType caller) {
 
-        Map<String, ValidationResult> resultMap = new HashMap<>();
+        Map<String, ValidationResult> resultMap;
 
-        ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
+        if (this.nativeValidator != null) {
+            ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
+            resultMap = this.nativeValidator.validatePools(consumer, ctype, host, entitlementPoolQuantities,
+                caller);
+        }
+        else {
+            resultMap = this.runPoolsBatchRules(consumer, host, entitlementPoolQuantities, caller);
+        }
+
+        for (PoolQuantity poolQuantity : entitlementPoolQuantities) {
+            finishValidation(resultMap.get(poolQuantity.getPool().getId()),
+                poolQuantity.getPool(), poolQuantity.getQuantity());
+        }
+
+        return resultMap;
+    }
+
+    @SuppressWarnings("checkstyle:indentation")
+    private Map<String, ValidationResult> runPoolsBatchRules(Consumer consumer, Consumer host,
+        Collection<PoolQuantity> entitlementPoolQuantities, CallerType caller) {
 
         /* This document describes the java script portion of the pre entitlement rules check:
          * http://www.candlepinproject.org/docs/candlepin/pre_entitlement_rules_check.html
@@ -174,7 +209,7 @@ public class EntitlementRules implements Enforcer {
         TypeReference<Map<String, ValidationResult>> typeref =
             new TypeReference<Map<String, ValidationResult>>() {};
         try {
-            resultMap = objectMapper.toObject(json, typeref);
+            Map<String, ValidationResult> resultMap = objectMapper.toObject(json, typeref);
             for (PoolQuantity poolQuantity : entitlementPoolQuantities) {
                 if (!resultMap.containsKey(poolQuantity.getPool().getId())) {
                     resultMap.put(poolQuantity.getPool().getId(), new ValidationResult());
@@ -182,26 +217,57 @@ public class EntitlementRules implements Enforcer {
                 }
 
             }
+
+            return resultMap;
         }
         catch (Exception e) {
             throw new RuleExecutionException(e);
         }
+    }
 
-        for (PoolQuantity poolQuantity : entitlementPoolQuantities) {
-            finishValidation(resultMap.get(poolQuantity.getPool().getId()),
-                poolQuantity.getPool(), poolQuantity.getQuantity());
+    @Override
+    public List<Pool> filterPools(Consumer consumer, List<Pool> pools, boolean showAll) {
+        Map<String, ValidationResult> resultMap;
+
+        if (this.nativeValidator != null) {
+            ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
+            List<PoolQuantity> poolQuantities = pools.stream()
+                .map(pool -> new PoolQuantity(pool, 1))
+                .collect(Collectors.toList());
+
+            resultMap = this.nativeValidator.validatePools(consumer, ctype, getHost(consumer), poolQuantities,
+                CallerType.LIST_POOLS);
+        }
+        else {
+            resultMap = this.runPoolsListRules(consumer, pools);
         }
 
-        return resultMap;
+        List<Pool> filteredPools = new LinkedList<>();
+        for (Pool pool : pools) {
+            ValidationResult result;
+            result = resultMap.get(pool.getId());
+            finishValidation(result, pool, 1);
+
+            if (result.isSuccessful() && (!result.hasWarnings() || showAll)) {
+                filteredPools.add(pool);
+            }
+            else if (log.isDebugEnabled()) {
+                log.debug("Omitting pool due to failed rules: " + pool.getId());
+                if (result.hasErrors()) {
+                    log.debug("\tErrors: " + result.getErrors());
+                }
+                if (result.hasWarnings()) {
+                    log.debug("\tWarnings: " + result.getWarnings());
+                }
+            }
+        }
+
+        return filteredPools;
     }
 
-    @Override
     @SuppressWarnings("checkstyle:indentation")
-    public List<Pool> filterPools(Consumer consumer, List<Pool> pools, boolean showAll) {
+    private Map<String, ValidationResult> runPoolsListRules(Consumer consumer, List<Pool> pools) {
         JsonJsContext args = new JsonJsContext(objectMapper);
-        Map<String, ValidationResult> resultMap = new HashMap<>();
-
-        ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
 
         Stream<PoolDTO> poolStream = pools == null ? Stream.empty() :
             pools.stream().map(this.translator.getStreamMapper(Pool.class, PoolDTO.class));
@@ -223,33 +289,11 @@ public class EntitlementRules implements Enforcer {
             new TypeReference<Map<String, ValidationResult>>() {};
 
         try {
-            resultMap = objectMapper.toObject(json, typeref);
+            return objectMapper.toObject(json, typeref);
         }
         catch (Exception e) {
             throw new RuleExecutionException(e);
         }
-
-        List<Pool> filteredPools = new LinkedList<>();
-        for (Pool pool : pools) {
-            ValidationResult result;
-            result = resultMap.get(pool.getId());
-            finishValidation(result, pool, 1);
-
-            if (result.isSuccessful() && (!result.hasWarnings() || showAll)) {
-                filteredPools.add(pool);
-            }
-            else if (log.isDebugEnabled()) {
-                log.debug("Omitting pool due to failed rules: " + pool.getId());
-                if (result.hasErrors()) {
-                    log.debug("\tErrors: " + result.getErrors());
-                }
-                if (result.hasWarnings()) {
-                    log.debug("\tWarnings: " + result.getWarnings());
-                }
-            }
-        }
-
-        return filteredPools;
     }
 
     private Consumer getHost(Consumer consumer) {
@@ -0,0 +1,663 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.entitlement;
+
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCapability;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+import org.candlepin.policy.ValidationResult;
+import org.candlepin.policy.js.JsCoercion;
+import org.candlepin.policy.js.entitlement.Enforcer.CallerType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+
+
+/**
+ * A native Java implementation of the pre-entitlement checks of the entitlement namespace of the
+ * javascript rules ("validate_pools_batch" and "validate_pools_list").
+ * <p></p>
+ * Rather than serializing the consumer and every pool to the rules, the values the checks derive
+ * from the consumer (calculated cores, RAM, capabilities, existing entitlements and so on) are
+ * computed once per batch, and each pool is then only run through the checks mapped to the
+ * attributes it actually defines. The checks produce the same error and warning keys, in the same
+ * order, as the rules; any change to the pre-entitlement portion of the rules must be mirrored
+ * here.
+ */
+public class NativePreEntitlementValidator {
+    private static final Logger log = LoggerFactory.getLogger(NativePreEntitlementValidator.class);
+
+    // Consumer fact names
+    private static final String SOCKET_FACT = "cpu.cpu_socket(s)";
+    private static final String RAM_FACT = "memory.memtotal";
+    private static final String CORES_FACT = "cpu.core(s)_per_socket";
+    private static final String ARCH_FACT = "uname.machine";
+    private static final String IS_VIRT_GUEST_FACT = "virt.is_guest";
+    private static final String VIRT_UUID_FACT = "virt.uuid";
+    private static final String STORAGE_BAND_USAGE = "band.storage.usage";
+
+    // Attribute names
+    private static final String CORES_ATTRIBUTE = "cores";
+    private static final String VCPU_ATTRIBUTE = "vcpu";
+    private static final String STACKING_ID_ATTRIBUTE = "stacking_id";
+    private static final String MULTI_ENTITLEMENT_ATTRIBUTE = "multi-entitlement";
+    private static final String REQUIRES_CONSUMER_TYPE_ATTRIBUTE = "requires_consumer_type";
+    private static final String POOL_DERIVED_ATTRIBUTE = "pool_derived";
+
+    // Consumer type labels
+    private static final String SYSTEM_TYPE = "system";
+    private static final String HYPERVISOR_TYPE = "hypervisor";
+    private static final String UEBERCERT_TYPE = "uebercert";
+
+    private static final long ONE_DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * The values derived from the consumer which are shared by the checks of every pool in a batch
+     */
+    private static class ConsumerContext {
+        private final Consumer consumer;
+        private final boolean manifest;
+        private final String typeLabel;
+        private final boolean guest;
+        private final boolean newborn;
+        private final boolean hasVirtUuid;
+        private final String hostUuid;
+        private final boolean hasHost;
+        private final Set<String> capabilities;
+        private final Set<String> entitledPoolIds;
+        private final CallerType caller;
+        private final long now;
+
+        // Calculated facts, as the rules' FactValueCalculator would produce them
+        private final double cores;
+        private final double ram;
+        private final double storageBandUsage;
+
+        private ConsumerContext(Consumer consumer, ConsumerType ctype, Consumer host, CallerType caller) {
+            this.consumer = consumer;
+            this.manifest = ctype.isManifest();
+            this.typeLabel = ctype.getLabel();
+            this.guest = "true".equalsIgnoreCase(consumer.getFact(IS_VIRT_GUEST_FACT));
+            this.hasVirtUuid = JsCoercion.isTruthy(consumer.getFact(VIRT_UUID_FACT));
+            this.hasHost = host != null;
+            this.hostUuid = host != null ? host.getUuid() : null;
+            this.caller = caller;
+            this.now = System.currentTimeMillis();
+
+            this.newborn = consumer.getCreated() != null &&
+                this.now < consumer.getCreated().getTime() + ONE_DAY;
+
+            this.capabilities = new HashSet<>();
+            if (consumer.getCapabilities() != null) {
+                for (ConsumerCapability capability : consumer.getCapabilities()) {
+                    this.capabilities.add(capability.getName());
+                }
+            }
+
+            this.entitledPoolIds = new HashSet<>();
+            if (consumer.getEntitlements() != null) {
+                for (Entitlement entitlement : consumer.getEntitlements()) {
+                    if (entitlement.getPool() != null) {
+                        this.entitledPoolIds.add(entitlement.getPool().getId());
+                    }
+                }
+            }
+
+            // Cores are reported per socket, and RAM in kB while products specify it in GB
+            this.cores = JsCoercion.toNumber(this.getRawFact(CORES_FACT)) *
+                JsCoercion.toNumber(this.getRawFact(SOCKET_FACT));
+            this.ram = JsCoercion.round(JsCoercion.parseInt(this.getRawFact(RAM_FACT)) / 1024 / 1024);
+            this.storageBandUsage = JsCoercion.toNumber(this.getRawFact(STORAGE_BAND_USAGE));
+        }
+
+        private Object getRawFact(String fact) {
+            String value = this.consumer.getFact(fact);
+            return JsCoercion.isTruthy(value) ? value : (Object) 1.0;
+        }
+
+        private String getFact(String fact) {
+            return this.consumer.getFact(fact);
+        }
+
+        private boolean isCapable(String capability) {
+            return this.capabilities.contains(capability);
+        }
+
+        /**
+         * Checks if a failure should be reported as an error for the current caller, rather than as
+         * a warning.
+         */
+        private boolean isStrictCaller() {
+            return this.caller == CallerType.BEST_POOLS || this.caller == CallerType.BIND;
+        }
+    }
+
+    /**
+     * A view of a pool's attributes, resolving them the way the rules' pool objects do: an
+     * attribute with a value of "0" is considered not set, and lookups fall back from the pool's
+     * attributes to its product's attributes, or vice versa.
+     */
+    private static class PoolView {
+        private final Pool pool;
+        private final Map<String, String> attributes;
+        private final Map<String, String> productAttributes;
+        private final Double calculatedVcpu;
+
+        private PoolView(Pool pool, ConsumerContext context) {
+            this.pool = pool;
+            this.attributes = pool.getAttributes() != null ? pool.getAttributes() : Collections.emptyMap();
+
+            Product product = pool.getProduct();
+            this.productAttributes = product != null && product.getAttributes() != null ?
+                product.getAttributes() :
+                Collections.emptyMap();
+
+            // When the pool is missing vcpu and the consumer is a guest, the rules calculate the vcpu
+            // from the cores attribute instead. A "0" vcpu attribute on the pool itself hides the
+            // calculated value, as the rules append it to the pool's attributes.
+            Double vcpu = null;
+            if (context.guest && !this.hasAttribute(VCPU_ATTRIBUTE) && this.hasAttribute(CORES_ATTRIBUTE) &&
+                !this.attributes.containsKey(VCPU_ATTRIBUTE)) {
+
+                double value = JsCoercion.parseInt(this.getAttribute(CORES_ATTRIBUTE));
+                vcpu = value != 0 ? value : null;
+            }
+
+            this.calculatedVcpu = vcpu;
+        }
+
+        private static String find(String name, Map<String, String> attributes) {
+            String value = attributes.get(name);
+            return "0".equals(value) ? null : value;
+        }
+
+        private String getAttribute(String name) {
+            String value = find(name, this.attributes);
+            return value != null ? value : find(name, this.productAttributes);
+        }
+
+        private String getProductAttribute(String name) {
+            String value = find(name, this.productAttributes);
+            return value != null ? value : find(name, this.attributes);
+        }
+
+        /**
+         * Fetches an attribute as the rules' entitlement context does, preferring the pool's
+         * attributes unless the value found there is empty.
+         */
+        private String getContextAttribute(String name) {
+            String value = this.getAttribute(name);
+            return JsCoercion.isTruthy(value) ? value : this.getProductAttribute(name);
+        }
+
+        private boolean hasAttribute(String name) {
+            return this.getAttribute(name) != null ||
+                (VCPU_ATTRIBUTE.equals(name) && this.calculatedVcpu != null);
+        }
+
+        private boolean isStacked() {
+            return JsCoercion.isTruthy(this.getProductAttribute(STACKING_ID_ATTRIBUTE));
+        }
+
+        private boolean isMultiEnt() {
+            return "yes".equalsIgnoreCase(this.getProductAttribute(MULTI_ENTITLEMENT_ATTRIBUTE));
+        }
+
+        private double getProductAttributeInt(String name) {
+            String value = this.getProductAttribute(name);
+
+            if (value == null && VCPU_ATTRIBUTE.equals(name)) {
+                return JsCoercion.parseInt(this.calculatedVcpu);
+            }
+
+            return JsCoercion.parseInt(value);
+        }
+    }
+
+    /**
+     * The checks run against pools defining a given attribute, in the order the rules run them.
+     */
+    private enum AttributeCheck {
+        ARCHITECTURE("arch") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (!context.manifest && !architectureMatches(pool.getProductAttribute("arch"),
+                    context.getFact(ARCH_FACT), context.typeLabel)) {
+
+                    result.addWarning("rulewarning.architecture.mismatch");
+                }
+            }
+        },
+
+        SOCKETS("sockets") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (context.manifest || context.guest) {
+                    return;
+                }
+
+                // Skip the comparison entirely if the consumer does not report its sockets
+                String sockets = context.getFact(SOCKET_FACT);
+                if (JsCoercion.isTruthy(sockets) && !pool.isStacked()) {
+                    double poolSockets = pool.getProductAttributeInt("sockets");
+
+                    if (poolSockets > 0 && poolSockets < JsCoercion.parseInt(sockets)) {
+                        result.addWarning("rulewarning.unsupported.number.of.sockets");
+                    }
+                }
+            }
+        },
+
+        RAM("ram") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (!context.manifest) {
+                    if (context.ram > pool.getProductAttributeInt("ram") && !pool.isStacked()) {
+                        result.addWarning("rulewarning.unsupported.ram");
+                    }
+                }
+                else if (!context.isCapable("ram")) {
+                    addFailure(context, result, "rulefailed.ram.unsupported.by.consumer",
+                        "rulewarning.ram.unsupported.by.consumer");
+                }
+            }
+        },
+
+        CORES(CORES_ATTRIBUTE) {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (!context.manifest) {
+                    if (!context.guest && JsCoercion.isTruthy(context.cores) && !pool.isStacked()) {
+                        double poolCores = pool.getProductAttributeInt(CORES_ATTRIBUTE);
+
+                        if (poolCores > 0 && poolCores < context.cores) {
+                            result.addWarning("rulewarning.unsupported.number.of.cores");
+                        }
+                    }
+                }
+                else if (!context.isCapable(CORES_ATTRIBUTE)) {
+                    addFailure(context, result, "rulefailed.cores.unsupported.by.consumer",
+                        "rulewarning.cores.unsupported.by.consumer");
+                }
+            }
+        },
+
+        REQUIRES_CONSUMER_TYPE(REQUIRES_CONSUMER_TYPE_ATTRIBUTE) {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                // Distributors can access everything
+                if (context.manifest) {
+                    return;
+                }
+
+                String required = pool.getContextAttribute(REQUIRES_CONSUMER_TYPE_ATTRIBUTE);
+                if (required != null && !UEBERCERT_TYPE.equals(context.typeLabel) &&
+                    !required.equals(context.typeLabel)) {
+
+                    // Allow hypervisors to be like systems
+                    if (!(SYSTEM_TYPE.equals(required) && HYPERVISOR_TYPE.equals(context.typeLabel))) {
+                        result.addError("rulefailed.consumer.type.mismatch");
+                    }
+                }
+            }
+        },
+
+        VIRT_ONLY("virt_only") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (!"true".equalsIgnoreCase(pool.getContextAttribute("virt_only"))) {
+                    return;
+                }
+
+                if (context.manifest) {
+                    if ("true".equalsIgnoreCase(pool.getContextAttribute(POOL_DERIVED_ATTRIBUTE))) {
+                        result.addError("pool.not.available.to.manifest.consumers");
+                    }
+                }
+                else if (!context.guest) {
+                    addFailure(context, result, "rulefailed.virt.only", "rulewarning.virt.only");
+                }
+            }
+        },
+
+        REQUIRES_HOST("requires_host") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                // requires_host derived pools are not available to manifests
+                if (context.manifest) {
+                    result.addError("pool.not.available.to.manifest.consumers");
+                }
+                else if (!context.hasVirtUuid) {
+                    result.addError("rulefailed.virt.only");
+                }
+                else if (!context.hasHost ||
+                    !Objects.equals(context.hostUuid, pool.getContextAttribute("requires_host"))) {
+
+                    result.addError("virt.guest.host.does.not.match.pool.owner");
+                }
+            }
+        },
+
+        INSTANCE_MULTIPLIER("instance_multiplier") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (!context.manifest) {
+                    // Only block quantities which do not evenly divide the multiplier on physical
+                    // systems
+                    if (context.caller == CallerType.BIND && !context.guest) {
+                        double multiplier = JsCoercion.toNumber(
+                            pool.getProductAttribute("instance_multiplier"));
+                        double mod = (quantity != null ? quantity : 0) % multiplier;
+
+                        if (mod != 0) {
+                            result.addError("rulefailed.quantity.mismatch");
+                        }
+                    }
+                }
+                else if (!context.isCapable("instance_multiplier")) {
+                    addFailure(context, result, "rulefailed.instance.unsupported.by.consumer",
+                        "rulewarning.instance.unsupported.by.consumer");
+                }
+            }
+        },
+
+        VCPU(VCPU_ATTRIBUTE) {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                // The vcpu count is the guest's total cores
+                if (!context.manifest && context.guest && JsCoercion.isTruthy(context.cores) &&
+                    !pool.isStacked()) {
+
+                    double poolVcpu = pool.getProductAttributeInt(VCPU_ATTRIBUTE);
+                    if (poolVcpu > 0 && poolVcpu < context.cores) {
+                        result.addWarning("rulewarning.unsupported.number.of.vcpus");
+                    }
+                }
+            }
+        },
+
+        PHYSICAL_ONLY("physical_only") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if ("true".equalsIgnoreCase(pool.getContextAttribute("physical_only")) &&
+                    !context.manifest && context.guest) {
+
+                    addFailure(context, result, "rulefailed.physical.only", "rulewarning.physical.only");
+                }
+            }
+        },
+
+        UNMAPPED_GUESTS_ONLY("unmapped_guests_only") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (!"true".equalsIgnoreCase(pool.getContextAttribute("unmapped_guests_only"))) {
+                    return;
+                }
+
+                // An error rather than a warning hides the temporary pools entirely from guests
+                // which cannot use them
+                if (context.hasHost) {
+                    result.addError("virt.guest.cannot.use.unmapped.guest.pool.has.host");
+                }
+
+                if (!context.newborn) {
+                    result.addError("virt.guest.cannot.use.unmapped.guest.pool.not.new");
+                }
+
+                long startDate = pool.pool.getStartDate() != null ? pool.pool.getStartDate().getTime() : 0;
+                if (context.caller == CallerType.BIND && startDate > context.now) {
+                    result.addError("virt.guest.cannot.bind.future.unmapped.guest.pool");
+                }
+            }
+        },
+
+        STORAGE_BAND("storage_band") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                if (!context.manifest) {
+                    if (context.storageBandUsage > pool.getProductAttributeInt("storage_band") &&
+                        !pool.isStacked()) {
+
+                        result.addWarning("rulewarning.unsupported.storageband");
+                    }
+                }
+                else if (!context.isCapable("storage_band")) {
+                    addFailure(context, result, "rulefailed.storageband.unsupported.by.consumer",
+                        "rulewarning.storageband.unsupported.by.consumer");
+                }
+            }
+        },
+
+        REQUIRES_CONSUMER("requires_consumer") {
+            @Override
+            void check(ConsumerContext context, PoolView pool, Integer quantity, ValidationResult result) {
+                String required = pool.getContextAttribute("requires_consumer");
+
+                // requires_consumer pools are not available to manifests
+                if (context.manifest && JsCoercion.isTruthy(required)) {
+                    result.addError("pool.not.available.to.manifest.consumers");
+                }
+                else if (!Objects.equals(context.consumer.getUuid(), required)) {
+                    result.addError("consumer.does.not.match.pool.consumer.requirement");
+                }
+            }
+        };
+
+        private final String attribute;
+
+        AttributeCheck(String attribute) {
+            this.attribute = attribute;
+        }
+
+        abstract void check(ConsumerContext context, PoolView pool, Integer quantity,
+            ValidationResult result);
+    }
+
+    /** Index of the checks by the attribute which triggers them */
+    private static final Map<String, AttributeCheck> CHECKS_BY_ATTRIBUTE = new HashMap<>();
+
+    static {
+        for (AttributeCheck check : AttributeCheck.values()) {
+            CHECKS_BY_ATTRIBUTE.put(check.attribute, check);
+        }
+    }
+
+    /**
+     * Runs the pre-entitlement checks for the given consumer against a batch of pools. This is the
+     * equivalent of the "validate_pools_batch" function of the entitlement rules, or of the
+     * "validate_pools_list" function when every quantity is 1 and the caller is LIST_POOLS.
+     * <p></p>
+     * The returned results do not include the pool quantity and expiration checks, which are
+     * performed by {@link Enforcer#finishValidation}.
+     *
+     * @param consumer
+     *  the consumer requesting the entitlements
+     *
+     * @param ctype
+     *  the consumer's type
+     *
+     * @param host
+     *  the consumer's host, or null if the consumer is not a guest with a known host
+     *
+     * @param poolQuantities
+     *  the pools to validate, and the quantity requested from each
+     *
+     * @param caller
+     *  the context calling the rules
+     *
+     * @return
+     *  a mapping of pool IDs to the validation results of each pool
+     */
+    public Map<String, ValidationResult> validatePools(Consumer consumer, ConsumerType ctype,
+        Consumer host, Collection<PoolQuantity> poolQuantities, CallerType caller) {
+
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer is null");
+        }
+
+        if (ctype == null) {
+            throw new IllegalArgumentException("consumer type is null");
+        }
+
+        Map<String, ValidationResult> results = new HashMap<>();
+        if (poolQuantities == null || poolQuantities.isEmpty()) {
+            return results;
+        }
+
+        ConsumerContext context = new ConsumerContext(consumer, ctype, host, caller);
+
+        for (PoolQuantity poolQuantity : poolQuantities) {
+            Pool pool = poolQuantity.getPool();
+            ValidationResult result = new ValidationResult();
+
+            this.validatePool(context, new PoolView(pool, context), poolQuantity.getQuantity(), result);
+            results.put(pool.getId(), result);
+        }
+
+        log.debug("Validated {} pools for consumer {}", results.size(), consumer.getUuid());
+        return results;
+    }
+
+    private void validatePool(ConsumerContext context, PoolView pool, Integer quantity,
+        ValidationResult result) {
+
+        // The global check is always run first
+        this.checkGlobal(context, pool, quantity, result);
+
+        // Find the checks mapped to the attributes defined by the pool or its product, in rule order
+        Set<AttributeCheck> checks = EnumSet.noneOf(AttributeCheck.class);
+        this.addChecks(checks, pool.attributes.keySet(), pool);
+        this.addChecks(checks, pool.productAttributes.keySet(), pool);
+
+        if (pool.calculatedVcpu != null) {
+            checks.add(AttributeCheck.VCPU);
+        }
+
+        for (AttributeCheck check : checks) {
+            check.check(context, pool, quantity, result);
+        }
+    }
+
+    private void addChecks(Set<AttributeCheck> checks, Set<String> attributes, PoolView pool) {
+        for (String attribute : attributes) {
+            AttributeCheck check = CHECKS_BY_ATTRIBUTE.get(attribute);
+
+            if (check != null && pool.hasAttribute(attribute)) {
+                checks.add(check);
+            }
+        }
+    }
+
+    private void checkGlobal(ConsumerContext context, PoolView pool, Integer quantity,
+        ValidationResult result) {
+
+        Pool entity = pool.pool;
+
+        if (context.manifest) {
+            // Distributors should not be able to consume from pools with derived products if they
+            // are not capable of supporting them
+            Product derived = entity.getDerivedProduct();
+
+            if (derived != null && JsCoercion.isTruthy(derived.getId()) &&
+                !context.isCapable("derived_product")) {
+
+                addFailure(context, result, "rulefailed.derivedproduct.unsupported.by.consumer",
+                    "rulewarning.derivedproduct.unsupported.by.consumer");
+            }
+
+            return;
+        }
+
+        boolean multiEnt = pool.isMultiEnt();
+
+        if (!multiEnt && context.entitledPoolIds.contains(entity.getId())) {
+            result.addError("rulefailed.consumer.already.has.product");
+        }
+
+        if (!multiEnt && quantity != null && quantity > 1) {
+            result.addError("rulefailed.pool.does.not.support.multi-entitlement");
+        }
+
+        // If the product has no required consumer type, assume it is restricted to "system";
+        // "hypervisor" types are essentially the same as "system".
+        if (!JsCoercion.isTruthy(pool.getProductAttribute(REQUIRES_CONSUMER_TYPE_ATTRIBUTE)) &&
+            !SYSTEM_TYPE.equals(context.typeLabel) && !HYPERVISOR_TYPE.equals(context.typeLabel) &&
+            !UEBERCERT_TYPE.equals(context.typeLabel)) {
+
+            result.addError("rulefailed.consumer.type.mismatch");
+        }
+
+        String restrictedToUsername = entity.getRestrictedToUsername();
+        String username = context.consumer.getUsername();
+        if (restrictedToUsername != null && !restrictedToUsername.equals(username)) {
+            result.addError("pool.not.available.to.user, pool= '" + restrictedToUsername +
+                "', actual username='" + username + "'");
+        }
+    }
+
+    private static void addFailure(ConsumerContext context, ValidationResult result, String errorKey,
+        String warningKey) {
+
+        if (context.isStrictCaller()) {
+            result.addError(errorKey);
+        }
+        else {
+            result.addWarning(warningKey);
+        }
+    }
+
+    private static boolean architectureMatches(String productArches, String consumerArch,
+        String consumerType) {
+
+        // Non-system consumers without an architecture fact can pass this check regardless of
+        // what arch the product requires.
+        boolean hasArch = JsCoercion.isTruthy(consumerArch);
+        if (!hasArch && !SYSTEM_TYPE.equals(consumerType)) {
+            return true;
+        }
+
+        if (productArches != null) {
+            Set<String> supported = new HashSet<>();
+            for (String arch : productArches.toUpperCase().split(",", -1)) {
+                supported.add(arch);
+            }
+
+            // If X86 is supported, add all variants
+            if (supported.contains("X86")) {
+                supported.add("I386");
+                supported.add("I586");
+                supported.add("I686");
+            }
+
+            return supported.contains("ALL") || (hasArch && supported.contains(consumerArch.toUpperCase()));
+        }
+
+        return true;
+    }
+}
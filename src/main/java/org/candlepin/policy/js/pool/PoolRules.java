@@ -76,7 +76,23 @@ public class PoolRules {
         this.productCurator = Objects.requireNonNull(productCurator);
     }
 
-    private long calculateQuantity(long quantity, Product product, String upstreamPoolId) {
+    /**
+     * Calculates the quantity of a master pool created from a subscription of the given quantity,
+     * applying the multipliers of the given product.
+     *
+     * @param quantity
+     *  the quantity of the subscription
+     *
+     * @param product
+     *  the product of the subscription
+     *
+     * @param upstreamPoolId
+     *  the upstream pool ID of the subscription, if any
+     *
+     * @return
+     *  the quantity of the master pool
+     */
+    public long calculateQuantity(long quantity, Product product, String upstreamPoolId) {
         // Pool quantities that are less than -1:
         // a) are not considered valid and will be treated as 'unlimited' quantity (-1) and
         // b) should never be multiplied with product multiplier or instance_multiplier
@@ -14,16 +14,29 @@
  */
 package org.candlepin.resource;
 
+import org.candlepin.audit.EventDispatcher;
 import org.candlepin.audit.EventSink;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.SecurityHole;
 import org.candlepin.auth.SystemPrincipal;
+import org.candlepin.controller.ConsumerCheckInRecorder;
+import org.candlepin.dto.api.server.v1.CheckInMetricsDTO;
+import org.candlepin.dto.api.server.v1.ComplianceCacheMetricsDTO;
+import org.candlepin.dto.api.server.v1.EventDispatchMetricsDTO;
+import org.candlepin.dto.api.server.v1.NodeMetricsDTO;
 import org.candlepin.dto.api.server.v1.QueueStatus;
+import org.candlepin.dto.api.server.v1.RulesMetricsDTO;
+import org.candlepin.dto.api.server.v1.TimingMetricsDTO;
 import org.candlepin.model.User;
 import org.candlepin.model.UserCurator;
+import org.candlepin.policy.js.JsRulesStatistics;
+import org.candlepin.policy.js.JsRunnerProvider;
+import org.candlepin.policy.js.JsScopePool;
+import org.candlepin.policy.js.compliance.ComplianceStatusCache;
 import org.candlepin.resource.server.v1.AdminApi;
 import org.candlepin.service.UserServiceAdapter;
 import org.candlepin.service.impl.DefaultUserServiceAdapter;
+import org.candlepin.util.TimingStatistics;
 
 import com.google.inject.Inject;
 
@@ -32,6 +45,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 
 
@@ -45,13 +59,22 @@ public class AdminResource implements AdminApi {
     private UserServiceAdapter userService;
     private UserCurator userCurator;
     private EventSink sink;
+    private EventDispatcher eventDispatcher;
+    private JsRunnerProvider jsProvider;
+    private ConsumerCheckInRecorder checkInRecorder;
+    private ComplianceStatusCache complianceCache;
 
     @Inject
     public AdminResource(UserServiceAdapter userService, UserCurator userCurator,
-        EventSink dispatcher) {
+        EventSink dispatcher, EventDispatcher eventDispatcher, JsRunnerProvider jsProvider,
+        ConsumerCheckInRecorder checkInRecorder, ComplianceStatusCache complianceCache) {
         this.userService = userService;
         this.userCurator = userCurator;
         this.sink = dispatcher;
+        this.eventDispatcher = eventDispatcher;
+        this.jsProvider = jsProvider;
+        this.checkInRecorder = checkInRecorder;
+        this.complianceCache = complianceCache;
     }
 
     @Override
@@ -84,4 +107,65 @@ public class AdminResource implements AdminApi {
     public List<QueueStatus> getQueueStats() {
         return sink.getQueueInfo();
     }
+
+    @Override
+    public NodeMetricsDTO getNodeMetrics() {
+        return new NodeMetricsDTO()
+            .eventDispatch(this.getEventDispatchMetrics())
+            .rules(this.getRulesMetrics())
+            .checkIns(this.getCheckInMetrics())
+            .complianceCache(this.getComplianceCacheMetrics());
+    }
+
+    private EventDispatchMetricsDTO getEventDispatchMetrics() {
+        return new EventDispatchMetricsDTO()
+            .enabled(this.eventDispatcher.isEnabled())
+            .queued(this.eventDispatcher.getQueuedBatchCount())
+            .dispatched(this.eventDispatcher.getDispatchedEventCount())
+            .sent(this.eventDispatcher.getSentMessageCount())
+            .failed(this.eventDispatcher.getFailedEventCount());
+    }
+
+    private RulesMetricsDTO getRulesMetrics() {
+        JsScopePool scopePool = this.jsProvider.getScopePool();
+        JsRulesStatistics statistics = this.jsProvider.getStatistics();
+
+        List<TimingMetricsDTO> invocations = statistics.getInvocationStatistics().entrySet().stream()
+            .map(entry -> buildTimingMetrics(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
+
+        return new RulesMetricsDTO()
+            .scopePoolEnabled(scopePool != null)
+            .allocatedScopes(scopePool != null ? scopePool.getAllocated() : 0)
+            .idleScopes(scopePool != null ? scopePool.getIdle() : 0)
+            .poolWait(buildTimingMetrics("poolWait", statistics.getPoolWaitStatistics()))
+            .invocations(invocations);
+    }
+
+    private CheckInMetricsDTO getCheckInMetrics() {
+        return new CheckInMetricsDTO()
+            .pending(this.checkInRecorder.getPendingCount())
+            .flushes(this.checkInRecorder.getFlushCount())
+            .flushed(this.checkInRecorder.getFlushedCheckInCount())
+            .lastFlushTime(this.checkInRecorder.getLastFlushDuration())
+            .maxFlushTime(this.checkInRecorder.getMaxFlushDuration());
+    }
+
+    private ComplianceCacheMetricsDTO getComplianceCacheMetrics() {
+        return new ComplianceCacheMetricsDTO()
+            .enabled(this.complianceCache.isEnabled())
+            .size(this.complianceCache.size())
+            .hits(this.complianceCache.getHits())
+            .misses(this.complianceCache.getMisses())
+            .hitRate(this.complianceCache.getHitRate());
+    }
+
+    private static TimingMetricsDTO buildTimingMetrics(String name, TimingStatistics statistics) {
+        return new TimingMetricsDTO()
+            .name(name)
+            .count(statistics.getCount())
+            .totalTime(statistics.getTotalMillis())
+            .averageTime(statistics.getAverageMillis())
+            .maxTime(statistics.getMaxMillis());
+    }
 }
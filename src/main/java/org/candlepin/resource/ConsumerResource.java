@@ -37,6 +37,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.AutobindDisabledForOwnerException;
 import org.candlepin.controller.AutobindHypervisorDisabledException;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.ContentAccessManager.ContentAccessMode;
 import org.candlepin.controller.EntitlementCertificateGenerator;
@@ -126,6 +127,7 @@ import org.candlepin.resource.util.EnvironmentUpdates;
 import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.resource.util.KeyValueStringParser;
 import org.candlepin.resource.validation.DTOValidator;
+import org.candlepin.resteasy.JsonProvider;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.service.IdentityCertServiceAdapter;
 import org.candlepin.service.ProductServiceAdapter;
@@ -139,6 +141,8 @@ import org.candlepin.util.FactValidator;
 import org.candlepin.util.PropertyValidationException;
 import org.candlepin.util.Util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
@@ -153,6 +157,7 @@ import org.xnap.commons.i18n.I18n;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.GeneralSecurityException;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
@@ -180,6 +185,7 @@ import javax.persistence.OptimisticLockException;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 
 /**
@@ -231,6 +237,8 @@ public class ConsumerResource implements ConsumerApi {
     private final Pattern consumerSystemNamePattern;
     private final Pattern consumerPersonNamePattern;
     private final EntitlementEnvironmentFilter entitlementEnvironmentFilter;
+    private final ConsumerCheckInRecorder checkInRecorder;
+    private final JsonProvider jsonProvider;
 
     @Inject
     @SuppressWarnings({"checkstyle:parameternumber"})
@@ -271,7 +279,9 @@ public class ConsumerResource implements ConsumerApi {
         ContentOverrideValidator coValidator,
         ConsumerContentOverrideCurator ccoCurator,
         EntitlementCertificateGenerator entCertGenerator,
-        EnvironmentContentCurator environmentContentCurator) {
+        EnvironmentContentCurator environmentContentCurator,
+        ConsumerCheckInRecorder checkInRecorder,
+        JsonProvider jsonProvider) {
 
         this.consumerCurator = Objects.requireNonNull(consumerCurator);
         this.consumerTypeCurator = Objects.requireNonNull(consumerTypeCurator);
@@ -316,6 +326,8 @@ public class ConsumerResource implements ConsumerApi {
         this.entCertGenerator = Objects.requireNonNull(entCertGenerator);
         this.entitlementEnvironmentFilter = new EntitlementEnvironmentFilter(
             entitlementCurator, environmentContentCurator);
+        this.checkInRecorder = Objects.requireNonNull(checkInRecorder);
+        this.jsonProvider = Objects.requireNonNull(jsonProvider);
     }
 
     /**
@@ -585,32 +597,45 @@ public class ConsumerResource implements ConsumerApi {
         new KeyValueStringParser(this.i18n).parseKeyValuePairs(facts)
             .forEach(kvpair -> queryArgs.addFact(kvpair.getKey(), kvpair.getValue()));
 
-        long count = this.consumerCurator.getConsumerCount(queryArgs);
-        log.debug("Consumer query will fetch {} consumers", count);
-
         // Do paging bits, if necessary
         PageRequest pageRequest = ResteasyContext.getContextData(PageRequest.class);
+        Page<Stream<ConsumerDTOArrayElement>> pageResponse = null;
+
         if (pageRequest != null) {
-            Page<Stream<ConsumerDTOArrayElement>> pageResponse = new Page<>();
+            pageResponse = new Page<>();
             pageResponse.setPageRequest(pageRequest);
 
-            if (pageRequest.isPaging()) {
-                queryArgs.setOffset((pageRequest.getPage() - 1) * pageRequest.getPerPage())
-                    .setLimit(pageRequest.getPerPage());
+            // Keyset requests only count the matching consumers when explicitly asked to
+            if (pageRequest.isCountRequested()) {
+                long count = this.consumerCurator.getConsumerCount(queryArgs);
+                log.debug("Consumer query will fetch {} consumers", count);
+
+                pageResponse.setMaxRecords((int) count);
             }
 
-            if (pageRequest.getSortBy() != null) {
-                boolean reverse = pageRequest.getOrder() == PageRequest.Order.DESCENDING;
-                queryArgs.addOrder(pageRequest.getSortBy(), reverse);
+            if (pageRequest.isKeyset()) {
+                this.consumerCurator.applyKeysetPaging(queryArgs, pageRequest);
             }
+            else {
+                if (pageRequest.isPaging()) {
+                    queryArgs.setOffset((pageRequest.getPage() - 1) * pageRequest.getPerPage())
+                        .setLimit(pageRequest.getPerPage());
+                }
 
-            pageResponse.setMaxRecords((int) count);
+                if (pageRequest.getSortBy() != null) {
+                    boolean reverse = pageRequest.getOrder() == PageRequest.Order.DESCENDING;
+                    queryArgs.addOrder(pageRequest.getSortBy(), reverse);
+                }
+            }
 
             // Store the page for the LinkHeaderResponseFilter
             ResteasyContext.pushContext(Page.class, pageResponse);
         }
         // If no paging was specified, force a limit on amount of results
         else {
+            long count = this.consumerCurator.getConsumerCount(queryArgs);
+            log.debug("Consumer query will fetch {} consumers", count);
+
             if (count > MAX_CONSUMERS_PER_REQUEST) {
                 String errmsg = this.i18n.tr("This endpoint does not support returning more than {0} " +
                     "results at a time, please use paging.", MAX_CONSUMERS_PER_REQUEST);
@@ -619,7 +644,13 @@ public class ConsumerResource implements ConsumerApi {
         }
 
         try {
-            return this.consumerCurator.findConsumers(queryArgs).stream()
+            List<Consumer> consumers = this.consumerCurator.findConsumers(queryArgs);
+
+            if (pageResponse != null) {
+                pageResponse.setNextCursor(this.consumerCurator.buildNextCursor(consumers, pageRequest));
+            }
+
+            return consumers.stream()
                 .map(this.translator.getStreamMapper(Consumer.class, ConsumerDTOArrayElement.class));
         }
         catch (InvalidOrderKeyException e) {
@@ -1606,6 +1637,11 @@ public class ConsumerResource implements ConsumerApi {
             // since only the facts table will receive the update.
             toUpdate.setUpdated(new Date());
 
+            // Changes made outside of hypervisor reports must not be skipped by the next report
+            if (toUpdate.getHypervisorId() != null) {
+                toUpdate.getHypervisorId().setReportHash(null);
+            }
+
             Event event = eventBuilder.setEventData(toUpdate).buildEvent();
             sink.queueEvent(event);
         }
@@ -2059,6 +2095,91 @@ public class ConsumerResource implements ConsumerApi {
         String serials) {
         log.debug("Getting client certificates for consumer: {}", consumerUuid);
 
+        Consumer consumer = this.lookupConsumerForCertificates(consumerUuid);
+        Set<Long> serialSet = this.extractSerials(serials);
+        List<? extends Certificate> entitlementCerts = this.entCertService.listForConsumer(consumer);
+        Certificate caCert = this.contentAccessManager.getCertificate(consumer);
+        Stream<? extends Certificate> certStream = this.buildCertificateStream(entitlementCerts, caCert);
+
+        // Check if we should filter certs by the cert serial
+        if (serialSet != null && !serialSet.isEmpty()) {
+            certStream = certStream
+                .filter(cert -> cert.getSerial() != null && serialSet.contains(cert.getSerial().getId()));
+        }
+
+        return certStream.map(this.translator.getStreamMapper(Certificate.class, CertificateDTO.class))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams the entitlement certificates of the given consumer as a JSON array of certificate
+     * DTOs. Unlike {@link #getEntitlementCertificates}, the certificates are never all held in
+     * memory: they are scrolled from the database while the response is being written, and each
+     * of them is evicted from the session once written.
+     * NOTE: Here we explicitly update consumer Check-In.
+     *
+     * @param consumerUuid
+     *  Consumer UUID
+     *
+     * @param serials
+     *  Certificate serial
+     *
+     * @return
+     *  a StreamingOutput writing the certificates
+     */
+    private StreamingOutput streamEntitlementCertificates(String consumerUuid, String serials) {
+        log.debug("Streaming client certificates for consumer: {}", consumerUuid);
+
+        Consumer consumer = this.lookupConsumerForCertificates(consumerUuid);
+        Set<Long> serialSet = this.extractSerials(serials);
+
+        Certificate caCert = this.contentAccessManager.getCertificate(consumer);
+        if (caCert != null && !serialSet.isEmpty() &&
+            (caCert.getSerial() == null || !serialSet.contains(caCert.getSerial().getId()))) {
+            caCert = null;
+        }
+
+        Certificate extraCert = caCert;
+        ObjectMapper mapper = this.jsonProvider.locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
+
+        return stream -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(stream)) {
+                generator.writeStartArray();
+
+                this.entCertService.forEachForConsumer(consumer, serialSet, cert -> {
+                    try {
+                        mapper.writeValue(generator, this.translator.translate(cert, CertificateDTO.class));
+                        return true;
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+                if (extraCert != null) {
+                    mapper.writeValue(generator, this.translator.translate(extraCert, CertificateDTO.class));
+                }
+
+                generator.writeEndArray();
+                generator.flush();
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    /**
+     * Looks up the consumer for which certificates are being fetched, bringing its entitlements
+     * up to date before their certificates are fetched.
+     *
+     * @param consumerUuid
+     *  Consumer UUID
+     *
+     * @return
+     *  the consumer with the given UUID
+     */
+    private Consumer lookupConsumerForCertificates(String consumerUuid) {
         // UpdateConsumerCheckIn
         // Explicitly updating consumer check-in,
         // as we merged getEntitlementCertificates & exportCertificates methods due to OpenAPI
@@ -2067,7 +2188,7 @@ public class ConsumerResource implements ConsumerApi {
         Principal principal = ResteasyContext.getContextData(Principal.class);
         if (principal instanceof ConsumerPrincipal) {
             ConsumerPrincipal p = (ConsumerPrincipal) principal;
-            consumerCurator.updateLastCheckin(p.getConsumer());
+            checkInRecorder.record(p.getConsumer());
         }
 
         Consumer consumer = consumerCurator.verifyAndLookupConsumer(consumerUuid);
@@ -2075,19 +2196,7 @@ public class ConsumerResource implements ConsumerApi {
         revokeOnGuestMigration(consumer);
         poolManager.regenerateDirtyEntitlements(consumer);
 
-        Set<Long> serialSet = this.extractSerials(serials);
-        List<? extends Certificate> entitlementCerts = this.entCertService.listForConsumer(consumer);
-        Certificate caCert = this.contentAccessManager.getCertificate(consumer);
-        Stream<? extends Certificate> certStream = this.buildCertificateStream(entitlementCerts, caCert);
-
-        // Check if we should filter certs by the cert serial
-        if (serialSet != null && !serialSet.isEmpty()) {
-            certStream = certStream
-                .filter(cert -> cert.getSerial() != null && serialSet.contains(cert.getSerial().getId()));
-        }
-
-        return certStream.map(this.translator.getStreamMapper(Certificate.class, CertificateDTO.class))
-            .collect(Collectors.toList());
+        return consumer;
     }
 
     /**
@@ -2170,7 +2279,7 @@ public class ConsumerResource implements ConsumerApi {
         HttpRequest httpRequest = ResteasyContext.getContextData(HttpRequest.class);
 
         if (httpRequest.getHttpHeaders().getRequestHeader("accept").contains("application/json")) {
-            return getEntitlementCertificates(consumerUuid, serials);
+            return this.streamEntitlementCertificates(consumerUuid, serials);
         }
 
         Consumer consumer = consumerCurator.verifyAndLookupConsumer(consumerUuid);
@@ -2229,8 +2338,9 @@ public class ConsumerResource implements ConsumerApi {
         revokeOnGuestMigration(consumer);
         poolManager.regenerateDirtyEntitlements(consumer);
 
-        List<CertificateSerialDTO> allCerts = new LinkedList<>();
-        for (Long id : entCertService.listEntitlementSerialIds(consumer)) {
+        List<Long> serialIds = entCertService.listEntitlementSerialIds(consumer);
+        List<CertificateSerialDTO> allCerts = new ArrayList<>(serialIds.size() + 1);
+        for (Long id : serialIds) {
             allCerts.add(new CertificateSerialDTO().serial(id));
         }
 
@@ -139,6 +139,12 @@ public class GuestIdResource implements GuestIdsApi {
 
         sink.queueEvent(eventFactory.guestIdDeleted(toDelete));
         guestIdCurator.delete(toDelete);
+
+        // The host's guests no longer match its last hypervisor report, which must not be skipped
+        if (consumer.getHypervisorId() != null) {
+            consumer.getHypervisorId().setReportHash(null);
+            consumerCurator.update(consumer);
+        }
     }
 
     @Override
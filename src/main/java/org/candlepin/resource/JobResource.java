@@ -16,6 +16,7 @@ package org.candlepin.resource;
 
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobException;
+import org.candlepin.async.JobLane;
 import org.candlepin.async.JobManager;
 import org.candlepin.async.StateManagementException;
 import org.candlepin.auth.Verify;
@@ -23,6 +24,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.api.server.v1.AsyncJobStatusDTO;
+import org.candlepin.dto.api.server.v1.JobLaneStatusDTO;
 import org.candlepin.dto.api.server.v1.SchedulerStatusDTO;
 import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.exceptions.ForbiddenException;
@@ -51,9 +53,11 @@ import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -103,12 +107,51 @@ public class JobResource implements JobsApi {
 
         JobManager.ManagerState state = this.jobManager.getManagerState();
         output.isRunning(state == JobManager.ManagerState.RUNNING);
-
-        // TODO: Add other stuff here as necessary (jobs stats like running, queued, etc.)
+        output.lanes(this.getJobLaneStatuses());
 
         return output;
     }
 
+    /**
+     * Builds the statuses of the job lanes of this node. The queued job counts are read from the
+     * database, and include the jobs queued for every node.
+     */
+    private List<JobLaneStatusDTO> getJobLaneStatuses() {
+        List<JobLane> lanes = this.jobManager.getJobLanes();
+        if (lanes == null || lanes.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Long> queued = new HashMap<>(this.jobCurator.getJobCountsByKey(List.of(JobState.QUEUED)));
+        List<JobLaneStatusDTO> statuses = new ArrayList<>();
+
+        for (JobLane lane : lanes) {
+            long laneQueued = 0;
+
+            // The default lane is always last, and takes every job left unclaimed by the other lanes
+            Collection<String> jobKeys = lane.isDefault() ? Set.copyOf(queued.keySet()) : lane.getJobKeys();
+            for (String jobKey : jobKeys) {
+                Long count = queued.remove(jobKey);
+                laneQueued += count != null ? count : 0;
+            }
+
+            statuses.add(new JobLaneStatusDTO()
+                .name(lane.getName())
+                .jobKeys(new ArrayList<>(lane.getJobKeys()))
+                .threads(lane.getThreads())
+                .priority(lane.getPriority())
+                .queued(laneQueued)
+                .running(lane.getRunningCount())
+                .processed(lane.getProcessedCount())
+                .failed(lane.getFailedCount())
+                .averageQueueLatency(lane.getAverageQueueLatency())
+                .maxQueueLatency(lane.getMaxQueueLatency())
+                .averageRuntime(lane.getAverageRuntime()));
+        }
+
+        return statuses;
+    }
+
     @Override
     @Transactional
     public SchedulerStatusDTO setSchedulerStatus(Boolean running) {
@@ -185,31 +228,41 @@ public class JobResource implements JobsApi {
             .setStartDate(Util.toDate(after))
             .setEndDate(Util.toDate(before));
 
-        int count = (int) this.jobCurator.getJobCount(queryArgs);
-
         // Do paging bits, if necessary
         PageRequest pageRequest = ResteasyContext.getContextData(PageRequest.class);
+        Page<Stream<AsyncJobStatusDTO>> page = null;
+
         if (pageRequest != null) {
-            Page<Stream<AsyncJobStatusDTO>> page = new Page<>();
+            page = new Page<>();
             page.setPageRequest(pageRequest);
 
-            if (pageRequest.isPaging()) {
-                queryArgs.setOffset((pageRequest.getPage() - 1) * pageRequest.getPerPage())
-                    .setLimit(pageRequest.getPerPage());
+            // Keyset requests only count the matching jobs when explicitly asked to
+            if (pageRequest.isCountRequested()) {
+                page.setMaxRecords((int) this.jobCurator.getJobCount(queryArgs));
             }
 
-            if (pageRequest.getSortBy() != null) {
-                boolean reverse = pageRequest.getOrder() == PageRequest.Order.DESCENDING;
-                queryArgs.addOrder(pageRequest.getSortBy(), reverse);
+            if (pageRequest.isKeyset()) {
+                this.jobCurator.applyKeysetPaging(queryArgs, pageRequest);
             }
+            else {
+                if (pageRequest.isPaging()) {
+                    queryArgs.setOffset((pageRequest.getPage() - 1) * pageRequest.getPerPage())
+                        .setLimit(pageRequest.getPerPage());
+                }
 
-            page.setMaxRecords(count);
+                if (pageRequest.getSortBy() != null) {
+                    boolean reverse = pageRequest.getOrder() == PageRequest.Order.DESCENDING;
+                    queryArgs.addOrder(pageRequest.getSortBy(), reverse);
+                }
+            }
 
             // Store the page for the LinkHeaderResponseFilter
             ResteasyContext.pushContext(Page.class, page);
         }
         // If no paging was specified, force a limit on amount of results
         else {
+            int count = (int) this.jobCurator.getJobCount(queryArgs);
+
             if (count > MAX_JOB_RESULTS) {
                 String errmsg = this.i18n.tr("This endpoint does not support returning more than {0} " +
                     "results at a time, please use paging.", MAX_JOB_RESULTS);
@@ -218,7 +271,13 @@ public class JobResource implements JobsApi {
         }
 
         try {
-            return this.jobManager.findJobs(queryArgs).stream()
+            List<AsyncJobStatus> jobs = this.jobManager.findJobs(queryArgs);
+
+            if (page != null) {
+                page.setNextCursor(this.jobCurator.buildNextCursor(jobs, pageRequest));
+            }
+
+            return jobs.stream()
                 .map(this.translator.getStreamMapper(AsyncJobStatus.class, AsyncJobStatusDTO.class));
         }
         catch (InvalidOrderKeyException e) {
@@ -1104,32 +1104,45 @@ public class OwnerResource implements OwnerApi {
         new KeyValueStringParser(this.i18n).parseKeyValuePairs(facts)
             .forEach(kvpair -> queryArgs.addFact(kvpair.getKey(), kvpair.getValue()));
 
-        long count = this.consumerCurator.getConsumerCount(queryArgs);
-        log.debug("Consumer query will fetch {} consumers", count);
-
         // Do paging bits, if necessary
         PageRequest pageRequest = ResteasyContext.getContextData(PageRequest.class);
+        Page<Stream<ConsumerDTOArrayElement>> pageResponse = null;
+
         if (pageRequest != null) {
-            Page<Stream<ConsumerDTOArrayElement>> pageResponse = new Page<>();
+            pageResponse = new Page<>();
             pageResponse.setPageRequest(pageRequest);
 
-            if (pageRequest.isPaging()) {
-                queryArgs.setOffset((pageRequest.getPage() - 1) * pageRequest.getPerPage())
-                    .setLimit(pageRequest.getPerPage());
+            // Keyset requests only count the matching consumers when explicitly asked to
+            if (pageRequest.isCountRequested()) {
+                long count = this.consumerCurator.getConsumerCount(queryArgs);
+                log.debug("Consumer query will fetch {} consumers", count);
+
+                pageResponse.setMaxRecords((int) count);
             }
 
-            if (pageRequest.getSortBy() != null) {
-                boolean reverse = pageRequest.getOrder() == PageRequest.Order.DESCENDING;
-                queryArgs.addOrder(pageRequest.getSortBy(), reverse);
+            if (pageRequest.isKeyset()) {
+                this.consumerCurator.applyKeysetPaging(queryArgs, pageRequest);
             }
+            else {
+                if (pageRequest.isPaging()) {
+                    queryArgs.setOffset((pageRequest.getPage() - 1) * pageRequest.getPerPage())
+                        .setLimit(pageRequest.getPerPage());
+                }
 
-            pageResponse.setMaxRecords((int) count);
+                if (pageRequest.getSortBy() != null) {
+                    boolean reverse = pageRequest.getOrder() == PageRequest.Order.DESCENDING;
+                    queryArgs.addOrder(pageRequest.getSortBy(), reverse);
+                }
+            }
 
             // Store the page for the LinkHeaderResponseFilter
             ResteasyContext.pushContext(Page.class, pageResponse);
         }
         // If no paging was specified, force a limit on amount of results
         else {
+            long count = this.consumerCurator.getConsumerCount(queryArgs);
+            log.debug("Consumer query will fetch {} consumers", count);
+
             if (count > MAX_CONSUMERS_PER_REQUEST) {
                 String errmsg = this.i18n.tr("This endpoint does not support returning more than {0} " +
                     "results at a time, please use paging.", MAX_CONSUMERS_PER_REQUEST);
@@ -1138,7 +1151,13 @@ public class OwnerResource implements OwnerApi {
         }
 
         try {
-            return this.consumerCurator.findConsumers(queryArgs).stream()
+            List<Consumer> consumers = this.consumerCurator.findConsumers(queryArgs);
+
+            if (pageResponse != null) {
+                pageResponse.setNextCursor(this.consumerCurator.buildNextCursor(consumers, pageRequest));
+            }
+
+            return consumers.stream()
                 .map(this.translator.getStreamMapper(Consumer.class, ConsumerDTOArrayElement.class));
         }
         catch (InvalidOrderKeyException e) {
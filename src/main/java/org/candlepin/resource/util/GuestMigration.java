@@ -225,7 +225,12 @@ public class GuestMigration {
             return modifiedConsumers;
         }
 
-        /** Perform all necessary object updates necessary to resolve this manifest */
+        /**
+         * Perform all necessary object updates necessary to resolve this manifest. The hypervisor
+         * report hash of every affected host is cleared, as their guests no longer match the last
+         * report they were reconciled from; hypervisor check-ins set the hash of the reporting
+         * host again once it has been reconciled.
+         */
         public void writeMigrationChanges() {
             for (GuestId id : newGuests) {
                 newHost.addGuestId(id);
@@ -235,6 +240,12 @@ public class GuestMigration {
                 Consumer oldHost = entry.getKey();
                 entry.getValue().forEach(oldHost::removeGuestId);
             }
+
+            for (Consumer host : this.asSet()) {
+                if (host.getHypervisorId() != null) {
+                    host.getHypervisorId().setReportHash(null);
+                }
+            }
         }
     }
 }
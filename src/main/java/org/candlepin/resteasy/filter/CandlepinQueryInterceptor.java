@@ -14,6 +14,7 @@
  */
 package org.candlepin.resteasy.filter;
 
+import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.model.AbstractHibernateObject;
 import org.candlepin.model.CandlepinQuery;
 import org.candlepin.model.ResultIterator;
@@ -31,6 +32,7 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.criterion.Order;
 import org.jboss.resteasy.core.ResteasyContext;
+import org.xnap.commons.i18n.I18n;
 
 import java.util.Objects;
 
@@ -45,19 +47,23 @@ import javax.ws.rs.core.StreamingOutput;
 
 /**
  * The CandlepinQueryInterceptor handles the streaming of a query and applies any paging
- * configuration.
+ * configuration. Keyset paging is not supported for queries, as the cursor of the next page is
+ * only known once the page has been streamed, after the Link header has been sent. Keyset page
+ * requests are rejected rather than served a page without a link to the next one.
  */
 @javax.ws.rs.ext.Provider
 public class CandlepinQueryInterceptor implements ContainerResponseFilter {
 
     protected final JsonProvider jsonProvider;
     protected final Provider<EntityManager> emProvider;
+    protected final javax.inject.Provider<I18n> i18nProvider;
 
     @Inject
-    public CandlepinQueryInterceptor(
-        final JsonProvider jsonProvider, final Provider<EntityManager> emProvider) {
+    public CandlepinQueryInterceptor(final JsonProvider jsonProvider,
+        final Provider<EntityManager> emProvider, final javax.inject.Provider<I18n> i18nProvider) {
         this.jsonProvider = Objects.requireNonNull(jsonProvider);
         this.emProvider = Objects.requireNonNull(emProvider);
+        this.i18nProvider = Objects.requireNonNull(i18nProvider);
     }
 
     /**
@@ -78,6 +84,11 @@ public class CandlepinQueryInterceptor implements ContainerResponseFilter {
 
         if (entity instanceof CandlepinQuery) {
             PageRequest pageRequest = ResteasyContext.getContextData(PageRequest.class);
+            if (pageRequest != null && pageRequest.isKeyset()) {
+                throw new BadRequestException(this.i18nProvider.get()
+                    .tr("cursor paging is not supported for this listing"));
+            }
+
             Session session = this.openSession();
 
             // Open a transaction to avoid Hibernate erroneously closing the session after processing
@@ -46,6 +46,9 @@ import javax.ws.rs.ext.Provider;
  * LinkHeaderResponseFilter inserts a Link header into the HTTP response to a request that asked for paging.
  * The Link header is defined in RFC 5988 and is used to communicated to the client the URLs for the next
  * page, previous page, first page, and last page.
+ * <p></p>
+ * Keyset pages can only be walked forward, so their Link header only contains the first and next pages,
+ * the latter only if the page has a next cursor.
  */
 @Provider
 @Priority(Priorities.HEADER_DECORATOR)
@@ -99,6 +102,11 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
         builder = addUnchangingQueryParams(builder, params);
         //TODO add missing parameters like the default limit if no limit is given.
 
+        if (page.getPageRequest().isKeyset()) {
+            this.addKeysetLinks(page, builder, respContext);
+            return;
+        }
+
         try {
             LinkHeader header = new LinkHeader();
 
@@ -126,6 +134,46 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
         respContext.getHeaders().add(TOTAL_RECORDS_COUNT, page.getMaxRecords());
     }
 
+    @SuppressWarnings("rawtypes")
+    protected void addKeysetLinks(Page page, UriBuilder builder, ContainerResponseContext respContext) {
+        try {
+            LinkHeader header = new LinkHeader();
+
+            if (page.getNextCursor() != null) {
+                header.addLink("next", "next", buildCursorLink(builder, page.getNextCursor().encode()),
+                    LINK_TYPE);
+            }
+
+            header.addLink("first", "first", buildCursorLink(builder, ""), LINK_TYPE);
+
+            respContext.getHeaders().add(LINK_HEADER, header.toString());
+        }
+        catch (LinkTooLongException e) {
+            log.warn("Link length exceeded maximum length ({}). " +
+                "Link headers will be omitted from this response.",
+                MAX_LINK_LENGTH, e);
+        }
+
+        // The record count is optional for keyset pages
+        if (page.getMaxRecords() != null) {
+            respContext.getHeaders().add(TOTAL_RECORDS_COUNT, page.getMaxRecords());
+        }
+    }
+
+    protected String buildCursorLink(UriBuilder b, String cursor) {
+        // Copy so we can use the same builder for building each link.
+        UriBuilder builder = b.clone();
+        builder.queryParam(PageRequest.CURSOR_PARAM, cursor);
+
+        String link = builder.build().toString();
+
+        if (link.length() > MAX_LINK_LENGTH) {
+            throw new LinkTooLongException(link);
+        }
+
+        return link;
+    }
+
     protected String buildPageLink(UriBuilder b, int value) {
         // Copy so we can use the same builder for building each link.
         UriBuilder builder = b.clone();
@@ -203,11 +251,12 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
 
     protected UriBuilder addUnchangingQueryParams(UriBuilder builder,
         MultivaluedMap<String, String> params) {
-        // This will take care of adding back any order, per_page, or sort_by
+        // This will take care of adding back any order, per_page, sort_by, or count
         // parameters provided too.
         if (params != null) {
             for (Entry<String, List<String>> e : params.entrySet()) {
-                if (!e.getKey().equals(PageRequest.PAGE_PARAM)) {
+                if (!e.getKey().equals(PageRequest.PAGE_PARAM) &&
+                    !e.getKey().equals(PageRequest.CURSOR_PARAM)) {
                     for (String v : e.getValue()) {
                         builder = builder.queryParam(e.getKey(), v);
                     }
@@ -15,6 +15,7 @@
 package org.candlepin.resteasy.filter;
 
 import org.candlepin.exceptions.BadRequestException;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 import org.candlepin.paging.PageRequest.Order;
 
@@ -36,6 +37,8 @@ import javax.ws.rs.ext.Provider;
 
 /**
  * PageRequestFilter parses a common set of query parameters used to page through results from Candlepin.
+ * Providing the cursor parameter, even empty, requests keyset paging, in which case the page parameter
+ * is not allowed.
  */
 @Provider
 @Priority(Priorities.USER)
@@ -57,8 +60,10 @@ public class PageRequestFilter implements ContainerRequestFilter {
         String perPage = params.getFirst(PageRequest.PER_PAGE_PARAM);
         String order = params.getFirst(PageRequest.ORDER_PARAM);
         String sortBy = params.getFirst(PageRequest.SORT_BY_PARAM);
+        String cursor = params.getFirst(PageRequest.CURSOR_PARAM);
+        String count = params.getFirst(PageRequest.COUNT_PARAM);
 
-        if (page != null || perPage != null || order != null || sortBy != null) {
+        if (page != null || perPage != null || order != null || sortBy != null || cursor != null) {
             p = new PageRequest();
 
             if (order == null) {
@@ -72,6 +77,24 @@ public class PageRequestFilter implements ContainerRequestFilter {
              * sortBy is null. */
             p.setSortBy(sortBy);
 
+            if (count != null) {
+                p.setCountRequested(readBoolean(count));
+            }
+
+            if (cursor != null) {
+                if (page != null) {
+                    I18n i18n = this.i18nProvider.get();
+                    throw new BadRequestException(i18n.tr("the page and cursor parameters cannot be " +
+                        "used together"));
+                }
+
+                p.setKeyset(true);
+                p.setCursor(readCursor(cursor));
+
+                // Keyset pages are always fetched from the start of the keyset restriction
+                page = String.valueOf(PageRequest.DEFAULT_PAGE);
+            }
+
             try {
                 if (page == null && perPage != null) {
                     p.setPage(PageRequest.DEFAULT_PAGE);
@@ -109,6 +132,32 @@ public class PageRequestFilter implements ContainerRequestFilter {
                 " \"ascending\" or \"descending\""));
     }
 
+    private PageCursor readCursor(String cursor) {
+        if (cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return PageCursor.decode(cursor);
+        }
+        catch (IllegalArgumentException e) {
+            I18n i18n = this.i18nProvider.get();
+            throw new BadRequestException(i18n.tr("the cursor parameter is not a valid page cursor"), e);
+        }
+    }
+
+    private Boolean readBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        else if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+
+        I18n i18n = this.i18nProvider.get();
+        throw new BadRequestException(i18n.tr("the count parameter must be either \"true\" or \"false\""));
+    }
+
     private Integer readInteger(String value) {
         if (value != null) {
             int i = Integer.parseInt(value);
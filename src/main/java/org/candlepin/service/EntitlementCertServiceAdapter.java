@@ -19,9 +19,11 @@ import org.candlepin.model.Entitlement;
 import org.candlepin.model.EntitlementCertificate;
 import org.candlepin.model.PoolQuantity;
 import org.candlepin.model.Product;
+import org.candlepin.model.ResultProcessor;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -73,6 +75,18 @@ public interface EntitlementCertServiceAdapter {
      */
     List<EntitlementCertificate> listForConsumer(Consumer consumer);
 
+    /**
+     * Pass each entitlement certificate of a given consumer to a processor, without holding all of
+     * the certificates in memory at once.
+     *
+     * @param consumer
+     * @param serials the serials of the certs to process, or null to process all of them.
+     * @param processor the processor to receive the certs.
+     * @return The number of certs processed.
+     */
+    int forEachForConsumer(Consumer consumer, Collection<Long> serials,
+        ResultProcessor<EntitlementCertificate> processor);
+
     /**
      * Return a list of all entitlement certificate serial ids for a given consumer.
      *
@@ -17,8 +17,10 @@ package org.candlepin.service.impl;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.EntitlementCertificate;
 import org.candlepin.model.EntitlementCertificateCurator;
+import org.candlepin.model.ResultProcessor;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 
+import java.util.Collection;
 import java.util.List;
 
 
@@ -38,4 +40,10 @@ public abstract class BaseEntitlementCertServiceAdapter implements EntitlementCe
         return entCertCurator.listForConsumer(consumer);
     }
 
+    @Override
+    public int forEachForConsumer(Consumer consumer, Collection<Long> serials,
+        ResultProcessor<EntitlementCertificate> processor) {
+        return entCertCurator.forEachForConsumer(consumer, serials, processor);
+    }
+
 }
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.service.impl;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import com.google.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Runs the CPU-bound stages of certificate generation, such as signing and payload compression,
+ * on a bounded set of worker threads shared by all requests.
+ * <p></p>
+ * Tasks run through this executor must not touch the database session or lazily loaded entity
+ * state, as they do not run on the requesting thread. When the worker queue is full, tasks are run
+ * by the submitting thread instead, so a burst of requests slows down rather than queueing without
+ * bound. If the configured thread count is less than two, every task runs on the submitting thread.
+ */
+@Singleton
+public class CertificateGenerationExecutor {
+    private static final Logger log = LoggerFactory.getLogger(CertificateGenerationExecutor.class);
+
+    /**
+     * A unit of certificate generation work
+     *
+     * @param <T>
+     *  the type of the task's result
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T run() throws GeneralSecurityException, IOException;
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    @Inject
+    public CertificateGenerationExecutor(Configuration config) {
+        int threads = config.getInt(ConfigProperties.ENTITLEMENT_CERT_GENERATION_THREADS);
+
+        if (threads > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+
+            this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "cert-generation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+            this.executor.allowCoreThreadTimeOut(true);
+            log.info("Generating certificates with up to {} worker threads", threads);
+        }
+        else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Checks whether or not tasks run on worker threads.
+     *
+     * @return
+     *  true if tasks run on worker threads; false if they run on the submitting thread
+     */
+    public boolean isParallel() {
+        return this.executor != null;
+    }
+
+    /**
+     * Runs the given tasks and waits for all of them to complete. Results are returned in the order
+     * of the tasks. If any task fails, the first failure, in task order, is rethrown once every task
+     * has completed.
+     *
+     * @param tasks
+     *  the tasks to run
+     *
+     * @throws GeneralSecurityException
+     *  if a task fails with a GeneralSecurityException
+     *
+     * @throws IOException
+     *  if a task fails with an IOException
+     *
+     * @return
+     *  a list containing the results of the tasks
+     */
+    public <T> List<T> runAll(List<Task<T>> tasks) throws GeneralSecurityException, IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+
+        if (this.executor == null || tasks.size() < 2) {
+            for (Task<T> task : tasks) {
+                results.add(task.run());
+            }
+
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Task<T> task : tasks) {
+            futures.add(this.executor.submit(task::run));
+        }
+
+        Throwable failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            }
+            catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+
+                throw new RuntimeException("Interrupted while generating certificates", e);
+            }
+        }
+
+        if (failure instanceof GeneralSecurityException) {
+            throw (GeneralSecurityException) failure;
+        }
+        else if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        else if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+
+        return results;
+    }
+}
@@ -38,6 +38,7 @@ import org.candlepin.model.Pool;
 import org.candlepin.model.PoolQuantity;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductContent;
+import org.candlepin.model.dto.EntitlementBody;
 import org.candlepin.pki.PKIUtility;
 import org.candlepin.pki.X509ByteExtensionWrapper;
 import org.candlepin.pki.X509ExtensionWrapper;
@@ -62,6 +63,7 @@ import java.math.BigInteger;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
@@ -89,6 +91,33 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
     private final Configuration config;
     private final ConsumerTypeCurator consumerTypeCurator;
     private final EnvironmentCurator environmentCurator;
+    private final CertificateGenerationExecutor generationExecutor;
+
+    /**
+     * The inputs of an entitlement certificate, gathered on the requesting thread so the
+     * certificate can be signed and encoded without touching the database or lazily loaded state.
+     */
+    private static class PendingCertificate {
+        private final String dn;
+        private final Set<X509ExtensionWrapper> extensions;
+        private final List<org.candlepin.model.dto.Product> productModels;
+        private final Date startDate;
+        private final Date endDate;
+        private final BigInteger serialNumber;
+        private EntitlementBody entitlementBody;
+
+        private PendingCertificate(String dn, Set<X509ExtensionWrapper> extensions,
+            List<org.candlepin.model.dto.Product> productModels, Date startDate, Date endDate,
+            BigInteger serialNumber) {
+
+            this.dn = dn;
+            this.extensions = extensions;
+            this.productModels = productModels;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.serialNumber = serialNumber;
+        }
+    }
 
     @Inject
     public DefaultEntitlementCertServiceAdapter(PKIUtility pki,
@@ -100,7 +129,8 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         EntitlementCurator entCurator, I18n i18n,
         Configuration config,
         ConsumerTypeCurator consumerTypeCurator,
-        EnvironmentCurator environmentCurator) {
+        EnvironmentCurator environmentCurator,
+        CertificateGenerationExecutor generationExecutor) {
 
         this.pki = pki;
         this.extensionUtil = extensionUtil;
@@ -113,6 +143,7 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         this.config = config;
         this.consumerTypeCurator = consumerTypeCurator;
         this.environmentCurator = environmentCurator;
+        this.generationExecutor = generationExecutor;
     }
 
 
@@ -169,14 +200,26 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         KeyPair keyPair, PromotedContent promotedContent, Set<Pool> entitledPools)
         throws GeneralSecurityException, IOException {
 
+        PendingCertificate pending = this.prepareX509Certificate(consumer, owner, pool, ent, product,
+            products, productModels, serialNumber, promotedContent, entitledPools,
+            shouldGenerateV3(consumer));
+
+        return this.signX509Certificate(pending, keyPair);
+    }
+
+    private PendingCertificate prepareX509Certificate(Consumer consumer, Owner owner, Pool pool,
+        Entitlement ent, Product product, Set<Product> products,
+        List<org.candlepin.model.dto.Product> productModels, BigInteger serialNumber,
+        PromotedContent promotedContent, Set<Pool> entitledPools, boolean generateV3) {
+
         // oidutil is busted at the moment, so do this manually
         Set<X509ExtensionWrapper> extensions;
-        Set<X509ByteExtensionWrapper> byteExtensions = new LinkedHashSet<>();
+        List<org.candlepin.model.dto.Product> byteExtensionModels = null;
         products.add(product);
 
-        if (shouldGenerateV3(consumer)) {
+        if (generateV3) {
             extensions = prepareV3Extensions();
-            byteExtensions = this.v3extensionUtil.getByteExtensions(productModels);
+            byteExtensionModels = productModels;
         }
         else {
             extensions = prepareV1Extensions(products, pool, consumer, ent.getQuantity(),
@@ -194,9 +237,53 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
             startDate = calMinusHour.getTime();
         }
 
-        return this.pki.createX509Certificate(
-            createDN(ent, owner), extensions, byteExtensions, startDate,
-            endDate, keyPair, serialNumber, null);
+        return new PendingCertificate(createDN(ent, owner), extensions, byteExtensionModels, startDate,
+            endDate, serialNumber);
+    }
+
+    private X509Certificate signX509Certificate(PendingCertificate pending, KeyPair keyPair)
+        throws GeneralSecurityException, IOException {
+
+        // The v3 content extension is encoded here, as the encoding only needs the product models
+        Set<X509ByteExtensionWrapper> byteExtensions = pending.productModels != null ?
+            this.v3extensionUtil.getByteExtensions(pending.productModels) :
+            new LinkedHashSet<>();
+
+        return this.pki.createX509Certificate(pending.dn, pending.extensions, byteExtensions,
+            pending.startDate, pending.endDate, keyPair, pending.serialNumber, null);
+    }
+
+    /**
+     * Signs the pending certificate and encodes it, along with its signed entitlement data payload
+     * for v3 certificates. This only works with the state gathered in the pending certificate, so
+     * it is safe to run off of the requesting thread.
+     */
+    private String encodeCertificate(PendingCertificate pending, KeyPair keyPair)
+        throws GeneralSecurityException, IOException {
+
+        X509Certificate x509Cert = this.signX509Certificate(pending, keyPair);
+
+        log.debug("Getting PEM encoded cert.");
+        String pem = new String(this.pki.getPemEncoded(x509Cert));
+
+        if (pending.entitlementBody != null) {
+            log.debug("Generating v3 entitlement data");
+
+            byte[] payloadBytes = v3extensionUtil.createEntitlementDataPayload(pending.entitlementBody);
+
+            String payload = "-----BEGIN ENTITLEMENT DATA-----\n";
+            payload += Util.toBase64(payloadBytes);
+            payload += "-----END ENTITLEMENT DATA-----\n";
+
+            byte[] bytes = pki.getSHA256WithRSAHash(new ByteArrayInputStream(payloadBytes));
+            String signature = "-----BEGIN RSA SIGNATURE-----\n";
+            signature += Util.toBase64(bytes);
+            signature += "-----END RSA SIGNATURE-----\n";
+
+            pem += payload + signature;
+        }
+
+        return pem;
     }
 
     /**
@@ -378,12 +465,18 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         PromotedContent promotedContent = new PromotedContent(contentPrefix)
             .withAll(environments);
 
-        Map<String, EntitlementCertificate> entitlementCerts = new HashMap<>();
-        for (Entry<String, PoolQuantity> entry : poolQuantities.entrySet()) {
-            Pool pool = entry.getValue().getPool();
-            Entitlement ent = entitlements.get(entry.getKey());
-            CertificateSerial serial = serialMap.get(entry.getKey());
-            Product product = productMap.get(entry.getKey());
+        boolean generateV3 = shouldGenerateV3(consumer);
+
+        // Gather everything which needs the database or the entities on this thread, and leave the
+        // signing and encoding of the certificates to the generation executor.
+        List<String> poolIds = new ArrayList<>(poolQuantities.keySet());
+        List<CertificateGenerationExecutor.Task<String>> tasks = new ArrayList<>(poolIds.size());
+
+        for (String poolId : poolIds) {
+            Pool pool = poolQuantities.get(poolId).getPool();
+            Entitlement ent = entitlements.get(poolId);
+            CertificateSerial serial = serialMap.get(poolId);
+            Product product = productMap.get(poolId);
 
             log.info("Generating entitlement cert for pool: {} quantity: {} entitlement id: {}",
                 pool,
@@ -403,46 +496,40 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
             List<org.candlepin.model.dto.Product> productModels = v3extensionUtil.createProducts(product,
                 products, promotedContent, consumer, pool, entitledPools);
 
-            X509Certificate x509Cert = createX509Certificate(consumer, owner, pool, ent,
-                product, products, productModels,
-                BigInteger.valueOf(serial.getId()), keyPair, promotedContent, entitledPools);
-
-            log.debug("Getting PEM encoded cert.");
-            String pem = new String(this.pki.getPemEncoded(x509Cert));
+            PendingCertificate pending = this.prepareX509Certificate(consumer, owner, pool, ent,
+                product, products, productModels, BigInteger.valueOf(serial.getId()), promotedContent,
+                entitledPools, generateV3);
 
-            if (shouldGenerateV3(consumer)) {
-                log.debug("Generating v3 entitlement data");
-
-                byte[] payloadBytes = v3extensionUtil.createEntitlementDataPayload(productModels,
-                    consumer, pool, ent.getQuantity());
+            if (generateV3) {
+                pending.entitlementBody = v3extensionUtil.createEntitlementBody(productModels, consumer,
+                    pool, ent.getQuantity());
+            }
 
-                String payload = "-----BEGIN ENTITLEMENT DATA-----\n";
-                payload += Util.toBase64(payloadBytes);
-                payload += "-----END ENTITLEMENT DATA-----\n";
+            tasks.add(() -> this.encodeCertificate(pending, keyPair));
+        }
 
-                byte[] bytes = pki.getSHA256WithRSAHash(new ByteArrayInputStream(payloadBytes));
-                String signature = "-----BEGIN RSA SIGNATURE-----\n";
-                signature += Util.toBase64(bytes);
-                signature += "-----END RSA SIGNATURE-----\n";
+        List<String> pems = this.generationExecutor.runAll(tasks);
 
-                pem += payload + signature;
-            }
+        Map<String, EntitlementCertificate> entitlementCerts = new HashMap<>();
+        for (int i = 0; i < poolIds.size(); ++i) {
+            String poolId = poolIds.get(i);
+            Entitlement ent = entitlements.get(poolId);
 
             // Build a skeleton cert as part of the entitlement processing.
             EntitlementCertificate cert = new EntitlementCertificate();
             cert.setKeyAsBytes(pemEncodedKeyPair);
-            cert.setCert(pem);
+            cert.setCert(pems.get(i));
             if (save) {
                 cert.setEntitlement(ent);
             }
 
             if (log.isDebugEnabled()) {
-                log.debug("Generated cert serial number: {}", serial.getId());
+                log.debug("Generated cert serial number: {}", serialMap.get(poolId).getId());
                 log.debug("Key: {}", cert.getKey());
                 log.debug("Cert: {}", cert.getCert());
             }
 
-            entitlementCerts.put(entry.getKey(), cert);
+            entitlementCerts.put(poolId, cert);
         }
 
         // Now that the serials have been saved, update the newly created
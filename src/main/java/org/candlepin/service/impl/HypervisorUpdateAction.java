@@ -38,13 +38,18 @@ import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.service.SubscriptionServiceAdapter;
 import org.candlepin.util.Transactional;
 
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,6 +57,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 
 
@@ -97,6 +104,43 @@ public class HypervisorUpdateAction {
         final String principal,
         final String jobReporterId) {
 
+        return this.update(owner, hypervisors, null, create, principal, jobReporterId);
+    }
+
+    /**
+     * Creates or updates the given hypervisors. Known hosts whose report hash matches the hash
+     * stored from their last report are not reconciled again; only their check-in time is updated.
+     *
+     * @param owner
+     *  the owner of the hypervisors
+     *
+     * @param hypervisors
+     *  the reported hypervisors
+     *
+     * @param reportHashes
+     *  an optional map of reporter-computed content hashes, keyed by hypervisor ID; hosts without
+     *  a provided hash are hashed from their reported name, facts and guest IDs
+     *
+     * @param create
+     *  whether or not unknown hypervisors should be created
+     *
+     * @param principal
+     *  the name of the principal reporting the hypervisors
+     *
+     * @param jobReporterId
+     *  the ID of the reporter of the hypervisors
+     *
+     * @return
+     *  the result of the update
+     */
+    public Result update(
+        final Owner owner,
+        final List<ConsumerDTO> hypervisors,
+        final Map<String, String> reportHashes,
+        final Boolean create,
+        final String principal,
+        final String jobReporterId) {
+
         final String ownerKey = owner.getKey();
 
         log.debug("Hypervisor consumers for create/update: {}", hypervisors.size());
@@ -108,18 +152,27 @@ public class HypervisorUpdateAction {
         HypervisorUpdateResultDTO result = new HypervisorUpdateResultDTO();
         parseHypervisorList(hypervisors, hosts, guests, incomingHosts);
         VirtConsumerMap hypervisorConsumersMap = new VirtConsumerMap();
+        Map<String, String> hostHashes = this.buildReportHashes(incomingHosts, reportHashes);
 
         HypervisorUpdateAction act = this;
         Transactional<Consumer> transaction = this.consumerCurator.transactional(args ->
-            act.reconcileHost((Owner) args[0], (ConsumerDTO) args[1], (HypervisorUpdateResultDTO) args[2],
-            (Boolean) args[3], (String) args[4], (String) args[5]))
+            act.reconcileHost((Owner) args[0], (ConsumerDTO) args[1], (String) args[2],
+            (HypervisorUpdateResultDTO) args[3], (Boolean) args[4], (String) args[5], (String) args[6]))
             .onCommit(status -> sink.sendEvents())
             .onRollback(status -> sink.rollback());
 
+        int batchSize = this.config.getInt(ConfigProperties.HYPERVISOR_UPDATE_BATCH_SIZE);
+        if (batchSize > 1) {
+            this.updateInBatches(owner, hosts, incomingHosts, hostHashes, result, hypervisorConsumersMap,
+                transaction, batchSize, create, principal, jobReporterId);
+
+            return new Result(result, hypervisorConsumersMap);
+        }
+
         for (String hypervisorId : hosts) {
             try {
-                Consumer knownHost = transaction.execute(owner, incomingHosts.get(hypervisorId), result,
-                    create, principal, jobReporterId);
+                Consumer knownHost = transaction.execute(owner, incomingHosts.get(hypervisorId),
+                    hostHashes.get(hypervisorId), result, create, principal, jobReporterId);
 
                 if (knownHost != null) {
                     hypervisorConsumersMap.add(knownHost.getHypervisorId().getHypervisorId(), knownHost);
@@ -136,17 +189,229 @@ public class HypervisorUpdateAction {
         return new Result(result, hypervisorConsumersMap);
     }
 
-    public Consumer reconcileHost(Owner owner, ConsumerDTO incomingHost, HypervisorUpdateResultDTO result,
-        boolean create, String principal, String jobReporterId) {
+    /*
+     * Reconciles the given hosts in chunks, each committed in a single transaction. The results of
+     * a chunk are only recorded once it has been committed; if the chunk fails, its hosts are
+     * reconciled again individually so a single bad host cannot fail the rest of its chunk.
+     */
+    @SuppressWarnings("unchecked")
+    private void updateInBatches(Owner owner, Set<String> hosts, Map<String, ConsumerDTO> incomingHosts,
+        Map<String, String> hostHashes, HypervisorUpdateResultDTO result,
+        VirtConsumerMap hypervisorConsumersMap, Transactional<Consumer> hostTransaction, int batchSize,
+        Boolean create, String principal, String jobReporterId) {
 
-        String systemUuid = incomingHost.getFacts() != null ?
+        HypervisorUpdateAction act = this;
+        Transactional<List<Consumer>> chunkTransaction = this.consumerCurator.<List<Consumer>>transactional(
+            args -> act.reconcileHosts(owner, (List<ConsumerDTO>) args[0], hostHashes,
+            (HypervisorUpdateResultDTO) args[1], create, principal, jobReporterId, (List<Consumer>) args[2]))
+            .onCommit(status -> sink.sendEvents())
+            .onRollback(status -> sink.rollback());
+
+        for (List<String> chunk : Iterables.partition(hosts, batchSize)) {
+            List<ConsumerDTO> chunkHosts = chunk.stream()
+                .map(incomingHosts::get)
+                .collect(Collectors.toList());
+
+            HypervisorUpdateResultDTO chunkResult = new HypervisorUpdateResultDTO();
+            List<Consumer> loaded = new ArrayList<>();
+
+            try {
+                List<Consumer> knownHosts = chunkTransaction.execute(chunkHosts, chunkResult, loaded);
+
+                this.mergeResult(result, chunkResult);
+                for (Consumer knownHost : knownHosts) {
+                    hypervisorConsumersMap.add(knownHost.getHypervisorId().getHypervisorId(), knownHost);
+                }
+
+                continue;
+            }
+            catch (Exception e) {
+                log.debug("Unable to reconcile {} hypervisors in a single transaction; reconciling them " +
+                    "individually:", chunk.size(), e);
+            }
+
+            // The rolled back changes remain on the loaded hosts; evict them so the hosts are reloaded
+            this.consumerCurator.evictAll(loaded);
+
+            for (String hypervisorId : chunk) {
+                try {
+                    Consumer knownHost = hostTransaction.execute(owner, incomingHosts.get(hypervisorId),
+                        hostHashes.get(hypervisorId), result, create, principal, jobReporterId);
+
+                    if (knownHost != null) {
+                        hypervisorConsumersMap.add(knownHost.getHypervisorId().getHypervisorId(), knownHost);
+                    }
+                }
+                catch (Exception e) {
+                    log.debug("Unexpected exception occurred while processing hypervisor {}:",
+                        hypervisorId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconciles a chunk of hosts within the current transaction. The known hosts are loaded with a
+     * single query by hypervisor ID, and their changes, including guest ID migrations, are flushed
+     * together when the transaction is committed.
+     *
+     * @param owner
+     *  the owner of the hosts
+     *
+     * @param incomingHosts
+     *  the hosts to reconcile
+     *
+     * @param hostHashes
+     *  a map of the report hashes of the hosts, keyed by hypervisor ID
+     *
+     * @param result
+     *  the result to which the reconciled hosts are added
+     *
+     * @param create
+     *  whether or not unknown hosts should be created
+     *
+     * @param principal
+     *  the name of the principal reporting the hosts
+     *
+     * @param jobReporterId
+     *  the ID of the reporter of the hosts
+     *
+     * @param loaded
+     *  a list to which every host loaded or created by this method is added
+     *
+     * @return
+     *  the list of reconciled hosts
+     */
+    public List<Consumer> reconcileHosts(Owner owner, List<ConsumerDTO> incomingHosts,
+        Map<String, String> hostHashes, HypervisorUpdateResultDTO result, boolean create, String principal,
+        String jobReporterId, List<Consumer> loaded) {
+
+        List<String> hypervisorIds = incomingHosts.stream()
+            .map(host -> host.getHypervisorId().getHypervisorId())
+            .collect(Collectors.toList());
+
+        VirtConsumerMap knownHosts = this.consumerCurator.getHostConsumersMap(owner, hypervisorIds);
+        loaded.addAll(knownHosts.getConsumers());
+
+        List<Consumer> reconciled = new ArrayList<>();
+        for (ConsumerDTO incomingHost : incomingHosts) {
+            String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
+            Consumer knownHost = knownHosts.get(hypervisorId);
+
+            // Hosts not found by hypervisor ID may still be matched by their system UUID
+            if (knownHost == null && this.getSystemUuid(incomingHost) != null) {
+                knownHost = this.lookupHost(owner, incomingHost);
+
+                if (knownHost != null) {
+                    loaded.add(knownHost);
+                }
+            }
+
+            Consumer resultHost = this.reconcileHost(owner, incomingHost, hostHashes.get(hypervisorId),
+                knownHost, result, create, principal, jobReporterId, false);
+
+            if (resultHost != null) {
+                loaded.add(resultHost);
+                reconciled.add(resultHost);
+            }
+        }
+
+        return reconciled;
+    }
+
+    public Consumer reconcileHost(Owner owner, ConsumerDTO incomingHost, String reportHash,
+        HypervisorUpdateResultDTO result, boolean create, String principal, String jobReporterId) {
+
+        return this.reconcileHost(owner, incomingHost, reportHash, this.lookupHost(owner, incomingHost),
+            result, create, principal, jobReporterId, true);
+    }
+
+    /*
+     * Builds the report hashes of the incoming hosts, preferring the hashes provided by the
+     * reporter. If skipping unchanged hosts is disabled, no hashes are built, which also clears
+     * the hashes stored for the reconciled hosts.
+     */
+    private Map<String, String> buildReportHashes(Map<String, ConsumerDTO> incomingHosts,
+        Map<String, String> reportHashes) {
+
+        Map<String, String> hostHashes = new HashMap<>();
+        if (!this.config.getBoolean(ConfigProperties.HYPERVISOR_UPDATE_SKIP_UNCHANGED)) {
+            return hostHashes;
+        }
+
+        for (Map.Entry<String, ConsumerDTO> entry : incomingHosts.entrySet()) {
+            String hash = reportHashes != null ? reportHashes.get(entry.getKey()) : null;
+
+            if (hash == null || hash.isEmpty() || hash.length() > HypervisorId.REPORT_HASH_MAX_LENGTH) {
+                hash = this.hashHost(entry.getValue());
+            }
+
+            hostHashes.put(entry.getKey(), hash);
+        }
+
+        return hostHashes;
+    }
+
+    /*
+     * Hashes the reported name, facts and guest IDs of a host. Facts and guest IDs are hashed in a
+     * stable order, so the hash does not depend on the order in which they were reported.
+     */
+    private String hashHost(ConsumerDTO incomingHost) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(String.valueOf(incomingHost.getName()), StandardCharsets.UTF_8)
+            .putChar('\0');
+
+        if (incomingHost.getFacts() != null) {
+            for (Map.Entry<String, String> fact : new TreeMap<>(incomingHost.getFacts()).entrySet()) {
+                hasher.putString(fact.getKey(), StandardCharsets.UTF_8)
+                    .putChar('=')
+                    .putString(String.valueOf(fact.getValue()), StandardCharsets.UTF_8)
+                    .putChar('\0');
+            }
+        }
+
+        // Distinguish a missing guest list, which leaves the guests untouched, from an empty one
+        hasher.putChar(incomingHost.getGuestIds() != null ? '[' : '-');
+
+        if (incomingHost.getGuestIds() != null) {
+            List<String> guestIds = new ArrayList<>();
+            for (GuestIdDTO guestId : incomingHost.getGuestIds()) {
+                if (guestId != null) {
+                    Map<String, String> attributes = guestId.getAttributes() != null ?
+                        new TreeMap<>(guestId.getAttributes()) :
+                        null;
+
+                    guestIds.add(guestId.getGuestId() + attributes);
+                }
+            }
+
+            Collections.sort(guestIds);
+            guestIds.forEach(guestId -> hasher.putString(guestId, StandardCharsets.UTF_8).putChar('\0'));
+        }
+
+        return hasher.hash().toString();
+    }
+
+    private String getSystemUuid(ConsumerDTO incomingHost) {
+        return incomingHost.getFacts() != null ?
             incomingHost.getFacts().get(Consumer.Facts.DMI_SYSTEM_UUID) :
             null;
+    }
 
-        String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
-        Consumer resultHost = consumerCurator.getExistingConsumerByHypervisorIdOrUuid(owner.getId(),
-            hypervisorId,
+    private Consumer lookupHost(Owner owner, ConsumerDTO incomingHost) {
+        String systemUuid = this.getSystemUuid(incomingHost);
+
+        return consumerCurator.getExistingConsumerByHypervisorIdOrUuid(owner.getId(),
+            incomingHost.getHypervisorId().getHypervisorId(),
             config.getBoolean(ConfigProperties.USE_SYSTEM_UUID_FOR_MATCHING) ? systemUuid : null);
+    }
+
+    private Consumer reconcileHost(Owner owner, ConsumerDTO incomingHost, String reportHash,
+        Consumer knownHost, HypervisorUpdateResultDTO result, boolean create, String principal,
+        String jobReporterId, boolean flush) {
+
+        String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
+        Consumer resultHost = knownHost;
 
         if (jobReporterId == null) {
             log.debug("hypervisor checkin reported asynchronously without reporter id " +
@@ -173,8 +438,17 @@ public class HypervisorUpdateAction {
                     guestMigration.migrate(false);
                 }
 
+                // The migration clears the hash of the hosts it affects, so set it afterward
+                resultHost.getHypervisorId().setReportHash(reportHash);
+
                 try {
-                    consumerCurator.create(resultHost);
+                    if (flush) {
+                        consumerCurator.create(resultHost);
+                    }
+                    else {
+                        consumerCurator.create(resultHost, false);
+                    }
+
                     result.setCreated(addHypervisorConsumerDTO(result.getCreated(), resultHost));
                     Event event = evtFactory.consumerCreated(resultHost);
                     sink.queueEvent(event);
@@ -189,6 +463,17 @@ public class HypervisorUpdateAction {
         }
         else {
             consumerCurator.lock(resultHost);
+
+            if (this.isUnchangedReport(resultHost, hypervisorId, reportHash, jobReporterId)) {
+                log.debug("Hypervisor {} is unchanged since its last report; skipping reconciliation",
+                    hypervisorId);
+
+                resultHost.setLastCheckin(new Date());
+                result.setUnchanged(addHypervisorConsumerDTO(result.getUnchanged(), resultHost));
+
+                return resultHost;
+            }
+
             boolean hypervisorIdUpdated = updateHypervisorId(resultHost, owner, jobReporterId,
                 hypervisorId);
 
@@ -238,8 +523,15 @@ public class HypervisorUpdateAction {
                 resultHost.getHypervisorId().setReporterId(jobReporterId);
             }
 
+            resultHost.getHypervisorId().setReportHash(reportHash);
+
             try {
-                consumerCurator.update(resultHost);
+                if (flush) {
+                    consumerCurator.update(resultHost);
+                }
+                else {
+                    consumerCurator.update(resultHost, false);
+                }
             }
             catch (Exception e) {
                 result.setFailedUpdate(addFailed(result.getFailedUpdate(),
@@ -252,6 +544,22 @@ public class HypervisorUpdateAction {
         return resultHost;
     }
 
+    /*
+     * Checks whether the given known host was last reconciled from a report with the same hash,
+     * hypervisor ID and reporter, in which case reconciling it again would not change it.
+     */
+    private boolean isUnchangedReport(Consumer host, String hypervisorId, String reportHash,
+        String jobReporterId) {
+
+        HypervisorId stored = host.getHypervisorId();
+
+        return reportHash != null && stored != null &&
+            reportHash.equals(stored.getReportHash()) &&
+            hypervisorId.equalsIgnoreCase(stored.getHypervisorId()) &&
+            (jobReporterId == null || jobReporterId.equals(stored.getReporterId())) &&
+            this.hypervisorType.getId().equals(host.getTypeId());
+    }
+
     private boolean updateHypervisorId(Consumer consumer, Owner owner, String reporterId,
         String hypervisorId) {
 
@@ -426,6 +734,26 @@ public class HypervisorUpdateAction {
         }
     }
 
+    private void mergeResult(HypervisorUpdateResultDTO target, HypervisorUpdateResultDTO source) {
+        target.setCreated(this.mergeSets(target.getCreated(), source.getCreated()));
+        target.setUpdated(this.mergeSets(target.getUpdated(), source.getUpdated()));
+        target.setUnchanged(this.mergeSets(target.getUnchanged(), source.getUnchanged()));
+        target.setFailedUpdate(this.mergeSets(target.getFailedUpdate(), source.getFailedUpdate()));
+    }
+
+    private <T> Set<T> mergeSets(Set<T> target, Set<T> source) {
+        if (source == null || source.isEmpty()) {
+            return target;
+        }
+
+        if (target == null) {
+            target = new HashSet<>();
+        }
+        target.addAll(source);
+
+        return target;
+    }
+
     public Set<HypervisorConsumerDTO> addHypervisorConsumerDTO(Set<HypervisorConsumerDTO> consumerDTOSet,
         Consumer consumer) {
 
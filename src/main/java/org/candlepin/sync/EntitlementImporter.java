@@ -59,6 +59,10 @@ public class EntitlementImporter {
     private final ModelTranslator translator;
     private final Map<String, ProductDTO> productMap;
 
+    // The CDN referenced by the manifest metadata, looked up once per import
+    private String cdnLabel;
+    private Cdn cdn;
+
 
     public EntitlementImporter(CdnCurator cdnCurator, I18n i18n, ModelTranslator translator,
         Map<String, ProductDTO> productMap) {
@@ -69,6 +73,29 @@ public class EntitlementImporter {
         this.productMap = Objects.requireNonNull(productMap);
     }
 
+    /**
+     * Looks up the CDN with the given label. As every entitlement of a manifest references the same
+     * CDN, the result of the last lookup is reused for subsequent lookups of the same label.
+     *
+     * @param label
+     *  the label of the CDN to look up; may be null
+     *
+     * @return
+     *  the CDN with the given label, or null if the label is blank or no such CDN exists
+     */
+    private Cdn lookupCdn(String label) {
+        if (StringUtils.isBlank(label)) {
+            return null;
+        }
+
+        if (!label.equals(this.cdnLabel)) {
+            this.cdn = this.cdnCurator.getByLabel(label);
+            this.cdnLabel = label;
+        }
+
+        return this.cdn;
+    }
+
     /**
      * Fetches the given product ID from the mapping of imported products backing this entitlement
      * importer. If a product for the given ID cannot be found, this method throws an exception.
@@ -246,6 +273,33 @@ public class EntitlementImporter {
         throws IOException, SyncDataFormatException {
 
         EntitlementDTO entitlement = mapper.readValue(reader, EntitlementDTO.class);
+        return this.importObject(entitlement, owner, consumerUuid, meta);
+    }
+
+    /**
+     * Builds the subscription for an upstream entitlement which has already been read from the
+     * manifest.
+     *
+     * @param entitlement
+     *  the upstream entitlement from which to build a subscription
+     *
+     * @param owner
+     *  the owner into which the manifest is being imported
+     *
+     * @param consumerUuid
+     *  the UUID of the upstream consumer of the entitlement
+     *
+     * @param meta
+     *  the manifest metadata
+     *
+     * @throws SyncDataFormatException
+     *  if the entitlement references a product which is not defined in the manifest
+     *
+     * @return
+     *  the subscription built from the upstream entitlement
+     */
+    public SubscriptionDTO importObject(EntitlementDTO entitlement, Owner owner, String consumerUuid,
+        Meta meta) throws SyncDataFormatException {
 
         SubscriptionDTO subscription = new SubscriptionDTO();
 
@@ -275,12 +329,9 @@ public class EntitlementImporter {
 
         // This is a bit of an odd duck. We shouldn't be checking this here, but instead at the point
         // where we actually import it for use.
-        String cdnLabel = meta.getCdnLabel();
-        if (!StringUtils.isBlank(cdnLabel)) {
-            Cdn cdn = cdnCurator.getByLabel(cdnLabel);
-            if (cdn != null) {
-                subscription.setCdn(this.translator.translate(cdn, CdnDTO.class));
-            }
+        Cdn cdn = this.lookupCdn(meta.getCdnLabel());
+        if (cdn != null) {
+            subscription.setCdn(this.translator.translate(cdn, CdnDTO.class));
         }
 
         this.associateProducts(subscription, entitlement.getPool());
@@ -56,11 +56,20 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -102,6 +111,8 @@ public class Exporter {
     private ContentAccessManager contentAccessManager;
 
     private static final String LEGACY_RULES_FILE = "/rules/default-rules.js";
+    private static final String EXPORT_DIR = "export";
+    private static final String INNER_ARCHIVE_NAME = "consumer_export.zip";
     private SyncUtils syncUtils;
 
     @Inject
@@ -159,21 +170,18 @@ public class Exporter {
     public File getFullExport(Consumer consumer, String cdnLabel, String webUrl,
         String apiUrl) throws ExportCreationException {
         try {
-            File tmpDir = syncUtils.makeTempDir("export");
-            File baseDir = new File(tmpDir.getAbsolutePath(), "export");
-            baseDir.mkdir();
-
-            exportMeta(baseDir, cdnLabel);
-            exportConsumer(baseDir, consumer, webUrl, apiUrl);
-            exportIdentityCertificate(baseDir, consumer);
-            exportEntitlements(baseDir, consumer);
-            exportEntitlementsCerts(baseDir, consumer, null, true);
-            exportProducts(baseDir, consumer);
-            exportConsumerTypes(baseDir);
-            exportRules(baseDir);
-            exportDistributorVersions(baseDir);
-            exportContentDeliveryNetworks(baseDir);
-            return makeArchive(consumer, tmpDir, baseDir);
+            return this.createArchive(consumer, output -> {
+                exportMeta(output, cdnLabel);
+                exportConsumer(output, consumer, webUrl, apiUrl);
+                exportIdentityCertificate(output, consumer);
+                exportEntitlements(output, consumer);
+                exportEntitlementsCerts(output, consumer, null, true);
+                exportProducts(output, consumer);
+                exportConsumerTypes(output);
+                exportRules(output);
+                exportDistributorVersions(output);
+                exportContentDeliveryNetworks(output);
+            });
         }
         catch (IOException e) {
             log.error("Error generating entitlement export", e);
@@ -185,14 +193,11 @@ public class Exporter {
         // TODO: need to delete tmpDir (which contains the archive,
         // which we need to return...)
         try {
-            File tmpDir = syncUtils.makeTempDir("export");
-            File baseDir = new File(tmpDir.getAbsolutePath(), "export");
-            baseDir.mkdir();
-
-            exportMeta(baseDir, null);
-            exportEntitlementsCerts(baseDir, consumer, serials, false);
-            exportContentAccessCerts(baseDir, consumer, serials);
-            return makeArchive(consumer, tmpDir, baseDir);
+            return this.createArchive(consumer, output -> {
+                exportMeta(output, null);
+                exportEntitlementsCerts(output, consumer, serials, false);
+                exportContentAccessCerts(output, consumer, serials);
+            });
         }
         catch (IOException e) {
             log.error("Error generating entitlement export", e);
@@ -200,6 +205,36 @@ public class Exporter {
         }
     }
 
+    /**
+     * Creates the signed archive of the given export content. Depending on the configuration, the
+     * content is either streamed straight into the archive, or first written to a temporary
+     * directory which is then archived.
+     *
+     * @param consumer
+     *  the consumer being exported
+     *
+     * @param content
+     *  the content to export
+     *
+     * @return
+     *  a file reference to the new signed archive
+     */
+    private File createArchive(Consumer consumer, ExportContent content)
+        throws IOException, ExportCreationException {
+
+        File tmpDir = syncUtils.makeTempDir("export");
+
+        if (config.getBoolean(ConfigProperties.SYNC_EXPORT_STREAMING)) {
+            return makeStreamingArchive(consumer, tmpDir, content);
+        }
+
+        File baseDir = new File(tmpDir.getAbsolutePath(), EXPORT_DIR);
+        baseDir.mkdir();
+
+        content.export(new DirectoryExportOutput(baseDir));
+        return makeArchive(consumer, tmpDir, baseDir);
+    }
+
     /**
      * Create a tar.gz archive of the exported directory.
      *
@@ -212,7 +247,7 @@ public class Exporter {
         log.info("Creating archive of " + exportDir.getAbsolutePath() + " in: " +
             exportFileName);
 
-        File archive = createZipArchiveWithDir(tempDir, exportDir, "consumer_export.zip",
+        File archive = createZipArchiveWithDir(tempDir, exportDir, INNER_ARCHIVE_NAME,
             "Candlepin export for " + consumer.getUuid());
 
         InputStream archiveInputStream = null;
@@ -238,6 +273,60 @@ public class Exporter {
         }
     }
 
+    /**
+     * Creates the signed archive of the given export content in a single pass, serializing each
+     * file of the export straight into the inner archive while it is written to the signed
+     * archive and signed.
+     *
+     * @param consumer
+     *  the consumer being exported
+     *
+     * @param tempDir
+     *  the directory in which to create the signed archive
+     *
+     * @param content
+     *  the content to export
+     *
+     * @return
+     *  a file reference to the new signed archive
+     */
+    private File makeStreamingArchive(Consumer consumer, File tempDir, ExportContent content)
+        throws IOException, ExportCreationException {
+
+        String exportFileName = String.format("%s-%s.zip", consumer.getUuid(), EXPORT_DIR);
+        log.info("Streaming export of consumer {} to: {}", consumer.getUuid(), exportFileName);
+
+        Signature signature;
+        try {
+            signature = pki.getSHA256WithRSASignature();
+        }
+        catch (GeneralSecurityException e) {
+            throw new IOException("Unable to initialize the export signature", e);
+        }
+
+        File archive = new File(tempDir, exportFileName);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            out.setComment("signed Candlepin export for " + consumer.getUuid());
+            out.putNextEntry(new ZipEntry(INNER_ARCHIVE_NAME));
+
+            // The inner archive is only finished rather than closed, as closing it would also
+            // close the signed archive
+            ZipOutputStream inner = new ZipOutputStream(new SigningOutputStream(out, signature));
+            inner.setComment("Candlepin export for " + consumer.getUuid());
+            content.export(new ZipExportOutput(inner, EXPORT_DIR + "/"));
+            inner.finish();
+            out.closeEntry();
+
+            addSignatureToArchive(out, signature.sign());
+        }
+        catch (SignatureException e) {
+            throw new IOException("Unable to sign the export archive", e);
+        }
+
+        log.debug("Returning file: " + archive.getAbsolutePath());
+        return archive;
+    }
+
     private File createZipArchiveWithDir(File tempDir, File exportDir,
         String exportFileName, String comment)
         throws FileNotFoundException, IOException {
@@ -322,22 +411,14 @@ public class Exporter {
         out.closeEntry();
     }
 
-    private void exportMeta(File baseDir, String cdnKey)
+    private void exportMeta(ExportOutput output, String cdnKey)
         throws IOException {
-        File file = new File(baseDir.getCanonicalPath(), "meta.json");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(file);
+        try (Writer writer = output.openWriter("meta.json")) {
             Meta m = new Meta(getVersion(), new Date(),
                 principalProvider.get().getName(),
                 null, cdnKey);
             meta.export(mapper, writer, m);
         }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
     }
 
     private String getPrefixWebUrl(String override) {
@@ -371,23 +452,19 @@ public class Exporter {
         return map.get("version") + "-" + map.get("release");
     }
 
-    private void exportConsumer(File baseDir, Consumer consumer, String webAppPrefix, String apiUrl)
+    private void exportConsumer(ExportOutput output, Consumer consumer, String webAppPrefix, String apiUrl)
         throws IOException {
 
-        File file = new File(baseDir.getCanonicalPath(), "consumer.json");
-        try (FileWriter writer = new FileWriter(file)) {
+        try (Writer writer = output.openWriter("consumer.json")) {
             this.consumerExporter.export(mapper, writer, consumer,
                 getPrefixWebUrl(webAppPrefix), getPrefixApiUrl(apiUrl));
         }
     }
 
-    private void exportEntitlementsCerts(File baseDir, Consumer consumer,
+    private void exportEntitlementsCerts(ExportOutput output, Consumer consumer,
         Set<Long> serials, boolean manifest)
         throws IOException {
 
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlement_certificates");
-        entCertDir.mkdir();
-
         for (EntitlementCertificate cert : entCertAdapter.listForConsumer(consumer)) {
             if (manifest && !this.exportRules.canExport(cert.getEntitlement())) {
                 log.debug("Skipping export of entitlement cert with product: {}",
@@ -398,9 +475,11 @@ public class Exporter {
 
             if ((serials == null) || (serials.contains(cert.getSerial().getId()))) {
                 log.debug("Exporting entitlement certificate: {}", cert.getSerial());
-                File file = new File(entCertDir.getCanonicalPath(), cert.getSerial().getId() + ".pem");
+                String path = "entitlement_certificates/" + cert.getSerial().getId() + ".pem";
 
-                new CertificateExporter().exportCertificate(cert, file);
+                try (Writer writer = output.openWriter(path)) {
+                    new CertificateExporter().exportCertificate(cert, writer);
+                }
             }
         }
     }
@@ -409,8 +488,8 @@ public class Exporter {
      * Exports content access certificates for a consumer.
      * Consumer must belong to owner with SCA enabled.
      *
-     * @param baseDir
-     *  Base directory path.
+     * @param output
+     *  The output to which the certificates are exported.
      *
      * @param consumer
      *  Consumer for which content access certificates needs to be exported.
@@ -421,102 +500,100 @@ public class Exporter {
      * @throws IOException
      *  Throws IO exception if unable to export content access certs for the consumer.
      */
-    private void exportContentAccessCerts(File baseDir, Consumer consumer,
+    private void exportContentAccessCerts(ExportOutput output, Consumer consumer,
         Set<Long> serials) throws IOException {
         ContentAccessCertificate contentAccessCert = this.contentAccessManager.getCertificate(consumer);
 
         if (contentAccessCert != null &&
             (serials == null || contentAccessCert.getSerial() == null ||
             serials.contains(contentAccessCert.getSerial().getId()))) {
-            File contentAccessCertDir = new File(baseDir.getCanonicalPath(), "content_access_certificates");
-            contentAccessCertDir.mkdir();
 
             log.debug("Exporting content access certificate: {}", contentAccessCert.getSerial());
-            File file = new File(contentAccessCertDir.getCanonicalPath(),
-                contentAccessCert.getSerial().getId() + ".pem");
+            String path = "content_access_certificates/" + contentAccessCert.getSerial().getId() + ".pem";
 
-            new CertificateExporter().exportCertificate(contentAccessCert, file);
+            try (Writer writer = output.openWriter(path)) {
+                new CertificateExporter().exportCertificate(contentAccessCert, writer);
+            }
         }
     }
 
-    private void exportIdentityCertificate(File baseDir, Consumer consumer)
+    private void exportIdentityCertificate(ExportOutput output, Consumer consumer)
         throws IOException {
 
-        File idcertdir = new File(baseDir.getCanonicalPath(), "upstream_consumer");
-        idcertdir.mkdir();
-
         IdentityCertificate cert = consumer.getIdCert();
         if (cert == null) {
             throw new RuntimeException("The consumer for export does not have a valid identity certificate");
         }
 
         // paradigm dictates this should go in an exporter.export method
-        File file = new File(idcertdir.getCanonicalPath(), cert.getSerial().getId() + ".json");
-        try (FileWriter writer = new FileWriter(file)) {
+        String path = "upstream_consumer/" + cert.getSerial().getId() + ".json";
+        try (Writer writer = output.openWriter(path)) {
             mapper.writeValue(writer, this.translator.translate(cert, CertificateDTO.class));
         }
     }
 
-    private void exportEntitlements(File baseDir, Consumer consumer)
+    private void exportEntitlements(ExportOutput output, Consumer consumer)
         throws IOException, ExportCreationException {
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlements");
-        entCertDir.mkdir();
 
-        for (Entitlement ent : entitlementCurator.listByConsumer(consumer)) {
-            if (ent.isDirty()) {
-                log.error("Entitlement {} is marked as dirty.", ent.getId());
-                throw new ExportCreationException("Attempted to export dirty entitlements");
-            }
+        try (ResultIterator<Entitlement> iterator = entitlementCurator.findByConsumer(consumer).iterate()) {
+            while (iterator.hasNext()) {
+                Entitlement ent = iterator.next();
 
-            if (!this.exportRules.canExport(ent)) {
-                log.debug("Skipping export of entitlement with product: {}", ent.getPool().getProductId());
-                continue;
-            }
+                if (ent.isDirty()) {
+                    log.error("Entitlement {} is marked as dirty.", ent.getId());
+                    throw new ExportCreationException("Attempted to export dirty entitlements");
+                }
+
+                if (!this.exportRules.canExport(ent)) {
+                    log.debug("Skipping export of entitlement with product: {}",
+                        ent.getPool().getProductId());
+                    continue;
+                }
 
-            log.debug("Exporting entitlement for product {}", ent.getPool().getProductId());
+                log.debug("Exporting entitlement for product {}", ent.getPool().getProductId());
 
-            File file = new File(entCertDir.getCanonicalPath(), ent.getId() + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                entExporter.export(mapper, writer, ent);
+                try (Writer writer = output.openWriter("entitlements/" + ent.getId() + ".json")) {
+                    entExporter.export(mapper, writer, ent);
+                }
             }
         }
     }
 
-    private void exportProducts(File baseDir, Consumer consumer) throws IOException {
-        File productDir = new File(baseDir.getCanonicalPath(), "products");
-        productDir.mkdir();
-
-        // TODO: This could be bulked into a single query rather than iterating and likely hitting
-        // a bunch of lazy lookups.
-        Map<String, Product> productMap = new HashMap<>();
-        for (Entitlement entitlement : consumer.getEntitlements()) {
-            Pool pool = entitlement.getPool();
+    private void exportProducts(ExportOutput output, Consumer consumer) throws IOException {
+        // Products are exported as they are found, so only the IDs of the products already
+        // exported need to be tracked
+        Set<String> exported = new HashSet<>();
+        Owner owner = null;
 
-            this.collectProducts(pool.getProduct(), productMap);
-        }
+        try (ResultIterator<Entitlement> iterator = entitlementCurator.findByConsumer(consumer).iterate()) {
+            while (iterator.hasNext()) {
+                Pool pool = iterator.next().getPool();
 
-        for (Product product : productMap.values()) {
-            String path = productDir.getCanonicalPath();
-            String productId = product.getId();
+                List<Product> products = new ArrayList<>();
+                this.collectProducts(pool.getProduct(), exported, products);
 
-            File file = new File(path, productId + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                productExporter.export(mapper, writer, product);
-            }
+                for (Product product : products) {
+                    try (Writer writer = output.openWriter("products/" + product.getId() + ".json")) {
+                        productExporter.export(mapper, writer, product);
+                    }
 
-            // Real products have a numeric id.
-            if (StringUtils.isNumeric(product.getId())) {
-                Owner owner = ownerCurator.findOwnerById(consumer.getOwnerId());
+                    // Real products have a numeric id.
+                    if (StringUtils.isNumeric(product.getId())) {
+                        if (owner == null) {
+                            owner = ownerCurator.findOwnerById(consumer.getOwnerId());
+                        }
 
-                CertificateInfo cert = productAdapter.getProductCertificate(owner.getKey(), product.getId());
+                        CertificateInfo cert = productAdapter.getProductCertificate(owner.getKey(),
+                            product.getId());
 
-                // XXX: not all product adapters implement getProductCertificate,
-                // so just skip over this if we get null back
-                // XXX: need to decide if the cert should always be in the export, or never.
-                if (cert != null) {
-                    file = new File(productDir.getCanonicalPath(), product.getId() + ".pem");
-                    try (FileWriter writer = new FileWriter(file)) {
-                        productCertExporter.export(writer, cert);
+                        // XXX: not all product adapters implement getProductCertificate,
+                        // so just skip over this if we get null back
+                        // XXX: need to decide if the cert should always be in the export, or never.
+                        if (cert != null) {
+                            try (Writer writer = output.openWriter("products/" + product.getId() + ".pem")) {
+                                productCertExporter.export(writer, cert);
+                            }
+                        }
                     }
                 }
             }
@@ -524,122 +601,82 @@ public class Exporter {
     }
 
     /**
-     * Adds the specified product and all of its children products to the given product map, using
-     * products' ID (*not* UUID) as the key in the map. If the specified product is null or does not
-     * have a product ID, it will be silently ignored.
+     * Adds the specified product and all of its children products to the given product list,
+     * skipping any product whose product ID (*not* UUID) has already been collected. If the
+     * specified product is null or does not have a product ID, it will be silently ignored.
      *
      * @param product
-     *  the product to add to the map
+     *  the product to add to the list
+     *
+     * @param collectedIds
+     *  the IDs of the products already collected
      *
-     * @param productMap
-     *  the map in which to collect products
+     * @param products
+     *  the list in which to collect products
      */
-    private void collectProducts(Product product, Map<String, Product> productMap) {
-        if (product == null || product.getId() == null) {
+    private void collectProducts(Product product, Set<String> collectedIds, List<Product> products) {
+        if (product == null || product.getId() == null || !collectedIds.add(product.getId())) {
             return;
         }
 
-        productMap.put(product.getId(), product);
+        products.add(product);
 
         // Add provided products (if applicable)
         Collection<Product> providedProducts = product.getProvidedProducts();
         if (providedProducts != null) {
             for (Product provided : providedProducts) {
-                this.collectProducts(provided, productMap);
+                this.collectProducts(provided, collectedIds, products);
             }
         }
 
         // Recursively add derived product (if applicable)
-        this.collectProducts(product.getDerivedProduct(), productMap);
+        this.collectProducts(product.getDerivedProduct(), collectedIds, products);
     }
 
-    private void exportConsumerTypes(File baseDir) throws IOException {
-        File typeDir = new File(baseDir.getCanonicalPath(), "consumer_types");
-        typeDir.mkdir();
-
+    private void exportConsumerTypes(ExportOutput output) throws IOException {
         for (ConsumerType type : consumerTypeCurator.listAll()) {
-            File file = new File(typeDir.getCanonicalPath(), type.getLabel() + ".json");
-            FileWriter writer = null;
-            try {
-                writer = new FileWriter(file);
+            try (Writer writer = output.openWriter("consumer_types/" + type.getLabel() + ".json")) {
                 consumerType.export(mapper, writer, type);
             }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
         }
     }
 
-    private void exportRules(File baseDir) throws IOException {
+    private void exportRules(ExportOutput output) throws IOException {
         // Because old candlepin servers assume to import a file in rules dir, we had to
         // move to a new directory for versioned rules file:
-        File newRulesDir = new File(baseDir.getCanonicalPath(), "rules2");
-        newRulesDir.mkdir();
-        File newRulesFile = new File(newRulesDir.getCanonicalPath(), "rules.js");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(newRulesFile);
+        try (Writer writer = output.openWriter("rules2/rules.js")) {
             rules.export(writer);
         }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
     }
 
-    private void exportDistributorVersions(File baseDir) throws IOException {
+    private void exportDistributorVersions(ExportOutput output) throws IOException {
         List<DistributorVersion> versions = distVerCurator.findAll();
         if (versions == null || versions.isEmpty()) {
             return;
         }
 
-        File distVerDir = new File(baseDir.getCanonicalPath(), "distributor_version");
-        distVerDir.mkdir();
-
-        FileWriter writer = null;
         for (DistributorVersion dv : versions) {
             if (log.isDebugEnabled()) {
                 log.debug("Exporting Distributor Version" + dv.getName());
             }
-            try {
-                File file = new File(distVerDir.getCanonicalPath(), dv.getName() + ".json");
-                writer = new FileWriter(file);
+
+            try (Writer writer = output.openWriter("distributor_version/" + dv.getName() + ".json")) {
                 distVerExporter.export(mapper, writer, dv);
             }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
         }
     }
 
-    private void exportContentDeliveryNetworks(File baseDir) throws IOException {
+    private void exportContentDeliveryNetworks(ExportOutput output) throws IOException {
         ResultIterator<Cdn> iterator = this.cdnCurator.listAll().iterate();
 
         try {
-            if (iterator.hasNext()) {
-                File cdnDir = new File(baseDir.getCanonicalPath(), "content_delivery_network");
-                cdnDir.mkdir();
-
-                while (iterator.hasNext()) {
-                    Cdn cdn = iterator.next();
-                    log.debug("Exporting CDN: {}", cdn.getName());
-
-                    FileWriter writer = null;
-                    try {
-                        File file = new File(cdnDir.getCanonicalPath(), cdn.getLabel() + ".json");
-                        writer = new FileWriter(file);
-                        cdnExporter.export(mapper, writer, cdn);
-                    }
-                    finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
-                    }
+            while (iterator.hasNext()) {
+                Cdn cdn = iterator.next();
+                log.debug("Exporting CDN: {}", cdn.getName());
+
+                String path = "content_delivery_network/" + cdn.getLabel() + ".json";
+                try (Writer writer = output.openWriter(path)) {
+                    cdnExporter.export(mapper, writer, cdn);
                 }
             }
         }
@@ -647,4 +684,118 @@ public class Exporter {
             iterator.close();
         }
     }
+
+    /**
+     * The content of an export, written to an export output
+     */
+    @FunctionalInterface
+    private interface ExportContent {
+        void export(ExportOutput output) throws IOException, ExportCreationException;
+    }
+
+    /**
+     * The destination of the files making up an export. Paths are relative to the root of the
+     * export and use '/' as separator.
+     */
+    private interface ExportOutput {
+        Writer openWriter(String path) throws IOException;
+    }
+
+    /**
+     * Export output writing each file of the export to a directory tree
+     */
+    private static class DirectoryExportOutput implements ExportOutput {
+        private final File baseDir;
+
+        public DirectoryExportOutput(File baseDir) {
+            this.baseDir = baseDir;
+        }
+
+        @Override
+        public Writer openWriter(String path) throws IOException {
+            File file = new File(this.baseDir.getCanonicalPath(), path);
+            File parent = file.getParentFile();
+
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Unable to create export directory: " + parent.getAbsolutePath());
+            }
+
+            return new FileWriter(file);
+        }
+    }
+
+    /**
+     * Export output writing each file of the export as an entry of a zip archive
+     */
+    private static class ZipExportOutput implements ExportOutput {
+        private final ZipOutputStream out;
+        private final String prefix;
+
+        public ZipExportOutput(ZipOutputStream out, String prefix) {
+            this.out = out;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Writer openWriter(String path) throws IOException {
+            log.debug("Adding entry to archive: {}{}", this.prefix, path);
+            this.out.putNextEntry(new ZipEntry(this.prefix + path));
+
+            // Closing the writer only closes the current entry, leaving the archive open
+            return new OutputStreamWriter(new FilterOutputStream(this.out) {
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    this.out.write(bytes, offset, length);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    this.flush();
+                    ZipExportOutput.this.out.closeEntry();
+                }
+            }, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Output stream updating a signature with all of the data written through it. Closing the
+     * stream does not close the underlying stream.
+     */
+    private static class SigningOutputStream extends FilterOutputStream {
+        private final Signature signature;
+
+        public SigningOutputStream(OutputStream out, Signature signature) {
+            super(out);
+            this.signature = signature;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            try {
+                this.signature.update((byte) value);
+            }
+            catch (SignatureException e) {
+                throw new IOException(e);
+            }
+
+            this.out.write(value);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            try {
+                this.signature.update(bytes, offset, length);
+            }
+            catch (SignatureException e) {
+                throw new IOException(e);
+            }
+
+            this.out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.flush();
+        }
+    }
 }
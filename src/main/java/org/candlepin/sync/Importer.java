@@ -24,6 +24,7 @@ import org.candlepin.dto.manifest.v1.CertificateDTO;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
 import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
 import org.candlepin.dto.manifest.v1.ProductDTO;
 import org.candlepin.dto.manifest.v1.SubscriptionDTO;
 import org.candlepin.model.CdnCurator;
@@ -94,6 +95,9 @@ import javax.persistence.PersistenceException;
 public class Importer {
     private static final Logger log = LoggerFactory.getLogger(Importer.class);
 
+    /** The number of parsed entitlements converted to subscriptions at a time */
+    private static final int ENTITLEMENT_BATCH_SIZE = 500;
+
     /**
      * files we use to perform import
      */
@@ -303,7 +307,13 @@ public class Importer {
     @Transactional
     protected File extractFromService(ManifestFile export)
         throws ManifestFileServiceException, ImporterException {
-        return unpackExportFile(export.getId(), export.getInputStream());
+        try (InputStream input = export.getInputStream()) {
+            return unpackExportFile(export.getId(), input);
+        }
+        catch (IOException e) {
+            log.error("Unable to read stored export archive", e);
+            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e);
+        }
     }
 
     /**
@@ -379,7 +389,7 @@ public class Importer {
         String uploadedFileName) throws ImporterException {
 
         Map<String, Object> result = new HashMap<>();
-        try {
+        try (ManifestParser parser = this.createManifestParser()) {
             File signature = new File(exportDir, "signature");
             if (signature.length() == 0) {
                 throw new ImportExtractionException(
@@ -408,13 +418,15 @@ public class Importer {
                 }
             }
 
+            // Product and entitlement files are parsed straight from the archive as it is read,
+            // while the remaining files are extracted
             File consumerExport = new File(exportDir, "consumer_export.zip");
             File consumerExportDir = extractArchive(exportDir, consumerExport.getName(),
-                new FileInputStream(consumerExport));
+                new FileInputStream(consumerExport), parser);
 
             Map<String, File> importFiles = new HashMap<>();
             File[] listFiles = consumerExportDir.listFiles();
-            if (listFiles == null || listFiles.length == 0) {
+            if ((listFiles == null || listFiles.length == 0) && parser.isEmpty()) {
                 throw new ImportExtractionException(
                     i18n.tr("The provided manifest has no content in the exported consumer archive"));
             }
@@ -426,7 +438,7 @@ public class Importer {
             File rulesFile = new File(consumerExportDir, ImportFile.RULES_FILE.fileName());
             importFiles.put(ImportFile.RULES_FILE.fileName(), rulesFile);
 
-            List<SubscriptionDTO> importSubs = importObjects(owner, importFiles, overrides);
+            List<SubscriptionDTO> importSubs = importObjects(owner, importFiles, parser, overrides);
             Meta m = mapper.readValue(importFiles.get(ImportFile.META.fileName()), Meta.class);
 
             result.put("subscriptions", importSubs);
@@ -469,12 +481,65 @@ public class Importer {
         }
     }
 
-    @SuppressWarnings("checkstyle:methodlength")
     @Transactional(rollbackOn = { IOException.class, ImporterException.class,
         RuntimeException.class, ImportConflictException.class })
     // WARNING: Keep this method public, otherwise @Transactional is ignored:
     public List<SubscriptionDTO> importObjects(Owner owner, Map<String, File> importFiles,
         ConflictOverrides overrides) throws IOException, ImporterException {
+
+        try (ManifestParser parser = this.createManifestParser()) {
+            File products = importFiles.get(ImportFile.PRODUCTS.fileName());
+            File[] productFiles = products != null ? products.listFiles() : null;
+            if (productFiles != null) {
+                for (File file : productFiles) {
+                    String name = file.getName();
+
+                    if (name.endsWith(ProductImporter.PRODUCT_FILE_SUFFIX)) {
+                        String productId = name.substring(0,
+                            name.length() - ProductImporter.PRODUCT_FILE_SUFFIX.length());
+
+                        parser.addProduct(productId, file);
+                    }
+                }
+            }
+
+            File entitlements = importFiles.get(ImportFile.ENTITLEMENTS.fileName());
+            File[] entitlementFiles = entitlements != null ? entitlements.listFiles() : null;
+            if (entitlementFiles != null) {
+                for (File file : entitlementFiles) {
+                    parser.addEntitlement(file);
+                }
+            }
+
+            return this.importObjects(owner, importFiles, parser, overrides);
+        }
+    }
+
+    /**
+     * Imports the objects of an extracted manifest, using the given parser for the manifest's
+     * products and entitlements rather than reading them from the extracted files.
+     *
+     * @param owner
+     *  the owner into which the manifest is imported
+     *
+     * @param importFiles
+     *  the files of the extracted manifest, keyed by their names
+     *
+     * @param parser
+     *  the parser to which the manifest's products and entitlements have been submitted
+     *
+     * @param overrides
+     *  the conflicts to override
+     *
+     * @return
+     *  the subscriptions imported from the manifest
+     */
+    @SuppressWarnings("checkstyle:methodlength")
+    @Transactional(rollbackOn = { IOException.class, ImporterException.class,
+        RuntimeException.class, ImportConflictException.class })
+    // WARNING: Keep this method public, otherwise @Transactional is ignored:
+    public List<SubscriptionDTO> importObjects(Owner owner, Map<String, File> importFiles,
+        ManifestParser parser, ConflictOverrides overrides) throws IOException, ImporterException {
         ownerCurator.lock(owner);
 
         log.debug("Importing objects for owner: {}", owner);
@@ -576,11 +641,11 @@ public class Importer {
         // refactor, update this block/class to not be doing half of the entitlement importing bits.
         File productsDir = importFiles.get(ImportFile.PRODUCTS.fileName());
         if (productsDir != null) {
-            ProductImporter productImporter = new ProductImporter(productsDir, this.mapper, this.i18n);
+            ProductImporter productImporter = new ProductImporter(parser.getProducts(), this.i18n);
 
             importedProductsMap = productImporter.importProductMap();
-            importedSubs = this.importEntitlements(owner, importedProductsMap, entitlements.listFiles(),
-                consumer.getUuid(), meta);
+            importedSubs = this.importEntitlements(owner, importedProductsMap, parser, consumer.getUuid(),
+                meta);
         }
         else {
             log.warn("No products found to import, skipping product import.");
@@ -671,24 +736,35 @@ public class Importer {
         return consumer;
     }
 
+    /**
+     * Converts the parsed entitlements of a manifest to subscriptions and reconciles them with the
+     * owner's pools. Entitlements are fetched from the parser in batches, so only one batch of
+     * parsed entitlements is held in memory at a time alongside the converted subscriptions.
+     * <p></p>
+     * The subscriptions themselves are not batched: the reconciler and the refresher run afterwards
+     * need the manifest's complete subscription list to determine which pools to update or remove,
+     * and converting entitlements does not load any entities into the session to be cleared.
+     */
     protected List<SubscriptionDTO> importEntitlements(Owner owner,
-        Map<String, ProductDTO> importedProductsMap, File[] entitlementFiles, String consumerUuid, Meta meta)
-        throws IOException, SyncDataFormatException {
+        Map<String, ProductDTO> importedProductsMap, ManifestParser parser, String consumerUuid,
+        Meta meta) throws IOException, SyncDataFormatException {
 
         log.debug("Importing entitlements for owner: {}", owner);
 
         List<SubscriptionDTO> subscriptionsToImport = new ArrayList<>();
 
-        if (importedProductsMap != null && entitlementFiles != null) {
+        if (importedProductsMap != null && parser != null) {
             EntitlementImporter importer = new EntitlementImporter(cdnCurator, i18n, translator,
                 importedProductsMap);
 
-            for (File entitlement : entitlementFiles) {
-                try (Reader reader = new FileReader(entitlement)) {
-                    log.debug("Importing entitlement from file: {}", entitlement.getName());
-                    subscriptionsToImport.add(
-                        importer.importObject(mapper, reader, owner, consumerUuid, meta));
+            List<EntitlementDTO> batch = parser.nextEntitlements(ENTITLEMENT_BATCH_SIZE);
+            while (!batch.isEmpty()) {
+                for (EntitlementDTO entitlement : batch) {
+                    log.debug("Importing entitlement: {}", entitlement.getId());
+                    subscriptionsToImport.add(importer.importObject(entitlement, owner, consumerUuid, meta));
                 }
+
+                batch = parser.nextEntitlements(ENTITLEMENT_BATCH_SIZE);
             }
         }
 
@@ -707,6 +783,17 @@ public class Importer {
     private File extractArchive(File tempDir, String exportFileName, InputStream exportFileStream)
         throws IOException, ImportExtractionException {
 
+        return this.extractArchive(tempDir, exportFileName, exportFileStream, null);
+    }
+
+    /**
+     * Extracts an archive to the given directory. If a manifest parser is provided, the product and
+     * entitlement files of the archive are submitted to the parser as they are read, rather than
+     * being extracted.
+     */
+    private File extractArchive(File tempDir, String exportFileName, InputStream exportFileStream,
+        ManifestParser parser) throws IOException, ImportExtractionException {
+
         log.debug("Extracting archive to: {}", tempDir.getAbsolutePath());
 
         byte[] buf = new byte[1024];
@@ -730,10 +817,14 @@ public class Importer {
                     new File(tempDir, directory).mkdirs();
                 }
 
-                try (FileOutputStream fileoutputstream = new FileOutputStream(new File(tempDir, entryName))) {
-                    int n;
-                    while ((n = zipinputstream.read(buf, 0, 1024)) > -1) {
-                        fileoutputstream.write(buf, 0, n);
+                if (parser == null || !this.parseArchiveEntry(parser, entryName, zipinputstream)) {
+                    try (FileOutputStream fileoutputstream =
+                        new FileOutputStream(new File(tempDir, entryName))) {
+
+                        int n;
+                        while ((n = zipinputstream.read(buf, 0, 1024)) > -1) {
+                            fileoutputstream.write(buf, 0, n);
+                        }
                     }
                 }
 
@@ -745,6 +836,39 @@ public class Importer {
         return new File(tempDir.getAbsolutePath(), "export");
     }
 
+    /**
+     * Submits the given archive entry to the manifest parser if it is a product or entitlement
+     * file.
+     *
+     * @return
+     *  true if the entry was submitted to the parser; false if it should be extracted
+     */
+    private boolean parseArchiveEntry(ManifestParser parser, String entryName, InputStream input)
+        throws IOException {
+
+        String productsPrefix = "export/" + ImportFile.PRODUCTS.fileName() + "/";
+        String entitlementsPrefix = "export/" + ImportFile.ENTITLEMENTS.fileName() + "/";
+
+        if (entryName.startsWith(productsPrefix) && entryName.endsWith(ProductImporter.PRODUCT_FILE_SUFFIX)) {
+            String productId = entryName.substring(productsPrefix.length(),
+                entryName.length() - ProductImporter.PRODUCT_FILE_SUFFIX.length());
+
+            parser.addProduct(productId, input.readAllBytes());
+            return true;
+        }
+
+        if (entryName.startsWith(entitlementsPrefix)) {
+            parser.addEntitlement(input.readAllBytes());
+            return true;
+        }
+
+        return false;
+    }
+
+    private ManifestParser createManifestParser() {
+        return new ManifestParser(this.mapper, this.syncUtils.getImportParserThreads());
+    }
+
     private byte[] loadSignature(File signatureFile) throws IOException {
         // signature is never going to be a huge file, therefore cast is a-okay
         byte[] signatureBytes = new byte[(int) signatureFile.length()];
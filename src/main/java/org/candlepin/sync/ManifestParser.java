@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+
+/**
+ * Parses the product and entitlement files of a manifest, which make up the bulk of large
+ * manifests, on a set of worker threads. Files are submitted as they are read from the manifest,
+ * and parsed while the rest of the manifest is being read.
+ * <p></p>
+ * Only a few files per worker thread are queued at any time; when the queue is full, files are
+ * parsed by the submitting thread instead, bounding the amount of unparsed manifest data held in
+ * memory. If the thread count is less than two, every file is parsed by the submitting thread.
+ * Parsed entitlements are released as they are fetched, so they can be consumed in batches.
+ * <p></p>
+ * Parsers must be closed once they are no longer needed, to release their worker threads.
+ */
+class ManifestParser implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ManifestParser.class);
+
+    private final ObjectMapper mapper;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Future<ProductDTO>> products;
+    private final List<Future<EntitlementDTO>> entitlements;
+    private int entitlementOffset;
+
+    /**
+     * Creates a new manifest parser.
+     *
+     * @param mapper
+     *  the object mapper with which to parse the manifest files
+     *
+     * @param threads
+     *  the number of worker threads parsing the manifest files
+     */
+    ManifestParser(ObjectMapper mapper, int threads) {
+        if (mapper == null) {
+            throw new IllegalArgumentException("mapper is null");
+        }
+
+        this.mapper = mapper;
+        this.products = new LinkedHashMap<>();
+        this.entitlements = new ArrayList<>();
+
+        if (threads > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "manifest-parser-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+            log.debug("Parsing manifest with {} worker threads", threads);
+        }
+        else {
+            this.executor = null;
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        if (this.executor != null) {
+            return this.executor.submit(task);
+        }
+
+        FutureTask<T> future = new FutureTask<>(task);
+        future.run();
+
+        return future;
+    }
+
+    /**
+     * Submits the given product data for parsing.
+     *
+     * @param productId
+     *  the ID of the product, as defined by the name of its manifest file
+     *
+     * @param data
+     *  the content of the product's manifest file
+     */
+    void addProduct(String productId, byte[] data) {
+        this.products.put(productId, this.submit(() -> this.mapper.readValue(data, ProductDTO.class)));
+    }
+
+    /**
+     * Submits the given product file for parsing.
+     *
+     * @param productId
+     *  the ID of the product, as defined by the name of its manifest file
+     *
+     * @param file
+     *  the product's manifest file
+     */
+    void addProduct(String productId, File file) {
+        this.products.put(productId, this.submit(() -> this.mapper.readValue(file, ProductDTO.class)));
+    }
+
+    /**
+     * Submits the given entitlement data for parsing.
+     *
+     * @param data
+     *  the content of the entitlement's manifest file
+     */
+    void addEntitlement(byte[] data) {
+        this.entitlements.add(this.submit(() -> this.mapper.readValue(data, EntitlementDTO.class)));
+    }
+
+    /**
+     * Submits the given entitlement file for parsing.
+     *
+     * @param file
+     *  the entitlement's manifest file
+     */
+    void addEntitlement(File file) {
+        this.entitlements.add(this.submit(() -> this.mapper.readValue(file, EntitlementDTO.class)));
+    }
+
+    /**
+     * Checks whether or not any product or entitlement has been submitted to this parser.
+     *
+     * @return
+     *  true if no product or entitlement has been submitted; false otherwise
+     */
+    boolean isEmpty() {
+        return this.products.isEmpty() && this.entitlements.isEmpty();
+    }
+
+    /**
+     * Fetches the parsed products, waiting for any product still being parsed.
+     *
+     * @throws IOException
+     *  if any of the products could not be parsed
+     *
+     * @return
+     *  a map of the parsed products, keyed by the product IDs they were submitted with
+     */
+    Map<String, ProductDTO> getProducts() throws IOException {
+        Map<String, ProductDTO> output = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Future<ProductDTO>> entry : this.products.entrySet()) {
+            output.put(entry.getKey(), this.await(entry.getValue()));
+        }
+
+        return output;
+    }
+
+    /**
+     * Fetches up to the given number of parsed entitlements, in the order in which they were
+     * submitted, waiting for any entitlement still being parsed. Each entitlement is only returned
+     * once, and is released by the parser as it is returned, so callers consuming the entitlements
+     * in batches only hold one batch of parsed entitlements at a time.
+     *
+     * @param count
+     *  the maximum number of entitlements to fetch
+     *
+     * @throws IOException
+     *  if any of the entitlements could not be parsed
+     *
+     * @return
+     *  a list of the next parsed entitlements; empty once every entitlement has been fetched
+     */
+    List<EntitlementDTO> nextEntitlements(int count) throws IOException {
+        int end = (int) Math.min(this.entitlements.size(), (long) this.entitlementOffset + count);
+        List<EntitlementDTO> output = new ArrayList<>(Math.max(0, end - this.entitlementOffset));
+
+        for (; this.entitlementOffset < end; ++this.entitlementOffset) {
+            output.add(this.await(this.entitlements.get(this.entitlementOffset)));
+            this.entitlements.set(this.entitlementOffset, null);
+        }
+
+        return output;
+    }
+
+    /**
+     * Fetches the parsed entitlements not yet fetched, in the order in which they were submitted,
+     * waiting for any entitlement still being parsed.
+     *
+     * @throws IOException
+     *  if any of the entitlements could not be parsed
+     *
+     * @return
+     *  a list of the remaining parsed entitlements
+     */
+    List<EntitlementDTO> getEntitlements() throws IOException {
+        return this.nextEntitlements(Integer.MAX_VALUE);
+    }
+
+    private <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing manifest", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+}
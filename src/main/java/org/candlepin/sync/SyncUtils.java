@@ -92,4 +92,8 @@ public class SyncUtils {
     public ObjectMapper getObjectMapper() {
         return this.mapper;
     }
+
+    int getImportParserThreads() {
+        return config != null ? config.getInt(ConfigProperties.SYNC_IMPORT_PARSER_THREADS) : 0;
+    }
 }
@@ -0,0 +1,545 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync.file;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import com.google.inject.Inject;
+
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * A ManifestFileService implementation that stores manifest files in a local directory, keeping
+ * them out of the database and its transaction logs.
+ * <p></p>
+ * File contents are content-addressed: each distinct file is stored once, as a blob named after
+ * its SHA-256 digest, and referenced by one small record per stored manifest which holds its
+ * metadata. Blobs are deleted along with the last record referencing them. Files are written and
+ * read through NIO channels, and downloads are transferred straight from the blob's file channel.
+ * <p></p>
+ * The store directory may be shared by several Candlepin nodes. Publishing a blob and its record,
+ * and deleting records along with their blobs, is serialized across nodes by an exclusive lock on
+ * the store's lock file, so a node never deletes a blob another node is publishing a record for.
+ * The file system holding the store must support file locks for this to hold.
+ * <p></p>
+ * The store directory is laid out as follows:
+ * <pre>
+ *  blobs/&lt;first two digest characters&gt;/&lt;digest&gt;
+ *  records/&lt;id&gt;.properties
+ *  tmp/
+ *  store.lock
+ * </pre>
+ */
+@Singleton
+public class FileSystemManifestService implements ManifestFileService {
+    private static final Logger log = LoggerFactory.getLogger(FileSystemManifestService.class);
+
+    private static final String BLOB_DIR = "blobs";
+    private static final String RECORD_DIR = "records";
+    private static final String TEMP_DIR = "tmp";
+    private static final String RECORD_SUFFIX = ".properties";
+    private static final String LOCK_FILE = "store.lock";
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    /**
+     * Serializes the use of store lock files by the threads of this node, as file locks are held on
+     * behalf of the entire JVM, and overlapping requests from the same JVM fail rather than block
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    private static final String PROP_TYPE = "type";
+    private static final String PROP_FILENAME = "filename";
+    private static final String PROP_PRINCIPAL = "principal";
+    private static final String PROP_TARGET = "target";
+    private static final String PROP_CREATED = "created";
+    private static final String PROP_DIGEST = "digest";
+
+    /**
+     * A manifest file stored in the local manifest store
+     */
+    public static class StoredManifestFile implements ManifestFile {
+        private final String id;
+        private final ManifestFileType type;
+        private final String filename;
+        private final String principalName;
+        private final String targetId;
+        private final Date created;
+        private final String digest;
+        private final Path blob;
+
+        private StoredManifestFile(String id, ManifestFileType type, String filename, String principalName,
+            String targetId, Date created, String digest, Path blob) {
+
+            this.id = id;
+            this.type = type;
+            this.filename = filename;
+            this.principalName = principalName;
+            this.targetId = targetId;
+            this.created = created;
+            this.digest = digest;
+            this.blob = blob;
+        }
+
+        @Override
+        public String getId() {
+            return this.id;
+        }
+
+        @Override
+        public String getName() {
+            return this.filename;
+        }
+
+        @Override
+        public String getTargetId() {
+            return this.targetId;
+        }
+
+        public ManifestFileType getType() {
+            return this.type;
+        }
+
+        public String getPrincipalName() {
+            return this.principalName;
+        }
+
+        public Date getCreated() {
+            return this.created;
+        }
+
+        public String getDigest() {
+            return this.digest;
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p></p>
+         * The returned stream reads the stored file directly and must be closed by the caller.
+         */
+        @Override
+        public InputStream getInputStream() {
+            try {
+                return Channels.newInputStream(FileChannel.open(this.blob, StandardOpenOption.READ));
+            }
+            catch (IOException e) {
+                throw new ManifestFileServiceException("Unable to read stored manifest file: " + this.id, e);
+            }
+        }
+
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            // Let the file channel drive the transfer, which avoids copying the file through an
+            // intermediate heap buffer where the target channel allows it
+            WritableByteChannel target = Channels.newChannel(output);
+
+            try (FileChannel source = FileChannel.open(this.blob, StandardOpenOption.READ)) {
+                long size = source.size();
+                long position = 0;
+
+                while (position < size) {
+                    position += source.transferTo(position, size - position, target);
+                }
+            }
+        }
+    }
+
+    private final Path blobDir;
+    private final Path recordDir;
+    private final Path tempDir;
+    private final Path lockFile;
+
+    @Inject
+    public FileSystemManifestService(Configuration config) {
+        Path baseDir = Paths.get(config.getString(ConfigProperties.SYNC_MANIFEST_STORE_DIR));
+
+        this.blobDir = baseDir.resolve(BLOB_DIR);
+        this.recordDir = baseDir.resolve(RECORD_DIR);
+        this.tempDir = baseDir.resolve(TEMP_DIR);
+        this.lockFile = baseDir.resolve(LOCK_FILE);
+    }
+
+    /**
+     * An operation on the store performed while holding the store lock
+     *
+     * @param <T>
+     *  the type of the result of the operation
+     */
+    @FunctionalInterface
+    private interface LockedOperation<T> {
+        T execute() throws IOException;
+    }
+
+    /**
+     * Performs the given operation while holding the store lock, which guards the blob reference
+     * counts derived from the records on disk against concurrent changes by this node and by any
+     * other node sharing the store directory.
+     *
+     * @param operation
+     *  the operation to perform
+     *
+     * @throws IOException
+     *  if the lock cannot be obtained, or the operation fails
+     *
+     * @return
+     *  the result of the operation
+     */
+    private <T> T withStoreLock(LockedOperation<T> operation) throws IOException {
+        synchronized (JVM_LOCK) {
+            Files.createDirectories(this.lockFile.getParent());
+
+            try (FileChannel channel = FileChannel.open(this.lockFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+                FileLock fileLock = channel.lock()) {
+
+                return operation.execute();
+            }
+        }
+    }
+
+    @Override
+    public ManifestFile get(String id) throws ManifestFileServiceException {
+        if (id == null || !ID_PATTERN.matcher(id).matches()) {
+            return null;
+        }
+
+        try {
+            StoredManifestFile file = this.readRecord(this.recordDir.resolve(id + RECORD_SUFFIX));
+
+            if (file != null && !Files.exists(file.blob)) {
+                log.warn("Stored manifest file {} references a missing blob: {}", id, file.getDigest());
+                return null;
+            }
+
+            return file;
+        }
+        catch (IOException e) {
+            throw new ManifestFileServiceException("Unable to read stored manifest file: " + id, e);
+        }
+    }
+
+    @Override
+    public ManifestFile store(ManifestFileType type, File fileToStore, String principalName,
+        String targetId) throws ManifestFileServiceException {
+
+        Path staged = null;
+
+        try {
+            Files.createDirectories(this.tempDir);
+
+            // Copy the file into the store before publishing it, so a partial copy is never visible
+            staged = Files.createTempFile(this.tempDir, "manifest-", ".tmp");
+            String digest = this.copyAndDigest(fileToStore.toPath(), staged);
+            Path blob = this.getBlobPath(digest);
+
+            StoredManifestFile file = new StoredManifestFile(UUID.randomUUID().toString().replace("-", ""),
+                type, fileToStore.getName(), principalName, targetId, new Date(), digest, blob);
+
+            Path source = staged;
+            this.withStoreLock(() -> {
+                if (!Files.exists(blob)) {
+                    Files.createDirectories(blob.getParent());
+                    Files.move(source, blob, StandardCopyOption.ATOMIC_MOVE);
+                }
+
+                this.writeRecord(file);
+                return null;
+            });
+
+            log.debug("Stored manifest file {} as blob {}", file.getId(), digest);
+            return file;
+        }
+        catch (IOException e) {
+            throw new ManifestFileServiceException("Unable to store manifest file: " + fileToStore, e);
+        }
+        finally {
+            this.deleteQuietly(staged);
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws ManifestFileServiceException {
+        if (id == null || !ID_PATTERN.matcher(id).matches()) {
+            return false;
+        }
+
+        return this.deleteMatching(file -> id.equals(file.getId()), null) > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p></p>
+     * Any blobs and staged files left behind by interrupted operations, and last modified before
+     * the expiry date, are deleted as well.
+     */
+    @Override
+    public int deleteExpired(Date expiryDate) throws ManifestFileServiceException {
+        return this.deleteMatching(file -> file.getCreated().before(expiryDate), expiryDate);
+    }
+
+    @Override
+    public int delete(ManifestFileType type, String targetId) throws ManifestFileServiceException {
+        return this.deleteMatching(file -> file.getType() == type && file.getTargetId() != null &&
+            file.getTargetId().equals(targetId), null);
+    }
+
+    /**
+     * Deletes the records matching the given filter, along with the blobs no longer referenced by
+     * any remaining record.
+     *
+     * @param filter
+     *  the filter selecting the records to delete
+     *
+     * @param sweepDate
+     *  if not null, the date before which unreferenced blobs and staged files are deleted even if
+     *  they were not referenced by any of the deleted records
+     *
+     * @return
+     *  the number of records deleted
+     */
+    private int deleteMatching(Predicate<StoredManifestFile> filter, Date sweepDate) {
+        try {
+            return this.withStoreLock(() -> {
+                Set<String> released = new HashSet<>();
+                Set<String> referenced = new HashSet<>();
+                int deleted = 0;
+
+                for (StoredManifestFile file : this.listRecords()) {
+                    if (filter.test(file)) {
+                        Files.deleteIfExists(this.recordDir.resolve(file.getId() + RECORD_SUFFIX));
+                        released.add(file.getDigest());
+                        ++deleted;
+                    }
+                    else {
+                        referenced.add(file.getDigest());
+                    }
+                }
+
+                released.removeAll(referenced);
+                for (String digest : released) {
+                    Files.deleteIfExists(this.getBlobPath(digest));
+                }
+
+                if (sweepDate != null) {
+                    this.sweep(referenced, sweepDate);
+                }
+
+                log.debug("Deleted {} stored manifest files and {} blobs", deleted, released.size());
+                return deleted;
+            });
+        }
+        catch (IOException e) {
+            throw new ManifestFileServiceException("Unable to delete stored manifest files", e);
+        }
+    }
+
+    private void sweep(Set<String> referenced, Date sweepDate) throws IOException {
+        if (Files.isDirectory(this.blobDir)) {
+            try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(this.blobDir)) {
+                for (Path prefix : prefixes) {
+                    try (DirectoryStream<Path> blobs = Files.newDirectoryStream(prefix)) {
+                        for (Path blob : blobs) {
+                            if (!referenced.contains(blob.getFileName().toString())) {
+                                this.deleteIfOlder(blob, sweepDate);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if (Files.isDirectory(this.tempDir)) {
+            try (DirectoryStream<Path> staged = Files.newDirectoryStream(this.tempDir)) {
+                for (Path file : staged) {
+                    this.deleteIfOlder(file, sweepDate);
+                }
+            }
+        }
+    }
+
+    private void deleteIfOlder(Path path, Date date) throws IOException {
+        if (Files.getLastModifiedTime(path).toMillis() < date.getTime()) {
+            log.info("Deleting orphaned manifest store file: {}", path);
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private String copyAndDigest(Path source, Path target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+            FileChannel output = FileChannel.open(target, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            while (input.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer.duplicate());
+
+                while (buffer.hasRemaining()) {
+                    output.write(buffer);
+                }
+
+                buffer.clear();
+            }
+
+            output.force(true);
+        }
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private Path getBlobPath(String digest) {
+        return this.blobDir.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private List<StoredManifestFile> listRecords() throws IOException {
+        List<StoredManifestFile> files = new ArrayList<>();
+
+        if (Files.isDirectory(this.recordDir)) {
+            String glob = "*" + RECORD_SUFFIX;
+
+            try (DirectoryStream<Path> records = Files.newDirectoryStream(this.recordDir, glob)) {
+                for (Path record : records) {
+                    StoredManifestFile file = this.readRecord(record);
+
+                    if (file != null) {
+                        files.add(file);
+                    }
+                }
+            }
+        }
+
+        return files;
+    }
+
+    private StoredManifestFile readRecord(Path record) throws IOException {
+        Properties props = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(record, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        catch (NoSuchFileException e) {
+            // Deleted concurrently, or never existed
+            return null;
+        }
+
+        String filename = record.getFileName().toString();
+        String digest = props.getProperty(PROP_DIGEST);
+
+        return new StoredManifestFile(
+            filename.substring(0, filename.length() - RECORD_SUFFIX.length()),
+            ManifestFileType.valueOf(props.getProperty(PROP_TYPE)),
+            props.getProperty(PROP_FILENAME),
+            props.getProperty(PROP_PRINCIPAL),
+            props.getProperty(PROP_TARGET),
+            new Date(Long.parseLong(props.getProperty(PROP_CREATED))),
+            digest,
+            this.getBlobPath(digest));
+    }
+
+    private void writeRecord(StoredManifestFile file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(PROP_TYPE, file.getType().name());
+        props.setProperty(PROP_CREATED, String.valueOf(file.getCreated().getTime()));
+        props.setProperty(PROP_DIGEST, file.getDigest());
+
+        if (file.getName() != null) {
+            props.setProperty(PROP_FILENAME, file.getName());
+        }
+
+        if (file.getPrincipalName() != null) {
+            props.setProperty(PROP_PRINCIPAL, file.getPrincipalName());
+        }
+
+        if (file.getTargetId() != null) {
+            props.setProperty(PROP_TARGET, file.getTargetId());
+        }
+
+        Files.createDirectories(this.recordDir);
+        Path staged = Files.createTempFile(this.tempDir, "record-", ".tmp");
+
+        try {
+            try (Writer writer = Files.newBufferedWriter(staged, StandardCharsets.UTF_8)) {
+                props.store(writer, null);
+            }
+
+            Files.move(staged, this.recordDir.resolve(file.getId() + RECORD_SUFFIX),
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            this.deleteQuietly(staged);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            }
+            catch (IOException e) {
+                log.warn("Unable to delete staged manifest store file: {}", path, e);
+            }
+        }
+    }
+}
@@ -15,7 +15,9 @@
 
 package org.candlepin.sync.file;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Represents a manifest file that is stored in the {@link ManifestFileService}.
@@ -43,6 +45,17 @@ public interface ManifestFile {
      */
     InputStream getInputStream();
 
+    /**
+     * Writes the contents of the stored file to the given output stream. The output stream is
+     * not closed.
+     *
+     * @param output the stream to which to write the stored file.
+     * @throws IOException if the file could not be read or written to the stream.
+     */
+    default void writeTo(OutputStream output) throws IOException {
+        this.getInputStream().transferTo(output);
+    }
+
     /**
      * Gets the target id of the stored file. If the file was created as part of
      * a consumer export, it should be the consumer UUID. If it was created as part
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync.file;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+
+/**
+ * Provides the ManifestFileService implementation selected by the manifest store configuration.
+ */
+public class ManifestFileServiceProvider implements Provider<ManifestFileService> {
+    private static final Logger log = LoggerFactory.getLogger(ManifestFileServiceProvider.class);
+
+    public static final String DB_STORE = "db";
+    public static final String FILESYSTEM_STORE = "filesystem";
+
+    private final Configuration config;
+    private final Provider<DBManifestService> dbServiceProvider;
+    private final Provider<FileSystemManifestService> fileSystemServiceProvider;
+
+    @Inject
+    public ManifestFileServiceProvider(Configuration config, Provider<DBManifestService> dbServiceProvider,
+        Provider<FileSystemManifestService> fileSystemServiceProvider) {
+
+        this.config = config;
+        this.dbServiceProvider = dbServiceProvider;
+        this.fileSystemServiceProvider = fileSystemServiceProvider;
+    }
+
+    @Override
+    public ManifestFileService get() {
+        String store = this.config.getString(ConfigProperties.SYNC_MANIFEST_STORE);
+
+        if (FILESYSTEM_STORE.equalsIgnoreCase(store)) {
+            return this.fileSystemServiceProvider.get();
+        }
+
+        if (store != null && !DB_STORE.equalsIgnoreCase(store)) {
+            log.warn("Unknown manifest store \"{}\"; storing manifest files in the database", store);
+        }
+
+        return this.dbServiceProvider.get();
+    }
+}
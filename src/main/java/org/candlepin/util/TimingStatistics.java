@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+
+/**
+ * The TimingStatistics class accumulates the number, total and maximum duration of some repeated
+ * operation. Instances are thread-safe and cheap to update, making them suitable for recording
+ * timings on hot paths.
+ */
+public class TimingStatistics {
+
+    private final LongAdder count;
+    private final LongAdder totalNanos;
+    private final LongAccumulator maxNanos;
+
+    /**
+     * Creates a new, empty TimingStatistics instance
+     */
+    public TimingStatistics() {
+        this.count = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new LongAccumulator(Long::max, 0);
+    }
+
+    /**
+     * Records a single operation which took the given amount of time. Negative durations are
+     * recorded as zero.
+     *
+     * @param nanos
+     *  the duration of the operation, in nanoseconds
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Records a single operation which started at the given time, as returned by
+     * {@link System#nanoTime()}, and ended now.
+     *
+     * @param startNanos
+     *  the time at which the operation started, in nanoseconds
+     */
+    public void recordSince(long startNanos) {
+        this.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Fetches the number of operations recorded.
+     *
+     * @return
+     *  the number of operations recorded
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Fetches the total duration of all operations recorded, in milliseconds.
+     *
+     * @return
+     *  the total duration of all recorded operations, in milliseconds
+     */
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.totalNanos.sum());
+    }
+
+    /**
+     * Fetches the duration of the longest operation recorded, in milliseconds.
+     *
+     * @return
+     *  the duration of the longest recorded operation, in milliseconds
+     */
+    public long getMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxNanos.get());
+    }
+
+    /**
+     * Fetches the average duration of the operations recorded, in milliseconds.
+     *
+     * @return
+     *  the average duration of the recorded operations in milliseconds, or zero if no operations
+     *  have been recorded
+     */
+    public double getAverageMillis() {
+        long count = this.count.sum();
+        return count > 0 ? (this.totalNanos.sum() / (double) count) / 1_000_000.0 : 0.0;
+    }
+
+    /**
+     * Clears all recorded operations.
+     */
+    public void reset() {
+        this.count.reset();
+        this.totalNanos.reset();
+        this.maxNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TimingStatistics [count: %d, total: %dms, avg: %.3fms, max: %dms]",
+            this.getCount(), this.getTotalMillis(), this.getAverageMillis(), this.getMaxMillis());
+    }
+}
@@ -138,7 +138,7 @@ public abstract class X509Util {
     public Set<ProductContent> filterContentByContentArch(
         Set<ProductContent> pcSet, Consumer consumer, Product product) {
         Set<ProductContent> filtered = new HashSet<>();
-        Set<String> consumerArches = archesOf(consumer);
+        Set<String> consumerArches = getConsumerArches(consumer);
 
         if (consumerArches.isEmpty()) {
             log.debug("consumer: {} has no {} / {} attribute",
@@ -162,7 +162,17 @@ public abstract class X509Util {
         return filtered;
     }
 
-    private Set<String> archesOf(Consumer consumer) {
+    /**
+     * Fetches the architectures of the given consumer, as used to filter content by architecture.
+     *
+     * @param consumer
+     *  the consumer for which to fetch architectures
+     *
+     * @return
+     *  a set containing the consumer's architectures; may be empty if the consumer does not
+     *  declare any architectures
+     */
+    public Set<String> getConsumerArches(Consumer consumer) {
         Set<String> consumerArches = new HashSet<>();
 
         String supportedArches = consumer.getFact(SUPPORTED_ARCH_FACT);
@@ -36,6 +36,8 @@ import com.google.common.collect.Collections2;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,24 +46,35 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
 import java.util.zip.InflaterOutputStream;
 
+import javax.inject.Singleton;
 
 
+
+@Singleton
 public class X509V3ExtensionUtil extends X509Util {
 
     private static final Logger log = LoggerFactory.getLogger(X509V3ExtensionUtil.class);
@@ -73,8 +86,11 @@ public class X509V3ExtensionUtil extends X509Util {
     private Configuration config;
     private EntitlementCurator entCurator;
 
-    private long pathNodeId = 0;
-    private long huffNodeId = 0;
+    private final AtomicLong pathNodeId = new AtomicLong();
+    private final AtomicLong huffNodeId = new AtomicLong();
+
+    // Encoded content path dictionaries, keyed by the fingerprint of their content paths
+    private final Map<String, byte[]> contentValueCache;
 
     @Inject
     public X509V3ExtensionUtil(Configuration config, EntitlementCurator entCurator,
@@ -84,6 +100,16 @@ public class X509V3ExtensionUtil extends X509Util {
         this.config = config;
         this.entCurator = entCurator;
         this.mapper = objectMapper;
+
+        int cacheSize = Math.max(0, config.getInt(ConfigProperties.CONTENT_PATH_CACHE_MAX));
+        this.contentValueCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return this.size() > cacheSize;
+            }
+        });
     }
 
     public Set<X509ExtensionWrapper> getExtensions() {
@@ -112,14 +138,88 @@ public class X509V3ExtensionUtil extends X509Util {
     public byte[] createEntitlementDataPayload(List<org.candlepin.model.dto.Product> productModels,
         Consumer consumer, Pool pool, Integer quantity) throws IOException {
 
-        EntitlementBody map = createEntitlementBody(productModels, consumer, pool, quantity);
+        return this.createEntitlementDataPayload(productModels, consumer.getUuid(), pool, quantity);
+    }
+
+    /**
+     * Creates the compressed entitlement data payload for the given product models. If the consumer
+     * UUID is null, the consumer will be omitted from the payload, allowing the payload to be
+     * shared by multiple consumers.
+     *
+     * @param productModels
+     *  the product models to include in the payload
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer to include in the payload, or null to omit the consumer
+     *
+     * @param pool
+     *  the pool from which the payload's subscription and order details are generated
+     *
+     * @param quantity
+     *  the entitlement quantity to include in the payload; may be null
+     *
+     * @return
+     *  the compressed payload
+     */
+    public byte[] createEntitlementDataPayload(List<org.candlepin.model.dto.Product> productModels,
+        String consumerUuid, Pool pool, Integer quantity) throws IOException {
 
-        String json = toJson(map);
+        EntitlementBody map = createEntitlementBody(productModels, consumerUuid, pool, quantity);
+        return this.createEntitlementDataPayload(map);
+    }
+
+    /**
+     * Creates the compressed entitlement data payload for an entitlement body built with
+     * {@link #createEntitlementBody}. This only serializes and compresses the body, and is safe to
+     * call from any thread.
+     *
+     * @param body
+     *  the entitlement body to include in the payload
+     *
+     * @return
+     *  the compressed payload
+     */
+    public byte[] createEntitlementDataPayload(EntitlementBody body) throws IOException {
+        String json = toJson(body);
         return processPayload(json);
     }
 
+    /**
+     * Fetches the encoded content path dictionary for the content of the given entitlement body.
+     * The content paths alone determine the encoded dictionary, so dictionaries are cached by the
+     * fingerprint of the content paths and shared by every certificate with the same content set.
+     */
     private byte[] retrieveContentValue(EntitlementBody eb) throws IOException {
         List<Content> contentList = getContentList(eb);
+        String fingerprint = this.fingerprintContentPaths(contentList);
+
+        byte[] cached = this.contentValueCache.get(fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+
+        byte[] encoded = this.encodeContentValue(contentList);
+        this.contentValueCache.put(fingerprint, encoded);
+
+        return encoded;
+    }
+
+    private String fingerprintContentPaths(List<Content> contentList) {
+        Set<String> paths = new TreeSet<>();
+        for (Content content : contentList) {
+            paths.add(String.valueOf(content.getPath()));
+        }
+
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        for (String path : paths) {
+            digest.update(path.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private byte[] encodeContentValue(List<Content> contentList) throws IOException {
         PathNode treeRoot = makePathTree(contentList, new PathNode());
         List<String> nodeStrings = orderStrings(treeRoot);
         if (nodeStrings.size() == 0) {
@@ -142,8 +242,14 @@ public class X509V3ExtensionUtil extends X509Util {
     public EntitlementBody createEntitlementBody(List<org.candlepin.model.dto.Product> productModels,
         Consumer consumer, Pool pool, Integer quantity) {
 
+        return this.createEntitlementBody(productModels, consumer.getUuid(), pool, quantity);
+    }
+
+    public EntitlementBody createEntitlementBody(List<org.candlepin.model.dto.Product> productModels,
+        String consumerUuid, Pool pool, Integer quantity) {
+
         EntitlementBody toReturn = new EntitlementBody();
-        toReturn.setConsumer(consumer.getUuid());
+        toReturn.setConsumer(consumerUuid);
         toReturn.setQuantity(quantity);
         toReturn.setSubscription(createSubscription(pool));
         toReturn.setOrder(createOrder(pool));
@@ -606,30 +712,17 @@ public class X509V3ExtensionUtil extends X509Util {
     }
 
     public List<String> orderStrings(PathNode parent) throws IOException {
-        List<String> parts = new ArrayList<>();
         // walk tree to make string map
         Map<String, Integer> segments = new HashMap<>();
         Set<PathNode> nodes = new HashSet<>();
         buildSegments(segments, nodes, parent);
-        for (Entry<String, Integer> entry : segments.entrySet()) {
-            String part = entry.getKey();
-            if (!part.equals("")) {
-                int count = entry.getValue();
-                if (parts.size() == 0) {
-                    parts.add(part);
-                }
-                else {
-                    int pos = parts.size();
-                    for (int i = 0; i < parts.size(); i++) {
-                        if (count < segments.get(parts.get(i))) {
-                            pos = i;
-                            break;
-                        }
-                    }
-                    parts.add(pos, part);
-                }
-            }
-        }
+
+        // order the parts by their number of occurrences; the sort is stable, so parts with the same
+        // count keep their relative order
+        List<String> parts = new ArrayList<>(segments.keySet());
+        parts.remove("");
+        parts.sort(Comparator.comparingInt(segments::get));
+
         if (TREE_DEBUG) {
             log.debug("Parts List: " + parts);
         }
@@ -724,37 +817,20 @@ public class X509V3ExtensionUtil extends X509Util {
         else {
             baos.write(nodeSize);
         }
-        StringBuilder bits = new StringBuilder();
-        String endNodeLocation = findHuffPath(stringParent, END_NODE);
+        Map<Object, HuffCode> stringCodes = buildCodeTable(stringParent);
+        Map<Object, HuffCode> pathNodeCodes = buildCodeTable(pathNodeParent);
+
+        BitWriter bits = new BitWriter(baos);
+        HuffCode endNodeLocation = stringCodes.getOrDefault(END_NODE, HuffCode.EMPTY);
         for (PathNode pn : pathNodes) {
             for (NodePair np : pn.getChildren()) {
-                bits.append(findHuffPath(stringParent, np.getName()));
-                bits.append(findHuffPath(pathNodeParent, np.getConnection()));
-            }
-            bits.append(endNodeLocation);
-            while (bits.length() >= 8) {
-                int next = 0;
-                for (int i = 0; i < 8; i++) {
-                    next = (byte) next << 1;
-                    if (bits.charAt(i) == '1') {
-                        next++;
-                    }
-                }
-                baos.write(next);
-                bits.delete(0, 8);
+                bits.write(stringCodes.getOrDefault(np.getName(), HuffCode.EMPTY));
+                bits.write(pathNodeCodes.getOrDefault(np.getConnection(), HuffCode.EMPTY));
             }
+            bits.write(endNodeLocation);
         }
 
-        if (bits.length() > 0) {
-            int next = 0;
-            for (int i = 0;  i < 8; i++) {
-                next = (byte) next << 1;
-                if (i < bits.length() && bits.charAt(i) == '1') {
-                    next++;
-                }
-            }
-            baos.write(next);
-        }
+        bits.flush();
         byte[] result = baos.toByteArray();
         if (TREE_DEBUG) {
             ByteArrayInputStream bais = new ByteArrayInputStream(result);
@@ -804,6 +880,41 @@ public class X509V3ExtensionUtil extends X509Util {
         return "";
     }
 
+    /**
+     * Builds the table of the Huffman codes of every value in the given trie. The codes are the
+     * same as those found by {@link #findHuffPath}; values not present in the trie have no entry.
+     */
+    private Map<Object, HuffCode> buildCodeTable(HuffNode trie) {
+        Map<Object, HuffCode> codes = new HashMap<>();
+        Deque<HuffNode> nodes = new ArrayDeque<>();
+        Deque<HuffCode> nodeCodes = new ArrayDeque<>();
+
+        nodes.push(trie);
+        nodeCodes.push(HuffCode.EMPTY);
+
+        while (!nodes.isEmpty()) {
+            HuffNode node = nodes.pop();
+            HuffCode code = nodeCodes.pop();
+
+            // The root's value is never encoded, as its code would be empty
+            if (node != trie && node.getValue() != null) {
+                codes.putIfAbsent(node.getValue(), code);
+            }
+
+            if (node.getRight() != null) {
+                nodes.push(node.getRight());
+                nodeCodes.push(code.append(true));
+            }
+
+            if (node.getLeft() != null) {
+                nodes.push(node.getLeft());
+                nodeCodes.push(code.append(false));
+            }
+        }
+
+        return codes;
+    }
+
     private String toJson(Object anObject) {
         String output = "";
         try {
@@ -852,34 +963,31 @@ public class X509V3ExtensionUtil extends X509Util {
         if (nodesList.get(0).getValue() instanceof PathNode) {
             nodesList.remove(0);
         }
-        while (nodesList.size() > 1) {
-            int node1 = findSmallest(-1, nodesList);
-            int node2 = findSmallest(node1, nodesList);
-            HuffNode hn1 = nodesList.get(node1);
-            HuffNode hn2 = nodesList.get(node2);
-            HuffNode merged = mergeNodes(hn1, hn2);
-            nodesList.remove(hn1);
-            nodesList.remove(hn2);
-            nodesList.add(merged);
+
+        // Impl note: the decoders rebuild this trie from the dictionary, so it must be built exactly
+        // as it always has been: the two lightest nodes are merged, with ties going to the node
+        // which was added to the list first, and merged nodes are added to the end of the list.
+        // Ordering the queue by weight and then by the order nodes were added preserves this.
+        PriorityQueue<QueuedHuffNode> queue = new PriorityQueue<>(Math.max(1, nodesList.size()));
+        long sequence = 0;
+        for (HuffNode node : nodesList) {
+            queue.add(new QueuedHuffNode(node, sequence++));
         }
-        if (TREE_DEBUG) {
-            printTrie(nodesList.get(0), 0);
+
+        while (queue.size() > 1) {
+            HuffNode hn1 = queue.poll().node;
+            HuffNode hn2 = queue.poll().node;
+            queue.add(new QueuedHuffNode(mergeNodes(hn1, hn2), sequence++));
         }
-        return nodesList.get(0);
-    }
 
-    private int findSmallest(int exclude, List<HuffNode> nodes) {
-        int smallest = -1;
-        for (int index = 0; index < nodes.size(); index++) {
-            if (index == exclude) {
-                continue;
-            }
-            if (smallest == -1 || nodes.get(index).getWeight() <
-                nodes.get(smallest).getWeight()) {
-                smallest = index;
-            }
+        HuffNode root = queue.poll().node;
+        nodesList.clear();
+        nodesList.add(root);
+
+        if (TREE_DEBUG) {
+            printTrie(root, 0);
         }
-        return smallest;
+        return root;
     }
 
     private HuffNode mergeNodes(HuffNode left, HuffNode right) {
@@ -1083,6 +1191,81 @@ public class X509V3ExtensionUtil extends X509Util {
         return baos.toByteArray();
     }
 
+    /**
+     * A Huffman trie node waiting to be merged, ordered by weight and then by the order in which
+     * it was queued
+     */
+    private static class QueuedHuffNode implements Comparable<QueuedHuffNode> {
+        private final HuffNode node;
+        private final long sequence;
+
+        private QueuedHuffNode(HuffNode node, long sequence) {
+            this.node = node;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedHuffNode other) {
+            int result = Integer.compare(this.node.getWeight(), other.node.getWeight());
+            return result != 0 ? result : Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+    /**
+     * An immutable Huffman code, held as an array of bits
+     */
+    private static class HuffCode {
+        private static final HuffCode EMPTY = new HuffCode(new BitSet(), 0);
+
+        private final BitSet bits;
+        private final int length;
+
+        private HuffCode(BitSet bits, int length) {
+            this.bits = bits;
+            this.length = length;
+        }
+
+        private HuffCode append(boolean bit) {
+            BitSet appended = (BitSet) this.bits.clone();
+            appended.set(this.length, bit);
+
+            return new HuffCode(appended, this.length + 1);
+        }
+    }
+
+    /**
+     * Packs bits into bytes, most significant bit first, padding the final byte with zeros
+     */
+    private static class BitWriter {
+        private final ByteArrayOutputStream output;
+        private int current;
+        private int count;
+
+        private BitWriter(ByteArrayOutputStream output) {
+            this.output = output;
+        }
+
+        private void write(HuffCode code) {
+            for (int i = 0; i < code.length; ++i) {
+                this.current = (this.current << 1) | (code.bits.get(i) ? 1 : 0);
+
+                if (++this.count == 8) {
+                    this.output.write(this.current);
+                    this.current = 0;
+                    this.count = 0;
+                }
+            }
+        }
+
+        private void flush() {
+            if (this.count > 0) {
+                this.output.write(this.current << (8 - this.count));
+                this.current = 0;
+                this.count = 0;
+            }
+        }
+    }
+
     public class HuffNode {
         private long id = 0;
         private Object value = null;
@@ -1095,12 +1278,12 @@ public class X509V3ExtensionUtil extends X509Util {
             this.weight = weight;
             this.left = left;
             this.right = right;
-            this.id = huffNodeId++;
+            this.id = huffNodeId.getAndIncrement();
         }
         public HuffNode(Object value, int weight) {
             this.value = value;
             this.weight = weight;
-            this.id = huffNodeId++;
+            this.id = huffNodeId.getAndIncrement();
         }
 
         public Object getValue() {
@@ -1138,7 +1321,7 @@ public class X509V3ExtensionUtil extends X509Util {
         private List<PathNode> parents = new ArrayList<>();
 
         public PathNode() {
-            this.id = pathNodeId++;
+            this.id = pathNodeId.getAndIncrement();
         }
 
         public long getId() {
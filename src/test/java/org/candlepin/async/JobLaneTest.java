@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.Set;
+
+
+
+/**
+ * Test suite for the JobLane class
+ */
+public class JobLaneTest {
+
+    private CandlepinCommonTestConfig config;
+
+    @BeforeEach
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_THREADS, "3");
+    }
+
+    private void setLaneConfig(String lane, String cfgName, String value) {
+        this.config.setProperty(ConfigProperties.laneConfig(lane, cfgName), value);
+    }
+
+    @Test
+    public void testDefaultLaneOnlyWhenNoLanesConfigured() throws Exception {
+        List<JobLane> lanes = JobLane.fromConfig(this.config);
+
+        assertEquals(1, lanes.size());
+
+        JobLane lane = lanes.get(0);
+        assertEquals(JobLane.DEFAULT_LANE, lane.getName());
+        assertTrue(lane.isDefault());
+        assertTrue(lane.getJobKeys().isEmpty());
+        assertEquals(3, lane.getThreads());
+        assertEquals(JobLane.DEFAULT_PRIORITY, lane.getPriority());
+        assertNull(lane.getMessageFilter());
+    }
+
+    @Test
+    public void testConfiguredLanes() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "fast, slow");
+        this.setLaneConfig("fast", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job-b, job-a");
+        this.setLaneConfig("fast", ConfigProperties.ASYNC_JOBS_LANE_THREADS, "2");
+        this.setLaneConfig("fast", ConfigProperties.ASYNC_JOBS_LANE_PRIORITY, "9");
+        this.setLaneConfig("slow", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job-c");
+        this.setLaneConfig(JobLane.DEFAULT_LANE, ConfigProperties.ASYNC_JOBS_LANE_PRIORITY, "2");
+
+        List<JobLane> lanes = JobLane.fromConfig(this.config);
+        assertEquals(3, lanes.size());
+
+        JobLane fast = lanes.get(0);
+        assertEquals("fast", fast.getName());
+        assertEquals(Set.of("job-a", "job-b"), fast.getJobKeys());
+        assertEquals(2, fast.getThreads());
+        assertEquals(9, fast.getPriority());
+        assertEquals("job_key IN ('job-a', 'job-b')", fast.getMessageFilter());
+
+        JobLane slow = lanes.get(1);
+        assertEquals("slow", slow.getName());
+        assertEquals(1, slow.getThreads());
+        assertEquals(JobLane.DEFAULT_PRIORITY, slow.getPriority());
+        assertEquals("job_key IN ('job-c')", slow.getMessageFilter());
+
+        JobLane defaultLane = lanes.get(2);
+        assertTrue(defaultLane.isDefault());
+        assertEquals(3, defaultLane.getThreads());
+        assertEquals(2, defaultLane.getPriority());
+        assertEquals("job_key IS NULL OR job_key NOT IN ('job-a', 'job-b', 'job-c')",
+            defaultLane.getMessageFilter());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "default", "bad lane", "lane'", "lane, lane" })
+    public void testInvalidLaneNamesRejected(String lanes) {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, lanes);
+        this.setLaneConfig("lane", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job");
+        this.setLaneConfig("default", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testLaneWithoutJobsRejected() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "lane");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testInvalidJobKeyRejected() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "lane");
+        this.setLaneConfig("lane", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job') OR ('1' = '1");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testJobAssignedToMultipleLanesRejected() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "lane1, lane2");
+        this.setLaneConfig("lane1", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job");
+        this.setLaneConfig("lane2", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "0", "-1" })
+    public void testInvalidThreadCountRejected(String threads) {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "lane");
+        this.setLaneConfig("lane", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job");
+        this.setLaneConfig("lane", ConfigProperties.ASYNC_JOBS_LANE_THREADS, threads);
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "-1", "10" })
+    public void testInvalidPriorityRejected(String priority) {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "lane");
+        this.setLaneConfig("lane", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "job");
+        this.setLaneConfig("lane", ConfigProperties.ASYNC_JOBS_LANE_PRIORITY, priority);
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testCombineFilters() {
+        assertNull(JobLane.combineFilters());
+        assertNull(JobLane.combineFilters(null, " "));
+        assertEquals("a = 1", JobLane.combineFilters(null, "a = 1"));
+        assertEquals("(a = 1) AND (b = 2 OR c = 3)", JobLane.combineFilters("a = 1", "", "b = 2 OR c = 3"));
+    }
+
+    @Test
+    public void testStatistics() {
+        JobLane lane = new JobLane("lane", Set.of("job"), 1, JobLane.DEFAULT_PRIORITY, null);
+
+        lane.messageReceived(100);
+        lane.messageReceived(-1);
+        assertEquals(2, lane.getRunningCount());
+
+        lane.messageProcessed(10, true);
+        lane.messageReceived(300);
+        lane.messageProcessed(20, false);
+        lane.messageProcessed(30, true);
+
+        assertEquals(0, lane.getRunningCount());
+        assertEquals(3, lane.getProcessedCount());
+        assertEquals(1, lane.getFailedCount());
+        assertEquals(200, lane.getAverageQueueLatency());
+        assertEquals(300, lane.getMaxQueueLatency());
+        assertEquals(20, lane.getAverageRuntime());
+    }
+}
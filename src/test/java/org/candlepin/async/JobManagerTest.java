@@ -19,6 +19,7 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyIterable;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
@@ -1351,6 +1352,87 @@ public class JobManagerTest {
         assertThat(result.getJobResult(), containsString("Job blocked by the following existing jobs:"));
     }
 
+    @Test
+    public void testJobWaitsIfConstraintFailsAndWaitingEnabled() throws Exception {
+        AsyncJobStatus blocker = this.createJobStatus("job-1", null, JobState.RUNNING);
+        doReturn(List.of(blocker)).when(this.jobCurator).lockAndLoad(anyIterable());
+
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint((curator, job) -> Arrays.asList("job-1"))
+            .waitWhenBlocked(true);
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.WAITING, result.getState());
+        assertEquals(Set.of("job-1"), result.getBlockingJobIds());
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testWaitingJobQueuedIfBlockingJobsCompleted() throws Exception {
+        AsyncJobStatus blocker = this.createJobStatus("job-1", null, JobState.FINISHED);
+        doReturn(List.of(blocker)).when(this.jobCurator).lockAndLoad(anyIterable());
+
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint((curator, job) -> Arrays.asList("job-1"))
+            .waitWhenBlocked(true);
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.QUEUED, result.getState());
+        assertThat(result.getBlockingJobIds(), empty());
+    }
+
+    @Test
+    public void testQueuedJobSupersedesOlderWaitingJob() throws Exception {
+        AsyncJobStatus waiting = this.createJobStatus("waiting_job", null, JobState.WAITING)
+            .setBlockingJobIds(List.of("job-1"));
+
+        doReturn(List.of(waiting.getId())).when(this.jobCurator)
+            .fetchJobIdsByArguments(eq(TestJob.JOB_KEY), any(Map.class), eq(Set.of(JobState.WAITING)));
+        doReturn(List.of(waiting)).when(this.jobCurator).lockAndLoad(List.of(waiting.getId()));
+
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .setJobArgument("arg1", "val1")
+            .waitWhenBlocked(true)
+            .coalesceByArguments("arg1");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertEquals(JobState.QUEUED, result.getState());
+        assertEquals(JobState.CANCELED, waiting.getState());
+        assertThat(waiting.getBlockingJobIds(), empty());
+    }
+
+    @Test
+    public void testJobWithoutCoalescingArgumentDoesNotSupersedeWaitingJobs() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .waitWhenBlocked(true)
+            .coalesceByArguments("arg1");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        manager.queueJob(builder);
+
+        verify(this.jobCurator, never()).fetchJobIdsByArguments(anyString(), any(Map.class), any());
+    }
+
     @Test
     public void jobStatusFound() {
         String jobId = "jobId";
@@ -1701,6 +1783,60 @@ public class JobManagerTest {
         assertEquals(JobState.CANCELED, output.getState());
     }
 
+    @Test
+    public void testCompletedJobReleasesWaitingJobs() {
+        AsyncJobStatus blocker = this.createJobStatus("blocker", null, JobState.QUEUED);
+        AsyncJobStatus waiting = this.createJobStatus("waiting", null, JobState.WAITING)
+            .setBlockingJobIds(List.of(blocker.getId()));
+
+        this.injectMockedJobStatus(blocker);
+        this.injectMockedJobStatus(waiting);
+        doReturn(List.of(waiting)).when(this.jobCurator).getJobsWaitingOn(blocker.getId());
+
+        JobManager manager = this.createJobManager();
+        manager.cancelJob(blocker.getId());
+
+        assertEquals(JobState.QUEUED, waiting.getState());
+        assertThat(waiting.getBlockingJobIds(), empty());
+        verify(this.dispatcher, times(1)).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testCompletedJobDoesNotReleaseStillBlockedJobs() {
+        AsyncJobStatus blocker = this.createJobStatus("blocker", null, JobState.QUEUED);
+        AsyncJobStatus waiting = this.createJobStatus("waiting", null, JobState.WAITING)
+            .setBlockingJobIds(List.of(blocker.getId(), "other_blocker"));
+
+        this.injectMockedJobStatus(blocker);
+        this.injectMockedJobStatus(waiting);
+        doReturn(List.of(waiting)).when(this.jobCurator).getJobsWaitingOn(blocker.getId());
+        doReturn(List.of("other_blocker")).when(this.jobCurator).fetchActiveBlockingJobIds(waiting.getId());
+
+        JobManager manager = this.createJobManager();
+        manager.cancelJob(blocker.getId());
+
+        assertEquals(JobState.WAITING, waiting.getState());
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testReleaseWaitingJobsQueuesUnblockedJobs() {
+        AsyncJobStatus blocked = this.createJobStatus("blocked", null, JobState.WAITING);
+        AsyncJobStatus unblocked = this.createJobStatus("unblocked", null, JobState.WAITING);
+
+        this.injectMockedJobStatus(blocked);
+        this.injectMockedJobStatus(unblocked);
+        doReturn(List.of(blocked, unblocked)).when(this.jobCurator).getJobsInState(JobState.WAITING);
+        doReturn(List.of("blocker")).when(this.jobCurator).fetchActiveBlockingJobIds(blocked.getId());
+
+        JobManager manager = this.createJobManager();
+        int released = manager.releaseWaitingJobs();
+
+        assertEquals(1, released);
+        assertEquals(JobState.WAITING, blocked.getState());
+        assertEquals(JobState.QUEUED, unblocked.getState());
+    }
+
     @Test
     public void testCancelJobDisablesRetryForRunningJobs() {
         String jobId = "job_id";
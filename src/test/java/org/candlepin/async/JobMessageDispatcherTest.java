@@ -17,6 +17,7 @@ package org.candlepin.async;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
@@ -171,6 +172,7 @@ public class JobMessageDispatcherTest {
         doReturn(message).when(message).setDurable(anyBoolean());
         doReturn(message).when(message).setBody(anyString());
         doReturn(message).when(message).setProperty(anyString(), anyString());
+        doReturn(message).when(message).setPriority(anyInt());
 
         return message;
     }
@@ -207,6 +209,32 @@ public class JobMessageDispatcherTest {
         verify(producer, times(1)).send(eq(address), any(CPMMessage.class));
     }
 
+    @Test
+    public void testDispatchesMessagesWithLanePriority() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "fast");
+        this.config.setProperty(ConfigProperties.laneConfig("fast", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "job_key-1");
+        this.config.setProperty(ConfigProperties.laneConfig("fast",
+            ConfigProperties.ASYNC_JOBS_LANE_PRIORITY), "8");
+
+        JobMessageDispatcher dispatcher = this.buildJobMessageDispatcher();
+
+        CPMSession session = this.mockCPMSession();
+        CPMMessage message = session.createMessage();
+        CPMProducer producer = mock(CPMProducer.class);
+
+        doReturn(session).when(this.sessionFactory).createSession(any(CPMSessionConfig.class));
+        doReturn(producer).when(session).createProducer(any(CPMProducerConfig.class));
+
+        dispatcher.postJobMessage(new JobMessage("job_id-1", "job_key-1"));
+        dispatcher.postJobMessage(new JobMessage("job_id-2", "job_key-2"));
+
+        verify(message, times(1)).setPriority(8);
+        verify(message, times(1)).setPriority(JobLane.DEFAULT_PRIORITY);
+        verify(message, times(2)).setProperty(eq(JobMessageDispatcher.QUEUED_TIME_MESSAGE_PROPERTY),
+            anyString());
+    }
+
     @Test
     public void testThreadsReuseSessions() throws Exception {
         JobMessageDispatcher dispatcher = this.buildJobMessageDispatcher();
@@ -16,6 +16,7 @@ package org.candlepin.async;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
@@ -50,6 +51,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 
 
 public class JobMessageReceiverTest {
@@ -195,6 +199,60 @@ public class JobMessageReceiverTest {
         assertEquals(filter, config.getMessageFilter());
     }
 
+    @Test
+    public void testCreatesConsumersForEachJobLane() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_RECEIVE_FILTER, "node = 'a'");
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "fast");
+        this.config.setProperty(ConfigProperties.laneConfig("fast", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "job_key-2, job_key-1");
+        this.config.setProperty(ConfigProperties.laneConfig("fast",
+            ConfigProperties.ASYNC_JOBS_LANE_THREADS), "2");
+
+        ArgumentCaptor<CPMConsumerConfig> captor = ArgumentCaptor.forClass(CPMConsumerConfig.class);
+
+        JobMessageReceiver receiver = this.buildJobMessageReceiver();
+
+        verify(this.session, times(3)).createConsumer(captor.capture());
+
+        List<String> filters = captor.getAllValues().stream()
+            .map(CPMConsumerConfig::getMessageFilter)
+            .collect(Collectors.toList());
+
+        String laneFilter = "(node = 'a') AND (job_key IN ('job_key-1', 'job_key-2'))";
+        String defaultFilter = "(node = 'a') AND " +
+            "(job_key IS NULL OR job_key NOT IN ('job_key-1', 'job_key-2'))";
+
+        assertEquals(List.of(laneFilter, laneFilter, defaultFilter), filters);
+
+        List<JobLane> lanes = receiver.getLanes();
+        assertEquals(2, lanes.size());
+        assertEquals("fast", lanes.get(0).getName());
+        assertEquals(JobLane.DEFAULT_LANE, lanes.get(1).getName());
+    }
+
+    @Test
+    public void testMessageProcessingUpdatesLaneStatistics() throws Exception {
+        CPMMessage message = this.createCPMMessage("test_id", "test_key");
+        doReturn(String.valueOf(System.currentTimeMillis() - 5000)).when(message)
+            .getProperty(JobMessageDispatcher.QUEUED_TIME_MESSAGE_PROPERTY);
+
+        JobMessageReceiver receiver = this.buildJobMessageReceiver();
+        CPMMessageListener listener = this.listenerContainer.get();
+        assertNotNull(listener);
+
+        listener.handleMessage(this.session, this.consumer, message);
+
+        doThrow(new JobExecutionException()).when(this.jobManager).executeJob(any(JobMessage.class));
+        listener.handleMessage(this.session, this.consumer, message);
+
+        JobLane lane = receiver.getLanes().get(0);
+        assertEquals(0, lane.getRunningCount());
+        assertEquals(2, lane.getProcessedCount());
+        assertEquals(1, lane.getFailedCount());
+        assertTrue(lane.getMaxQueueLatency() >= 5000);
+        assertTrue(lane.getAverageQueueLatency() >= 5000);
+    }
+
     @Test
     public void testMessageAckAndSessionCommitOnSuccess() throws Exception {
         CPMMessage message = this.createCPMMessage("test_id", "test_key");
@@ -17,6 +17,7 @@ package org.candlepin.async.tasks;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -50,11 +51,13 @@ import org.candlepin.model.ConsumerType;
 import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
 import org.candlepin.model.ConsumerTypeCurator;
 import org.candlepin.model.EnvironmentCurator;
+import org.candlepin.model.GuestId;
 import org.candlepin.model.HypervisorId;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.model.VirtConsumerMap;
 import org.candlepin.resource.ConsumerResource;
+import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.service.SubscriptionServiceAdapter;
 import org.candlepin.service.impl.HypervisorUpdateAction;
 import org.candlepin.test.TestUtil;
@@ -68,6 +71,7 @@ import org.mockito.Mockito;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Set;
@@ -551,4 +555,190 @@ public class HypervisorUpdateJobTest {
         assertEquals(currentDate, updated.getRHCloudProfileModified());
     }
 
+    private Consumer mockBatchedHypervisor(String hypervisorId) {
+        Consumer hypervisor = new Consumer();
+        hypervisor.ensureUUID();
+        hypervisor.setName("hypervisor_name");
+        hypervisor.setOwner(owner);
+        hypervisor.setHypervisorId(new HypervisorId().setHypervisorId(hypervisorId));
+
+        VirtConsumerMap knownHosts = new VirtConsumerMap();
+        knownHosts.add(hypervisorId, hypervisor);
+
+        when(config.getInt(eq(ConfigProperties.HYPERVISOR_UPDATE_BATCH_SIZE))).thenReturn(10);
+        when(consumerCurator.getHostConsumersMap(eq(owner), Mockito.<String>anyIterable()))
+            .thenReturn(knownHosts);
+
+        return hypervisor;
+    }
+
+    @Test
+    public void batchedUpdateLoadsKnownHostsInBulk() throws JobExecutionException {
+        when(ownerCurator.getByKey(eq("joe"))).thenReturn(owner);
+        when(ownerCurator.findOwnerById(eq("joe"))).thenReturn(owner);
+        Consumer hypervisor = this.mockBatchedHypervisor("uuid_999");
+
+        hypervisorJson =
+            "{\"hypervisors\":" +
+                "[{" +
+                "\"name\" : \"hypervisor_999\"," +
+                "\"hypervisorId\" : {\"hypervisorId\":\"uuid_999\"}," +
+                "\"guestIds\" : [{\"guestId\" : \"guestId_1_999\"}]" +
+                "},{" +
+                "\"name\" : \"hypervisor_998\"," +
+                "\"hypervisorId\" : {\"hypervisorId\":\"uuid_998\"}" +
+                "}]}";
+
+        JobConfig config = createJobConfig(null);
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, consumerCurator,
+            translator, hypervisorUpdateAction, i18n, objectMapper);
+        job.execute(ctx);
+
+        verify(consumerCurator, times(1)).getHostConsumersMap(eq(owner), Mockito.<String>anyIterable());
+        verify(consumerCurator, never()).getExistingConsumerByHypervisorIdOrUuid(anyString(), anyString(),
+            nullable(String.class));
+        verify(consumerCurator).update(hypervisor, false);
+        verify(consumerCurator).create(any(Consumer.class), eq(false));
+        verify(sink, times(1)).sendEvents();
+    }
+
+    @Test
+    public void failedBatchFallsBackToPerHostUpdates() throws JobExecutionException {
+        when(ownerCurator.getByKey(eq("joe"))).thenReturn(owner);
+        when(ownerCurator.findOwnerById(eq("joe"))).thenReturn(owner);
+        Consumer hypervisor = this.mockBatchedHypervisor("uuid_999");
+
+        when(consumerCurator.update(any(Consumer.class), eq(false)))
+            .thenThrow(new RuntimeException("batch failure"));
+        when(consumerCurator.getExistingConsumerByHypervisorIdOrUuid(any(String.class), any(String.class),
+            nullable(String.class))).thenReturn(hypervisor);
+
+        JobConfig config = createJobConfig(null);
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, consumerCurator,
+            translator, hypervisorUpdateAction, i18n, objectMapper);
+        job.execute(ctx);
+
+        verify(sink).rollback();
+        verify(consumerCurator).evictAll(any());
+        verify(consumerCurator, times(1)).update(hypervisor);
+        verify(sink, times(1)).sendEvents();
+    }
+
+    private Consumer mockReportedHypervisor(String reportHash) {
+        when(ownerCurator.getByKey(eq("joe"))).thenReturn(owner);
+        when(ownerCurator.findOwnerById(eq("joe"))).thenReturn(owner);
+        when(config.getBoolean(eq(ConfigProperties.HYPERVISOR_UPDATE_SKIP_UNCHANGED))).thenReturn(true);
+
+        Consumer hypervisor = new Consumer();
+        hypervisor.ensureUUID();
+        hypervisor.setName("hypervisor_999");
+        hypervisor.setOwner(owner);
+        hypervisor.setType(consumerTypeCurator.getByLabel(ConsumerTypeEnum.HYPERVISOR.getLabel(), true));
+        hypervisor.setHypervisorId(new HypervisorId()
+            .setHypervisorId("uuid_999")
+            .setReporterId("reporter")
+            .setReportHash(reportHash));
+
+        when(consumerCurator.getExistingConsumerByHypervisorIdOrUuid(any(String.class), any(String.class),
+            nullable(String.class))).thenReturn(hypervisor);
+
+        hypervisorJson =
+            "{\"hypervisors\":" +
+                "[{" +
+                "\"name\" : \"hypervisor_999\"," +
+                "\"hypervisorId\" : {\"hypervisorId\":\"uuid_999\"}," +
+                "\"guestIds\" : [{\"guestId\" : \"guestId_1_999\"}]" +
+                "}]," +
+                "\"hashes\" : {\"uuid_999\" : \"hash-2\"}}";
+
+        return hypervisor;
+    }
+
+    @Test
+    public void unchangedReportSkipsReconciliation() throws JobExecutionException {
+        Consumer hypervisor = this.mockReportedHypervisor("hash-2");
+
+        JobConfig config = createJobConfig("reporter");
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, consumerCurator,
+            translator, hypervisorUpdateAction, i18n, objectMapper);
+        job.execute(ctx);
+
+        verify(consumerResource, never()).checkForFactsUpdate(any(Consumer.class), any(ConsumerDTO.class));
+        verify(consumerCurator, never()).update(any(Consumer.class));
+        assertNotNull(hypervisor.getLastCheckin());
+        assertEquals(0, hypervisor.getGuestIds().size());
+    }
+
+    @Test
+    public void changedReportIsReconciledAndStoresHash() throws JobExecutionException {
+        Consumer hypervisor = this.mockReportedHypervisor("hash-1");
+
+        JobConfig config = createJobConfig("reporter");
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, consumerCurator,
+            translator, hypervisorUpdateAction, i18n, objectMapper);
+        job.execute(ctx);
+
+        verify(consumerCurator, times(1)).update(hypervisor);
+        assertEquals("hash-2", hypervisor.getHypervisorId().getReportHash());
+    }
+
+    @Test
+    public void reportFromDifferentReporterIsReconciled() throws JobExecutionException {
+        Consumer hypervisor = this.mockReportedHypervisor("hash-2");
+
+        JobConfig config = createJobConfig("other_reporter");
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, consumerCurator,
+            translator, hypervisorUpdateAction, i18n, objectMapper);
+        job.execute(ctx);
+
+        verify(consumerCurator, times(1)).update(hypervisor);
+        assertEquals("other_reporter", hypervisor.getHypervisorId().getReporterId());
+    }
+
+    @Test
+    public void guestMigratedAwayAndBackIsReconciled() throws JobExecutionException {
+        // The host was last reconciled from the report it will send again, with its guest
+        Consumer hypervisor = this.mockReportedHypervisor("hash-2");
+        hypervisor.addGuestId(new GuestId("guestId_1_999", hypervisor));
+
+        // The guest is then moved off the host outside of the host's own reports
+        Consumer incoming = new Consumer();
+        incoming.setGuestIds(new ArrayList<>());
+
+        new GuestMigration(consumerCurator)
+            .buildMigrationManifest(incoming, hypervisor)
+            .migrate();
+
+        assertEquals(0, hypervisor.getGuestIds().size());
+        assertNull(hypervisor.getHypervisorId().getReportHash());
+
+        // Once the guest is back, the same report must be reconciled rather than skipped
+        JobConfig config = createJobConfig("reporter");
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, consumerCurator,
+            translator, hypervisorUpdateAction, i18n, objectMapper);
+        job.execute(ctx);
+
+        verify(consumerCurator, times(1)).update(hypervisor);
+        assertEquals(1, hypervisor.getGuestIds().size());
+        assertEquals("guestId_1_999", hypervisor.getGuestIds().get(0).getGuestId());
+        assertEquals("hash-2", hypervisor.getHypervisorId().getReportHash());
+    }
 }
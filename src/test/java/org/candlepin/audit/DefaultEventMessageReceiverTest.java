@@ -20,6 +20,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -169,6 +170,19 @@ public class DefaultEventMessageReceiverTest {
         verify(clientSession, never()).commit();
     }
 
+    @Test
+    public void eachEventOfAnEnvelopeIsPassedToTheListener() throws Exception {
+        String event = this.eventJson();
+        this.primeBuffer(ClientMessage.TEXT_TYPE, "[" + event + "," + event + "]");
+        doReturn(true).when(this.clientMessage).containsProperty(EventDispatcher.EVENT_COUNT_KEY);
+
+        receiver.onMessage(clientMessage);
+        verify(eventListener, times(2)).onEvent(any(Event.class));
+        verify(clientMessage).acknowledge();
+        verify(clientSession).commit();
+        verify(clientSession, never()).rollback();
+    }
+
     @Test
     public void sessionCloseIgnoredIfSessionIsNull() throws Exception {
         DefaultEventMessageReceiver receiver = new DefaultEventMessageReceiver(eventListener,
@@ -22,15 +22,18 @@ import static org.mockito.Mockito.anyByte;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.async.impl.ActiveMQSessionFactory;
 import org.candlepin.auth.Principal;
 import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.controller.mode.CandlepinModeManager;
 import org.candlepin.controller.mode.CandlepinModeManager.Mode;
 import org.candlepin.dto.ModelTranslator;
@@ -61,6 +64,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -133,11 +137,40 @@ public class EventSinkImplTest {
      * @throws Exception
      */
     private EventSinkImpl createEventSink(final ClientSessionFactory sessionFactory) throws Exception {
+        return this.createEventSink(sessionFactory, new CandlepinCommonTestConfig());
+    }
+
+    private EventSinkImpl createEventSink(ClientSessionFactory sessionFactory,
+        CandlepinCommonTestConfig config) throws Exception {
+
+        EventDispatcher dispatcher = new EventDispatcher(config, this.amqSessionFactory, mapper);
         EventSinkImpl sink = new EventSinkImpl(eventFilter, factory, mapper,
-            new CandlepinCommonTestConfig(), this.amqSessionFactory, mockModeManager);
+            config, this.amqSessionFactory, mockModeManager, dispatcher);
         return sink;
     }
 
+    private EventDispatcher createAsyncDispatcher() {
+        CandlepinCommonTestConfig config = new CandlepinCommonTestConfig();
+        config.setProperty(ConfigProperties.AUDIT_DISPATCH_ASYNC, "true");
+        config.setProperty(ConfigProperties.AUDIT_DISPATCH_BATCH_SIZE, "2");
+
+        return new EventDispatcher(config, this.amqSessionFactory, mapper);
+    }
+
+    private Event createOwnerEvent(String id) {
+        Event event = new Event();
+        event.setId(id);
+        event.setType(Event.Type.CREATED);
+        event.setTarget(Event.Target.OWNER);
+
+        return event;
+    }
+
+    private EventSinkImpl createAsyncEventSink(EventDispatcher dispatcher) throws Exception {
+        return new EventSinkImpl(eventFilter, factory, mapper, new CandlepinCommonTestConfig(),
+            this.amqSessionFactory, mockModeManager, dispatcher);
+    }
+
     @Test
     public void sendEventShouldSendMessageOnProperEventInput() throws Exception {
         String content = "Simple String";
@@ -245,4 +278,85 @@ public class EventSinkImplTest {
         verify(mockClientProducer).send(any(ClientMessage.class));
     }
 
+    @Test
+    public void asyncDispatchDefersSerializationUntilEventsAreSent() throws Exception {
+        EventDispatcher dispatcher = this.createAsyncDispatcher();
+        EventSinkImpl sink = this.createAsyncEventSink(dispatcher);
+
+        sink.emitOwnerCreated(new Owner("owner1"));
+        sink.emitOwnerCreated(new Owner("owner2"));
+        sink.emitOwnerCreated(new Owner("owner3"));
+        sink.emitPoolCreated(TestUtil.createPool(o, TestUtil.createProduct()));
+
+        verify(mapper, never()).writeValueAsString(any(Event.class));
+        verify(mockClientProducer, never()).send(any(ClientMessage.class));
+
+        sink.sendEvents();
+        dispatcher.shutdown();
+
+        // Three owner events in batches of two, plus the pool event in its own message
+        verify(mockClientProducer, times(3)).send(any(ClientMessage.class));
+        verify(mockClientMessage, times(2)).putIntProperty(EventDispatcher.EVENT_COUNT_KEY, 1);
+        verify(mockClientMessage).putIntProperty(EventDispatcher.EVENT_COUNT_KEY, 2);
+        verify(mockClientSession, times(3)).commit();
+
+        assertEquals(4, dispatcher.getDispatchedEventCount());
+        assertEquals(3, dispatcher.getSentMessageCount());
+        assertEquals(0, dispatcher.getFailedEventCount());
+    }
+
+    @Test
+    public void asyncDispatchKeepsEventOrder() throws Exception {
+        EventDispatcher dispatcher = this.createAsyncDispatcher();
+
+        Event pool = this.createOwnerEvent("pool");
+        pool.setTarget(Event.Target.POOL);
+
+        dispatcher.dispatch(List.of(this.createOwnerEvent("owner1"), pool, this.createOwnerEvent("owner2")));
+        dispatcher.shutdown();
+
+        // The owner events are not packed together, as that would send them ahead of the pool event
+        InOrder inOrder = inOrder(mockClientMessage, mockClientProducer);
+        for (Event.Target target : List.of(Event.Target.OWNER, Event.Target.POOL, Event.Target.OWNER)) {
+            inOrder.verify(mockClientMessage)
+                .putStringProperty(EventSinkImpl.EVENT_TARGET_KEY, target.name());
+            inOrder.verify(mockClientProducer).send(any(ClientMessage.class));
+        }
+
+        assertEquals(3, dispatcher.getSentMessageCount());
+    }
+
+    @Test
+    public void asyncDispatchDropsEventsOnRollback() throws Exception {
+        EventDispatcher dispatcher = this.createAsyncDispatcher();
+        EventSinkImpl sink = this.createAsyncEventSink(dispatcher);
+
+        sink.emitOwnerCreated(o);
+        sink.rollback();
+        sink.sendEvents();
+        dispatcher.shutdown();
+
+        verify(mockClientProducer, never()).send(any(ClientMessage.class));
+        assertEquals(0, dispatcher.getDispatchedEventCount());
+    }
+
+    @Test
+    public void asyncDispatchSkipsEventsWhichCannotBeSerialized() throws Exception {
+        EventDispatcher dispatcher = this.createAsyncDispatcher();
+        EventSinkImpl sink = this.createAsyncEventSink(dispatcher);
+
+        Event broken = this.createOwnerEvent("broken");
+        Event valid = this.createOwnerEvent("valid");
+        doThrow(new JsonGenerationException("Nothing serious!")).when(mapper).writeValueAsString(broken);
+
+        sink.queueEvent(broken);
+        sink.queueEvent(valid);
+        sink.sendEvents();
+        dispatcher.shutdown();
+
+        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientMessage).putIntProperty(EventDispatcher.EVENT_COUNT_KEY, 1);
+        assertEquals(1, dispatcher.getFailedEventCount());
+    }
+
 }
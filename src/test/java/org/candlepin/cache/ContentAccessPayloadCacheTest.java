@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+
+public class ContentAccessPayloadCacheTest {
+
+    private CandlepinCommonTestConfig config;
+
+    @BeforeEach
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+    }
+
+    @Test
+    public void initialGetReturnsNull() {
+        ContentAccessPayloadCache cache = new ContentAccessPayloadCache(this.config);
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void putAndGet() {
+        ContentAccessPayloadCache cache = new ContentAccessPayloadCache(this.config);
+
+        cache.put("key", "payload");
+        assertEquals("payload", cache.get("key"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPayload() {
+        this.config.setProperty(ConfigProperties.SCA_PAYLOAD_CACHE_MAX, "2");
+        ContentAccessPayloadCache cache = new ContentAccessPayloadCache(this.config);
+
+        cache.put("key1", "payload1");
+        cache.put("key2", "payload2");
+
+        // Touch key1 so key2 becomes the eldest entry
+        cache.get("key1");
+        cache.put("key3", "payload3");
+
+        assertEquals(2, cache.size());
+        assertEquals("payload1", cache.get("key1"));
+        assertNull(cache.get("key2"));
+        assertEquals("payload3", cache.get("key3"));
+    }
+
+    @Test
+    public void zeroSizeDisablesCache() {
+        this.config.setProperty(ConfigProperties.SCA_PAYLOAD_CACHE_MAX, "0");
+        ContentAccessPayloadCache cache = new ContentAccessPayloadCache(this.config);
+
+        cache.put("key", "payload");
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void keyIgnoresArchOrder() {
+        Date date = new Date();
+
+        String key1 = ContentAccessPayloadCache.buildKey("owner", List.of("env1"), date,
+            Set.of("x86_64", "i386"));
+        String key2 = ContentAccessPayloadCache.buildKey("owner", List.of("env1"), date,
+            List.of("i386", "x86_64"));
+
+        assertEquals(key1, key2);
+    }
+
+    @Test
+    public void keyRetainsEnvironmentPriority() {
+        Date date = new Date();
+
+        String key1 = ContentAccessPayloadCache.buildKey("owner", List.of("env1", "env2"), date, null);
+        String key2 = ContentAccessPayloadCache.buildKey("owner", List.of("env2", "env1"), date, null);
+
+        assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void keyChangesWithLastContentUpdate() {
+        String key1 = ContentAccessPayloadCache.buildKey("owner", List.of(), new Date(1000L), null);
+        String key2 = ContentAccessPayloadCache.buildKey("owner", List.of(), new Date(2000L), null);
+
+        assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void keyRequiresOwnerAndDate() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ContentAccessPayloadCache.buildKey(null, List.of(), new Date(), null));
+        assertThrows(IllegalArgumentException.class,
+            () -> ContentAccessPayloadCache.buildKey("owner", List.of(), null, null));
+    }
+}
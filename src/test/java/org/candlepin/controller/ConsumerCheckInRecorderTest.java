@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+
+
+public class ConsumerCheckInRecorderTest {
+
+    private CandlepinCommonTestConfig config;
+    private ConsumerCurator consumerCurator;
+    private UnitOfWork unitOfWork;
+    private ConsumerCheckInRecorder recorder;
+
+    @BeforeEach
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL, "3600");
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_MAX_PENDING, "10000");
+
+        this.consumerCurator = mock(ConsumerCurator.class);
+        this.unitOfWork = mock(UnitOfWork.class);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        if (this.recorder != null) {
+            this.recorder.shutdown();
+        }
+    }
+
+    private ConsumerCheckInRecorder buildRecorder() {
+        this.recorder = new ConsumerCheckInRecorder(this.config, this.consumerCurator, this.unitOfWork);
+        return this.recorder;
+    }
+
+    private Consumer createConsumer(String id) {
+        Consumer consumer = new Consumer();
+        consumer.setId(id);
+
+        return consumer;
+    }
+
+    @Test
+    public void checkInsAreWrittenImmediatelyUntilStarted() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        Consumer consumer = this.createConsumer("consumer");
+        Date checkIn = new Date();
+
+        recorder.record(consumer, checkIn);
+
+        verify(this.consumerCurator).updateLastCheckin(consumer, checkIn);
+        assertEquals(0, recorder.getPendingCount());
+    }
+
+    @Test
+    public void checkInsAreWrittenImmediatelyWithoutFlushInterval() {
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL, "0");
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        Consumer consumer = this.createConsumer("consumer");
+        Date checkIn = new Date();
+
+        recorder.record(consumer, checkIn);
+
+        verify(this.consumerCurator).updateLastCheckin(consumer, checkIn);
+        assertEquals(0, recorder.getPendingCount());
+    }
+
+    @Test
+    public void checkInsAreWrittenImmediatelyByDefault() {
+        this.config = new CandlepinCommonTestConfig();
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        Consumer consumer = this.createConsumer("consumer");
+        Date checkIn = new Date();
+
+        recorder.record(consumer, checkIn);
+
+        verify(this.consumerCurator).updateLastCheckin(consumer, checkIn);
+        assertEquals(0, recorder.getPendingCount());
+    }
+
+    @Test
+    public void checkInsAreCoalescedPerConsumer() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        Consumer consumer1 = this.createConsumer("consumer1");
+        Consumer consumer2 = this.createConsumer("consumer2");
+
+        recorder.record(consumer1, new Date(5500));
+        recorder.record(consumer1, new Date(2000));
+        recorder.record(consumer2, new Date(3000));
+
+        assertEquals(2, recorder.getPendingCount());
+        verify(this.consumerCurator, never()).updateLastCheckin(any(Consumer.class), any(Date.class));
+
+        recorder.flushPending();
+
+        // The latest check-in is kept at its full precision
+        verify(this.consumerCurator).updateLastCheckins(Map.of(
+            "consumer1", new Date(5500),
+            "consumer2", new Date(3000)));
+
+        verify(this.unitOfWork).begin();
+        verify(this.unitOfWork).end();
+
+        assertEquals(0, recorder.getPendingCount());
+        assertEquals(1, recorder.getFlushCount());
+        assertEquals(2, recorder.getFlushedCheckInCount());
+    }
+
+    @Test
+    public void emptyFlushDoesNotTouchTheDatabase() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        recorder.flushPending();
+
+        verify(this.unitOfWork, never()).begin();
+        verify(this.consumerCurator, never()).updateLastCheckins(anyMap());
+        assertEquals(0, recorder.getFlushCount());
+    }
+
+    @Test
+    public void failedFlushRequeuesCheckIns() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        doThrow(new RuntimeException("kaboom")).when(this.consumerCurator).updateLastCheckins(anyMap());
+
+        recorder.record(this.createConsumer("consumer"), new Date(1000));
+        recorder.flushPending();
+
+        verify(this.unitOfWork).end();
+        assertEquals(1, recorder.getPendingCount());
+        assertEquals(0, recorder.getFlushCount());
+        assertEquals(0, recorder.getFlushedCheckInCount());
+    }
+
+    @Test
+    public void reachingMaxPendingTriggersFlush() {
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_MAX_PENDING, "2");
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        recorder.record(this.createConsumer("consumer1"), new Date(1000));
+        recorder.record(this.createConsumer("consumer2"), new Date(1000));
+
+        verify(this.consumerCurator, timeout(5000)).updateLastCheckins(Map.of(
+            "consumer1", new Date(1000),
+            "consumer2", new Date(1000)));
+    }
+
+    @Test
+    public void shutdownFlushesPendingCheckIns() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        recorder.record(this.createConsumer("consumer"), new Date(1000));
+        recorder.shutdown();
+
+        verify(this.consumerCurator).updateLastCheckins(Map.of("consumer", new Date(1000)));
+        assertEquals(0, recorder.getPendingCount());
+        assertEquals(1, recorder.getFlushCount());
+    }
+}
@@ -20,6 +20,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ContentAccessPayloadCache;
 import org.candlepin.controller.ContentAccessManager.ContentAccessMode;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.Consumer;
@@ -91,7 +92,7 @@ public class ContentAccessManagerDBTest extends DatabaseTestFixture {
         return new ContentAccessManager(this.config, this.pkiUtility, this.x509V3ExtensionUtil,
             this.caCertCurator, this.certSerialCurator, this.ownerCurator, this.ownerContentCurator,
             this.consumerCurator, this.consumerTypeCurator, this.environmentCurator, this.caCertCurator,
-            this.mockEventSink);
+            this.mockEventSink, new ContentAccessPayloadCache(this.config));
     }
 
     private Owner createSCAOwner() {
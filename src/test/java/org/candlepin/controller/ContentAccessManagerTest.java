@@ -34,6 +34,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ContentAccessPayloadCache;
 import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
@@ -125,6 +126,7 @@ public class ContentAccessManagerTest {
     private PKIUtility pkiUtility;
     private ObjectMapper objMapper;
     private X509V3ExtensionUtil x509V3ExtensionUtil;
+    private ContentAccessPayloadCache payloadCache;
 
     private final String entitlementMode = ContentAccessMode.ENTITLEMENT.toDatabaseValue();
     private final String orgEnvironmentMode = ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue();
@@ -159,6 +161,8 @@ public class ContentAccessManagerTest {
         this.x509V3ExtensionUtil = spy(new X509V3ExtensionUtil(this.config, this.mockEntitlementCurator,
             this.objMapper));
 
+        this.payloadCache = new ContentAccessPayloadCache(this.config);
+
         // FIXME: This mess of mocks is why we should not be using mocks in this way. We should be
         // using a test database framework and our actual curators and objects.
 
@@ -205,7 +209,7 @@ public class ContentAccessManagerTest {
             this.config, pkiUtil, this.x509V3ExtensionUtil, this.mockContentAccessCertCurator,
             this.mockCertSerialCurator, this.mockOwnerCurator, this.mockOwnerContentCurator,
             this.mockConsumerCurator, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
-            this.mockContentAccessCertCurator, this.mockEventSink);
+            this.mockContentAccessCertCurator, this.mockEventSink, this.payloadCache);
     }
 
     private ContentAccessManager createManager() {
@@ -666,6 +670,85 @@ public class ContentAccessManagerTest {
         this.verifyContainerContentPath(expectedPrefix);
     }
 
+    @Test
+    public void testScaPayloadIsSharedByConsumersWithSamePayloadKey() throws Exception {
+        Owner owner = this.mockOwner();
+        Consumer consumer1 = this.mockConsumer(owner);
+        Consumer consumer2 = this.mockConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2");
+
+        ContentAccessManager manager = this.createManager();
+        ContentAccessCertificate output1 = manager.getCertificate(consumer1);
+        ContentAccessCertificate output2 = manager.getCertificate(consumer2);
+
+        assertNotNull(output1);
+        assertNotNull(output2);
+        assertEquals(consumer1.getContentAccessCert().getContent(),
+            consumer2.getContentAccessCert().getContent());
+
+        verify(this.pkiUtility, times(1)).getSHA256WithRSAHash(any(InputStream.class));
+        assertEquals(1, this.payloadCache.size());
+    }
+
+    @Test
+    public void testScaPayloadIsRegeneratedWhenOwnerContentIsUpdated() throws Exception {
+        Owner owner = this.mockOwner();
+        owner.setLastContentUpdate(TestUtil.createDateOffset(0, 0, -1));
+        Consumer consumer1 = this.mockConsumer(owner);
+
+        ContentAccessManager manager = this.createManager();
+        assertNotNull(manager.getCertificate(consumer1));
+
+        owner.setLastContentUpdate(new Date());
+        Consumer consumer2 = this.mockConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2");
+        assertNotNull(manager.getCertificate(consumer2));
+
+        verify(this.pkiUtility, times(2)).getSHA256WithRSAHash(any(InputStream.class));
+        assertEquals(2, this.payloadCache.size());
+    }
+
+    @Test
+    public void testScaCertificateIsTouchedWhenPayloadIsUnchanged() throws Exception {
+        Owner owner = this.mockOwner();
+        owner.setLastContentUpdate(TestUtil.createDateOffset(0, 0, -1));
+        Consumer consumer = this.mockConsumer(owner);
+
+        ContentAccessManager manager = this.createManager();
+        assertNotNull(manager.getCertificate(consumer));
+
+        ContentAccessCertificate cert = consumer.getContentAccessCert();
+        String content = cert.getContent();
+        cert.setUpdated(TestUtil.createDateOffset(0, 0, -2));
+
+        assertNotNull(manager.getCertificate(consumer));
+
+        assertEquals(content, cert.getContent());
+        assertTrue(cert.getUpdated().after(owner.getLastContentUpdate()));
+        verify(this.mockContentAccessCertCurator).saveOrUpdate(cert);
+        verify(this.pkiUtility, times(1)).getSHA256WithRSAHash(any(InputStream.class));
+    }
+
+    @Test
+    public void testScaPayloadIsNotSharedAcrossConsumerArchitectures() throws Exception {
+        Owner owner = this.mockOwner();
+        Consumer consumer1 = this.mockConsumer(owner)
+            .setFact("uname.machine", "x86_64");
+        Consumer consumer2 = this.mockConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2")
+            .setFact("uname.machine", "ppc64");
+
+        ContentAccessManager manager = this.createManager();
+        assertNotNull(manager.getCertificate(consumer1));
+        assertNotNull(manager.getCertificate(consumer2));
+
+        verify(this.pkiUtility, times(2)).getSHA256WithRSAHash(any(InputStream.class));
+        assertEquals(2, this.payloadCache.size());
+    }
+
     @Test
     public void testGetCertificateReturnsNullOnException() throws Exception {
         Owner owner = this.mockOwner();
@@ -47,6 +47,7 @@ import org.candlepin.model.Pool;
 import org.candlepin.model.PoolCurator;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductCurator;
+import org.candlepin.model.RefreshFingerprintCurator;
 import org.candlepin.model.dto.ProductData;
 import org.candlepin.policy.EntitlementRefusedException;
 import org.candlepin.policy.ValidationError;
@@ -134,7 +135,8 @@ public class EntitlerTest {
         translator = new EntitlementRulesTranslator(i18n);
 
         this.refreshWorker = spy(new RefreshWorker(this.poolCurator, this.mockProductCurator,
-            this.mockOwnerProductCurator, this.mockContentCurator, this.mockOwnerContentCurator));
+            this.mockOwnerProductCurator, this.mockContentCurator, this.mockOwnerContentCurator,
+            mock(RefreshFingerprintCurator.class)));
 
         this.refreshWorkerProvider = () -> refreshWorker;
 
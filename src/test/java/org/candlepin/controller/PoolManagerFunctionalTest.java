@@ -68,6 +68,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.io.Serializable;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -668,6 +669,84 @@ public class PoolManagerFunctionalTest extends DatabaseTestFixture {
         assertEquals(5, results.getPageData().size());
     }
 
+    @Test
+    public void testIncrementalPagingMatchesFullFiltering() {
+        Product p = TestUtil.createProduct("test-product", "Test Product");
+        productCurator.create(p);
+
+        // A pool with no entitlements available, which the rules filter out
+        poolCurator.create(createPool(o, p, 0L, TestUtil.createDate(2000, 3, 2),
+            TestUtil.createDate(2050, 3, 2)));
+
+        config.setProperty(ConfigProperties.POOL_LISTING_CHUNK_SIZE, "0");
+        Page<List<Pool>> expected = poolManager.listAvailableEntitlementPools(parentSystem, null,
+            parentSystem.getOwnerId(), null, null, null, true, new PoolFilterBuilder(),
+            this.createPageRequest(1, 10), false, false, null);
+        assertEquals(4, expected.getPageData().size());
+
+        config.setProperty(ConfigProperties.POOL_LISTING_CHUNK_SIZE, "1");
+        config.setProperty(ConfigProperties.POOL_LISTING_EXACT_COUNT, "true");
+        for (int page = 1; page <= 3; ++page) {
+            Page<List<Pool>> results = poolManager.listAvailableEntitlementPools(parentSystem, null,
+                parentSystem.getOwnerId(), null, null, null, true, new PoolFilterBuilder(),
+                this.createPageRequest(page, 2), false, false, null);
+
+            int from = Math.min((page - 1) * 2, 4);
+            assertEquals(expected.getPageData().subList(from, Math.min(from + 2, 4)),
+                results.getPageData());
+            assertEquals(Integer.valueOf(4), results.getMaxRecords());
+        }
+
+        // By default, the first page stops filtering early and estimates the total
+        config.setProperty(ConfigProperties.POOL_LISTING_EXACT_COUNT, "false");
+        Page<List<Pool>> results = poolManager.listAvailableEntitlementPools(parentSystem, null,
+            parentSystem.getOwnerId(), null, null, null, true, new PoolFilterBuilder(),
+            this.createPageRequest(1, 2), false, false, null);
+
+        assertEquals(expected.getPageData().subList(0, 2), results.getPageData());
+        assertTrue(results.getMaxRecords() >= 4);
+    }
+
+    @Test
+    public void testIncrementalPagingEvictsPoolsNotOnThePage() {
+        config.setProperty(ConfigProperties.POOL_LISTING_CHUNK_SIZE, "1");
+        config.setProperty(ConfigProperties.POOL_LISTING_EXACT_COUNT, "true");
+
+        Page<List<Pool>> expected = poolManager.listAvailableEntitlementPools(parentSystem, null,
+            parentSystem.getOwnerId(), null, null, null, true, new PoolFilterBuilder(),
+            this.createPageRequest(1, 10), false, false, null);
+        assertEquals(4, expected.getPageData().size());
+
+        poolCurator.clear();
+        Consumer consumer = consumerCurator.get(parentSystem.getId());
+
+        Page<List<Pool>> results = poolManager.listAvailableEntitlementPools(consumer, null,
+            consumer.getOwnerId(), null, null, null, true, new PoolFilterBuilder(),
+            this.createPageRequest(1, 2), false, false, null);
+
+        assertEquals(2, results.getPageData().size());
+        assertEquals(Integer.valueOf(4), results.getMaxRecords());
+
+        Set<Serializable> managedIds = poolCurator.getManagedIds();
+        for (Pool pool : results.getPageData()) {
+            assertTrue(managedIds.contains(pool.getId()));
+        }
+
+        for (Pool pool : expected.getPageData().subList(2, 4)) {
+            assertFalse(managedIds.contains(pool.getId()));
+        }
+    }
+
+    private PageRequest createPageRequest(int page, int perPage) {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setPage(page);
+        pageRequest.setPerPage(perPage);
+        pageRequest.setSortBy("id");
+        pageRequest.setOrder(PageRequest.Order.ASCENDING);
+
+        return pageRequest;
+    }
+
     @Test
     public void testListForConsumerExcludesWarnings() {
         Page<List<Pool>> results = poolManager.listAvailableEntitlementPools(
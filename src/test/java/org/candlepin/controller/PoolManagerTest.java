@@ -69,6 +69,7 @@ import org.candlepin.model.PoolFilterBuilder;
 import org.candlepin.model.PoolQuantity;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductCurator;
+import org.candlepin.model.RefreshFingerprintCurator;
 import org.candlepin.model.SourceStack;
 import org.candlepin.model.SourceSubscription;
 import org.candlepin.model.dto.Subscription;
@@ -207,7 +208,8 @@ public class PoolManagerTest {
         this.principal = TestUtil.createOwnerPrincipal(owner);
 
         this.refreshWorker = spy(new RefreshWorker(this.mockPoolCurator, this.mockProductCurator,
-            this.mockOwnerProductCurator, this.mockContentCurator, this.mockOwnerContentCurator));
+            this.mockOwnerProductCurator, this.mockContentCurator, this.mockOwnerContentCurator,
+            mock(RefreshFingerprintCurator.class)));
 
         this.refreshWorkerProvider = () -> refreshWorker;
 
@@ -328,6 +330,15 @@ public class PoolManagerTest {
             });
     }
 
+    private void mockBatchPreEntitlement(ValidationResult result) {
+        doAnswer(iom -> {
+            Collection<PoolQuantity> pqs = iom.getArgument(1);
+            Map<String, ValidationResult> results = new HashMap<>();
+            pqs.forEach(pq -> results.put(pq.getPool().getId(), result));
+            return results;
+        }).when(enforcerMock).preEntitlement(any(Consumer.class), anyCollection(), any(CallerType.class));
+    }
+
     private void assertPoolsAreEqual(Pool pool1, Pool pool2) {
         assertEquals(pool1.getAccountNumber(), pool2.getAccountNumber());
         assertEquals(pool1.getContractNumber(), pool2.getContractNumber());
@@ -893,6 +904,70 @@ public class PoolManagerTest {
         assertEquals(p, poolCaptor.getValue().get(0));
     }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void testRefreshPoolsRecreatesMissingMasterPoolOfUnchangedSubscription() {
+        Owner owner = this.getOwner();
+        Product product = TestUtil.createProduct();
+        product.setLocked(true);
+
+        Subscription sub = TestUtil.createSubscription(owner, product);
+
+        this.mockSubscriptions(owner, Arrays.asList(sub));
+        this.mockPoolsList(new ArrayList<>());
+        this.mockProducts(owner, product);
+        this.mockRefresh(owner, Arrays.asList(product), Collections.emptyList());
+        doReturn(false).when(this.refreshWorker).isSubscriptionChanged(anyString());
+
+        Pool pool = TestUtil.createPool(product);
+        pool.setSourceSubscription(new SourceSubscription(sub.getId(), "master"));
+        when(poolRulesMock.createAndEnrichPools(any(Pool.class), anyList())).thenReturn(Arrays.asList(pool));
+        when(mockOwnerCurator.getByKey(owner.getKey())).thenReturn(owner);
+
+        CandlepinQuery cqmock = mock(CandlepinQuery.class);
+        when(cqmock.list()).thenReturn(Collections.emptyList());
+        when(mockPoolCurator.getPoolsBySubscriptionIds(anyList())).thenReturn(cqmock);
+        when(mockPoolCurator.getPoolsBySubscriptionId(anyString())).thenReturn(cqmock);
+
+        this.manager.getRefresher(mockSubAdapter, mockProdAdapter).add(owner).run();
+
+        verify(this.mockPoolCurator, times(1)).create(any(Pool.class), anyBoolean());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void testRefreshPoolsSkipsUnchangedSubscriptionWithMatchingMasterPool() {
+        Owner owner = this.getOwner();
+        Product product = TestUtil.createProduct();
+        product.setLocked(true);
+
+        Subscription sub = TestUtil.createSubscription(owner, product);
+
+        Pool master = TestUtil.copyFromSub(sub);
+        master.setContractNumber(sub.getContractNumber());
+        master.setSourceSubscription(new SourceSubscription(sub.getId(), "master"));
+
+        this.mockSubscriptions(owner, Arrays.asList(sub));
+        this.mockPoolsList(Arrays.asList(master));
+        this.mockProducts(owner, product);
+        this.mockRefresh(owner, Arrays.asList(product), Collections.emptyList());
+        doReturn(false).when(this.refreshWorker).isSubscriptionChanged(anyString());
+
+        when(poolRulesMock.calculateQuantity(anyLong(), any(Product.class), nullable(String.class)))
+            .thenAnswer(iom -> iom.getArgument(0));
+        when(mockOwnerCurator.getByKey(owner.getKey())).thenReturn(owner);
+
+        CandlepinQuery cqmock = mock(CandlepinQuery.class);
+        when(cqmock.list()).thenReturn(Collections.emptyList());
+        when(mockPoolCurator.getPoolsBySubscriptionIds(anyList())).thenReturn(cqmock);
+        when(mockPoolCurator.getPoolsBySubscriptionId(anyString())).thenReturn(cqmock);
+
+        this.manager.getRefresher(mockSubAdapter, mockProdAdapter).add(owner).run();
+
+        verify(poolRulesMock, never()).createAndEnrichPools(any(Pool.class), anyList());
+        verify(poolRulesMock, never()).updatePools(any(Pool.class), anyList(), any(), anyMap());
+    }
+
     @Test
     public void refreshPoolsCreatingPoolsForExistingSubscriptions() {
         List<Subscription> subscriptions = new ArrayList<>();
@@ -1117,8 +1192,7 @@ public class PoolManagerTest {
         CandlepinQuery mockQuery = mock(CandlepinQuery.class);
         when(mockPoolCurator.listAllByIds(nullable(Set.class))).thenReturn(mockQuery);
         when(mockQuery.iterator()).thenReturn(Arrays.asList(pool1).listIterator());
-        when(enforcerMock.preEntitlement(any(Consumer.class), any(Pool.class), anyInt(),
-            any(CallerType.class))).thenReturn(result);
+        this.mockBatchPreEntitlement(result);
 
         when(enforcerMock.postEntitlement(eq(manager), any(Consumer.class), nullable(Owner.class), anyMap(),
             anyList(), eq(false), anyMap())).thenReturn(new PoolOperationCallback());
@@ -1182,8 +1256,7 @@ public class PoolManagerTest {
         List<Pool> poolList = Arrays.asList(pool1);
         doAnswer(iom -> poolList.iterator()).when(mockQuery).iterator();
 
-        when(enforcerMock.preEntitlement(any(Consumer.class), any(Pool.class), any(Integer.class),
-            any(CallerType.class))).thenReturn(validationResult);
+        this.mockBatchPreEntitlement(validationResult);
 
         // Impl note: this list *must* be mutable, or we'll cause an exception deep in the guts of
         // the autobind flow
@@ -1196,12 +1269,46 @@ public class PoolManagerTest {
 
         assertThrows(EntitlementRefusedException.class, () -> manager.entitleByProducts(data));
 
-        // Impl note: Enforcer.preEntitlement gets hit once per iteration for each pool, for a total
-        // of 8 times for this test.
-        verify(enforcerMock, times(4)).preEntitlement(eq(consumer), eq(pool1), any(Integer.class),
-            any(CallerType.class));
-        verify(enforcerMock, times(4)).preEntitlement(eq(consumer), eq(pool2), any(Integer.class),
-            any(CallerType.class));
+        // Impl note: Enforcer.preEntitlement gets hit once per iteration with all of the candidate
+        // pools, for a total of 4 times for this test.
+        verify(enforcerMock, times(4)).preEntitlement(eq(consumer), anyCollection(),
+            eq(CallerType.BEST_POOLS));
+        verify(enforcerMock, never()).preEntitlement(any(Consumer.class), any(Pool.class),
+            any(Integer.class), any(CallerType.class));
+    }
+
+    @Test
+    public void testEntitleByProductTreatsMissingValidationResultsAsFailures() {
+        Date now = new Date();
+
+        Consumer consumer = TestUtil.createConsumer(owner);
+        Product product = TestUtil.createProduct();
+        Pool pool1 = TestUtil.createPool(product)
+            .setId("poolId1");
+
+        Page<List<Pool>> page = new Page<>();
+        page.setPageData(List.of(pool1));
+
+        doReturn(page).when(mockPoolCurator).listAvailableEntitlementPools(eq(consumer), any(String.class),
+            nullable(String.class), nullable(String.class), eq(now), any(PoolFilterBuilder.class),
+            nullable(PageRequest.class), anyBoolean(), anyBoolean(), anyBoolean(), nullable(Date.class));
+
+        doAnswer(iom -> iom.getArgument(1)).when(enforcerMock)
+            .filterPools(eq(consumer), anyList(), anyBoolean());
+
+        CandlepinQuery mockQuery = mock(CandlepinQuery.class);
+        when(mockPoolCurator.listAllByIds(nullable(Set.class))).thenReturn(mockQuery);
+        doAnswer(iom -> List.of(pool1).iterator()).when(mockQuery).iterator();
+
+        // The enforcer omits the pool from its results entirely
+        doReturn(new HashMap<>()).when(enforcerMock)
+            .preEntitlement(any(Consumer.class), anyCollection(), any(CallerType.class));
+
+        AutobindData data = new AutobindData(consumer, owner)
+            .on(now)
+            .forProducts(Set.of(product.getId()));
+
+        assertThrows(EntitlementRefusedException.class, () -> manager.entitleByProducts(data));
     }
 
     @Test
@@ -1397,8 +1504,7 @@ public class PoolManagerTest {
         when(mockPoolCurator.listAllByIds(anyList())).thenReturn(mockQuery);
         when(mockQuery.iterator()).thenReturn(Arrays.asList(pool1).listIterator());
 
-        when(enforcerMock.preEntitlement(any(Consumer.class), any(Pool.class), anyInt(),
-            any(CallerType.class))).thenReturn(result);
+        this.mockBatchPreEntitlement(result);
         when(enforcerMock.postEntitlement(eq(manager), any(Consumer.class), any(Owner.class), anyMap(),
             anyList(), eq(false), anyMap())).thenReturn(new PoolOperationCallback());
         when(result.isSuccessful()).thenReturn(true);
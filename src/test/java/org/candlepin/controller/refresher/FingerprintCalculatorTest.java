@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller.refresher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.model.Content;
+import org.candlepin.model.Product;
+import org.candlepin.model.dto.ProductData;
+import org.candlepin.model.dto.Subscription;
+import org.candlepin.service.model.ContentInfo;
+import org.candlepin.service.model.ProductInfo;
+import org.candlepin.service.model.SubscriptionInfo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+
+
+/**
+ * Test suite for the FingerprintCalculator class
+ */
+public class FingerprintCalculatorTest {
+
+    private Content buildContent(String id) {
+        return new Content(id, id + "_name", "yum", id + "_label", "vendor")
+            .setContentUrl("/content/" + id)
+            .setArches("x86_64");
+    }
+
+    private Product buildProduct(String id, Content... content) {
+        Product product = new Product(id, id + "_name")
+            .setAttribute("attrib", "value");
+
+        for (Content entity : content) {
+            product.addContent(entity, true);
+        }
+
+        return product;
+    }
+
+    private Subscription buildSubscription(String id, Product product) {
+        Subscription subscription = new Subscription();
+        subscription.setId(id);
+        subscription.setQuantity(10L);
+        subscription.setProduct(new ProductData(product));
+
+        return subscription;
+    }
+
+    @Test
+    public void testFingerprintsAreDeterministic() {
+        Product product1 = this.buildProduct("p1", this.buildContent("c1"), this.buildContent("c2"));
+        Product product2 = this.buildProduct("p1", this.buildContent("c2"), this.buildContent("c1"));
+
+        assertEquals(new FingerprintCalculator().getFingerprint(product1),
+            new FingerprintCalculator().getFingerprint(product2));
+
+        SubscriptionInfo sub1 = this.buildSubscription("s1", product1);
+        SubscriptionInfo sub2 = this.buildSubscription("s1", product2);
+
+        assertEquals(new FingerprintCalculator().getFingerprint(sub1),
+            new FingerprintCalculator().getFingerprint(sub2));
+    }
+
+    @Test
+    public void testContentChangesPropagateToProductsAndSubscriptions() {
+        Content content = this.buildContent("c1");
+        Product provided = this.buildProduct("p2", content);
+        Product product = this.buildProduct("p1");
+        product.addProvidedProduct(provided);
+
+        long contentFingerprint = new FingerprintCalculator().getFingerprint((ContentInfo) content);
+        long providedFingerprint = new FingerprintCalculator().getFingerprint((ProductInfo) provided);
+        long productFingerprint = new FingerprintCalculator().getFingerprint((ProductInfo) product);
+        long subFingerprint = new FingerprintCalculator()
+            .getFingerprint(this.buildSubscription("s1", product));
+
+        content.setContentUrl("/updated/url");
+
+        assertNotEquals(contentFingerprint,
+            new FingerprintCalculator().getFingerprint((ContentInfo) content));
+        assertNotEquals(providedFingerprint,
+            new FingerprintCalculator().getFingerprint((ProductInfo) provided));
+        assertNotEquals(productFingerprint,
+            new FingerprintCalculator().getFingerprint((ProductInfo) product));
+        assertNotEquals(subFingerprint, new FingerprintCalculator()
+            .getFingerprint(this.buildSubscription("s1", product)));
+    }
+
+    @Test
+    public void testFingerprintChangesWithContentEnablement() {
+        Content content = this.buildContent("c1");
+
+        Product enabled = this.buildProduct("p1");
+        enabled.addContent(content, true);
+
+        Product disabled = this.buildProduct("p1");
+        disabled.addContent(content, false);
+
+        assertNotEquals(new FingerprintCalculator().getFingerprint((ProductInfo) enabled),
+            new FingerprintCalculator().getFingerprint((ProductInfo) disabled));
+    }
+
+    @Test
+    public void testFingerprintChangesWithSubscriptionQuantity() {
+        Subscription subscription = this.buildSubscription("s1", this.buildProduct("p1"));
+        long fingerprint = new FingerprintCalculator().getFingerprint(subscription);
+
+        subscription.setQuantity(20L);
+
+        assertNotEquals(fingerprint, new FingerprintCalculator().getFingerprint(subscription));
+    }
+
+    @Test
+    public void testFingerprintDistinguishesNullAndEmptyCollections() {
+        ProductData empty = new ProductData(this.buildProduct("p1"));
+        empty.setProvidedProducts(List.of());
+
+        ProductData unset = new ProductData(this.buildProduct("p1"));
+        unset.setProvidedProducts(null);
+
+        assertNotEquals(new FingerprintCalculator().getFingerprint((ProductInfo) empty),
+            new FingerprintCalculator().getFingerprint((ProductInfo) unset));
+    }
+
+    @Test
+    public void testFingerprintRequiresEntity() {
+        FingerprintCalculator calculator = new FingerprintCalculator();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> calculator.getFingerprint((SubscriptionInfo) null));
+        assertThrows(IllegalArgumentException.class, () -> calculator.getFingerprint((ProductInfo) null));
+        assertThrows(IllegalArgumentException.class, () -> calculator.getFingerprint((ContentInfo) null));
+    }
+}
@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.controller.refresher.RefreshResult.EntityState;
 import org.candlepin.controller.util.EntityVersioningRetryWrapper;
 import org.candlepin.model.CandlepinQuery;
 import org.candlepin.model.Content;
@@ -34,6 +35,8 @@ import org.candlepin.model.PoolCurator;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductContent;
 import org.candlepin.model.ProductCurator;
+import org.candlepin.model.RefreshFingerprint.EntityType;
+import org.candlepin.model.RefreshFingerprintCurator;
 import org.candlepin.service.model.ContentInfo;
 import org.candlepin.service.model.ProductContentInfo;
 import org.candlepin.service.model.ProductInfo;
@@ -47,6 +50,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -56,6 +60,7 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +68,7 @@ import java.util.Objects;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
 
 
 // FIXME: Rewrite this class to not mock the DB-level operations and just use the mock DB as a whole.
@@ -82,6 +88,7 @@ public class RefreshWorkerTest {
     private OwnerProductCurator mockOwnerProductCurator;
     private ContentCurator mockContentCurator;
     private OwnerContentCurator mockOwnerContentCurator;
+    private RefreshFingerprintCurator mockFingerprintCurator;
 
     @BeforeEach
     protected void init() {
@@ -91,6 +98,7 @@ public class RefreshWorkerTest {
         this.mockOwnerProductCurator = mock(OwnerProductCurator.class);
         this.mockContentCurator = mock(ContentCurator.class);
         this.mockOwnerContentCurator = mock(OwnerContentCurator.class);
+        this.mockFingerprintCurator = mock(RefreshFingerprintCurator.class);
 
         TestUtil.mockTransactionalFunctionality(this.mockEntityManager, this.mockPoolCurator,
             this.mockProductCurator, this.mockOwnerProductCurator, this.mockContentCurator,
@@ -115,7 +123,7 @@ public class RefreshWorkerTest {
 
     private RefreshWorker buildRefreshWorker() {
         return new RefreshWorker(this.mockPoolCurator, this.mockProductCurator, this.mockOwnerProductCurator,
-            this.mockContentCurator, this.mockOwnerContentCurator);
+            this.mockContentCurator, this.mockOwnerContentCurator, this.mockFingerprintCurator);
     }
 
     private SubscriptionInfo mockSubscriptionInfo(String id, ProductInfo pinfo) {
@@ -971,6 +979,114 @@ public class RefreshWorkerTest {
         }
     }
 
+    @Test
+    public void testExecuteProcessesEntitiesInParallel() {
+        Owner owner = new Owner();
+
+        ProductContentInfo pcinfo1 = this.mockProductContentInfo("cid-1", "content-1");
+        ProductContentInfo pcinfo2 = this.mockProductContentInfo("cid-2", "content-2");
+
+        ProductInfo pinfo1 = this.mockProductInfo("pid-1", "product-1");
+        ProductInfo pinfo2 = this.mockProductInfo("pid-2", "product-2");
+        ProductInfo pinfo3 = this.mockProductInfo("pid-3", "product-3");
+
+        doReturn(Arrays.asList(pcinfo1, pcinfo2)).when(pinfo2).getProductContent();
+        doReturn(Arrays.asList(pcinfo2)).when(pinfo3).getProductContent();
+        doReturn(Arrays.asList(pinfo2, pinfo3)).when(pinfo1).getProvidedProducts();
+
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setParallelism(4);
+
+        worker.addSubscriptions(this.mockSubscriptionInfo("sub", pinfo1));
+
+        doReturn(Collections.emptyList()).when(this.mockOwnerProductCurator).getProductsByOwner(eq(owner));
+        doReturn(Collections.emptyList()).when(this.mockOwnerContentCurator).getContentByOwner(eq(owner));
+
+        RefreshResult result = worker.execute(owner);
+
+        assertNotNull(result);
+        assertEquals(Set.of("pid-1", "pid-2", "pid-3"),
+            result.getEntities(Product.class, EntityState.CREATED).keySet());
+        assertEquals(Set.of("cid-1", "cid-2"),
+            result.getEntities(Content.class, EntityState.CREATED).keySet());
+
+        // The parent product should reference the children created in parallel
+        Product product = result.getEntity(Product.class, "pid-1");
+        assertNotNull(product);
+        assertEquals(2, product.getProvidedProducts().size());
+    }
+
+    private RefreshWorker buildChunkedRefreshWorker(Owner owner) {
+        ProductContentInfo pcinfo1 = this.mockProductContentInfo("cid-1", "content-1");
+        ProductContentInfo pcinfo2 = this.mockProductContentInfo("cid-2", "content-2");
+
+        ProductInfo pinfo1 = this.mockProductInfo("pid-1", "product-1");
+        ProductInfo pinfo2 = this.mockProductInfo("pid-2", "product-2");
+        ProductInfo pinfo3 = this.mockProductInfo("pid-3", "product-3");
+
+        doReturn(Arrays.asList(pcinfo1, pcinfo2)).when(pinfo2).getProductContent();
+        doReturn(Arrays.asList(pcinfo2)).when(pinfo3).getProductContent();
+        doReturn(Arrays.asList(pinfo2, pinfo3)).when(pinfo1).getProvidedProducts();
+
+        doReturn(Collections.emptyList()).when(this.mockOwnerProductCurator).getProductsByOwner(eq(owner));
+        doReturn(Collections.emptyList()).when(this.mockOwnerContentCurator).getContentByOwner(eq(owner));
+
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setChunkSize(2);
+
+        worker.addSubscriptions(this.mockSubscriptionInfo("sub", pinfo1));
+
+        return worker;
+    }
+
+    @Test
+    public void testExecuteCommitsChangesInChunks() {
+        Owner owner = new Owner();
+        RefreshWorker worker = this.buildChunkedRefreshWorker(owner);
+
+        RefreshResult result = worker.execute(owner);
+
+        assertNotNull(result);
+        assertEquals(Set.of("pid-1", "pid-2", "pid-3"),
+            result.getEntities(Product.class, EntityState.CREATED).keySet());
+        assertEquals(Set.of("cid-1", "cid-2"),
+            result.getEntities(Content.class, EntityState.CREATED).keySet());
+
+        // Content should be written before the products referencing it
+        InOrder inOrder = inOrder(this.mockContentCurator, this.mockProductCurator);
+        inOrder.verify(this.mockContentCurator, times(2)).create(any(Content.class), anyBoolean());
+        inOrder.verify(this.mockProductCurator, times(3)).create(any(Product.class), anyBoolean());
+
+        // 5 changed entities in chunks of 2, plus the completion step, should be written in four
+        // separate transactions, each obtaining the system locks and clearing the session afterward.
+        // The locks should also be held while reading and comparing the existing entities.
+        verify(this.mockOwnerContentCurator, times(5)).getSystemLock(anyString(), any());
+        verify(this.mockOwnerProductCurator, times(5)).getSystemLock(anyString(), any());
+        verify(this.mockPoolCurator, times(5)).clear();
+        assertFalse(this.mockPoolCurator.getTransaction().isActive());
+    }
+
+    @Test
+    public void testExecuteDoesNotChunkChangesInActiveTransaction() {
+        Owner owner = new Owner();
+        RefreshWorker worker = this.buildChunkedRefreshWorker(owner);
+
+        EntityTransaction transaction = this.mockPoolCurator.getTransaction();
+        transaction.begin();
+
+        RefreshResult result = worker.execute(owner);
+        assertNotNull(result);
+        assertEquals(3, result.getEntities(Product.class, EntityState.CREATED).size());
+
+        // The refresh should be performed entirely in the active transaction
+        assertTrue(transaction.isActive());
+        verify(this.mockOwnerContentCurator, times(1)).getSystemLock(anyString(), any());
+        verify(this.mockOwnerProductCurator, times(1)).getSystemLock(anyString(), any());
+        verify(this.mockPoolCurator, never()).clear();
+
+        transaction.commit();
+    }
+
     @Test
     public void testExecuteIncludesExistingEntities() {
         Owner owner = new Owner();
@@ -1320,4 +1436,166 @@ public class RefreshWorkerTest {
             .rebuildOwnerContentMapping(eq(owner), Mockito.any(Map.class));
     }
 
+    private void mockRecordedFingerprints(Owner owner, Map<String, Long> products,
+        Map<String, Long> content) {
+
+        doReturn(new HashMap<>()).when(this.mockFingerprintCurator)
+            .getFingerprints(eq(owner.getId()), eq(EntityType.SUBSCRIPTION));
+        doReturn(products).when(this.mockFingerprintCurator)
+            .getFingerprints(eq(owner.getId()), eq(EntityType.PRODUCT));
+        doReturn(content).when(this.mockFingerprintCurator)
+            .getFingerprints(eq(owner.getId()), eq(EntityType.CONTENT));
+    }
+
+    @Test
+    public void testIncrementalExecuteOnlyProcessesChangedEntities() {
+        Owner owner = new Owner().setId("owner_id");
+
+        ProductContentInfo pcinfo1 = this.mockProductContentInfo("cid-1", "content-1");
+        ProductContentInfo pcinfo2 = this.mockProductContentInfo("cid-2", "content-2");
+        ProductInfo pinfo1 = this.mockProductInfo("pid-1", "product-1");
+        ProductInfo pinfo2 = this.mockProductInfo("pid-2", "product-2");
+        doReturn(Arrays.asList(pcinfo1)).when(pinfo1).getProductContent();
+        doReturn(Arrays.asList(pcinfo2)).when(pinfo2).getProductContent();
+
+        FingerprintCalculator calculator = new FingerprintCalculator();
+
+        // Only the second product and its content differ from the recorded state
+        Map<String, Long> products = new HashMap<>();
+        products.put("pid-1", calculator.getFingerprint(pinfo1));
+        products.put("pid-2", calculator.getFingerprint(pinfo2) + 1);
+
+        Map<String, Long> content = new HashMap<>();
+        content.put("cid-1", calculator.getFingerprint(pcinfo1.getContent()));
+        content.put("cid-2", calculator.getFingerprint(pcinfo2.getContent()) + 1);
+
+        this.mockRecordedFingerprints(owner, products, content);
+
+        doReturn(this.mockCandlepinQuery(null)).when(this.mockOwnerProductCurator)
+            .getProductsByIds(eq(owner), Mockito.any(Collection.class));
+        doReturn(new HashMap<>()).when(this.mockOwnerContentCurator)
+            .getContentByIds(eq(owner), Mockito.any(Collection.class));
+
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setIncremental(true);
+
+        worker.addProducts(pinfo1, pinfo2);
+        RefreshResult result = worker.execute(owner);
+
+        assertNotNull(result);
+        assertEquals(Set.of("pid-2"), result.getEntities(Product.class).keySet());
+        assertEquals(Set.of("cid-2"), result.getEntities(Content.class).keySet());
+
+        verify(this.mockOwnerProductCurator, never()).getProductsByOwner(Mockito.any(Owner.class));
+        verify(this.mockOwnerContentCurator, never()).getContentByOwner(Mockito.any(Owner.class));
+    }
+
+    @Test
+    public void testIncrementalExecuteFallsBackToFullRefreshWithoutFingerprints() {
+        Owner owner = new Owner().setId("owner_id");
+
+        ProductInfo pinfo = this.mockProductInfo("pid-1", "product-1");
+        SubscriptionInfo sinfo = this.mockSubscriptionInfo("sub", pinfo);
+
+        this.mockRecordedFingerprints(owner, new HashMap<>(), new HashMap<>());
+
+        doReturn(Collections.emptyList()).when(this.mockOwnerProductCurator).getProductsByOwner(eq(owner));
+        doReturn(Collections.emptyList()).when(this.mockOwnerContentCurator).getContentByOwner(eq(owner));
+
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setIncremental(true);
+
+        worker.addSubscriptions(sinfo);
+        RefreshResult result = worker.execute(owner);
+
+        assertNotNull(result);
+        assertThat(result.getEntities(Product.class), hasKey("pid-1"));
+        assertTrue(worker.isSubscriptionChanged("sub"));
+
+        verify(this.mockOwnerProductCurator, times(1)).getProductsByOwner(eq(owner));
+    }
+
+    @Test
+    public void testIncrementalExecuteFallsBackToFullRefreshOnRemovedProducts() {
+        Owner owner = new Owner().setId("owner_id");
+
+        ProductInfo pinfo = this.mockProductInfo("pid-1", "product-1");
+        FingerprintCalculator calculator = new FingerprintCalculator();
+
+        Map<String, Long> products = new HashMap<>();
+        products.put("pid-1", calculator.getFingerprint(pinfo));
+        products.put("pid-2", 12345L);
+
+        this.mockRecordedFingerprints(owner, products, new HashMap<>());
+
+        doReturn(Collections.emptyList()).when(this.mockOwnerProductCurator).getProductsByOwner(eq(owner));
+        doReturn(Collections.emptyList()).when(this.mockOwnerContentCurator).getContentByOwner(eq(owner));
+
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setIncremental(true);
+
+        worker.addProducts(pinfo);
+        RefreshResult result = worker.execute(owner);
+
+        // The unchanged product should still be processed, as a full refresh was performed
+        assertNotNull(result);
+        assertThat(result.getEntities(Product.class), hasKey("pid-1"));
+
+        verify(this.mockOwnerProductCurator, times(1)).getProductsByOwner(eq(owner));
+    }
+
+    @Test
+    public void testSaveFingerprintsRecordsImportedEntities() {
+        Owner owner = new Owner().setId("owner_id");
+
+        ProductContentInfo pcinfo = this.mockProductContentInfo("cid-1", "content-1");
+        ProductInfo pinfo = this.mockProductInfo("pid-1", "product-1");
+        doReturn(Arrays.asList(pcinfo)).when(pinfo).getProductContent();
+        SubscriptionInfo sinfo = this.mockSubscriptionInfo("sub", pinfo);
+
+        this.mockRecordedFingerprints(owner, new HashMap<>(), new HashMap<>());
+
+        doReturn(Collections.emptyList()).when(this.mockOwnerProductCurator).getProductsByOwner(eq(owner));
+        doReturn(Collections.emptyList()).when(this.mockOwnerContentCurator).getContentByOwner(eq(owner));
+
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setIncremental(true);
+
+        worker.addSubscriptions(sinfo);
+        worker.execute(owner);
+        worker.saveFingerprints(owner);
+
+        FingerprintCalculator calculator = new FingerprintCalculator();
+
+        verify(this.mockFingerprintCurator, times(1)).updateFingerprints(eq(owner.getId()),
+            eq(EntityType.SUBSCRIPTION), eq(Map.of("sub", calculator.getFingerprint(sinfo))));
+        verify(this.mockFingerprintCurator, times(1)).updateFingerprints(eq(owner.getId()),
+            eq(EntityType.PRODUCT), eq(Map.of("pid-1", calculator.getFingerprint(pinfo))));
+        verify(this.mockFingerprintCurator, times(1)).updateFingerprints(eq(owner.getId()),
+            eq(EntityType.CONTENT), eq(Map.of("cid-1", calculator.getFingerprint(pcinfo.getContent()))));
+        verify(this.mockFingerprintCurator, never()).deleteFingerprints(Mockito.anyString());
+    }
+
+    @Test
+    public void testSaveFingerprintsClearsFingerprintsWhenNotIncremental() {
+        Owner owner = new Owner().setId("owner_id");
+
+        RefreshWorker worker = this.buildRefreshWorker();
+        worker.saveFingerprints(owner);
+
+        verify(this.mockFingerprintCurator, times(1)).deleteFingerprints(eq(owner.getId()));
+        verify(this.mockFingerprintCurator, never())
+            .updateFingerprints(Mockito.anyString(), Mockito.any(EntityType.class), Mockito.any(Map.class));
+    }
+
+    @Test
+    public void testIncrementalSaveFingerprintsRequiresExecution() {
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setIncremental(true);
+
+        Owner owner = new Owner().setId("owner_id");
+
+        assertThrows(IllegalStateException.class, () -> worker.saveFingerprints(owner));
+    }
+
 }
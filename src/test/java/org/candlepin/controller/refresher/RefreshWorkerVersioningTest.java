@@ -21,9 +21,11 @@ import org.candlepin.controller.refresher.RefreshResult.EntityState;
 import org.candlepin.model.Content;
 import org.candlepin.model.Owner;
 import org.candlepin.model.Product;
+import org.candlepin.model.ProductCurator;
 import org.candlepin.service.model.ContentInfo;
 import org.candlepin.service.model.ProductInfo;
 import org.candlepin.test.DatabaseTestFixture;
+import org.candlepin.test.TestUtil;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,7 +51,7 @@ public class RefreshWorkerVersioningTest extends DatabaseTestFixture {
 
     private RefreshWorker buildRefreshWorker() {
         return new RefreshWorker(this.poolCurator, this.productCurator, this.ownerProductCurator,
-            this.contentCurator, this.ownerContentCurator);
+            this.contentCurator, this.ownerContentCurator, this.refreshFingerprintCurator);
     }
 
     private ProductInfo mockProductInfo(String id, String name) {
@@ -258,4 +260,58 @@ public class RefreshWorkerVersioningTest extends DatabaseTestFixture {
         assertFalse(this.ownerContentCurator.isContentMappedToOwner(updated, owner1));
         assertTrue(this.ownerContentCurator.isContentMappedToOwner(updated, owner2));
     }
+
+    @Test
+    public void testChunkedRefreshResumesAfterFailureBetweenContentAndProducts() {
+        Owner owner = this.createOwner("owner-1");
+
+        Content content = this.createContent("cid-1", "old_name", owner);
+        Product product = TestUtil.createProduct("pid-1", "product_name");
+        product.addContent(content, true);
+        product = this.createProduct(product, owner);
+
+        Product imported = TestUtil.createProduct("pid-1", "product_name");
+        imported.addContent(TestUtil.createContent("cid-1", "new_name"), true);
+
+        // Fail the first product chunk, after the content chunk has been committed
+        ProductCurator failingCurator = spy(this.productCurator);
+        doThrow(new IllegalStateException("chunk failure"))
+            .when(failingCurator).create(any(Product.class), anyBoolean());
+
+        RefreshWorker failingWorker = new RefreshWorker(this.poolCurator, failingCurator,
+            this.ownerProductCurator, this.contentCurator, this.ownerContentCurator,
+            this.refreshFingerprintCurator)
+            .setChunkSize(1);
+
+        failingWorker.addProducts(imported);
+        assertThrows(RuntimeException.class, () -> failingWorker.execute(owner));
+
+        this.productCurator.clear();
+        Content committed = this.ownerContentCurator.getContentById(owner, "cid-1");
+        Product stale = this.ownerProductCurator.getProductById(owner, "pid-1");
+
+        assertEquals("new_name", committed.getName());
+        assertEquals(product.getUuid(), stale.getUuid());
+        assertNotEquals(committed.getUuid(), stale.getProductContent().iterator().next()
+            .getContent().getUuid());
+
+        // Performing the refresh again should update the product to reference the committed content,
+        // even though neither the product nor the content have changed upstream
+        RefreshWorker worker = this.buildRefreshWorker()
+            .setChunkSize(1);
+
+        worker.addProducts(imported);
+        RefreshResult result = worker.execute(owner);
+
+        assertNotNull(result);
+        assertEquals(1, result.getEntities(Product.class, EntityState.UPDATED).size());
+        assertEquals(1, result.getEntities(Content.class, EntityState.UNCHANGED).size());
+
+        this.productCurator.clear();
+        Product resumed = this.ownerProductCurator.getProductById(owner, "pid-1");
+
+        assertNotEquals(product.getUuid(), resumed.getUuid());
+        assertEquals(committed.getUuid(), resumed.getProductContent().iterator().next()
+            .getContent().getUuid());
+    }
 }
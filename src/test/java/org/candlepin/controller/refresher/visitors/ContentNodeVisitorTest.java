@@ -484,6 +484,54 @@ public class ContentNodeVisitorTest extends DatabaseTestFixture {
         assertEquals(merged.getUuid(), created.getUuid());
     }
 
+    @Test
+    public void testFlushChangesPersistsChangesAcrossSessions() {
+        Owner owner = this.createOwner();
+
+        Content content1 = new Content()
+            .setId("test_content-1")
+            .setName("test content 1")
+            .setLabel("test content 1")
+            .setVendor("test vendor")
+            .setType("type");
+
+        Content content2 = new Content()
+            .setId("test_content-2")
+            .setName("test content 2")
+            .setLabel("test content 2")
+            .setVendor("test vendor")
+            .setType("type");
+
+        EntityNode<Content, ContentInfo> cnode1 = new ContentNode(owner, content1.getId())
+            .setImportedEntity(content1);
+        EntityNode<Content, ContentInfo> cnode2 = new ContentNode(owner, content2.getId())
+            .setImportedEntity(content2);
+
+        ContentNodeVisitor visitor = this.buildNodeVisitor();
+        visitor.processNode(cnode1);
+        visitor.processNode(cnode2);
+
+        // Apply the changes in two chunks, clearing the session in between as chunked refreshes do
+        visitor.applyChanges(cnode1);
+        visitor.flushChanges();
+        this.contentCurator.clear();
+
+        assertNotNull(this.ownerContentCurator.getContentById(owner, content1.getId()));
+        assertNull(this.ownerContentCurator.getContentById(owner, content2.getId()));
+
+        visitor.applyChanges(cnode2);
+        visitor.complete();
+        this.contentCurator.clear();
+
+        for (EntityNode<Content, ContentInfo> cnode : Arrays.asList(cnode1, cnode2)) {
+            assertEquals(NodeState.CREATED, cnode.getNodeState());
+
+            Content created = this.ownerContentCurator.getContentById(owner, cnode.getEntityId());
+            assertNotNull(created);
+            assertEquals(cnode.getMergedEntity().getUuid(), created.getUuid());
+        }
+    }
+
     @Test
     public void testFullCyclePersistsUpdatedEntity() {
         Owner owner = this.createOwner();
@@ -41,10 +41,13 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 
@@ -176,6 +179,12 @@ public class NodeProcessorTest {
         assertThrows(IllegalArgumentException.class, () -> processor.addVisitor(null));
     }
 
+    @Test
+    public void testSetChunkExecutorDoesNotAcceptNull() {
+        NodeProcessor processor = new NodeProcessor();
+        assertThrows(IllegalArgumentException.class, () -> processor.setChunkExecutor(null));
+    }
+
     @Test
     public void testProcessNodesRequiresMapper() {
         NodeProcessor processor = new NodeProcessor();
@@ -505,4 +514,166 @@ public class NodeProcessorTest {
         }
     }
 
+    @Test
+    public void testProcessNodesInParallelProcessesChildrenFirst() {
+        Class cls = Product.class;
+
+        NodeProcessor processor = new NodeProcessor();
+        NodeMapper mapper = new NodeMapper();
+        NodeVisitor visitor = this.mockNodeVisitor(cls);
+
+        List<EntityNode> prepareOrder = Collections.synchronizedList(new LinkedList<>());
+        List<EntityNode> processOrder = Collections.synchronizedList(new LinkedList<>());
+        Set<Thread> callers = ConcurrentHashMap.newKeySet();
+
+        doAnswer(iom -> {
+            prepareOrder.add((EntityNode) iom.getArguments()[0]);
+            callers.add(Thread.currentThread());
+            return null;
+        }).when(visitor).prepareNode(any(EntityNode.class));
+
+        doAnswer(iom -> {
+            EntityNode node = (EntityNode) iom.getArguments()[0];
+
+            // Every child must have been completely processed before its parents
+            node.getChildrenNodes()
+                .forEach(child -> assertNotNull(((EntityNode) child).getNodeState()));
+
+            node.setNodeState(NodeState.UNCHANGED);
+            processOrder.add(node);
+
+            return null;
+        }).when(visitor).processNode(any(EntityNode.class));
+
+        Collection<EntityNode> trees = this.buildNodeTrees(mapper, cls);
+
+        processor.setNodeMapper(mapper)
+            .setParallelism(4)
+            .addVisitor(visitor);
+
+        processor.processNodes();
+
+        for (EntityNode root : trees) {
+            this.validateNodeProcessingOrder(processOrder, root);
+        }
+
+        // Nodes must be prepared exactly once, on the calling thread
+        assertEquals(11, prepareOrder.size());
+        assertEquals(11, Set.copyOf(prepareOrder).size());
+        assertEquals(Set.of(Thread.currentThread()), callers);
+
+        // Pruning and applying changes should still be done on every node
+        verify(visitor, times(11)).pruneNode(any(EntityNode.class));
+        verify(visitor, times(11)).applyChanges(any(EntityNode.class));
+    }
+
+    @Test
+    public void testProcessNodesInParallelPropagatesVisitorExceptions() {
+        Class cls = Product.class;
+
+        NodeProcessor processor = new NodeProcessor();
+        NodeMapper mapper = new NodeMapper();
+        NodeVisitor visitor = this.mockNodeVisitor(cls);
+
+        doThrow(new IllegalStateException("test exception"))
+            .when(visitor).processNode(any(EntityNode.class));
+
+        this.buildNodeTrees(mapper, cls);
+
+        processor.setNodeMapper(mapper)
+            .setParallelism(4)
+            .addVisitor(visitor);
+
+        assertThrows(IllegalStateException.class, () -> processor.processNodes());
+        verify(visitor, never()).applyChanges(any(EntityNode.class));
+    }
+
+    @Test
+    public void testProcessNodesAppliesChangesInChunks() {
+        Class cls = Product.class;
+
+        NodeProcessor processor = new NodeProcessor();
+        NodeMapper mapper = new NodeMapper();
+        NodeVisitor visitor = this.mockNodeVisitor(cls);
+
+        List<EntityNode> applyOrder = new LinkedList<>();
+        List<String> operations = new LinkedList<>();
+
+        doAnswer(iom -> {
+            ((EntityNode) iom.getArguments()[0]).setNodeState(NodeState.UPDATED);
+            return null;
+        }).when(visitor).processNode(any(EntityNode.class));
+
+        doAnswer(iom -> {
+            applyOrder.add((EntityNode) iom.getArguments()[0]);
+            operations.add("apply");
+            return null;
+        }).when(visitor).applyChanges(any(EntityNode.class));
+
+        doAnswer(iom -> operations.add("flush")).when(visitor).flushChanges();
+        doAnswer(iom -> operations.add("complete")).when(visitor).complete();
+
+        Collection<EntityNode> trees = this.buildNodeTrees(mapper, cls);
+
+        processor.setNodeMapper(mapper)
+            .setChunkSize(4)
+            .setChunkExecutor(chunk -> {
+                operations.add("begin");
+                chunk.run();
+                operations.add("commit");
+            })
+            .addVisitor(visitor);
+
+        processor.processNodes();
+
+        // Children must still be applied before their parents, even across chunks
+        for (EntityNode root : trees) {
+            this.validateNodeProcessingOrder(applyOrder, root);
+        }
+
+        // 11 changed nodes should be applied in three chunks, each flushed before being committed,
+        // followed by the completion step
+        List<String> expected = new LinkedList<>();
+        for (int count : List.of(4, 4, 3)) {
+            expected.add("begin");
+            expected.addAll(Collections.nCopies(count, "apply"));
+            expected.add("flush");
+            expected.add("commit");
+        }
+
+        expected.addAll(List.of("begin", "complete", "commit"));
+
+        assertEquals(expected, operations);
+    }
+
+    @Test
+    public void testProcessNodesInChunksOnlyAppliesChangedNodes() {
+        Owner owner = TestUtil.createOwner();
+
+        NodeProcessor processor = new NodeProcessor();
+        NodeMapper mapper = new NodeMapper();
+        NodeVisitor visitor = this.mockNodeVisitor(Product.class);
+
+        int nodeCount = 0;
+        for (NodeState state : NodeState.values()) {
+            EntityNode node = this.buildEntityNode(owner, "node-" + ++nodeCount, Product.class,
+                ProductInfo.class);
+            node.setNodeState(state);
+
+            assertTrue(mapper.addNode(node));
+        }
+
+        processor.setNodeMapper(mapper)
+            .setChunkSize(1)
+            .addVisitor(visitor);
+
+        processor.processNodes();
+
+        verify(visitor, times(2)).applyChanges(any(EntityNode.class));
+        verify(visitor).applyChanges(argThat(node -> node.getNodeState() == NodeState.CREATED));
+        verify(visitor).applyChanges(argThat(node -> node.getNodeState() == NodeState.UPDATED));
+        verify(visitor, times(2)).flushChanges();
+        verify(visitor, times(1)).complete();
+    }
+
 }
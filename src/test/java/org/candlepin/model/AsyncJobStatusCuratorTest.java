@@ -18,6 +18,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.candlepin.async.JobArguments;
 import org.candlepin.model.AsyncJobStatus.JobState;
 import org.candlepin.model.AsyncJobStatusCurator.AsyncJobStatusQueryArguments;
 import org.candlepin.test.DatabaseTestFixture;
@@ -2662,5 +2663,89 @@ public class AsyncJobStatusCuratorTest extends DatabaseTestFixture {
         this.validateJobStates(jobMap, Arrays.asList(), JobState.ABORTED);
     }
 
+    @Test
+    public void testGetJobsWaitingOn() {
+        AsyncJobStatus blocker = this.createJob("blocker", "job_key", JobState.RUNNING, null, null, null,
+            null, null, null, null);
+
+        AsyncJobStatus waiting1 = this.createJob("waiting-1", "job_key", JobState.WAITING, null, null,
+            null, null, null, null, null);
+        waiting1.setBlockingJobIds(List.of(blocker.getId()));
+
+        AsyncJobStatus waiting2 = this.createJob("waiting-2", "job_key", JobState.WAITING, null, null,
+            null, null, null, null, null);
+        waiting2.setBlockingJobIds(List.of(blocker.getId(), waiting1.getId()));
 
+        // Jobs which are no longer waiting are not included, even if they still list the blocker
+        AsyncJobStatus queued = this.createJob("queued", "job_key", JobState.QUEUED, null, null, null,
+            null, null, null, null);
+        queued.setBlockingJobIds(List.of(blocker.getId()));
+
+        this.asyncJobCurator.flush();
+
+        List<AsyncJobStatus> result = this.asyncJobCurator.getJobsWaitingOn(blocker.getId());
+        assertThat(result, containsInAnyOrder(waiting1, waiting2));
+
+        result = this.asyncJobCurator.getJobsWaitingOn(waiting1.getId());
+        assertThat(result, contains(waiting2));
+
+        assertThat(this.asyncJobCurator.getJobsWaitingOn("bad_id"), empty());
+    }
+
+    @Test
+    public void testFetchActiveBlockingJobIds() {
+        AsyncJobStatus running = this.createJob("running", "job_key", JobState.RUNNING, null, null, null,
+            null, null, null, null);
+        AsyncJobStatus finished = this.createJob("finished", "job_key", JobState.FINISHED, null, null,
+            null, null, null, null, null);
+
+        AsyncJobStatus waiting = this.createJob("waiting", "job_key", JobState.WAITING, null, null, null,
+            null, null, null, null);
+        waiting.setBlockingJobIds(List.of(running.getId(), finished.getId(), "deleted_job"));
+
+        this.asyncJobCurator.flush();
+
+        List<String> result = this.asyncJobCurator.fetchActiveBlockingJobIds(waiting.getId());
+        assertEquals(List.of(running.getId()), result);
+
+        running.setState(JobState.FINISHED);
+        this.asyncJobCurator.flush();
+
+        assertThat(this.asyncJobCurator.fetchActiveBlockingJobIds(waiting.getId()), empty());
+    }
+
+    @Test
+    public void testFetchJobIdsByArgumentsInStates() {
+        AsyncJobStatus waiting = this.createJob("waiting", "job_key", JobState.WAITING, null, null, null,
+            null, null, null, null);
+        waiting.setJobArguments(new JobArguments(Map.of("arg", "\"val\"")));
+
+        AsyncJobStatus queued = this.createJob("queued", "job_key", JobState.QUEUED, null, null, null,
+            null, null, null, null);
+        queued.setJobArguments(new JobArguments(Map.of("arg", "\"val\"")));
+
+        this.asyncJobCurator.flush();
+
+        List<String> result = this.asyncJobCurator.fetchJobIdsByArguments("job_key",
+            Map.of("arg", "\"val\""), Set.of(JobState.WAITING));
+
+        assertEquals(List.of(waiting.getId()), result);
+    }
+
+    @Test
+    public void testGetJobCountsByKey() {
+        this.createJob("job-1", "key_a", JobState.QUEUED, null, null, null, null, null, null, null);
+        this.createJob("job-2", "key_a", JobState.QUEUED, null, null, null, null, null, null, null);
+        this.createJob("job-3", "key_a", JobState.RUNNING, null, null, null, null, null, null, null);
+        this.createJob("job-4", "key_b", JobState.QUEUED, null, null, null, null, null, null, null);
+        this.createJob("job-5", "key_c", JobState.FINISHED, null, null, null, null, null, null, null);
+
+        Map<String, Long> counts = this.asyncJobCurator.getJobCountsByKey(List.of(JobState.QUEUED));
+        assertEquals(Map.of("key_a", 2L, "key_b", 1L), counts);
+
+        counts = this.asyncJobCurator.getJobCountsByKey(List.of(JobState.QUEUED, JobState.RUNNING));
+        assertEquals(Map.of("key_a", 3L, "key_b", 1L), counts);
+
+        assertEquals(Map.of(), this.asyncJobCurator.getJobCountsByKey(List.of()));
+    }
 }
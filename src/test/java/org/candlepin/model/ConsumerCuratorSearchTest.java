@@ -23,7 +23,11 @@ import org.candlepin.auth.Access;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.permissions.OwnerPermission;
 import org.candlepin.auth.permissions.Permission;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.model.ConsumerCurator.ConsumerQueryArguments;
+import org.candlepin.paging.PageCursor;
+import org.candlepin.paging.PageRequest;
 import org.candlepin.test.DatabaseTestFixture;
 
 import org.junit.jupiter.api.Test;
@@ -608,6 +612,52 @@ public class ConsumerCuratorSearchTest extends DatabaseTestFixture {
         }
     }
 
+    @Test
+    public void testFindCompactFactConsumersByIndexedFact() {
+        this.config.setProperty(ConfigProperties.CONSUMER_FACTS_COMPACT_STORAGE, "true");
+
+        Owner owner = this.createOwner();
+        ConsumerType type = this.createConsumerType();
+        Map<String, String> facts = Map.of(
+            Consumer.Facts.VIRT_UUID, "expected-uuid",
+            "factkey-1", "value-1");
+
+        Consumer expected = this.createConsumer(owner, "consumer-1", "uuid-1", type, null, facts, null);
+        this.createConsumer(owner, "consumer-2", "uuid-2", type, null,
+            Map.of(Consumer.Facts.VIRT_UUID, "other-uuid"), null);
+        this.consumerCurator.flush();
+        this.consumerCurator.clear();
+
+        assertTrue(expected.hasCompactFacts());
+
+        ConsumerQueryArguments queryArgs = new ConsumerQueryArguments()
+            .addFact(Consumer.Facts.VIRT_UUID, "EXPECTED-*");
+
+        List<Consumer> fetched = this.consumerCurator.findConsumers(queryArgs);
+
+        assertEquals(1, fetched.size());
+        assertEquals(expected.getId(), fetched.get(0).getId());
+        assertEquals(facts, fetched.get(0).getFacts());
+        assertEquals(1, this.consumerCurator.getConsumerCount(queryArgs));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "factkey-1", "virt.*", "*" })
+    public void testFindConsumersByNonIndexedFactRejectedWithCompactFactStorage(String fact) {
+        this.config.setProperty(ConfigProperties.CONSUMER_FACTS_COMPACT_STORAGE, "true");
+
+        Owner owner = this.createOwner();
+        this.createConsumer(owner, "consumer-1", "uuid-1", this.createConsumerType(), null,
+            Map.of("factkey-1", "value-1"), null);
+
+        ConsumerQueryArguments queryArgs = new ConsumerQueryArguments()
+            .addFact(Consumer.Facts.VIRT_UUID, "*")
+            .addFact(fact, "value-1");
+
+        assertThrows(BadRequestException.class, () -> this.consumerCurator.findConsumers(queryArgs));
+        assertThrows(BadRequestException.class, () -> this.consumerCurator.getConsumerCount(queryArgs));
+    }
+
     @Test
     public void testFindConsumersByFactsUsesDisjunctionForMultiValueSingleFact() {
         List<Consumer> created = this.createConsumersForQueryTests();
@@ -1064,4 +1114,79 @@ public class ConsumerCuratorSearchTest extends DatabaseTestFixture {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = { "created", "name", "id" })
+    public void testFindConsumersWithKeysetPaging(String sortBy) {
+        List<Consumer> created = this.createConsumersForQueryTests();
+        Owner owner = created.get(0).getOwner();
+
+        ConsumerQueryArguments allArgs = new ConsumerQueryArguments()
+            .setOwner(owner);
+        allArgs.addOrder(sortBy, true);
+        allArgs.addOrder("id", true);
+
+        List<String> expected = this.consumerCurator.findConsumers(allArgs).stream()
+            .map(Consumer::getId)
+            .collect(Collectors.toList());
+        assertTrue(expected.size() > 10);
+
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setKeyset(true);
+        pageRequest.setPage(PageRequest.DEFAULT_PAGE);
+        pageRequest.setPerPage(7);
+        pageRequest.setSortBy(sortBy);
+        pageRequest.setOrder(PageRequest.Order.DESCENDING);
+
+        List<String> fetched = new LinkedList<>();
+        PageCursor cursor = null;
+
+        do {
+            pageRequest.setCursor(cursor);
+
+            ConsumerQueryArguments queryArgs = new ConsumerQueryArguments()
+                .setOwner(owner);
+            this.consumerCurator.applyKeysetPaging(queryArgs, pageRequest);
+
+            List<Consumer> page = this.consumerCurator.findConsumers(queryArgs);
+            assertTrue(page.size() <= 7);
+            page.forEach(consumer -> fetched.add(consumer.getId()));
+
+            cursor = this.consumerCurator.buildNextCursor(page, pageRequest);
+        }
+        while (cursor != null);
+
+        assertEquals(expected, fetched);
+    }
+
+    private PageRequest buildKeysetPageRequest(String sortBy, PageCursor cursor) {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setKeyset(true);
+        pageRequest.setPage(PageRequest.DEFAULT_PAGE);
+        pageRequest.setPerPage(7);
+        pageRequest.setSortBy(sortBy);
+        pageRequest.setOrder(PageRequest.Order.DESCENDING);
+        pageRequest.setCursor(cursor);
+
+        return pageRequest;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "username", "lastCheckin", "facts", "owner", "not_a_field" })
+    public void testKeysetPagingRejectsUnsupportedSortFields(String sortBy) {
+        PageRequest pageRequest = this.buildKeysetPageRequest(sortBy, null);
+        ConsumerQueryArguments queryArgs = new ConsumerQueryArguments();
+
+        assertThrows(BadRequestException.class,
+            () -> this.consumerCurator.applyKeysetPaging(queryArgs, pageRequest));
+    }
+
+    @Test
+    public void testKeysetPagingRejectsCursorOfAnotherType() {
+        // A cursor built for a string sort field, forged for a date sort field
+        PageRequest pageRequest = this.buildKeysetPageRequest("created", PageCursor.of("value", "id"));
+        ConsumerQueryArguments queryArgs = new ConsumerQueryArguments();
+
+        assertThrows(BadRequestException.class,
+            () -> this.consumerCurator.applyKeysetPaging(queryArgs, pageRequest));
+    }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+
+public class ConsumerFactsCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, String> facts = new HashMap<>();
+        facts.put("cpu.cpu_socket(s)", "4");
+        facts.put("memory.memtotal", "8000000");
+        facts.put("unicode", "\u00e9\u4e2d");
+        facts.put("empty", "");
+
+        assertEquals(facts, ConsumerFactsCodec.decode(ConsumerFactsCodec.encode(facts)));
+    }
+
+    @Test
+    public void testNullValuesAreRetained() {
+        Map<String, String> facts = new HashMap<>();
+        facts.put("fact", null);
+
+        Map<String, String> decoded = ConsumerFactsCodec.decode(ConsumerFactsCodec.encode(facts));
+        assertTrue(decoded.containsKey("fact"));
+    }
+
+    @Test
+    public void testNullAndEmptyFactsEncodeToEmptyMap() {
+        assertEquals(Map.of(), ConsumerFactsCodec.decode(ConsumerFactsCodec.encode(null)));
+        assertEquals(Map.of(), ConsumerFactsCodec.decode(ConsumerFactsCodec.encode(Map.of())));
+    }
+
+    @Test
+    public void testEncodingIsDeterministic() {
+        Map<String, String> facts1 = new LinkedHashMap<>();
+        facts1.put("a", "1");
+        facts1.put("b", "2");
+
+        Map<String, String> facts2 = new LinkedHashMap<>();
+        facts2.put("b", "2");
+        facts2.put("a", "1");
+
+        assertArrayEquals(ConsumerFactsCodec.encode(facts1), ConsumerFactsCodec.encode(facts2));
+    }
+
+    @Test
+    public void testDecodedFactsAreMutable() {
+        Map<String, String> decoded = ConsumerFactsCodec.decode(ConsumerFactsCodec.encode(Map.of("a", "1")));
+        decoded.put("b", "2");
+
+        assertEquals(2, decoded.size());
+    }
+
+    @Test
+    public void testDecodeRequiresData() {
+        assertThrows(IllegalArgumentException.class, () -> ConsumerFactsCodec.decode(null));
+    }
+
+    @Test
+    public void testDecodeRejectsInvalidData() {
+        byte[] data = "not compressed".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> ConsumerFactsCodec.decode(data));
+    }
+}
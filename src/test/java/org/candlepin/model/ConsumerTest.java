@@ -37,6 +37,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.validation.ConstraintViolationException;
@@ -667,6 +668,38 @@ public class ConsumerTest extends DatabaseTestFixture {
             () -> consumer.setEnvironmentIds(List.of("env_1", "env_2", "env_1")));
     }
 
+    @Test
+    public void testCompactFactsPersisted() {
+        consumer.setFact(Consumer.Facts.VIRT_UUID, "virt-uuid");
+        consumer.compactFacts();
+        consumerCurator.merge(consumer);
+        consumerCurator.flush();
+        consumerCurator.clear();
+
+        Consumer lookedUp = consumerCurator.get(consumer.getId());
+        assertTrue(lookedUp.hasCompactFacts());
+        assertEquals(3, lookedUp.getFacts().size());
+        assertEquals("bar", lookedUp.getFact("foo"));
+        assertEquals("virt-uuid", lookedUp.getFact(Consumer.Facts.VIRT_UUID));
+
+        // Only the indexed facts remain searchable in the fact table
+        VirtConsumerMap guests = consumerCurator.getGuestConsumersMap(owner.getId(), Set.of("virt-uuid"));
+        assertEquals(consumer.getUuid(), guests.get("virt-uuid").getUuid());
+    }
+
+    @Test
+    public void testCompactFactsUpdated() {
+        consumer.compactFacts();
+        consumer.setFact("foo", "baz");
+        consumer.setFact(Consumer.Facts.VIRT_UUID, "virt-uuid");
+        consumer.removeFact("foo1");
+
+        assertEquals(Map.of("foo", "baz", Consumer.Facts.VIRT_UUID, "virt-uuid"), consumer.getFacts());
+
+        consumer.removeFact(Consumer.Facts.VIRT_UUID);
+        assertEquals(Map.of("foo", "baz"), consumer.getFacts());
+    }
+
     @Test
     public void shouldCleanEnvIdsWhenNull() {
         Consumer consumer = new Consumer()
@@ -16,7 +16,9 @@ package org.candlepin.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.paging.Page;
 import org.candlepin.paging.PageRequest;
 import org.candlepin.test.DatabaseTestFixture;
@@ -233,4 +235,15 @@ public class CuratorPaginationTest extends DatabaseTestFixture {
         List<Owner> results = ownerCurator.takeSubList(req, ownerList);
         assertEquals(0, results.size());
     }
+
+    @Test
+    public void testPostFilteredListingsRejectKeysetPaging() {
+        PageRequest req = new PageRequest();
+        req.setKeyset(true);
+        req.setPage(1);
+        req.setPerPage(2);
+
+        assertThrows(BadRequestException.class, () -> ownerCurator.listAll(req, true));
+        assertThrows(BadRequestException.class, () -> ownerCurator.takeSubList(req, createOwners(5)));
+    }
 }
@@ -15,6 +15,7 @@
 package org.candlepin.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -24,8 +25,10 @@ import org.candlepin.test.DatabaseTestFixture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -198,4 +201,50 @@ public class EntitlementCertificateCuratorTest extends DatabaseTestFixture {
         assertEquals(certSerial.getId(), remSerial.getId());
     }
 
+    @Test
+    public void testForEachForConsumerProcessesOnlyConsumerCerts() {
+        Consumer other = this.createConsumer(this.owner);
+
+        Entitlement ent1 = this.createEntitlement(this.owner, this.consumer, this.pool);
+        Entitlement ent2 = this.createEntitlement(this.owner, this.consumer, this.pool);
+        Entitlement ent3 = this.createEntitlement(this.owner, other, this.pool);
+
+        EntitlementCertificate cert1 = this.createEntitlementCertificate(ent1, "key1", "cert1");
+        EntitlementCertificate cert2 = this.createEntitlementCertificate(ent2, "key2", "cert2");
+        this.createEntitlementCertificate(ent3, "key3", "cert3");
+
+        List<EntitlementCertificate> processed = new ArrayList<>();
+        int count = this.entitlementCertificateCurator.forEachForConsumer(this.consumer, null, cert -> {
+            processed.add(cert);
+            return true;
+        });
+
+        assertEquals(2, count);
+        assertEquals(Set.of(cert1.getId(), cert2.getId()), processed.stream()
+            .map(EntitlementCertificate::getId)
+            .collect(Collectors.toSet()));
+
+        // Processed certs and their serials are evicted from the session
+        for (EntitlementCertificate cert : processed) {
+            assertFalse(this.getEntityManager().contains(cert));
+            assertFalse(this.getEntityManager().contains(cert.getSerial()));
+        }
+    }
+
+    @Test
+    public void testForEachForConsumerFiltersBySerial() {
+        Entitlement ent1 = this.createEntitlement(this.owner, this.consumer, this.pool);
+        Entitlement ent2 = this.createEntitlement(this.owner, this.consumer, this.pool);
+
+        EntitlementCertificate cert1 = this.createEntitlementCertificate(ent1, "key1", "cert1");
+        this.createEntitlementCertificate(ent2, "key2", "cert2");
+
+        List<String> processed = new ArrayList<>();
+        int count = this.entitlementCertificateCurator.forEachForConsumer(this.consumer,
+            Set.of(cert1.getSerial().getId()), cert -> processed.add(cert.getId()));
+
+        assertEquals(1, count);
+        assertEquals(List.of(cert1.getId()), processed);
+    }
+
 }
@@ -1147,6 +1147,68 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertEquals(0, page.getPageData().size());
     }
 
+    @Test
+    public void testCandidateFilterMatchesProductsStacksAddonsAndRoles() {
+        Date activeOn = TestUtil.createDate(2011, 2, 2);
+
+        Product stacked = TestUtil.createProduct();
+        stacked.setAttribute(Product.Attributes.STACKING_ID, "stack-1");
+        stacked = this.createProduct(stacked, owner);
+
+        Product addon = TestUtil.createProduct();
+        addon.setAttribute(Product.Attributes.ADDONS, "addon1, Addon2");
+        addon = this.createProduct(addon, owner);
+
+        Product role = TestUtil.createProduct();
+        role.setAttribute(Product.Attributes.ROLES, "Server");
+        role = this.createProduct(role, owner);
+
+        Product unrelated = TestUtil.createProduct();
+        unrelated.setAttribute(Product.Attributes.STACKING_ID, "stack-2");
+        unrelated = this.createProduct(unrelated, owner);
+
+        Map<String, Pool> pools = new HashMap<>();
+        for (Product prod : Arrays.asList(product, stacked, addon, role, unrelated)) {
+            Pool candidate = TestUtil.createPool(owner, prod);
+            candidate.setStartDate(TestUtil.createDate(2011, 1, 2));
+            candidate.setEndDate(TestUtil.createDate(2011, 3, 2));
+            pools.put(prod.getId(), poolCurator.create(candidate));
+        }
+
+        PoolFilterBuilder filters = new PoolFilterBuilder();
+        filters.setCandidateFilter(Arrays.asList(providedProduct.getId()), Arrays.asList("stack-1"),
+            Arrays.asList("ADDON2"), "server");
+
+        List<Pool> results = poolCurator.listAvailableEntitlementPools(null, owner.getId(),
+            (Collection<String>) null, null, activeOn, filters, null, false, false, false, null)
+            .getPageData();
+
+        Set<String> expected = Set.of(pools.get(product.getId()).getId(),
+            pools.get(stacked.getId()).getId(), pools.get(addon.getId()).getId(),
+            pools.get(role.getId()).getId());
+
+        assertEquals(expected, results.stream().map(Pool::getId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testEmptyCandidateFilterMatchesNoPools() {
+        Date activeOn = TestUtil.createDate(2011, 2, 2);
+
+        Pool candidate = TestUtil.createPool(owner, product);
+        candidate.setStartDate(TestUtil.createDate(2011, 1, 2));
+        candidate.setEndDate(TestUtil.createDate(2011, 3, 2));
+        poolCurator.create(candidate);
+
+        PoolFilterBuilder filters = new PoolFilterBuilder();
+        filters.setCandidateFilter(null, Collections.emptyList(), null, null);
+
+        List<Pool> results = poolCurator.listAvailableEntitlementPools(null, owner.getId(),
+            (Collection<String>) null, null, activeOn, filters, null, false, false, false, null)
+            .getPageData();
+
+        assertEquals(0, results.size());
+    }
+
     @Test
     public void testActivationKeyList() {
         Date activeOn = TestUtil.createDate(2011, 2, 2);
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.model.RefreshFingerprint.EntityType;
+import org.candlepin.test.DatabaseTestFixture;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+
+public class RefreshFingerprintCuratorTest extends DatabaseTestFixture {
+
+    @Test
+    public void testGetFingerprintsWithoutRecordedFingerprints() {
+        Owner owner = this.createOwner();
+
+        assertTrue(this.refreshFingerprintCurator.getFingerprints(owner.getId(), EntityType.PRODUCT)
+            .isEmpty());
+        assertTrue(this.refreshFingerprintCurator.getFingerprints(null, EntityType.PRODUCT).isEmpty());
+    }
+
+    @Test
+    public void testUpdateFingerprints() {
+        Owner owner1 = this.createOwner();
+        Owner owner2 = this.createOwner();
+
+        Map<String, Long> fingerprints = Map.of("p1", 1L, "p2", 2L, "p3", 3L);
+
+        assertEquals(3, this.refreshFingerprintCurator
+            .updateFingerprints(owner1.getId(), EntityType.PRODUCT, fingerprints));
+        assertEquals(1, this.refreshFingerprintCurator
+            .updateFingerprints(owner2.getId(), EntityType.CONTENT, Map.of("c1", 4L)));
+
+        assertEquals(fingerprints, this.refreshFingerprintCurator
+            .getFingerprints(owner1.getId(), EntityType.PRODUCT));
+        assertTrue(this.refreshFingerprintCurator.getFingerprints(owner1.getId(), EntityType.CONTENT)
+            .isEmpty());
+        assertTrue(this.refreshFingerprintCurator.getFingerprints(owner2.getId(), EntityType.PRODUCT)
+            .isEmpty());
+
+        // Update one fingerprint, remove another and add a new one
+        Map<String, Long> updated = new HashMap<>();
+        updated.put("p1", 1L);
+        updated.put("p2", 5L);
+        updated.put("p4", 6L);
+
+        assertEquals(3, this.refreshFingerprintCurator
+            .updateFingerprints(owner1.getId(), EntityType.PRODUCT, updated));
+
+        this.refreshFingerprintCurator.clear();
+
+        assertEquals(updated, this.refreshFingerprintCurator
+            .getFingerprints(owner1.getId(), EntityType.PRODUCT));
+        assertEquals(Map.of("c1", 4L), this.refreshFingerprintCurator
+            .getFingerprints(owner2.getId(), EntityType.CONTENT));
+    }
+
+    @Test
+    public void testUpdateFingerprintsWithUnchangedFingerprints() {
+        Owner owner = this.createOwner();
+        Map<String, Long> fingerprints = Map.of("s1", 1L, "s2", 2L);
+
+        this.refreshFingerprintCurator
+            .updateFingerprints(owner.getId(), EntityType.SUBSCRIPTION, fingerprints);
+
+        assertEquals(0, this.refreshFingerprintCurator
+            .updateFingerprints(owner.getId(), EntityType.SUBSCRIPTION, fingerprints));
+        assertEquals(fingerprints, this.refreshFingerprintCurator
+            .getFingerprints(owner.getId(), EntityType.SUBSCRIPTION));
+    }
+
+    @Test
+    public void testUpdateFingerprintsRequiresOwnerAndType() {
+        assertThrows(IllegalArgumentException.class, () -> this.refreshFingerprintCurator
+            .updateFingerprints(null, EntityType.PRODUCT, Map.of("p1", 1L)));
+
+        assertThrows(IllegalArgumentException.class, () -> this.refreshFingerprintCurator
+            .updateFingerprints("owner_id", null, Map.of("p1", 1L)));
+    }
+
+    @Test
+    public void testDeleteFingerprints() {
+        Owner owner1 = this.createOwner();
+        Owner owner2 = this.createOwner();
+
+        this.refreshFingerprintCurator.updateFingerprints(owner1.getId(), EntityType.PRODUCT,
+            Map.of("p1", 1L, "p2", 2L));
+        this.refreshFingerprintCurator.updateFingerprints(owner1.getId(), EntityType.CONTENT,
+            Map.of("c1", 3L));
+        this.refreshFingerprintCurator.updateFingerprints(owner2.getId(), EntityType.PRODUCT,
+            Map.of("p1", 1L));
+
+        assertEquals(3, this.refreshFingerprintCurator.deleteFingerprints(owner1.getId()));
+
+        assertTrue(this.refreshFingerprintCurator.getFingerprints(owner1.getId(), EntityType.PRODUCT)
+            .isEmpty());
+        assertTrue(this.refreshFingerprintCurator.getFingerprints(owner1.getId(), EntityType.CONTENT)
+            .isEmpty());
+        assertEquals(Map.of("p1", 1L), this.refreshFingerprintCurator
+            .getFingerprints(owner2.getId(), EntityType.PRODUCT));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.paging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+
+
+public class PageCursorTest {
+
+    @Test
+    public void testEncodedCursorsCanBeDecoded() {
+        Object[] values = { "value", "", "a:b:c", 42, 1234567890123L, true, new Date(1234567890L) };
+
+        for (Object value : values) {
+            PageCursor cursor = PageCursor.of(value, "id:with:separators");
+            PageCursor decoded = PageCursor.decode(cursor.encode());
+
+            assertEquals(cursor, decoded);
+            assertEquals(value, decoded.getSortValue());
+            assertEquals("id:with:separators", decoded.getId());
+        }
+    }
+
+    @Test
+    public void testDateSubclassesAreNormalized() {
+        PageCursor cursor = PageCursor.of(new Timestamp(1234567890L), "id");
+
+        assertEquals(Date.class, cursor.getSortValue().getClass());
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    public void testRequiresSortValueAndId() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.of(null, "id"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.of("value", null));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.of("value", ""));
+    }
+
+    @Test
+    public void testUnsupportedSortValueType() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.of(1.5, "id"));
+    }
+
+    @Test
+    public void testSupportedTypes() {
+        assertTrue(PageCursor.isSupportedType(String.class));
+        assertTrue(PageCursor.isSupportedType(int.class));
+        assertTrue(PageCursor.isSupportedType(Long.class));
+        assertTrue(PageCursor.isSupportedType(boolean.class));
+        assertTrue(PageCursor.isSupportedType(Timestamp.class));
+
+        assertFalse(PageCursor.isSupportedType(Double.class));
+        assertFalse(PageCursor.isSupportedType(Object.class));
+        assertFalse(PageCursor.isSupportedType(null));
+    }
+
+    @Test
+    public void testHasSortValueOfType() {
+        assertTrue(PageCursor.of(42, "id").hasSortValueOfType(int.class));
+        assertTrue(PageCursor.of(42L, "id").hasSortValueOfType(Long.class));
+        assertTrue(PageCursor.of(new Date(), "id").hasSortValueOfType(Timestamp.class));
+        assertTrue(PageCursor.of("value", "id").hasSortValueOfType(String.class));
+
+        assertFalse(PageCursor.of("value", "id").hasSortValueOfType(Date.class));
+        assertFalse(PageCursor.of(42, "id").hasSortValueOfType(Long.class));
+        assertFalse(PageCursor.of(true, "id").hasSortValueOfType(String.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "not base64!", "x:2:id", "s:", "s:x:id", "s:0:value", "s:9:id", "i:2:idx" })
+    public void testMalformedTokens(String payload) {
+        String token = payload.contains("!") ?
+            payload :
+            Base64.getUrlEncoder().encodeToString(payload.getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token));
+    }
+
+    @Test
+    public void testNullToken() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(null));
+    }
+}
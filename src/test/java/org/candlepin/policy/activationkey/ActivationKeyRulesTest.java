@@ -30,7 +30,9 @@ import org.mockito.MockitoAnnotations;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * ActivationKeyRulesTest
@@ -208,6 +210,27 @@ public class ActivationKeyRulesTest {
         assertTrue(result.getErrorKeys().isEmpty());
     }
 
+    @Test
+    public void testBatchValidationMatchesSinglePoolValidation() {
+        ActivationKey key = new ActivationKey();
+        Pool existing = genNonMultiEnt();
+        key.addPool(existing, 1L);
+
+        List<Pool> pools = List.of(existing, genPool(), genPoolForType("person"), genNonMultiEnt());
+        Map<String, ValidationResult> results = actKeyRules.runPoolValidationForActivationKey(
+            key, pools, 2L);
+
+        assertEquals(pools.size(), results.size());
+        for (Pool pool : pools) {
+            ValidationResult expected = actKeyRules.runPoolValidationForActivationKey(key, pool, 2L);
+            assertEquals(expected.getErrorKeys(), results.get(pool.getId()).getErrorKeys());
+        }
+
+        assertTrue(results.get(pools.get(1).getId()).getErrorKeys().isEmpty());
+        assertEquals(List.of(ActivationKeyRules.ErrorKeys.CANNOT_USE_PERSON_POOLS),
+            results.get(pools.get(2).getId()).getErrorKeys());
+    }
+
     private Pool genPool() {
         Pool pool = new Pool();
         pool.setId("" + poolid++);
@@ -16,6 +16,7 @@ package org.candlepin.policy.js;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -100,4 +101,56 @@ public class JsRunnerProviderTest {
         verify(rulesCurator, times(3)).getUpdated();
     }
 
+    private JsRunnerProvider buildPooledProvider(int poolSize) {
+        String script = "function test_name_space() {\n" +
+            "  return {\n" +
+            "    get_value: function() { return JSON.parse(json_context).value; },\n" +
+            "    get_arg_type: function() { return typeof arg; }\n" +
+            "  };\n" +
+            "}\n";
+
+        when(rules.getRules()).thenReturn(script);
+        when(cacheProvider.get()).thenReturn(new JsRunnerRequestCache());
+
+        return new JsRunnerProvider(rulesCurator, cacheProvider, poolSize, 100);
+    }
+
+    @Test
+    public void pooledRunnersInvokeRules() {
+        JsRunnerProvider pooledProvider = this.buildPooledProvider(2);
+        RulesObjectMapper mapper = new RulesObjectMapper();
+
+        for (int i = 0; i < 5; ++i) {
+            JsRunner runner = pooledProvider.get();
+            runner.init("test_name_space");
+
+            JsonJsContext context = new JsonJsContext(mapper);
+            context.put("value", "value-" + i);
+
+            assertEquals("value-" + i, runner.runJsFunction(String.class, "get_value", context));
+        }
+
+        JsRulesStatistics statistics = pooledProvider.getStatistics();
+        assertEquals(5L, statistics.getInvocationStatistics().get("test_name_space").getCount());
+        assertTrue(statistics.getPoolWaitStatistics().getCount() >= 5);
+    }
+
+    @Test
+    public void pooledScopesDoNotLeakContextArguments() {
+        JsRunnerProvider pooledProvider = this.buildPooledProvider(1);
+
+        JsRunner runner = pooledProvider.get();
+        runner.init("test_name_space");
+
+        ArgumentJsContext context = new ArgumentJsContext();
+        context.put("arg", "test");
+        assertEquals("string", runner.runJsFunction(String.class, "get_arg_type", context));
+
+        // The next borrower of the (only) pooled scope must not see the previous caller's arguments
+        JsRunner runner2 = pooledProvider.get();
+        runner2.init("test_name_space");
+        assertEquals("undefined", runner2.runJsFunction(String.class, "get_arg_type",
+            new ArgumentJsContext()));
+    }
+
 }
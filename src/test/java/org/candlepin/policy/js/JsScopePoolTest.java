@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.NativeObject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class JsScopePoolTest {
+
+    private AtomicInteger created;
+    private JsRulesStatistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        this.created = new AtomicInteger();
+        this.statistics = new JsRulesStatistics();
+    }
+
+    private JsScopePool buildPool(int size) {
+        JsScopePool pool = new JsScopePool(size, 10, () -> {
+            this.created.incrementAndGet();
+            return new NativeObject();
+        }, this.statistics);
+
+        pool.invalidate("generation-1");
+        return pool;
+    }
+
+    @Test
+    public void releasedScopesAreReused() {
+        JsScopePool pool = this.buildPool(2);
+
+        JsScopePool.PooledScope scope1 = pool.borrow();
+        pool.release(scope1);
+        JsScopePool.PooledScope scope2 = pool.borrow();
+
+        assertSame(scope1, scope2);
+        assertEquals(1, this.created.get());
+        assertEquals(1, pool.getAllocated());
+    }
+
+    @Test
+    public void namespacesAreRetainedByPooledScopes() {
+        JsScopePool pool = this.buildPool(1);
+        Object namespace = new Object();
+
+        JsScopePool.PooledScope scope = pool.borrow();
+        scope.putNamespace("test_name_space", namespace);
+        pool.release(scope);
+
+        assertSame(namespace, pool.borrow().getNamespace("test_name_space"));
+    }
+
+    @Test
+    public void exhaustedPoolFallsBackToUnpooledScope() {
+        JsScopePool pool = this.buildPool(1);
+
+        JsScopePool.PooledScope scope1 = pool.borrow();
+        JsScopePool.PooledScope scope2 = pool.borrow();
+
+        assertTrue(scope1.isPooled());
+        assertFalse(scope2.isPooled());
+        assertEquals(1, pool.getAllocated());
+
+        // Unpooled scopes are never returned to the pool
+        pool.release(scope2);
+        assertEquals(0, pool.getIdle());
+    }
+
+    @Test
+    public void invalidationDiscardsScopesFromPreviousGenerations() {
+        JsScopePool pool = this.buildPool(2);
+
+        JsScopePool.PooledScope idleScope = pool.borrow();
+        JsScopePool.PooledScope loanedScope = pool.borrow();
+        pool.release(idleScope);
+
+        pool.invalidate("generation-2");
+        assertEquals(0, pool.getIdle());
+        assertEquals(1, pool.getAllocated());
+
+        pool.release(loanedScope);
+        assertEquals(0, pool.getIdle());
+        assertEquals(0, pool.getAllocated());
+
+        JsScopePool.PooledScope scope = pool.borrow();
+        assertNotSame(idleScope, scope);
+        assertNotSame(loanedScope, scope);
+    }
+
+    @Test
+    public void borrowRecordsPoolWaitTime() {
+        JsScopePool pool = this.buildPool(1);
+
+        pool.borrow();
+        pool.borrow();
+
+        assertEquals(2, this.statistics.getPoolWaitStatistics().getCount());
+    }
+
+    @Test
+    public void poolSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new JsScopePool(0, 10, NativeObject::new, this.statistics));
+    }
+}
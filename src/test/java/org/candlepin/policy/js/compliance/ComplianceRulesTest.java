@@ -20,13 +20,20 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.model.CandlepinQuery;
@@ -273,6 +280,104 @@ public class ComplianceRulesTest {
         return ent;
     }
 
+    @Test
+    public void batchStatusesMatchIndividualStatuses() {
+        when(entCurator.getInBlockSize()).thenReturn(1);
+
+        Consumer entitled = mockFullyEntitledConsumer();
+        entitled.setUuid("entitled");
+        Consumer unentitled = mockConsumerWithTwoProductsAndNoEntitlements();
+        unentitled.setUuid("unentitled");
+
+        Map<Consumer, ComplianceStatus> statuses = compliance.getStatuses(List.of(entitled, unentitled));
+
+        assertEquals(2, statuses.size());
+        assertEquals(compliance.getStatus(entitled).getStatus(), statuses.get(entitled).getStatus());
+        assertEquals(compliance.getStatus(unentitled).getStatus(), statuses.get(unentitled).getStatus());
+        assertEquals("valid", statuses.get(entitled).getStatus());
+        assertEquals("invalid", statuses.get(unentitled).getStatus());
+    }
+
+    @Test
+    public void batchStatusesAreAppliedWithSingleFlush() {
+        when(entCurator.getInBlockSize()).thenReturn(10);
+
+        Consumer entitled = mockFullyEntitledConsumer();
+        entitled.setUuid("entitled");
+        Consumer unentitled = mockConsumerWithTwoProductsAndNoEntitlements();
+        unentitled.setUuid("unentitled");
+
+        compliance.getStatuses(List.of(entitled, unentitled));
+
+        assertEquals("valid", entitled.getEntitlementStatus());
+        assertNotNull(entitled.getComplianceStatusHash());
+        assertEquals("invalid", unentitled.getEntitlementStatus());
+        assertNotNull(unentitled.getComplianceStatusHash());
+
+        verify(entCurator).loadEntitlementsForConsumers(List.of(entitled, unentitled));
+        verify(consumerCurator).updateAll(Set.of(entitled, unentitled), false, false);
+        verify(consumerCurator, times(1)).flush();
+        verify(consumerCurator, never()).update(any(Consumer.class), anyBoolean());
+    }
+
+    @Test
+    public void batchStatusesUseSingleRulesInvocation() {
+        when(entCurator.getInBlockSize()).thenReturn(10);
+
+        JsRunner mockRunner = mock(JsRunner.class);
+        compliance = new ComplianceRules(mockRunner, entCurator, new StatusReasonMessageGenerator(i18n),
+            eventSink, consumerCurator, consumerTypeCurator, new RulesObjectMapper(), translator);
+
+        String json = "{\"compliantProducts\": {}, \"partiallyCompliantProducts\": {}, " +
+            "\"partialStacks\": {}, \"nonCompliantProducts\": [], \"reasons\": []}";
+
+        when(mockRunner.runJsFunctions(any(Class.class), eq("get_status"), anyList()))
+            .thenReturn(List.of(json, json));
+
+        Consumer consumer1 = mockConsumerWithTwoProductsAndNoEntitlements();
+        consumer1.setUuid("consumer1");
+        Consumer consumer2 = mockConsumerWithTwoProductsAndNoEntitlements();
+        consumer2.setUuid("consumer2");
+
+        Map<Consumer, ComplianceStatus> statuses = compliance.getStatuses(List.of(consumer1, consumer2));
+
+        assertEquals(2, statuses.size());
+        verify(mockRunner, times(1)).runJsFunctions(any(Class.class), eq("get_status"), anyList());
+        verify(mockRunner, never()).runJsFunction(any(Class.class), anyString(), any(JsContext.class));
+    }
+
+    @Test
+    public void cachedStatusSkipsRulesForUnchangedConsumer() {
+        JsRunnerProvider jsProvider = mock(JsRunnerProvider.class);
+        when(jsProvider.getRulesVersion()).thenReturn("5.0");
+        ComplianceStatusCache cache = new ComplianceStatusCache(new CandlepinCommonTestConfig(), jsProvider);
+
+        JsRunner runner = spy(provider.get());
+        compliance = new ComplianceRules(runner, entCurator, new StatusReasonMessageGenerator(i18n),
+            eventSink, consumerCurator, consumerTypeCurator, new RulesObjectMapper(), translator, null,
+            cache);
+
+        Consumer c = mockFullyEntitledConsumer();
+        c.setUuid("cached-consumer");
+
+        ComplianceStatus status1 = compliance.getStatus(c);
+        ComplianceStatus status2 = compliance.getStatus(c);
+
+        assertEquals("valid", status1.getStatus());
+        assertEquals(status1.getStatus(), status2.getStatus());
+        assertEquals(status1.getCompliantProducts().keySet(), status2.getCompliantProducts().keySet());
+        verify(runner, times(1)).runJsFunction(any(Class.class), eq("get_status"), any(JsContext.class));
+
+        // Changing a compliance fact must re-evaluate the consumer
+        c.setFact("cpu.cpu_socket(s)", "16");
+        compliance.getStatus(c);
+        verify(runner, times(2)).runJsFunction(any(Class.class), eq("get_status"), any(JsContext.class));
+
+        // Statuses for explicit dates are never cached
+        compliance.getStatus(c, new Date());
+        verify(runner, times(3)).runJsFunction(any(Class.class), eq("get_status"), any(JsContext.class));
+    }
+
     private Consumer mockConsumerWithTwoProductsAndNoEntitlements() {
         return mockConsumer(PRODUCT_1, PRODUCT_2);
     }
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.GuestId;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.policy.js.JsRunnerProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+
+public class ComplianceStatusCacheTest {
+
+    private CandlepinCommonTestConfig config;
+    private JsRunnerProvider jsProvider;
+
+    @BeforeEach
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.COMPLIANCE_STATUS_CACHE_MAX, "10");
+        this.config.setProperty(ConfigProperties.COMPLIANCE_STATUS_CACHE_BUCKET, "60");
+
+        this.jsProvider = mock(JsRunnerProvider.class);
+        when(this.jsProvider.getRulesVersion()).thenReturn("5.0");
+    }
+
+    private Consumer createConsumer(String uuid) {
+        return new Consumer()
+            .setUuid(uuid)
+            .setTypeId("system")
+            .setFact("cpu.cpu_socket(s)", "4")
+            .setFact("memory.memtotal", "8000000");
+    }
+
+    private Entitlement createEntitlement(Consumer consumer, Date start, Date end) {
+        Pool pool = new Pool()
+            .setId("pool-" + start.getTime())
+            .setStartDate(start)
+            .setEndDate(end);
+
+        Entitlement entitlement = new Entitlement(pool, consumer, new Owner("owner"), 1);
+        entitlement.setId("ent-" + start.getTime());
+
+        return entitlement;
+    }
+
+    private String buildKey(ComplianceStatusCache cache, Consumer consumer, Date date) {
+        return cache.buildKey(consumer, date, false, false);
+    }
+
+    @Test
+    public void cachedStatusReturnedForUnchangedConsumer() {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config, this.jsProvider);
+        Consumer consumer = this.createConsumer("consumer");
+        ComplianceStatusDTO status = new ComplianceStatusDTO();
+        Date date = new Date();
+
+        assertNull(cache.get(consumer, this.buildKey(cache, consumer, date), date));
+        cache.put(consumer, this.buildKey(cache, consumer, date), date, status);
+
+        Consumer unchanged = this.createConsumer("consumer");
+        assertSame(status, cache.get(unchanged, this.buildKey(cache, unchanged, date), date));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    public void keyChangesWithComplianceInputs() {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config, this.jsProvider);
+        Date date = new Date();
+        String key = this.buildKey(cache, this.createConsumer("consumer"), date);
+
+        Consumer factChanged = this.createConsumer("consumer").setFact("memory.memtotal", "16000000");
+        assertNotEquals(key, this.buildKey(cache, factChanged, date));
+
+        Consumer unrelatedFactChanged = this.createConsumer("consumer").setFact("unrelated", "value");
+        assertEquals(key, this.buildKey(cache, unrelatedFactChanged, date));
+
+        Consumer guestAdded = this.createConsumer("consumer");
+        guestAdded.addGuestId(new GuestId("guest", guestAdded, Map.of("active", "1")));
+        assertNotEquals(key, this.buildKey(cache, guestAdded, date));
+
+        Consumer entitled = this.createConsumer("consumer");
+        entitled.setEntitlements(Set.of(this.createEntitlement(entitled, new Date(0), new Date())));
+        assertNotEquals(key, this.buildKey(cache, entitled, date));
+
+        assertNotEquals(key, cache.buildKey(this.createConsumer("consumer"), date, true, false));
+    }
+
+    @Test
+    public void keyChangesWithRulesVersionAndDateBucket() {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config, this.jsProvider);
+        Consumer consumer = this.createConsumer("consumer");
+        Date date = new Date(0);
+        String key = this.buildKey(cache, consumer, date);
+
+        assertEquals(key, this.buildKey(cache, consumer, new Date(59 * 60 * 1000)));
+        assertNotEquals(key, this.buildKey(cache, consumer, new Date(60 * 60 * 1000)));
+
+        when(this.jsProvider.getRulesVersion()).thenReturn("5.1");
+        assertNotEquals(key, this.buildKey(cache, consumer, date));
+    }
+
+    @Test
+    public void changedKeyInvalidatesCachedStatus() {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config, this.jsProvider);
+        Consumer consumer = this.createConsumer("consumer");
+        Date date = new Date();
+        String key = this.buildKey(cache, consumer, date);
+
+        cache.put(consumer, key, date, new ComplianceStatusDTO());
+
+        Consumer changed = this.createConsumer("consumer").setFact("uname.machine", "s390x");
+        assertNull(cache.get(changed, this.buildKey(cache, changed, date), date));
+        assertEquals(0, cache.size());
+        assertNull(cache.get(consumer, key, date));
+    }
+
+    @Test
+    public void cachedStatusExpiresWhenEntitlementEnds() {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config, this.jsProvider);
+        Consumer consumer = this.createConsumer("consumer");
+        Date date = new Date(0);
+        consumer.setEntitlements(Set.of(this.createEntitlement(consumer, date, new Date(1000))));
+        String key = this.buildKey(cache, consumer, date);
+
+        cache.put(consumer, key, date, new ComplianceStatusDTO());
+
+        // The entitlement is still valid at its end date, but not a millisecond later
+        assertNotNull(cache.get(consumer, key, new Date(1000)));
+        assertNull(cache.get(consumer, key, new Date(1001)));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedConsumer() {
+        this.config.setProperty(ConfigProperties.COMPLIANCE_STATUS_CACHE_MAX, "2");
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config, this.jsProvider);
+        Date date = new Date();
+
+        Consumer consumer1 = this.createConsumer("consumer1");
+        Consumer consumer2 = this.createConsumer("consumer2");
+        Consumer consumer3 = this.createConsumer("consumer3");
+
+        cache.put(consumer1, this.buildKey(cache, consumer1, date), date, new ComplianceStatusDTO());
+        cache.put(consumer2, this.buildKey(cache, consumer2, date), date, new ComplianceStatusDTO());
+
+        // Touch consumer1 so consumer2 becomes the eldest entry
+        cache.get(consumer1, this.buildKey(cache, consumer1, date), date);
+        cache.put(consumer3, this.buildKey(cache, consumer3, date), date, new ComplianceStatusDTO());
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(consumer2, this.buildKey(cache, consumer2, date), date));
+    }
+
+    @Test
+    public void zeroMaxSizeDisablesCache() {
+        this.config.setProperty(ConfigProperties.COMPLIANCE_STATUS_CACHE_MAX, "0");
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config, this.jsProvider);
+        Consumer consumer = this.createConsumer("consumer");
+        Date date = new Date();
+        String key = this.buildKey(cache, consumer, date);
+
+        cache.put(consumer, key, date, new ComplianceStatusDTO());
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get(consumer, key, date));
+        assertEquals(0, cache.size());
+    }
+}
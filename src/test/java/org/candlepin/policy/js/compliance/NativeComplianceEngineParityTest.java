@@ -0,0 +1,384 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.api.server.v1.DateRange;
+import org.candlepin.dto.rules.v1.ComplianceReasonDTO;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.ConsumerTypeDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
+import org.candlepin.dto.rules.v1.GuestIdDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.EntitlementCurator;
+import org.candlepin.model.Rules;
+import org.candlepin.model.RulesCurator;
+import org.candlepin.policy.js.JsContext;
+import org.candlepin.policy.js.JsRunner;
+import org.candlepin.policy.js.JsRunnerProvider;
+import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.JsonJsContext;
+import org.candlepin.policy.js.RulesObjectMapper;
+import org.candlepin.util.Util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.inject.Provider;
+
+
+
+/**
+ * Differential test harness which runs the javascript compliance rules and the native compliance
+ * engine over randomly generated consumers and entitlements, and verifies both produce identical
+ * results. Each fixture is generated from a fixed seed, so failures are reproducible.
+ */
+public class NativeComplianceEngineParityTest {
+    private static final Logger log = LoggerFactory.getLogger(NativeComplianceEngineParityTest.class);
+
+    private static final int FIXTURE_COUNT = 250;
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static final String[] PRODUCT_IDS = { "p1", "p2", "p3", "p4", "p5" };
+    private static final String[] STACK_IDS = { "stack-a", "stack-b" };
+
+    private JsRunner jsRules;
+    private RulesObjectMapper mapper;
+    private NativeComplianceEngine engine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        InputStream is = this.getClass().getResourceAsStream(RulesCurator.DEFAULT_RULES_FILE);
+        Rules rules = new Rules(Util.readFile(is));
+
+        RulesCurator rulesCurator = mock(RulesCurator.class);
+        when(rulesCurator.getUpdated()).thenReturn(new Date());
+        when(rulesCurator.getRules()).thenReturn(rules);
+
+        Provider<JsRunnerRequestCache> cacheProvider = mock(Provider.class);
+        when(cacheProvider.get()).thenReturn(mock(JsRunnerRequestCache.class));
+
+        this.jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
+        this.jsRules.init("compliance_name_space");
+
+        this.mapper = new RulesObjectMapper();
+        this.engine = new NativeComplianceEngine();
+    }
+
+    public static Stream<Long> fixtureSeeds() {
+        return IntStream.range(0, FIXTURE_COUNT)
+            .mapToObj(seed -> (long) seed);
+    }
+
+    /**
+     * A randomly generated set of compliance inputs
+     */
+    private static class Fixture {
+        private ConsumerDTO consumer;
+        private List<EntitlementDTO> entitlements;
+        private List<GuestIdDTO> guestIds;
+        private Date onDate;
+
+        @Override
+        public String toString() {
+            return String.format("Fixture [facts: %s, installed: %s, entitlements: %s, guests: %d]",
+                this.consumer.getFacts(), this.consumer.getInstalledProducts(),
+                this.entitlements.stream()
+                    .map(ent -> ent.getId() + ent.getPool().getProductAttributes() +
+                        ent.getPool().getAttributes() + "x" + ent.getQuantity())
+                    .collect(Collectors.toList()),
+                this.guestIds.size());
+        }
+    }
+
+    @SafeVarargs
+    private static <T> T pick(Random random, T... values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void putRandom(Random random, Map<String, String> map, String key, String... values) {
+        // Leave roughly half of the values unset
+        if (random.nextBoolean()) {
+            map.put(key, pick(random, values));
+        }
+    }
+
+    private Fixture generateFixture(long seed) {
+        Random random = new Random(seed);
+        Fixture fixture = new Fixture();
+
+        fixture.onDate = new Date(1600000000000L + random.nextInt(1000) * DAY);
+
+        Map<String, String> facts = new HashMap<>();
+        putRandom(random, facts, "virt.is_guest", "true", "false");
+        putRandom(random, facts, "cpu.cpu_socket(s)", "1", "2", "4", "8");
+        putRandom(random, facts, "cpu.core(s)_per_socket", "1", "2", "4", "6");
+        putRandom(random, facts, "memory.memtotal", "2048000", "8000000", "16777216", "33554432");
+        putRandom(random, facts, "uname.machine", "x86_64", "i686", "ppc64", "s390x");
+        putRandom(random, facts, "band.storage.usage", "1", "16", "256");
+
+        Set<String> installed = new HashSet<>();
+        for (String productId : PRODUCT_IDS) {
+            if (random.nextInt(3) == 0) {
+                installed.add(productId);
+            }
+        }
+
+        fixture.consumer = new ConsumerDTO()
+            .setUuid("consumer-" + seed)
+            .setType(new ConsumerTypeDTO().setLabel(pick(random, "system", "system", "hypervisor")))
+            .setFacts(facts)
+            .setInstalledProducts(installed);
+
+        fixture.guestIds = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; --i) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("virtWhoType", pick(random, "libvirt", "esx"));
+            attributes.put("active", pick(random, "0", "1"));
+
+            fixture.guestIds.add(new GuestIdDTO()
+                .setId("guest-" + i)
+                .setGuestId("guest-id-" + i)
+                .setAttributes(attributes));
+        }
+
+        fixture.entitlements = new ArrayList<>();
+        for (int i = random.nextInt(7); i > 0; --i) {
+            fixture.entitlements.add(this.generateEntitlement(random, "ent-" + i, fixture.onDate));
+        }
+
+        return fixture;
+    }
+
+    private EntitlementDTO generateEntitlement(Random random, String id, Date onDate) {
+        Map<String, String> productAttributes = new HashMap<>();
+        putRandom(random, productAttributes, "sockets", "1", "2", "4", "0");
+        putRandom(random, productAttributes, "cores", "2", "4", "8", "16");
+        putRandom(random, productAttributes, "ram", "2", "8", "16");
+        putRandom(random, productAttributes, "vcpu", "2", "4", "8");
+        putRandom(random, productAttributes, "arch", "x86_64", "x86", "ALL", "ppc64,s390x", "i386");
+        putRandom(random, productAttributes, "stacking_id", STACK_IDS);
+        putRandom(random, productAttributes, "guest_limit", "-1", "0", "2", "4");
+        putRandom(random, productAttributes, "instance_multiplier", "2");
+        putRandom(random, productAttributes, "storage_band", "1", "256");
+        putRandom(random, productAttributes, "multi-entitlement", "yes");
+
+        Map<String, String> poolAttributes = new HashMap<>();
+        if (random.nextInt(4) == 0) {
+            poolAttributes.put("requires_host", "host-uuid");
+        }
+
+        if (random.nextInt(6) == 0) {
+            poolAttributes.put("unmapped_guests_only", "true");
+        }
+
+        List<PoolDTO.ProvidedProductDTO> provided = new ArrayList<>();
+        for (String productId : PRODUCT_IDS) {
+            if (random.nextInt(3) == 0) {
+                provided.add(new PoolDTO.ProvidedProductDTO(productId, productId + "-name"));
+            }
+        }
+
+        // Entitlements start and end around the compliance date, so compliant until dates and
+        // coverage gaps are exercised as well
+        Date startDate = new Date(onDate.getTime() + (random.nextInt(60) - 45) * DAY);
+        Date endDate = new Date(startDate.getTime() + (1 + random.nextInt(90)) * DAY);
+
+        PoolDTO pool = new PoolDTO()
+            .setId("pool-" + id)
+            .setQuantity(pick(random, 10L, 100L, -1L))
+            .setConsumed(0L)
+            .setStartDate(startDate)
+            .setEndDate(endDate)
+            .setProductId(pick(random, PRODUCT_IDS) + pick(random, "", "-mkt"))
+            .setAttributes(poolAttributes)
+            .setProductAttributes(productAttributes)
+            .setProvidedProducts(provided);
+
+        return new EntitlementDTO()
+            .setId(id)
+            .setPool(pool)
+            .setQuantity(1 + random.nextInt(6))
+            .setStartDate(startDate)
+            .setEndDate(endDate);
+    }
+
+    private JsonJsContext buildContext(Fixture fixture) {
+        JsonJsContext args = new JsonJsContext(this.mapper);
+        args.put("consumer", fixture.consumer);
+        args.put("entitlements", fixture.entitlements);
+        args.put("log", log, false);
+        args.put("guestIds", fixture.guestIds);
+
+        return args;
+    }
+
+    /**
+     * Converts a compliance status into a normalized, comparable form. Entitlements are reduced
+     * to their IDs and dates are converted to epoch milliseconds.
+     */
+    private Map<String, Object> normalize(ComplianceStatusDTO status) {
+        Map<String, Object> output = new TreeMap<>();
+
+        output.put("date", status.getDate() != null ? status.getDate().getTime() : null);
+        output.put("compliantUntil", status.getCompliantUntil() != null ?
+            status.getCompliantUntil().getTime() :
+            null);
+
+        output.put("compliantProducts", this.normalizeEntitlementMap(status.getCompliantProducts()));
+        output.put("partiallyCompliantProducts",
+            this.normalizeEntitlementMap(status.getPartiallyCompliantProducts()));
+        output.put("partialStacks", this.normalizeEntitlementMap(status.getPartialStacks()));
+        output.put("nonCompliantProducts", new TreeSet<>(status.getNonCompliantProducts()));
+
+        Set<String> reasons = new TreeSet<>();
+        for (ComplianceReasonDTO reason : status.getReasons()) {
+            reasons.add(String.format("%s:%s:%s", reason.getKey(), reason.getMessage(),
+                new TreeMap<>(reason.getAttributes())));
+        }
+        output.put("reasons", reasons);
+
+        Map<String, DateRange> ranges = status.getProductComplianceDateRanges();
+        if (ranges != null) {
+            Map<String, String> normalized = new TreeMap<>();
+            ranges.forEach((pid, range) -> normalized.put(pid,
+                range.getStartDate().toInstant() + " - " + range.getEndDate().toInstant()));
+
+            output.put("productComplianceDateRanges", normalized);
+        }
+        else {
+            output.put("productComplianceDateRanges", null);
+        }
+
+        return output;
+    }
+
+    private Map<String, Set<String>> normalizeEntitlementMap(Map<String, Set<EntitlementDTO>> map) {
+        Map<String, Set<String>> output = new TreeMap<>();
+        map.forEach((key, ents) -> output.put(key, ents.stream()
+            .map(EntitlementDTO::getId)
+            .collect(Collectors.toCollection(TreeSet::new))));
+
+        return output;
+    }
+
+    @ParameterizedTest(name = "fixture {0}")
+    @MethodSource("fixtureSeeds")
+    public void statusMatchesJavascriptRules(long seed) {
+        Fixture fixture = this.generateFixture(seed);
+
+        JsonJsContext args = this.buildContext(fixture);
+        args.put("ondate", fixture.onDate);
+        args.put("calculateCompliantUntil", true);
+        args.put("calculateProductComplianceDateRanges", true);
+
+        String json = this.jsRules.runJsFunction(String.class, "get_status", args);
+        ComplianceStatusDTO expected = this.mapper.toObject(json, ComplianceStatusDTO.class);
+
+        ComplianceStatusDTO actual = this.engine.getStatus(fixture.consumer, fixture.entitlements,
+            fixture.guestIds, fixture.onDate, true, true);
+
+        assertEquals(this.normalize(expected), this.normalize(actual), fixture.toString());
+    }
+
+    @ParameterizedTest(name = "fixture {0}")
+    @MethodSource("fixtureSeeds")
+    public void stackComplianceMatchesJavascriptRules(long seed) {
+        Fixture fixture = this.generateFixture(seed);
+
+        for (String stackId : STACK_IDS) {
+            JsonJsContext args = this.buildContext(fixture);
+            args.put("stack_id", stackId);
+
+            boolean expected = this.jsRules.runJsFunction(Boolean.class, "is_stack_compliant", args);
+            boolean actual = this.engine.isStackCompliant(fixture.consumer, stackId, fixture.entitlements,
+                fixture.guestIds);
+
+            assertEquals(expected, actual, stackId + ": " + fixture);
+        }
+    }
+
+    @ParameterizedTest(name = "fixture {0}")
+    @MethodSource("fixtureSeeds")
+    public void entitlementComplianceMatchesJavascriptRules(long seed) {
+        Fixture fixture = this.generateFixture(seed);
+
+        for (EntitlementDTO entitlement : fixture.entitlements) {
+            JsonJsContext args = this.buildContext(fixture);
+            args.put("entitlement", entitlement);
+
+            boolean expected = this.jsRules.runJsFunction(Boolean.class, "is_ent_compliant", args);
+            boolean actual = this.engine.isEntitlementCompliant(fixture.consumer, entitlement,
+                fixture.entitlements, fixture.guestIds);
+
+            assertEquals(expected, actual, entitlement.getId() + ": " + fixture);
+        }
+    }
+
+    @Test
+    public void nativeEngineSelectedByConfiguration() {
+        CandlepinCommonTestConfig config = new CandlepinCommonTestConfig();
+        config.setProperty(ConfigProperties.COMPLIANCE_ENGINE, "java");
+
+        JsRunner mockRunner = mock(JsRunner.class);
+        NativeComplianceEngine mockEngine = mock(NativeComplianceEngine.class);
+
+        ComplianceRules rules = new ComplianceRules(mockRunner, mock(EntitlementCurator.class),
+            mock(StatusReasonMessageGenerator.class), mock(EventSink.class), mock(ConsumerCurator.class),
+            mock(ConsumerTypeCurator.class), this.mapper, mock(ModelTranslator.class), config, mockEngine,
+            null);
+
+        rules.isStackCompliant(new Consumer(), "stack-a", List.of());
+
+        verify(mockEngine).isStackCompliant(any(), anyString(), any(), any());
+        verify(mockRunner, never()).runJsFunction(any(), anyString(), any(JsContext.class));
+    }
+}
@@ -16,6 +16,7 @@ package org.candlepin.policy.js.entitlement;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.when;
@@ -117,6 +118,8 @@ public class EntitlementRulesTestFixture {
         MockitoAnnotations.initMocks(this);
 
         when(config.getInt(eq(ConfigProperties.PRODUCT_CACHE_MAX))).thenReturn(100);
+        when(config.getString(eq(ConfigProperties.ENTITLEMENT_ENGINE), anyString()))
+            .thenReturn(this.getEntitlementEngine());
 
         InputStream is = this.getClass().getResourceAsStream(
             RulesCurator.DEFAULT_RULES_FILE);
@@ -126,10 +129,37 @@ public class EntitlementRulesTestFixture {
         when(rulesCurator.getUpdated()).thenReturn(TestUtil.createDate(2010, 1, 1));
         when(cacheProvider.get()).thenReturn(cache);
 
+        translator = new StandardTranslator(consumerTypeCurator, environmentCurator, ownerCurator);
+        enforcer = this.createEntitlementRules(config);
+
+        owner = TestUtil.createOwner();
+
+        consumerType = this.mockConsumerType(new ConsumerType(ConsumerTypeEnum.SYSTEM));
+        consumer = new Consumer()
+            .setName("test consumer")
+            .setUsername("test user")
+            .setOwner(owner)
+            .setType(consumerType);
+
+        poolRules = new PoolRules(poolManagerMock, config, entCurMock, ownerProductCuratorMock,
+            productCurator);
+    }
+
+    /**
+     * Fetches the entitlement engine used by the enforcer under test. Defaults to the javascript
+     * rules; subclasses may override this to run their tests against the native checks.
+     *
+     * @return
+     *  the value of the entitlement engine configuration
+     */
+    protected String getEntitlementEngine() {
+        return "js";
+    }
+
+    protected EntitlementRules createEntitlementRules(Configuration config) {
         JsRunner jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
 
-        translator = new StandardTranslator(consumerTypeCurator, environmentCurator, ownerCurator);
-        enforcer = new EntitlementRules(
+        return new EntitlementRules(
             new DateSourceImpl(),
             jsRules,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
@@ -142,18 +172,6 @@ public class EntitlementRulesTestFixture {
             eventFactory,
             translator
         );
-
-        owner = TestUtil.createOwner();
-
-        consumerType = this.mockConsumerType(new ConsumerType(ConsumerTypeEnum.SYSTEM));
-        consumer = new Consumer()
-            .setName("test consumer")
-            .setUsername("test user")
-            .setOwner(owner)
-            .setType(consumerType);
-
-        poolRules = new PoolRules(poolManagerMock, config, entCurMock, ownerProductCuratorMock,
-            productCurator);
     }
 
     protected ConsumerType mockConsumerType(ConsumerType ctype) {
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.entitlement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCapability;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+import org.candlepin.policy.ValidationError;
+import org.candlepin.policy.ValidationResult;
+import org.candlepin.policy.ValidationWarning;
+import org.candlepin.policy.js.entitlement.Enforcer.CallerType;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+
+
+/**
+ * Differential test harness which runs the javascript pre-entitlement rules and the native
+ * pre-entitlement checks over randomly generated consumers and pools, and verifies both produce
+ * identical results. Each fixture is generated from a fixed seed, so failures are reproducible.
+ */
+public class NativePreEntitlementValidatorParityTest extends EntitlementRulesTestFixture {
+    private static final int FIXTURE_COUNT = 100;
+    private static final int POOL_COUNT = 20;
+
+    private static final String HOST_UUID = "host-uuid";
+
+    private static final String[][] ATTRIBUTE_VALUES = {
+        { Product.Attributes.ARCHITECTURE, "x86_64", "ALL", "ppc64,x86_64", "s390x" },
+        { Product.Attributes.SOCKETS, "0", "2", "4", "8" },
+        { Product.Attributes.RAM, "4", "16" },
+        { Product.Attributes.CORES, "4", "16" },
+        { Pool.Attributes.REQUIRES_CONSUMER_TYPE, "system", "person", "hypervisor" },
+        { Product.Attributes.VIRT_ONLY, "true", "false" },
+        { Pool.Attributes.REQUIRES_HOST, HOST_UUID, "other-host" },
+        { Product.Attributes.INSTANCE_MULTIPLIER, "2" },
+        { Product.Attributes.VCPU, "2", "8" },
+        { Pool.Attributes.PHYSICAL_ONLY, "true", "false" },
+        { Pool.Attributes.UNMAPPED_GUESTS_ONLY, "true" },
+        { "storage_band", "1", "10" },
+        { Pool.Attributes.REQUIRES_CONSUMER, "consumer-uuid", "other-consumer" },
+        { Product.Attributes.STACKING_ID, "stack" },
+        { Pool.Attributes.MULTI_ENTITLEMENT, "yes", "no" },
+        { Pool.Attributes.DERIVED_POOL, "true" },
+    };
+
+    private static final String[] CAPABILITIES = {
+        "cores", "ram", "instance_multiplier", "storage_band", "derived_product"
+    };
+
+    public static Stream<Long> fixtureSeeds() {
+        return IntStream.range(0, FIXTURE_COUNT)
+            .mapToObj(seed -> (long) seed);
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private Consumer buildConsumer(Random random) {
+        ConsumerType ctype = this.mockConsumerType(new ConsumerType(pick(random, new ConsumerTypeEnum[] {
+            ConsumerTypeEnum.SYSTEM, ConsumerTypeEnum.HYPERVISOR, ConsumerTypeEnum.CANDLEPIN })));
+
+        Consumer consumer = new Consumer()
+            .setUuid("consumer-uuid")
+            .setName("test consumer")
+            .setUsername("test user")
+            .setOwner(owner)
+            .setType(ctype)
+            .setFact("cpu.cpu_socket(s)", String.valueOf(random.nextInt(8) + 1))
+            .setFact("cpu.core(s)_per_socket", String.valueOf(random.nextInt(8) + 1))
+            .setFact("memory.memtotal", String.valueOf((random.nextInt(32) + 1) * 1024 * 1024))
+            .setFact("uname.machine", pick(random, new String[] { "x86_64", "ppc64", "s390x" }));
+
+        if (random.nextBoolean()) {
+            consumer.setFact("band.storage.usage", String.valueOf(random.nextInt(5) * 1000000000000L));
+        }
+
+        if (random.nextBoolean()) {
+            consumer.setFact("virt.is_guest", "true");
+
+            if (random.nextBoolean()) {
+                consumer.setFact("virt.uuid", "guest-uuid");
+            }
+        }
+
+        List<ConsumerCapability> capabilities = new ArrayList<>();
+        for (String capability : CAPABILITIES) {
+            if (random.nextBoolean()) {
+                capabilities.add(new ConsumerCapability(capability));
+            }
+        }
+
+        consumer.setCapabilities(capabilities);
+
+        return consumer;
+    }
+
+    private Pool buildPool(Random random, int index) {
+        Product product = TestUtil.createProduct("product-" + index, "product-" + index);
+        Pool pool = TestUtil.createPool(owner, product)
+            .setId("pool-" + index);
+
+        for (String[] values : ATTRIBUTE_VALUES) {
+            if (random.nextInt(4) != 0) {
+                continue;
+            }
+
+            String value = values[random.nextInt(values.length - 1) + 1];
+
+            // Attributes may be set on either the pool or its product, which changes their lookup order
+            if (random.nextBoolean()) {
+                pool.setAttribute(values[0], value);
+            }
+            else {
+                product.setAttribute(values[0], value);
+            }
+        }
+
+        return pool;
+    }
+
+    private Map<String, List<String>> summarize(Map<String, ValidationResult> results) {
+        return results.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> {
+                List<String> keys = new ArrayList<>();
+                entry.getValue().getErrors().stream()
+                    .map(ValidationError::getResourceKey)
+                    .forEach(key -> keys.add("error:" + key));
+                entry.getValue().getWarnings().stream()
+                    .map(ValidationWarning::getResourceKey)
+                    .forEach(key -> keys.add("warning:" + key));
+
+                return keys;
+            }));
+    }
+
+    @ParameterizedTest
+    @MethodSource("fixtureSeeds")
+    public void nativeValidationMatchesJavascript(long seed) {
+        Random random = new Random(seed);
+
+        Configuration nativeConfig = mock(Configuration.class);
+        when(nativeConfig.getString(ConfigProperties.ENTITLEMENT_ENGINE, "java")).thenReturn("java");
+        Enforcer nativeEnforcer = this.createEntitlementRules(nativeConfig);
+
+        Consumer consumer = this.buildConsumer(random);
+
+        if (random.nextBoolean()) {
+            Consumer host = new Consumer()
+                .setUuid(HOST_UUID)
+                .setOwner(owner)
+                .setType(consumerType);
+
+            when(consumerCurator.getHost(anyString(), nullable(String.class))).thenReturn(host);
+        }
+        else {
+            when(consumerCurator.getHost(anyString(), nullable(String.class))).thenReturn(null);
+        }
+
+        List<Pool> pools = new ArrayList<>();
+        List<PoolQuantity> poolQuantities = new ArrayList<>();
+        for (int i = 0; i < POOL_COUNT; ++i) {
+            Pool pool = this.buildPool(random, i);
+
+            pools.add(pool);
+            poolQuantities.add(new PoolQuantity(pool, random.nextInt(3) + 1));
+        }
+
+        for (CallerType caller : CallerType.values()) {
+            assertEquals(this.summarize(enforcer.preEntitlement(consumer, poolQuantities, caller)),
+                this.summarize(nativeEnforcer.preEntitlement(consumer, poolQuantities, caller)),
+                "seed " + seed + ", caller " + caller);
+        }
+
+        assertEquals(enforcer.filterPools(consumer, pools, false),
+            nativeEnforcer.filterPools(consumer, pools, false), "seed " + seed);
+    }
+}
@@ -20,10 +20,20 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.candlepin.audit.EventDispatcher;
 import org.candlepin.audit.EventSink;
+import org.candlepin.controller.ConsumerCheckInRecorder;
+import org.candlepin.dto.api.server.v1.CheckInMetricsDTO;
+import org.candlepin.dto.api.server.v1.ComplianceCacheMetricsDTO;
+import org.candlepin.dto.api.server.v1.EventDispatchMetricsDTO;
 import org.candlepin.dto.api.server.v1.QueueStatus;
+import org.candlepin.dto.api.server.v1.RulesMetricsDTO;
+import org.candlepin.dto.api.server.v1.TimingMetricsDTO;
 import org.candlepin.model.User;
 import org.candlepin.model.UserCurator;
+import org.candlepin.policy.js.JsRulesStatistics;
+import org.candlepin.policy.js.JsRunnerProvider;
+import org.candlepin.policy.js.compliance.ComplianceStatusCache;
 import org.candlepin.service.UserServiceAdapter;
 import org.candlepin.service.impl.DefaultUserServiceAdapter;
 
@@ -42,13 +52,23 @@ public class AdminResourceTest {
     private AdminResource ar;
     private UserCurator uc;
     private EventSink sink;
+    private EventDispatcher eventDispatcher;
+    private JsRunnerProvider jsProvider;
+    private ConsumerCheckInRecorder checkInRecorder;
+    private ComplianceStatusCache complianceCache;
 
     @BeforeEach
     public void init() {
         usa = mock(DefaultUserServiceAdapter.class);
         uc = mock(UserCurator.class);
         sink = mock(EventSink.class);
-        ar = new AdminResource(usa, uc, sink);
+        eventDispatcher = mock(EventDispatcher.class);
+        jsProvider = mock(JsRunnerProvider.class);
+        when(jsProvider.getStatistics()).thenReturn(new JsRulesStatistics());
+        checkInRecorder = mock(ConsumerCheckInRecorder.class);
+        complianceCache = mock(ComplianceStatusCache.class);
+        ar = new AdminResource(usa, uc, sink, eventDispatcher, jsProvider, checkInRecorder,
+            complianceCache);
     }
 
     @Test
@@ -60,7 +80,7 @@ public class AdminResourceTest {
 
     @Test
     public void initWithNonDefaultUserService() {
-        ar = new AdminResource(mock(UserServiceAdapter.class), uc, null);
+        ar = new AdminResource(mock(UserServiceAdapter.class), uc, null, null, null, null, null);
         assertEquals("Already initialized.", ar.initialize());
     }
 
@@ -82,4 +102,82 @@ public class AdminResourceTest {
         when(sink.getQueueInfo()).thenReturn(mockQueueStats);
         assertEquals(2, ar.getQueueStats().size());
     }
+
+    @Test
+    public void testEventDispatchMetrics() {
+        when(eventDispatcher.isEnabled()).thenReturn(true);
+        when(eventDispatcher.getQueuedBatchCount()).thenReturn(3);
+        when(eventDispatcher.getDispatchedEventCount()).thenReturn(40L);
+        when(eventDispatcher.getSentMessageCount()).thenReturn(12L);
+        when(eventDispatcher.getFailedEventCount()).thenReturn(1L);
+
+        EventDispatchMetricsDTO metrics = ar.getNodeMetrics().getEventDispatch();
+
+        assertEquals(true, metrics.getEnabled());
+        assertEquals(3, metrics.getQueued());
+        assertEquals(40L, metrics.getDispatched());
+        assertEquals(12L, metrics.getSent());
+        assertEquals(1L, metrics.getFailed());
+    }
+
+    @Test
+    public void testRulesMetrics() {
+        JsRulesStatistics statistics = new JsRulesStatistics();
+        statistics.recordInvocation("compliance", 3_000_000);
+        statistics.recordInvocation("compliance", 1_000_000);
+        statistics.recordInvocation("autobind", 5_000_000);
+        when(jsProvider.getStatistics()).thenReturn(statistics);
+
+        RulesMetricsDTO metrics = ar.getNodeMetrics().getRules();
+
+        assertEquals(false, metrics.getScopePoolEnabled());
+        assertEquals(0L, metrics.getPoolWait().getCount());
+        assertEquals(2, metrics.getInvocations().size());
+
+        TimingMetricsDTO autobind = metrics.getInvocations().get(0);
+        assertEquals("autobind", autobind.getName());
+        assertEquals(1L, autobind.getCount());
+        assertEquals(5L, autobind.getMaxTime());
+
+        TimingMetricsDTO compliance = metrics.getInvocations().get(1);
+        assertEquals("compliance", compliance.getName());
+        assertEquals(2L, compliance.getCount());
+        assertEquals(4L, compliance.getTotalTime());
+        assertEquals(2.0, compliance.getAverageTime());
+        assertEquals(3L, compliance.getMaxTime());
+    }
+
+    @Test
+    public void testCheckInMetrics() {
+        when(checkInRecorder.getPendingCount()).thenReturn(25);
+        when(checkInRecorder.getFlushCount()).thenReturn(4L);
+        when(checkInRecorder.getFlushedCheckInCount()).thenReturn(300L);
+        when(checkInRecorder.getLastFlushDuration()).thenReturn(12L);
+        when(checkInRecorder.getMaxFlushDuration()).thenReturn(80L);
+
+        CheckInMetricsDTO metrics = ar.getNodeMetrics().getCheckIns();
+
+        assertEquals(25, metrics.getPending());
+        assertEquals(4L, metrics.getFlushes());
+        assertEquals(300L, metrics.getFlushed());
+        assertEquals(12L, metrics.getLastFlushTime());
+        assertEquals(80L, metrics.getMaxFlushTime());
+    }
+
+    @Test
+    public void testComplianceCacheMetrics() {
+        when(complianceCache.isEnabled()).thenReturn(true);
+        when(complianceCache.size()).thenReturn(10);
+        when(complianceCache.getHits()).thenReturn(30L);
+        when(complianceCache.getMisses()).thenReturn(10L);
+        when(complianceCache.getHitRate()).thenReturn(0.75);
+
+        ComplianceCacheMetricsDTO metrics = ar.getNodeMetrics().getComplianceCache();
+
+        assertEquals(true, metrics.getEnabled());
+        assertEquals(10, metrics.getSize());
+        assertEquals(30L, metrics.getHits());
+        assertEquals(10L, metrics.getMisses());
+        assertEquals(0.75, metrics.getHitRate());
+    }
 }
@@ -27,6 +27,7 @@ import org.candlepin.audit.EventSink;
 import org.candlepin.auth.Access;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.SubResource;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateGenerator;
 import org.candlepin.controller.Entitler;
@@ -58,6 +59,7 @@ import org.candlepin.resource.util.ConsumerEnricher;
 import org.candlepin.resource.util.ConsumerTypeValidator;
 import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.resource.validation.DTOValidator;
+import org.candlepin.resteasy.JsonProvider;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.service.IdentityCertServiceAdapter;
 import org.candlepin.service.ProductServiceAdapter;
@@ -123,6 +125,8 @@ public class ConsumerContentOverrideResourceTest extends DatabaseTestFixture {
     @Mock private PrincipalProvider principalProvider;
     @Mock private EnvironmentContentCurator environmentContentCurator;
     @Mock private EntitlementCertificateGenerator entCertGenerator;
+    @Mock private ConsumerCheckInRecorder checkInRecorder;
+    @Mock private JsonProvider jsonProvider;
 
     private Consumer consumer;
     private ContentOverrideValidator contentOverrideValidator;
@@ -179,7 +183,9 @@ public class ConsumerContentOverrideResourceTest extends DatabaseTestFixture {
             this.contentOverrideValidator,
             this.consumerContentOverrideCurator,
             this.entCertGenerator,
-            this.environmentContentCurator
+            this.environmentContentCurator,
+            this.checkInRecorder,
+            this.jsonProvider
         );
     }
 
@@ -41,6 +41,7 @@ import org.candlepin.auth.permissions.PermissionFactory.PermissionType;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.MapConfiguration;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateGenerator;
 import org.candlepin.controller.Entitler;
@@ -86,6 +87,7 @@ import org.candlepin.resource.util.ConsumerEnricher;
 import org.candlepin.resource.util.ConsumerTypeValidator;
 import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.resource.validation.DTOValidator;
+import org.candlepin.resteasy.JsonProvider;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.service.IdentityCertServiceAdapter;
 import org.candlepin.service.ProductServiceAdapter;
@@ -204,6 +206,10 @@ public class ConsumerResourceCreationTest {
     private EnvironmentContentCurator environmentContentCurator;
     @Mock
     private EntitlementCertificateGenerator entCertGenerator;
+    @Mock
+    private ConsumerCheckInRecorder checkInRecorder;
+    @Mock
+    private JsonProvider jsonProvider;
 
     protected ModelTranslator modelTranslator;
 
@@ -263,7 +269,9 @@ public class ConsumerResourceCreationTest {
             this.contentOverrideValidator,
             this.consumerContentOverrideCurator,
             this.entCertGenerator,
-            this.environmentContentCurator
+            this.environmentContentCurator,
+            this.checkInRecorder,
+            this.jsonProvider
         );
 
         this.system = this.initConsumerType();
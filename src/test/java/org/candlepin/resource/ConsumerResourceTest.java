@@ -46,6 +46,7 @@ import org.candlepin.auth.SubResource;
 import org.candlepin.auth.UserPrincipal;
 import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.config.Configuration;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateGenerator;
 import org.candlepin.controller.Entitler;
@@ -65,6 +66,7 @@ import org.candlepin.exceptions.NotFoundException;
 import org.candlepin.guice.PrincipalProvider;
 import org.candlepin.model.Cdn;
 import org.candlepin.model.CdnCurator;
+import org.candlepin.model.Certificate;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerContentOverrideCurator;
@@ -88,6 +90,7 @@ import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
+import org.candlepin.model.ResultProcessor;
 import org.candlepin.model.activationkeys.ActivationKeyCurator;
 import org.candlepin.model.dto.Subscription;
 import org.candlepin.paging.PageRequest;
@@ -102,6 +105,7 @@ import org.candlepin.resource.util.ConsumerEnricher;
 import org.candlepin.resource.util.ConsumerTypeValidator;
 import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.resource.validation.DTOValidator;
+import org.candlepin.resteasy.JsonProvider;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.service.IdentityCertServiceAdapter;
 import org.candlepin.service.ProductServiceAdapter;
@@ -112,8 +116,12 @@ import org.candlepin.util.ContentOverrideValidator;
 import org.candlepin.util.FactValidator;
 import org.candlepin.util.Util;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.apache.commons.lang3.RandomStringUtils;
 import org.jboss.resteasy.core.ResteasyContext;
+import org.jboss.resteasy.spi.HttpRequest;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -129,6 +137,7 @@ import org.mockito.stubbing.Answer;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigInteger;
@@ -150,7 +159,10 @@ import java.util.stream.Stream;
 
 import javax.inject.Provider;
 import javax.persistence.OptimisticLockException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 
 
@@ -201,6 +213,8 @@ public class ConsumerResourceTest {
     @Mock private ContentOverrideValidator contentOverrideValidator;
     @Mock private EnvironmentContentCurator environmentContentCurator;
     @Mock private EntitlementCertificateGenerator entCertGenerator;
+    @Mock private ConsumerCheckInRecorder checkInRecorder;
+    @Mock private JsonProvider jsonProvider;
 
     private ModelTranslator translator;
     private ConsumerResource consumerResource;
@@ -257,7 +271,9 @@ public class ConsumerResourceTest {
             this.contentOverrideValidator,
             this.consumerContentOverrideCurator,
             this.entCertGenerator,
-            this.environmentContentCurator
+            this.environmentContentCurator,
+            this.checkInRecorder,
+            this.jsonProvider
         );
 
         mockedConsumerResource = Mockito.spy(consumerResource);
@@ -458,7 +474,9 @@ public class ConsumerResourceTest {
             this.contentOverrideValidator,
             this.consumerContentOverrideCurator,
             this.entCertGenerator,
-            this.environmentContentCurator
+            this.environmentContentCurator,
+            this.checkInRecorder,
+            this.jsonProvider
         );
 
         // Fixme throw custom exception from generator instead of generic RuntimeException
@@ -972,6 +990,125 @@ public class ConsumerResourceTest {
         assertEquals(0, actual.size());
     }
 
+    private JsonNode exportJsonCertificates(Consumer consumer, String serials) throws IOException {
+        HttpHeaders headers = mock(HttpHeaders.class);
+        doReturn(List.of(MediaType.APPLICATION_JSON)).when(headers).getRequestHeader("accept");
+        HttpRequest request = mock(HttpRequest.class);
+        doReturn(headers).when(request).getHttpHeaders();
+        ResteasyContext.pushContext(HttpRequest.class, request);
+
+        ObjectMapper mapper = new JsonProvider(false)
+            .locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
+        doReturn(mapper).when(this.jsonProvider).locateMapper(any(), any());
+
+        Object output = this.consumerResource.exportCertificates(consumer.getUuid(), serials);
+        assertTrue(output instanceof StreamingOutput);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ((StreamingOutput) output).write(stream);
+
+        return mapper.readTree(stream.toByteArray());
+    }
+
+    private void mockStreamedCertificates(List<EntitlementCertificate> certificates) {
+        doAnswer(invocation -> {
+            Collection<Long> serials = invocation.getArgument(1);
+            ResultProcessor<EntitlementCertificate> processor = invocation.getArgument(2);
+
+            int count = 0;
+            for (EntitlementCertificate cert : certificates) {
+                if (serials == null || serials.isEmpty() || serials.contains(cert.getSerial().getId())) {
+                    processor.process(cert);
+                    ++count;
+                }
+            }
+
+            return count;
+        }).when(this.entitlementCertServiceAdapter).forEachForConsumer(any(Consumer.class), any(), any());
+    }
+
+    private void assertCertificateJson(Certificate expected, JsonNode actual) {
+        assertTrue(actual.isObject());
+        assertEquals(expected.getKey(), actual.get("key").asText());
+        assertEquals(expected.getCert(), actual.get("cert").asText());
+        assertEquals(expected.getSerial().getId(), actual.get("serial").get("id").asLong());
+    }
+
+    @Test
+    public void testExportCertificatesStreamsJsonArrayIncludingContentAccessCert() throws IOException {
+        Consumer consumer = createConsumer();
+        doReturn(consumer).when(consumerCurator).verifyAndLookupConsumer(consumer.getUuid());
+
+        EntitlementCertificate cert1 = createEntitlementCertificate("key-1", "cert-1", 1001L);
+        EntitlementCertificate cert2 = createEntitlementCertificate("key-2", "cert-2", 1002L);
+        this.mockStreamedCertificates(List.of(cert1, cert2));
+
+        ContentAccessCertificate scaCert = createContentAccessCertificate("sca-key", "sca-cert", 18084729L);
+        doReturn(scaCert).when(contentAccessManager).getCertificate(any(Consumer.class));
+
+        JsonNode actual = this.exportJsonCertificates(consumer, null);
+
+        assertTrue(actual.isArray());
+        assertEquals(3, actual.size());
+        assertCertificateJson(cert1, actual.get(0));
+        assertCertificateJson(cert2, actual.get(1));
+        assertCertificateJson(scaCert, actual.get(2));
+
+        verify(this.entitlementCertServiceAdapter)
+            .forEachForConsumer(eq(consumer), eq(Collections.emptySet()), any());
+    }
+
+    @Test
+    public void testExportCertificatesStreamsOnlyRequestedSerials() throws IOException {
+        Consumer consumer = createConsumer();
+        doReturn(consumer).when(consumerCurator).verifyAndLookupConsumer(consumer.getUuid());
+
+        EntitlementCertificate cert1 = createEntitlementCertificate("key-1", "cert-1", 1001L);
+        EntitlementCertificate cert2 = createEntitlementCertificate("key-2", "cert-2", 1002L);
+        this.mockStreamedCertificates(List.of(cert1, cert2));
+
+        ContentAccessCertificate scaCert = createContentAccessCertificate("sca-key", "sca-cert", 18084729L);
+        doReturn(scaCert).when(contentAccessManager).getCertificate(any(Consumer.class));
+
+        JsonNode actual = this.exportJsonCertificates(consumer, "1002");
+
+        assertTrue(actual.isArray());
+        assertEquals(1, actual.size());
+        assertCertificateJson(cert2, actual.get(0));
+
+        verify(this.entitlementCertServiceAdapter)
+            .forEachForConsumer(eq(consumer), eq(Set.of(1002L)), any());
+    }
+
+    @Test
+    public void testExportCertificatesStreamsRequestedContentAccessCertSerial() throws IOException {
+        Consumer consumer = createConsumer();
+        doReturn(consumer).when(consumerCurator).verifyAndLookupConsumer(consumer.getUuid());
+
+        this.mockStreamedCertificates(List.of(createEntitlementCertificate("key-1", "cert-1", 1001L)));
+
+        ContentAccessCertificate scaCert = createContentAccessCertificate("sca-key", "sca-cert", 18084729L);
+        doReturn(scaCert).when(contentAccessManager).getCertificate(any(Consumer.class));
+
+        JsonNode actual = this.exportJsonCertificates(consumer, "18084729");
+
+        assertTrue(actual.isArray());
+        assertEquals(1, actual.size());
+        assertCertificateJson(scaCert, actual.get(0));
+    }
+
+    @Test
+    public void testExportCertificatesStreamsEmptyJsonArray() throws IOException {
+        Consumer consumer = createConsumer();
+        doReturn(consumer).when(consumerCurator).verifyAndLookupConsumer(consumer.getUuid());
+        this.mockStreamedCertificates(List.of());
+
+        JsonNode actual = this.exportJsonCertificates(consumer, null);
+
+        assertTrue(actual.isArray());
+        assertEquals(0, actual.size());
+    }
+
     @Test
     void shouldThrowWhenConsumerNotFound() {
         when(consumerCurator.verifyAndLookupConsumer(anyString()))
@@ -46,6 +46,7 @@ import org.candlepin.audit.EventFactory;
 import org.candlepin.audit.EventSink;
 import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.config.Configuration;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateGenerator;
 import org.candlepin.controller.Entitler;
@@ -100,6 +101,7 @@ import org.candlepin.resource.util.ConsumerEnricher;
 import org.candlepin.resource.util.ConsumerTypeValidator;
 import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.resource.validation.DTOValidator;
+import org.candlepin.resteasy.JsonProvider;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.service.IdentityCertServiceAdapter;
 import org.candlepin.service.ProductServiceAdapter;
@@ -181,6 +183,8 @@ public class ConsumerResourceUpdateTest {
     @Mock private ContentOverrideValidator contentOverrideValidator;
     @Mock private EnvironmentContentCurator environmentContentCurator;
     @Mock private EntitlementCertificateGenerator entCertGenerator;
+    @Mock private ConsumerCheckInRecorder checkInRecorder;
+    @Mock private JsonProvider jsonProvider;
 
     private ModelTranslator translator;
 
@@ -238,7 +242,9 @@ public class ConsumerResourceUpdateTest {
             this.contentOverrideValidator,
             this.consumerContentOverrideCurator,
             this.entCertGenerator,
-            this.environmentContentCurator
+            this.environmentContentCurator,
+            this.checkInRecorder,
+            this.jsonProvider
         );
 
         when(this.complianceRules.getStatus(any(Consumer.class), any(Date.class), any(Boolean.class),
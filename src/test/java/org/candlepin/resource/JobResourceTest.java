@@ -33,6 +33,7 @@ import static org.mockito.Mockito.verify;
 
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobException;
+import org.candlepin.async.JobLane;
 import org.candlepin.async.JobManager;
 import org.candlepin.async.JobManager.ManagerState;
 import org.candlepin.async.StateManagementException;
@@ -40,6 +41,7 @@ import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.dto.api.server.v1.AsyncJobStatusDTO;
+import org.candlepin.dto.api.server.v1.JobLaneStatusDTO;
 import org.candlepin.dto.api.server.v1.SchedulerStatusDTO;
 import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.exceptions.ForbiddenException;
@@ -82,6 +84,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.function.Function;
@@ -151,6 +154,38 @@ public class JobResourceTest extends DatabaseTestFixture {
         assertEquals(expected, output.getIsRunning());
     }
 
+    @Test
+    public void testGetSchedulerStatusIncludesJobLanes() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "fast");
+        this.config.setProperty(ConfigProperties.laneConfig("fast", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "job_a");
+        this.config.setProperty(ConfigProperties.laneConfig("fast",
+            ConfigProperties.ASYNC_JOBS_LANE_PRIORITY), "7");
+
+        doReturn(ManagerState.RUNNING).when(this.jobManager).getManagerState();
+        doReturn(JobLane.fromConfig(this.config)).when(this.jobManager).getJobLanes();
+        doReturn(Map.of("job_a", 3L, "job_b", 2L, "job_c", 1L)).when(this.jobCurator)
+            .getJobCountsByKey(List.of(JobState.QUEUED));
+
+        JobResource resource = this.buildJobResource();
+        SchedulerStatusDTO output = resource.getSchedulerStatus();
+
+        assertNotNull(output);
+        assertNotNull(output.getLanes());
+        assertEquals(2, output.getLanes().size());
+
+        JobLaneStatusDTO fast = output.getLanes().get(0);
+        assertEquals("fast", fast.getName());
+        assertEquals(List.of("job_a"), fast.getJobKeys());
+        assertEquals(7, fast.getPriority());
+        assertEquals(3L, fast.getQueued());
+
+        JobLaneStatusDTO defaultLane = output.getLanes().get(1);
+        assertEquals(JobLane.DEFAULT_LANE, defaultLane.getName());
+        assertEquals(3L, defaultLane.getQueued());
+        assertEquals(0, defaultLane.getRunning());
+    }
+
     @Test
     public void testSetSchedulerStatusToRunning() {
         doReturn(ManagerState.RUNNING).when(this.jobManager).getManagerState();
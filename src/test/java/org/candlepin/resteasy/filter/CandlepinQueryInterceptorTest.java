@@ -14,9 +14,11 @@
  */
 package org.candlepin.resteasy.filter;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.model.Owner;
 import org.candlepin.paging.PageRequest;
 import org.candlepin.resteasy.JsonProvider;
@@ -117,7 +119,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
     public void testWriteCandlepinQueryContents() throws IOException {
         List<Owner> owners = this.ownerCurator.listAll().list();
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -168,7 +171,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         pageRequest.setSortBy(sortBy);
         pageRequest.setOrder(order);
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -196,6 +200,26 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         verify(this.mockJsonGenerator, times(1)).writeEndArray();
     }
 
+    @Test
+    public void testKeysetPagingIsRejected() {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setKeyset(true);
+        pageRequest.setPage(1);
+        pageRequest.setPerPage(2);
+
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
+
+        ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+        ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
+        doReturn(this.ownerCurator.listAll()).when(responseContext).getEntity();
+
+        ResteasyContext.pushContext(PageRequest.class, pageRequest);
+
+        assertThrows(BadRequestException.class, () -> cqi.filter(requestContext, responseContext));
+        verify(responseContext, never()).setEntity(any());
+    }
+
     // These tests can't possibly be all-inclusive, so we'll just test most our common cases
 
     @Test
@@ -203,7 +227,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         // List of entities
         List<Owner> owners = this.ownerCurator.listAll().list();
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -220,7 +245,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         // Single entity
         Owner owner = this.ownerCurator.listAll().list().get(0);
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -236,7 +262,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         doThrow(new RuntimeException()).when(this.mockJsonProvider)
             .locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         try {
             ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
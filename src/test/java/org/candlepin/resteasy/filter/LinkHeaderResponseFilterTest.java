@@ -15,6 +15,7 @@
 package org.candlepin.resteasy.filter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.eq;
@@ -25,6 +26,7 @@ import static org.mockito.Mockito.when;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.MapConfiguration;
 import org.candlepin.paging.Page;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 
 import org.apache.commons.lang3.StringUtils;
@@ -182,6 +184,23 @@ public class LinkHeaderResponseFilterTest {
         assertEquals(URI.create("https://localhost:8443/candlepin/resource"), returned);
     }
 
+    @Test
+    public void testDoesNotAddCursorQueryParameter() {
+        MultivaluedMap<String, String> map = new MultivaluedMapImpl<>();
+        map.add("cursor", "abc");
+        map.add("count", "true");
+        UriBuilder bu = UriBuilder.fromUri("https://localhost:8443/candlepin/resource");
+        URI returned = interceptor.addUnchangingQueryParams(bu, map).build();
+        assertEquals(URI.create("https://localhost:8443/candlepin/resource?count=true"), returned);
+    }
+
+    @Test
+    public void testBuildCursorLink() {
+        UriBuilder bu = UriBuilder.fromUri("https://localhost:8443/candlepin/resource");
+        assertEquals("https://localhost:8443/candlepin/resource?cursor=abc",
+            interceptor.buildCursorLink(bu, "abc"));
+    }
+
     @Test
     public void testBuildPageLink() {
         UriBuilder bu = UriBuilder.fromUri("https://localhost:8443/candlepin/resource");
@@ -400,4 +419,67 @@ public class LinkHeaderResponseFilterTest {
         // Make sure that the page variable is only contained 4 times (once for each URI)
         assertEquals(4, StringUtils.countMatches(header, "&page="));
     }
+
+    @Test
+    public void testPostProcessWithKeysetPaging() throws Exception {
+        PageCursor cursor = PageCursor.of("value", "id");
+
+        when(page.getPageRequest()).thenReturn(pageRequest);
+        when(page.getNextCursor()).thenReturn(cursor);
+        when(pageRequest.isPaging()).thenReturn(true);
+        when(pageRequest.isKeyset()).thenReturn(true);
+        when(config.containsKey(eq(this.apiUrlPrefixKey))).thenReturn(false);
+
+        MultivaluedMap<String, Object> map = new MultivaluedMapImpl<>();
+
+        ResteasyContext.pushContext(Page.class, page);
+
+        mockReq = MockHttpRequest.create("GET",
+            new URI("/candlepin/resource?per_page=10&cursor=abc"),
+            new URI("https://example.com"));
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+        when(mockResponseContext.getHeaders()).thenReturn(map);
+
+        interceptor.filter(mockRequestContext, mockResponseContext);
+        String header = (String) map.getFirst(LinkHeaderResponseFilter.LINK_HEADER);
+
+        // Keyset pages can only be walked forward from the first page
+        assertTrue(header.contains("rel=\"first\""));
+        assertTrue(header.contains("rel=\"next\""));
+        assertFalse(header.contains("rel=\"last\""));
+        assertFalse(header.contains("rel=\"prev\""));
+
+        assertTrue(header.contains("cursor=" + cursor.encode()));
+        assertFalse(header.contains("cursor=abc"));
+        assertEquals(2, StringUtils.countMatches(header, "cursor="));
+
+        // No count was requested
+        assertNull(map.getFirst(LinkHeaderResponseFilter.TOTAL_RECORDS_COUNT));
+    }
+
+    @Test
+    public void testPostProcessWithKeysetPagingOnLastPage() throws Exception {
+        when(page.getPageRequest()).thenReturn(pageRequest);
+        when(page.getMaxRecords()).thenReturn(15);
+        when(pageRequest.isPaging()).thenReturn(true);
+        when(pageRequest.isKeyset()).thenReturn(true);
+        when(config.containsKey(eq(this.apiUrlPrefixKey))).thenReturn(false);
+
+        MultivaluedMap<String, Object> map = new MultivaluedMapImpl<>();
+
+        ResteasyContext.pushContext(Page.class, page);
+
+        mockReq = MockHttpRequest.create("GET",
+            new URI("/candlepin/resource?per_page=10&cursor=abc&count=true"),
+            new URI("https://example.com"));
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+        when(mockResponseContext.getHeaders()).thenReturn(map);
+
+        interceptor.filter(mockRequestContext, mockResponseContext);
+        String header = (String) map.getFirst(LinkHeaderResponseFilter.LINK_HEADER);
+
+        assertTrue(header.contains("rel=\"first\""));
+        assertFalse(header.contains("rel=\"next\""));
+        assertEquals(15, map.getFirst(LinkHeaderResponseFilter.TOTAL_RECORDS_COUNT));
+    }
 }
@@ -18,10 +18,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.guice.CommonI18nProvider;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 
 import org.jboss.resteasy.core.ResteasyContext;
@@ -175,4 +177,77 @@ public class PageRequestFilterTest {
         assertEquals("id", p.getSortBy());
     }
 
+    @Test
+    public void testEmptyCursorRequestsFirstKeysetPage() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=&per_page=10");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertTrue(p.isKeyset());
+        assertTrue(p.isPaging());
+        assertNull(p.getCursor());
+        assertEquals(Integer.valueOf(10), p.getPerPage());
+        assertEquals(PageRequest.DEFAULT_PAGE, p.getPage());
+        assertFalse(p.isCountRequested());
+    }
+
+    @Test
+    public void testCursorIsDecoded() throws Exception {
+        PageCursor cursor = PageCursor.of("value", "id");
+
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=" + cursor.encode() + "&count=true");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertTrue(p.isKeyset());
+        assertEquals(cursor, p.getCursor());
+        assertEquals(PageRequest.DEFAULT_PER_PAGE, p.getPerPage());
+        assertTrue(p.isCountRequested());
+    }
+
+    @Test
+    public void testOffsetPagingAlwaysCounts() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?page=2&count=false");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertFalse(p.isKeyset());
+        assertTrue(p.isCountRequested());
+    }
+
+    @Test
+    public void testInvalidCursor() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=bad-cursor");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
+
+    @Test
+    public void testDoesNotAllowCursorAndPage() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=&page=2");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
+
+    @Test
+    public void testBadCountValue() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=&count=maybe");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
 }
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+
+public class CertificateGenerationExecutorTest {
+
+    private CandlepinCommonTestConfig config;
+
+    @BeforeEach
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+    }
+
+    private List<CertificateGenerationExecutor.Task<String>> buildTasks(int count, Set<Thread> threads) {
+        List<CertificateGenerationExecutor.Task<String>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < count; ++i) {
+            String value = "cert-" + i;
+            tasks.add(() -> {
+                threads.add(Thread.currentThread());
+                return value;
+            });
+        }
+
+        return tasks;
+    }
+
+    @Test
+    public void resultsAreReturnedInTaskOrder() throws Exception {
+        this.config.setProperty(ConfigProperties.ENTITLEMENT_CERT_GENERATION_THREADS, "4");
+        CertificateGenerationExecutor executor = new CertificateGenerationExecutor(this.config);
+
+        List<String> results = executor.runAll(this.buildTasks(50, ConcurrentHashMap.newKeySet()));
+
+        assertTrue(executor.isParallel());
+        assertEquals(50, results.size());
+        for (int i = 0; i < results.size(); ++i) {
+            assertEquals("cert-" + i, results.get(i));
+        }
+    }
+
+    @Test
+    public void tasksRunOnCallingThreadWhenDisabled() throws Exception {
+        this.config.setProperty(ConfigProperties.ENTITLEMENT_CERT_GENERATION_THREADS, "1");
+        CertificateGenerationExecutor executor = new CertificateGenerationExecutor(this.config);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        executor.runAll(this.buildTasks(10, threads));
+
+        assertFalse(executor.isParallel());
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void taskFailuresAreRethrown() {
+        this.config.setProperty(ConfigProperties.ENTITLEMENT_CERT_GENERATION_THREADS, "4");
+        CertificateGenerationExecutor executor = new CertificateGenerationExecutor(this.config);
+
+        List<CertificateGenerationExecutor.Task<String>> tasks = this.buildTasks(10,
+            ConcurrentHashMap.newKeySet());
+        tasks.add(5, () -> {
+            throw new GeneralSecurityException("signing failed");
+        });
+
+        GeneralSecurityException e = assertThrows(GeneralSecurityException.class,
+            () -> executor.runAll(tasks));
+        assertEquals("signing failed", e.getMessage());
+    }
+}
@@ -224,7 +224,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateGenerationExecutor(config));
 
         product = TestUtil.createProduct("12345", "a product");
         product.setAttribute(Product.Attributes.VERSION, "version");
@@ -397,7 +398,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateGenerationExecutor(config));
 
         PromotedContent promotedContent = new PromotedContent(prefix("/prefix"));
         X509Certificate result = certServiceAdapter.createX509Certificate(consumer, owner, pool,
@@ -427,7 +429,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateGenerationExecutor(config));
 
         // pool start date is more than an hour ago, use it
         Calendar cal = Calendar.getInstance();
@@ -821,7 +824,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            mockConfig, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            mockConfig, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateGenerationExecutor(mockConfig));
     }
 
     @Test
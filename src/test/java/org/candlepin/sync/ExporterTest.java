@@ -14,6 +14,7 @@
  */
 package org.candlepin.sync;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -35,6 +36,7 @@ import org.candlepin.dto.StandardTranslator;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.guice.PrincipalProvider;
 import org.candlepin.model.CandlepinQuery;
+import org.candlepin.model.Cdn;
 import org.candlepin.model.CdnCurator;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.Consumer;
@@ -69,10 +71,12 @@ import org.candlepin.version.VersionUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -81,11 +85,16 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
+import java.security.Signature;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -133,8 +142,17 @@ public class ExporterTest {
     private ModelTranslator translator;
     private ContentAccessManager contentAccessManager;
 
+    private static KeyPair signingKeyPair;
+
+    @BeforeAll
+    public static void generateSigningKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        signingKeyPair = generator.generateKeyPair();
+    }
+
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws Exception {
         ctc = mock(ConsumerTypeCurator.class);
         mockEnvironmentCurator = mock(EnvironmentCurator.class);
         oc = mock(OwnerCurator.class);
@@ -161,6 +179,24 @@ public class ExporterTest {
         su = new SyncUtils(config);
         contentAccessManager = mock(ContentAccessManager.class);
         when(exportRules.canExport(any(Entitlement.class))).thenReturn(Boolean.TRUE);
+
+        CandlepinQuery<Entitlement> noEntitlements = this.mockQuery(Collections.emptyList());
+        when(ec.findByConsumer(any(Consumer.class))).thenReturn(noEntitlements);
+
+        when(pki.getSHA256WithRSASignature()).thenAnswer(invocation -> {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(signingKeyPair.getPrivate());
+            return signature;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CandlepinQuery<T> mockQuery(Collection<T> elements) {
+        CandlepinQuery<T> query = mock(CandlepinQuery.class);
+        when(query.iterate()).thenAnswer(invocation -> new MockResultIterator<>(elements.iterator()));
+        when(query.iterator()).thenAnswer(invocation -> elements.iterator());
+
+        return query;
     }
 
     private KeyPairData buildConsumerKeyPairData() {
@@ -237,7 +273,10 @@ public class ExporterTest {
         when(mrules.getRules()).thenReturn("foobar");
         when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
         when(rc.getRules()).thenReturn(mrules);
-        when(consumer.getEntitlements()).thenReturn(entitlements);
+        CandlepinQuery<Entitlement> entitlementQuery = this.mockQuery(entitlements);
+        when(ec.findByConsumer(consumer)).thenReturn(entitlementQuery);
+        // Only the products are verified here, skip exporting the mocked entitlement itself
+        when(exportRules.canExport(ent)).thenReturn(Boolean.FALSE);
         when(psa.getProductCertificate(any(String.class), any(String.class))).thenReturn(pcert);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -302,7 +341,8 @@ public class ExporterTest {
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
 
-        when(ec.listByConsumer(consumer)).thenReturn(entitlements);
+        CandlepinQuery<Entitlement> entitlementQuery = this.mockQuery(entitlements);
+        when(ec.findByConsumer(consumer)).thenReturn(entitlementQuery);
         when(ent.isDirty()).thenReturn(true);
         idcert.setSerial(new CertificateSerial(10L, new Date()));
         idcert.setKey("euh0876puhapodifbvj094");
@@ -378,6 +418,89 @@ public class ExporterTest {
         assertTrue(new File("/tmp/meta.json").delete());
     }
 
+    @Test
+    public void streamingExportMatchesDirectoryExport() throws Exception {
+        config.setProperty(ConfigProperties.SYNC_WORK_DIR, "/tmp/");
+        Rules mrules = mock(Rules.class);
+        Consumer consumer = mock(Consumer.class);
+        Principal principal = mock(Principal.class);
+        IdentityCertificate idcert = new IdentityCertificate();
+
+        when(consumer.getUuid()).thenReturn("consumer-uuid");
+        when(mrules.getRules()).thenReturn("foobar");
+        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
+        when(rc.getRules()).thenReturn(mrules);
+        when(pprov.get()).thenReturn(principal);
+        when(principal.getUsername()).thenReturn("testUser");
+
+        idcert.setSerial(new CertificateSerial(10L, new Date()));
+        idcert.setKey("euh0876puhapodifbvj094");
+        idcert.setCert("hpj-08ha-w4gpoknpon*)&^%#");
+        idcert.setCreated(new Date());
+        idcert.setUpdated(new Date());
+        when(consumer.getIdCert()).thenReturn(idcert);
+
+        CandlepinQuery<ConsumerType> typeQuery = this.mockQuery(List.of(new ConsumerType("system")));
+        when(ctc.listAll()).thenReturn(typeQuery);
+
+        CandlepinQuery<Cdn> cdnQuery = this.mockQuery(Collections.emptyList());
+        when(cdnc.listAll()).thenReturn(cdnQuery);
+
+        Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ecsa, pe, psa,
+            pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, su,
+            translator, contentAccessManager);
+
+        config.setProperty(ConfigProperties.SYNC_EXPORT_STREAMING, "false");
+        File directoryExport = e.getFullExport(consumer, null, null, null);
+
+        config.setProperty(ConfigProperties.SYNC_EXPORT_STREAMING, "true");
+        File streamingExport = e.getFullExport(consumer, null, null, null);
+
+        try {
+            assertEquals(directoryExport.getName(), streamingExport.getName());
+
+            Map<String, byte[]> directoryArchive = readArchive(Files.readAllBytes(directoryExport.toPath()));
+            Map<String, byte[]> streamingArchive = readArchive(Files.readAllBytes(streamingExport.toPath()));
+            assertEquals(directoryArchive.keySet(), streamingArchive.keySet());
+
+            // The signature of the streamed archive covers the inner archive, as written
+            byte[] innerArchive = streamingArchive.get("consumer_export.zip");
+            Signature verifier = Signature.getInstance("SHA256withRSA");
+            verifier.initVerify(signingKeyPair.getPublic());
+            verifier.update(innerArchive);
+            assertTrue(verifier.verify(streamingArchive.get("signature")));
+
+            Map<String, byte[]> expected = readArchive(directoryArchive.get("consumer_export.zip"));
+            Map<String, byte[]> actual = readArchive(innerArchive);
+            assertEquals(expected.keySet(), actual.keySet());
+            assertTrue(actual.containsKey("export/consumer_types/system.json"));
+
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                // The export metadata includes its creation date, which differs between exports
+                if (!entry.getKey().equals("export/meta.json")) {
+                    assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+                }
+            }
+        }
+        finally {
+            FileUtils.deleteDirectory(directoryExport.getParentFile());
+            FileUtils.deleteDirectory(streamingExport.getParentFile());
+        }
+    }
+
+    private static Map<String, byte[]> readArchive(byte[] archive) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), zis.readAllBytes());
+            }
+        }
+
+        return entries;
+    }
+
     @Test
     public void exportIdentityCertificate() throws Exception {
         config.setProperty(ConfigProperties.SYNC_WORK_DIR, "/tmp/");
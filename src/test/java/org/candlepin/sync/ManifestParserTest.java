@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+
+public class ManifestParserTest {
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setUp() {
+        this.mapper = new SyncUtils(new CandlepinCommonTestConfig()).getObjectMapper();
+    }
+
+    private byte[] serialize(Object object) throws IOException {
+        return this.mapper.writeValueAsBytes(object);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 4 })
+    public void parsedFilesRetainSubmissionOrder(int threads) throws Exception {
+        File file = Files.createTempFile("manifest_parser_test", ".json").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), this.serialize(new EntitlementDTO().setId("ent-file")));
+
+        try (ManifestParser parser = new ManifestParser(this.mapper, threads)) {
+            assertTrue(parser.isEmpty());
+
+            for (int i = 0; i < 50; ++i) {
+                parser.addProduct("prod-" + i, this.serialize(new ProductDTO().setId("prod-" + i)));
+                parser.addEntitlement(this.serialize(new EntitlementDTO().setId("ent-" + i).setQuantity(i)));
+            }
+
+            parser.addEntitlement(file);
+            assertFalse(parser.isEmpty());
+
+            Map<String, ProductDTO> products = parser.getProducts();
+            List<EntitlementDTO> entitlements = parser.getEntitlements();
+
+            assertEquals(50, products.size());
+            assertEquals(51, entitlements.size());
+
+            int i = 0;
+            for (Map.Entry<String, ProductDTO> entry : products.entrySet()) {
+                assertEquals("prod-" + i, entry.getKey());
+                assertEquals("prod-" + i, entry.getValue().getId());
+
+                assertEquals("ent-" + i, entitlements.get(i).getId());
+                assertEquals(i, entitlements.get(i).getQuantity().intValue());
+                ++i;
+            }
+
+            assertEquals("ent-file", entitlements.get(50).getId());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 4 })
+    public void entitlementsAreFetchedInBatches(int threads) throws Exception {
+        try (ManifestParser parser = new ManifestParser(this.mapper, threads)) {
+            for (int i = 0; i < 5; ++i) {
+                parser.addEntitlement(this.serialize(new EntitlementDTO().setId("ent-" + i)));
+            }
+
+            List<EntitlementDTO> first = parser.nextEntitlements(2);
+            List<EntitlementDTO> second = parser.nextEntitlements(2);
+            List<EntitlementDTO> remaining = parser.getEntitlements();
+
+            assertEquals(List.of("ent-0", "ent-1"), first.stream().map(EntitlementDTO::getId)
+                .collect(Collectors.toList()));
+            assertEquals(List.of("ent-2", "ent-3"), second.stream().map(EntitlementDTO::getId)
+                .collect(Collectors.toList()));
+            assertEquals(List.of("ent-4"), remaining.stream().map(EntitlementDTO::getId)
+                .collect(Collectors.toList()));
+            assertTrue(parser.nextEntitlements(2).isEmpty());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 4 })
+    public void malformedFileFailsWithIOException(int threads) throws Exception {
+        try (ManifestParser parser = new ManifestParser(this.mapper, threads)) {
+            parser.addProduct("prod", this.serialize(new ProductDTO().setId("prod")));
+            parser.addEntitlement("{ \"id\": ".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(1, parser.getProducts().size());
+            assertThrows(IOException.class, parser::getEntitlements);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+
+
+public class FileSystemManifestServiceTest {
+
+    @TempDir
+    public Path tempDir;
+
+    private Path storeDir;
+    private FileSystemManifestService service;
+
+    @BeforeEach
+    public void init() {
+        this.storeDir = this.tempDir.resolve("store");
+
+        CandlepinCommonTestConfig config = new CandlepinCommonTestConfig();
+        config.setProperty(ConfigProperties.SYNC_MANIFEST_STORE_DIR, this.storeDir.toString());
+
+        this.service = new FileSystemManifestService(config);
+    }
+
+    private File createFile(String name, String content) throws Exception {
+        Path file = this.tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        return file.toFile();
+    }
+
+    private long countBlobs() throws Exception {
+        Path blobs = this.storeDir.resolve("blobs");
+        if (!Files.exists(blobs)) {
+            return 0;
+        }
+
+        try (Stream<Path> files = Files.walk(blobs)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    public void testStoreAndGet() throws Exception {
+        File file = this.createFile("manifest.zip", "manifest content");
+
+        ManifestFile stored = this.service.store(ManifestFileType.EXPORT, file, "admin", "consumer-uuid");
+        assertNotNull(stored.getId());
+
+        ManifestFile fetched = this.service.get(stored.getId());
+        assertNotNull(fetched);
+        assertEquals(stored.getId(), fetched.getId());
+        assertEquals("manifest.zip", fetched.getName());
+        assertEquals("consumer-uuid", fetched.getTargetId());
+
+        try (InputStream input = fetched.getInputStream()) {
+            assertArrayEquals(Files.readAllBytes(file.toPath()), input.readAllBytes());
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        fetched.writeTo(output);
+        assertArrayEquals(Files.readAllBytes(file.toPath()), output.toByteArray());
+    }
+
+    @Test
+    public void testGetUnknownOrInvalidId() {
+        assertNull(this.service.get("0123456789abcdef0123456789abcdef"));
+        assertNull(this.service.get("../../etc/passwd"));
+        assertNull(this.service.get(null));
+    }
+
+    @Test
+    public void testIdenticalFilesShareBlob() throws Exception {
+        File file1 = this.createFile("manifest1.zip", "same content");
+        File file2 = this.createFile("manifest2.zip", "same content");
+
+        ManifestFile stored1 = this.service.store(ManifestFileType.EXPORT, file1, "admin", "consumer1");
+        ManifestFile stored2 = this.service.store(ManifestFileType.EXPORT, file2, "admin", "consumer2");
+
+        assertNotEquals(stored1.getId(), stored2.getId());
+        assertEquals(1, this.countBlobs());
+
+        // The blob must remain until its last reference is deleted
+        assertTrue(this.service.delete(stored1.getId()));
+        assertNull(this.service.get(stored1.getId()));
+        assertNotNull(this.service.get(stored2.getId()));
+        assertEquals(1, this.countBlobs());
+
+        assertTrue(this.service.delete(stored2.getId()));
+        assertFalse(this.service.delete(stored2.getId()));
+        assertEquals(0, this.countBlobs());
+    }
+
+    @Test
+    public void testDeleteByTypeAndTarget() throws Exception {
+        ManifestFile export1 = this.service.store(ManifestFileType.EXPORT,
+            this.createFile("export1.zip", "export 1"), "admin", "target");
+        ManifestFile export2 = this.service.store(ManifestFileType.EXPORT,
+            this.createFile("export2.zip", "export 2"), "admin", "other");
+        ManifestFile import1 = this.service.store(ManifestFileType.IMPORT,
+            this.createFile("import1.zip", "import 1"), "admin", "target");
+
+        assertEquals(1, this.service.delete(ManifestFileType.EXPORT, "target"));
+
+        assertNull(this.service.get(export1.getId()));
+        assertNotNull(this.service.get(export2.getId()));
+        assertNotNull(this.service.get(import1.getId()));
+        assertEquals(2, this.countBlobs());
+    }
+
+    @Test
+    public void testDeleteExpired() throws Exception {
+        ManifestFile expired = this.service.store(ManifestFileType.EXPORT,
+            this.createFile("expired.zip", "expired"), "admin", "target");
+
+        Date expiry = new Date(System.currentTimeMillis() + 60000);
+        assertEquals(1, this.service.deleteExpired(expiry));
+        assertNull(this.service.get(expired.getId()));
+        assertEquals(0, this.countBlobs());
+
+        ManifestFile current = this.service.store(ManifestFileType.EXPORT,
+            this.createFile("current.zip", "current"), "admin", "target");
+
+        assertEquals(0, this.service.deleteExpired(new Date(System.currentTimeMillis() - 60000)));
+        assertNotNull(this.service.get(current.getId()));
+    }
+
+    @Test
+    public void testDeleteExpiredRemovesOrphanedFiles() throws Exception {
+        ManifestFile stored = this.service.store(ManifestFileType.EXPORT,
+            this.createFile("manifest.zip", "content"), "admin", "target");
+
+        Path orphanBlob = this.storeDir.resolve("blobs").resolve("ab").resolve("ab0000");
+        Path orphanStaged = this.storeDir.resolve("tmp").resolve("manifest-0.tmp");
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 120000);
+
+        Files.createDirectories(orphanBlob.getParent());
+        Files.write(orphanBlob, new byte[] { 1 });
+        Files.setLastModifiedTime(orphanBlob, old);
+        Files.write(orphanStaged, new byte[] { 1 });
+        Files.setLastModifiedTime(orphanStaged, old);
+
+        assertEquals(0, this.service.deleteExpired(new Date(System.currentTimeMillis() - 60000)));
+
+        assertFalse(Files.exists(orphanBlob));
+        assertFalse(Files.exists(orphanStaged));
+        assertNotNull(this.service.get(stored.getId()));
+        assertEquals(1, this.countBlobs());
+    }
+
+    @Test
+    public void testOperationsOnEmptyStore() {
+        assertEquals(0, this.service.deleteExpired(new Date()));
+        assertEquals(0, this.service.delete(ManifestFileType.IMPORT, "target"));
+        assertFalse(this.service.delete("0123456789abcdef0123456789abcdef"));
+    }
+
+    @Test
+    public void testServicesSharingStoreKeepReferencedBlobs() throws Exception {
+        // A second service on the same directory stands in for another node sharing the store
+        CandlepinCommonTestConfig config = new CandlepinCommonTestConfig();
+        config.setProperty(ConfigProperties.SYNC_MANIFEST_STORE_DIR, this.storeDir.toString());
+        FileSystemManifestService other = new FileSystemManifestService(config);
+
+        File file = this.createFile("manifest.zip", "shared content");
+        List<String> kept = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> storer = executor.submit(() -> {
+                for (int i = 0; i < 50; ++i) {
+                    kept.add(this.service.store(ManifestFileType.EXPORT, file, "admin", "kept").getId());
+                }
+            });
+
+            Future<?> deleter = executor.submit(() -> {
+                for (int i = 0; i < 50; ++i) {
+                    other.store(ManifestFileType.EXPORT, file, "admin", "deleted");
+                    other.delete(ManifestFileType.EXPORT, "deleted");
+                }
+            });
+
+            storer.get();
+            deleter.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(Files.exists(this.storeDir.resolve("store.lock")));
+        assertEquals(1, this.countBlobs());
+
+        for (String id : kept) {
+            assertNotNull(other.get(id));
+        }
+    }
+}
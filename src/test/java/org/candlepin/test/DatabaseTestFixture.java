@@ -67,6 +67,7 @@ import org.candlepin.model.PoolCurator;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductCertificateCurator;
 import org.candlepin.model.ProductCurator;
+import org.candlepin.model.RefreshFingerprintCurator;
 import org.candlepin.model.Role;
 import org.candlepin.model.RoleCurator;
 import org.candlepin.model.SourceSubscription;
@@ -155,6 +156,7 @@ public class DatabaseTestFixture {
     @Inject protected ProductCurator productCurator;
     @Inject protected ContentAccessCertificateCurator caCertCurator;
     @Inject protected PoolCurator poolCurator;
+    @Inject protected RefreshFingerprintCurator refreshFingerprintCurator;
     @Inject protected RoleCurator roleCurator;
     @Inject protected UserCurator userCurator;
     @Inject protected PermissionFactory permissionFactory;
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+
+public class TimingStatisticsTest {
+
+    @Test
+    public void testEmptyStatistics() {
+        TimingStatistics stats = new TimingStatistics();
+
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getTotalMillis());
+        assertEquals(0, stats.getMaxMillis());
+        assertEquals(0.0, stats.getAverageMillis());
+    }
+
+    @Test
+    public void testRecord() {
+        TimingStatistics stats = new TimingStatistics();
+
+        stats.record(TimeUnit.MILLISECONDS.toNanos(10));
+        stats.record(TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertEquals(2, stats.getCount());
+        assertEquals(40, stats.getTotalMillis());
+        assertEquals(30, stats.getMaxMillis());
+        assertEquals(20.0, stats.getAverageMillis(), 0.0001);
+    }
+
+    @Test
+    public void testNegativeDurationsRecordedAsZero() {
+        TimingStatistics stats = new TimingStatistics();
+
+        stats.record(-1000);
+
+        assertEquals(1, stats.getCount());
+        assertEquals(0, stats.getTotalMillis());
+    }
+
+    @Test
+    public void testReset() {
+        TimingStatistics stats = new TimingStatistics();
+
+        stats.record(TimeUnit.MILLISECONDS.toNanos(10));
+        stats.reset();
+
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMaxMillis());
+    }
+}
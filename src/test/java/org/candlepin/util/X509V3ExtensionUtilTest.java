@@ -17,10 +17,14 @@ package org.candlepin.util;
 import static org.candlepin.util.X509Util.ARCH_FACT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.util.ContentPrefix;
 import org.candlepin.controller.util.PromotedContent;
@@ -33,6 +37,7 @@ import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductContent;
 import org.candlepin.model.dto.TinySubscription;
+import org.candlepin.pki.X509ByteExtensionWrapper;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.X509V3ExtensionUtil.NodePair;
 import org.candlepin.util.X509V3ExtensionUtil.PathNode;
@@ -46,11 +51,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 
@@ -61,6 +72,7 @@ public class X509V3ExtensionUtilTest {
     @BeforeEach
     public void init() {
         Configuration config = mock(Configuration.class);
+        when(config.getInt(ConfigProperties.CONTENT_PATH_CACHE_MAX)).thenReturn(10);
         EntitlementCurator ec = mock(EntitlementCurator.class);
         mapper = new ObjectMapper();
         util = new X509V3ExtensionUtil(config, ec, this.mapper);
@@ -275,6 +287,74 @@ public class X509V3ExtensionUtilTest {
         assertEquals("x86_64", certProds.getContent().get(0).getArches().get(0));
     }
 
+    private List<org.candlepin.model.dto.Product> createProductModels(List<String> paths) {
+        List<org.candlepin.model.dto.Content> contents = new ArrayList<>();
+        for (String path : paths) {
+            org.candlepin.model.dto.Content content = new org.candlepin.model.dto.Content();
+            content.setPath(path);
+            contents.add(content);
+        }
+
+        org.candlepin.model.dto.Product product = new org.candlepin.model.dto.Product();
+        product.setContent(contents);
+
+        return Collections.singletonList(product);
+    }
+
+    private List<String> createContentPaths(int count) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            paths.add(String.format("/content/dist/rhel/server/%d/$releasever/$basearch/repo%d/os",
+                i % 7, i));
+        }
+
+        return paths;
+    }
+
+    private byte[] encodeContentPaths(List<String> paths) throws IOException {
+        Set<X509ByteExtensionWrapper> extensions = util.getByteExtensions(this.createProductModels(paths));
+        assertEquals(1, extensions.size());
+
+        return extensions.iterator().next().getValue();
+    }
+
+    @Test
+    public void encodedContentPathsAreReusedForSameContentSet() throws IOException {
+        List<String> paths = this.createContentPaths(50);
+        byte[] encoded = this.encodeContentPaths(paths);
+
+        List<String> shuffled = new ArrayList<>(paths);
+        Collections.reverse(shuffled);
+        assertSame(encoded, this.encodeContentPaths(shuffled));
+
+        byte[] other = this.encodeContentPaths(paths.subList(0, 49));
+        assertNotSame(encoded, other);
+        assertEquals(new HashSet<>(paths.subList(0, 49)), new HashSet<>(util.hydrateContentPackage(other)));
+    }
+
+    @Test
+    public void concurrentlyEncodedContentPathsHydrateToOriginalPaths() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            List<List<String>> contentSets = new ArrayList<>();
+            for (int i = 1; i <= 40; i++) {
+                List<String> paths = this.createContentPaths(i * 5);
+                contentSets.add(paths);
+                futures.add(executor.submit(() -> this.encodeContentPaths(paths)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                List<String> hydrated = util.hydrateContentPackage(futures.get(i).get());
+                assertEquals(new HashSet<>(contentSets.get(i)), new HashSet<>(hydrated));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     private ContentPrefix emptyPrefix() {
         return envId -> "";
     }